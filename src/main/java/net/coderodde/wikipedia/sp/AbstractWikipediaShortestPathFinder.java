@@ -1,20 +1,30 @@
 package net.coderodde.wikipedia.sp;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import java.io.IOException;
-import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
-import java.net.URL;
 import java.net.URLEncoder;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import org.apache.commons.io.IOUtils;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.coderodde.wikipedia.sp.cache.MemoryNeighborCache;
+import net.coderodde.wikipedia.sp.cache.NeighborCache;
+import net.coderodde.wikipedia.sp.cache.NeighborKey;
+import net.coderodde.wikipedia.sp.cache.SingleFlight;
+import net.coderodde.wikipedia.sp.http.AdaptiveRateLimitingTransport;
+import net.coderodde.wikipedia.sp.http.HttpResponse;
+import net.coderodde.wikipedia.sp.http.HttpTransport;
+import net.coderodde.wikipedia.sp.http.ResilientTransport;
+import net.coderodde.wikipedia.sp.http.URLConnectionHttpTransport;
 
 /**
  * This interface defines the API for the shortest path algorithms working on 
@@ -25,38 +35,55 @@ import org.apache.commons.io.IOUtils;
  */
 public abstract class AbstractWikipediaShortestPathFinder {
 
-    private static final Map<Character, String> ENCODING_MAP = new HashMap<>();
-
-    private static final String BACKWARD_REQUEST_URL = 
-            "?action=query" +
-            "&list=backlinks" +
-            "&bltitle=%s" + 
-            "&bllimit=max" + 
-            "&format=json";
-
-    private static final String FORWARD_REQUEST_URL = 
-            "?action=query" +
-            "&titles=%s" + 
-            "&prop=links" + 
-            "&pllimit=max" + 
-            "&format=json"; 
-
-    static {
-        ENCODING_MAP.put(' ', "_");
-        ENCODING_MAP.put('"', "%22");
-        ENCODING_MAP.put(';', "%3B");
-        ENCODING_MAP.put('<', "%3C");
-        ENCODING_MAP.put('>', "%3E");
-
-        ENCODING_MAP.put('?', "%3F");
-        ENCODING_MAP.put('[', "%5B");
-        ENCODING_MAP.put(']', "%5D");
-        ENCODING_MAP.put('{', "%7B");
-        ENCODING_MAP.put('|', "%7C");
-
-        ENCODING_MAP.put('}', "%7D");
-        ENCODING_MAP.put('?', "%3F");
-    }
+    /**
+     * The maximum number of titles the Wikipedia API accepts in the 
+     * {@code titles} parameter of a single request.
+     */
+    public static final int MAXIMUM_BATCH_SIZE = 50;
+
+    /**
+     * The separator of multiple titles in the {@code titles} parameter.
+     */
+    private static final String TITLE_SEPARATOR = "|";
+
+    /**
+     * The HTTP status code of a successful response.
+     */
+    private static final int HTTP_OK = 200;
+
+    /**
+     * The transport used when no transport is given explicitly.
+     */
+    private static final HttpTransport DEFAULT_TRANSPORT = 
+            new ResilientTransport(
+                    new AdaptiveRateLimitingTransport(
+                            new URLConnectionHttpTransport(),
+                            URLConnectionHttpTransport
+                                    .DEFAULT_MAXIMUM_REQUESTS_PER_HOST));
+
+    /**
+     * The neighbor cache shared by all the finders in this process unless a
+     * finder is given a cache of its own.
+     */
+    private static final NeighborCache SHARED_NEIGHBOR_CACHE = 
+            new MemoryNeighborCache();
+
+    /**
+     * Coalesces the concurrent fetches of the same neighbor list by all the 
+     * finders in this process.
+     */
+    private static final SingleFlight<NeighborKey, List<String>> 
+            NEIGHBOR_FETCHES = new SingleFlight<>();
+
+    /**
+     * The transport carrying the requests to the Wikipedia API.
+     */
+    protected final HttpTransport transport;
+
+    /**
+     * Collapses the redirects to the pages they lead to.
+     */
+    protected final RedirectResolver redirectResolver;
 
     /**
      * Caches the duration of the previous search in milliseconds.
@@ -68,6 +95,60 @@ public abstract class AbstractWikipediaShortestPathFinder {
      */
     protected int numberOfExpandedNodes;
 
+    /**
+     * Counts the neighbor lists in the previous search that were not fetched
+     * because another thread was fetching the same list at the time.
+     */
+    protected final AtomicInteger numberOfCoalescedFetches = 
+            new AtomicInteger();
+
+    /**
+     * The maximum number of frontier nodes to expand with a single request to
+     * the Wikipedia API.
+     */
+    protected int expansionBatchSize = 1;
+
+    /**
+     * The cache of the neighbor lists, or {@code null} if caching is off.
+     */
+    protected volatile NeighborCache neighborCache = SHARED_NEIGHBOR_CACHE;
+
+    /**
+     * The shape of the link queries sent to the Wikipedia API.
+     */
+    protected volatile ApiRequestProfile requestProfile = 
+            ApiRequestProfile.LEAN;
+
+    /**
+     * Estimates the cost of expanding a frontier from the fetches of this 
+     * finder.
+     */
+    protected volatile FetchCostModel fetchCostModel = new FetchCostModel();
+
+    /**
+     * The source and the target of the current search.
+     */
+    private volatile Set<String> searchRoots = Collections.emptySet();
+
+    /**
+     * Constructs this finder using the default transport.
+     */
+    protected AbstractWikipediaShortestPathFinder() {
+        this(DEFAULT_TRANSPORT);
+    }
+
+    /**
+     * Constructs this finder using {@code transport} for talking to the 
+     * Wikipedia API.
+     * 
+     * @param transport the transport to use.
+     */
+    protected AbstractWikipediaShortestPathFinder(HttpTransport transport) {
+        this.transport = Objects.requireNonNull(transport, 
+                                                "The transport is null.");
+        this.redirectResolver = new RedirectResolver(transport);
+    }
+
     public abstract List<String> 
         search(String sourceTitle, 
                String targetTitle,
@@ -94,6 +175,155 @@ public abstract class AbstractWikipediaShortestPathFinder {
         return numberOfExpandedNodes;
     }
 
+    /**
+     * Returns the number of neighbor list fetches saved in the previous 
+     * search by waiting for a concurrent fetch of the same list.
+     * 
+     * @return the number of coalesced fetches.
+     */
+    public int getNumberOfCoalescedFetches() {
+        return numberOfCoalescedFetches.get();
+    }
+
+    /**
+     * Returns the maximum number of frontier nodes expanded with a single 
+     * request to the Wikipedia API.
+     * 
+     * @return the expansion batch size.
+     */
+    public int getExpansionBatchSize() {
+        return expansionBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of frontier nodes expanded with a single request
+     * to the Wikipedia API. The value is clamped to the range 
+     * {@code [1, MAXIMUM_BATCH_SIZE]}.
+     * 
+     * @param expansionBatchSize the requested expansion batch size.
+     */
+    public void setExpansionBatchSize(int expansionBatchSize) {
+        this.expansionBatchSize = 
+                Math.max(1, Math.min(expansionBatchSize, MAXIMUM_BATCH_SIZE));
+    }
+
+    /**
+     * Returns the redirect resolver of this finder.
+     * 
+     * @return the redirect resolver.
+     */
+    public RedirectResolver getRedirectResolver() {
+        return redirectResolver;
+    }
+
+    /**
+     * Returns the neighbor cache shared by the finders of this process.
+     * 
+     * @return the shared neighbor cache.
+     */
+    public static NeighborCache getSharedNeighborCache() {
+        return SHARED_NEIGHBOR_CACHE;
+    }
+
+    /**
+     * Returns the neighbor cache of this finder.
+     * 
+     * @return the neighbor cache or {@code null} if caching is off.
+     */
+    public NeighborCache getNeighborCache() {
+        return neighborCache;
+    }
+
+    /**
+     * Sets the neighbor cache of this finder. Passing {@code null} turns the
+     * caching off.
+     * 
+     * @param neighborCache the neighbor cache to use.
+     */
+    public void setNeighborCache(NeighborCache neighborCache) {
+        this.neighborCache = neighborCache;
+    }
+
+    /**
+     * Returns the shape of the link queries sent to the Wikipedia API.
+     * 
+     * @return the request profile.
+     */
+    public ApiRequestProfile getRequestProfile() {
+        return requestProfile;
+    }
+
+    /**
+     * Sets the shape of the link queries sent to the Wikipedia API.
+     * 
+     * @param requestProfile the request profile.
+     */
+    public void setRequestProfile(ApiRequestProfile requestProfile) {
+        this.requestProfile = Objects.requireNonNull(
+                requestProfile, 
+                "The request profile is null.");
+    }
+
+    /**
+     * Returns the model estimating the cost of expanding a frontier.
+     * 
+     * @return the fetch cost model.
+     */
+    public FetchCostModel getFetchCostModel() {
+        return fetchCostModel;
+    }
+
+    /**
+     * Sets the model estimating the cost of expanding a frontier. The model
+     * learns from the fetches of this finder from now on.
+     * 
+     * @param fetchCostModel the fetch cost model.
+     */
+    public void setFetchCostModel(FetchCostModel fetchCostModel) {
+        this.fetchCostModel = Objects.requireNonNull(
+                fetchCostModel, 
+                "The fetch cost model is null.");
+    }
+
+    /**
+     * Resets the counters of the previous search and remembers the roots of
+     * the search starting, whose link lists are not learned from by the 
+     * fetch cost model.
+     * 
+     * @param sourceTitle the title of the source article.
+     * @param targetTitle the title of the target article.
+     */
+    protected void beginSearch(String sourceTitle, String targetTitle) {
+        numberOfCoalescedFetches.set(0);
+        searchRoots = new HashSet<>(Arrays.asList(sourceTitle, targetTitle));
+    }
+
+    /**
+     * Removes the next batch of nodes from the head of {@code queue}. All the 
+     * nodes in the batch are at the same distance from the search root as the
+     * head node so that the breadth-first order is not violated by expanding 
+     * them together.
+     * 
+     * @param queue     the search frontier.
+     * @param distance  the distance map of the search direction.
+     * @param batchSize the maximum number of nodes to remove.
+     * @return the list of nodes to expand.
+     */
+    protected static List<String> removeBatch(Deque<String> queue,
+                                              Map<String, Integer> distance,
+                                              int batchSize) {
+        List<String> batch = new ArrayList<>(batchSize);
+        int level = distance.get(queue.getFirst());
+
+        while (batch.size() < batchSize
+                && !queue.isEmpty()
+                && distance.get(queue.getFirst()) == level) {
+            batch.add(queue.removeFirst());
+        }
+
+        return batch;
+    }
+
     /**
      * Constructs the shortest path.
      * 
@@ -126,44 +356,331 @@ public abstract class AbstractWikipediaShortestPathFinder {
     }
 
     /**
-     * Implements the neighbor function. 
+     * Implements the neighbor function. The neighbor lists found in the 
+     * neighbor cache are reported right away. Of the rest, the lists being
+     * fetched by another thread at the moment are waited for, and the others
+     * are requested from the Wikipedia API and stored in the cache once 
+     * complete.
+     * 
+     * @param apiUrl        the URL to the Wikipedia API.
+     * @param currentTitles the titles of the articles to expand. At most 
+     *                      {@link #MAXIMUM_BATCH_SIZE} titles are allowed.
+     * @param forward       if is set to {@code true}, this method reports all 
+     *                      the child titles of {@code currentTitles}.
+     * @param linkSink      the sink receiving the links.
+     */
+    private void baseGetNeighbors(String apiUrl,
+                                  List<String> currentTitles, 
+                                  boolean forward,
+                                  LinkSink linkSink) {
+        if (currentTitles.size() > MAXIMUM_BATCH_SIZE) {
+            throw new IllegalArgumentException(
+                    "Too many titles in a single request: " + 
+                    currentTitles.size() + ", at most " + MAXIMUM_BATCH_SIZE +
+                    " allowed.");
+        }
+
+        NeighborCache cache = neighborCache;
+        ApiRequestProfile profile = requestProfile;
+
+        // The neighbor lists of different profiles may differ.
+        String cacheSource = apiUrl + profile.getCacheTag();
+        List<String> fetchedTitles = new ArrayList<>(currentTitles.size());
+        Map<String, CompletableFuture<List<String>>> joinedFetchMap = 
+                new LinkedHashMap<>();
+
+        for (String title : currentTitles) {
+            NeighborKey key = new NeighborKey(cacheSource, title, forward);
+            List<String> neighbors = cache == null ? null : cache.get(key);
+
+            if (neighbors != null) {
+                for (String neighbor : neighbors) {
+                    linkSink.onLink(title, neighbor);
+                }
+
+                continue;
+            }
+
+            CompletableFuture<List<String>> future = 
+                    NEIGHBOR_FETCHES.joinOrLead(key);
+
+            if (future == null) {
+                // The flight missed may have completed since the cache was
+                // looked up, and then the list is in the cache:
+                neighbors = cache == null ? null : cache.get(key);
+
+                if (neighbors != null) {
+                    NEIGHBOR_FETCHES.complete(key, neighbors);
+
+                    for (String neighbor : neighbors) {
+                        linkSink.onLink(title, neighbor);
+                    }
+                } else {
+                    fetchedTitles.add(title);
+                }
+            } else {
+                numberOfCoalescedFetches.incrementAndGet();
+                joinedFetchMap.put(title, future);
+            }
+        }
+
+        // Fetch own titles before waiting so that two threads waiting for 
+        // each other's titles cannot deadlock.
+        if (!fetchedTitles.isEmpty()) {
+            fetchAndPublishNeighbors(apiUrl, 
+                                     fetchedTitles, 
+                                     forward, 
+                                     profile,
+                                     cache, 
+                                     linkSink);
+        }
+
+        for (Map.Entry<String, CompletableFuture<List<String>>> entry 
+                : joinedFetchMap.entrySet()) {
+            List<String> neighbors;
+
+            try {
+                neighbors = entry.getValue().join();
+            } catch (CompletionException ex) {
+                Throwable cause = ex.getCause();
+                throw new IllegalStateException(cause.getMessage(), cause);
+            }
+
+            for (String neighbor : neighbors) {
+                linkSink.onLink(entry.getKey(), neighbor);
+            }
+        }
+    }
+
+    /**
+     * Fetches the neighbor lists of {@code titles}, whose flights this thread
+     * leads, and hands them over to the cache and to the waiting threads. The
+     * child links are collapsed to their canonical titles before they are 
+     * published: the link targets not resolved before are resolved in 
+     * batches of up to {@link #MAXIMUM_BATCH_SIZE} as they arrive, so that a
+     * redirect and the article it leads to are the same search node.
+     * 
+     * @param apiUrl   the URL to the Wikipedia API.
+     * @param titles   the titles of the articles to expand.
+     * @param forward  the direction of the links.
+     * @param profile  the request profile.
+     * @param cache    the neighbor cache or {@code null}.
+     * @param linkSink the sink receiving the links.
+     */
+    private void fetchAndPublishNeighbors(String apiUrl,
+                                         List<String> titles,
+                                         boolean forward,
+                                         ApiRequestProfile profile,
+                                         NeighborCache cache,
+                                         LinkSink linkSink) {
+        String cacheSource = apiUrl + profile.getCacheTag();
+        Map<String, List<String>> linkNameMap = createLinkNameMap(titles);
+        LinkSink canonicalLinkSink = (title, link) -> {
+            String canonicalLink = redirectResolver.canonicalize(apiUrl, link);
+            linkNameMap.get(title).add(canonicalLink);
+            linkSink.onLink(title, canonicalLink);
+        };
+
+        try {
+            int requests;
+
+            if (forward) {
+                ResolvingLinkSink resolvingLinkSink = 
+                        new ResolvingLinkSink(apiUrl, canonicalLinkSink);
+                requests = fetchNeighbors(apiUrl, 
+                                          titles, 
+                                          true, 
+                                          profile, 
+                                          resolvingLinkSink);
+                requests += resolvingLinkSink.flush();
+            } else {
+                requests = fetchNeighbors(apiUrl, 
+                                          titles, 
+                                          false, 
+                                          profile, 
+                                          canonicalLinkSink);
+            }
+
+            Set<String> roots = searchRoots;
+            int linkedNodes = 0;
+            int links = 0;
+
+            for (Map.Entry<String, List<String>> entry 
+                    : linkNameMap.entrySet()) {
+                if (!roots.contains(entry.getKey())) {
+                    ++linkedNodes;
+                    links += entry.getValue().size();
+                }
+
+                NeighborKey key = 
+                        new NeighborKey(cacheSource, entry.getKey(), forward);
+                List<String> neighbors = 
+                        Collections.unmodifiableList(entry.getValue());
+
+                // Cache first so that a caller missing the flight finds the
+                // list on its second lookup.
+                if (cache != null) {
+                    cache.put(key, neighbors);
+                }
+
+                NEIGHBOR_FETCHES.complete(key, neighbors);
+            }
+
+            // The titles served from the cache or by another fetch cost 
+            // nothing, so only the fetched ones are recorded.
+            fetchCostModel.record(forward, titles.size(), requests);
+            fetchCostModel.recordLinks(forward, linkedNodes, links);
+        } catch (RuntimeException ex) {
+            // Failing a completed flight is a no-op.
+            for (String title : titles) {
+                NEIGHBOR_FETCHES.fail(
+                        new NeighborKey(cacheSource, title, forward),
+                        ex);
+            }
+
+            throw ex;
+        }
+    }
+
+    /**
+     * Requests the neighbors from the Wikipedia API. The link lists are paged
+     * through by following the continuation tokens of the Wikipedia API, and 
+     * the links of each page are passed to {@code linkSink} as soon as the 
+     * page is parsed. Under the lean profile, a backlink coming from a 
+     * redirect page is replaced with the backlinks of the redirect, so that 
+     * the parents reported are articles.
+     * 
+     * @param apiUrl        the URL to the Wikipedia API.
+     * @param currentTitles the titles of the articles to expand.
+     * @param forward       if is set to {@code true}, this method reports all 
+     *                      the child titles of {@code currentTitles}.
+     * @param profile       the request profile.
+     * @param linkSink      the sink receiving the links.
+     * @return the number of requests sent.
+     */
+    private int fetchNeighbors(String apiUrl,
+                               List<String> currentTitles, 
+                               boolean forward,
+                               ApiRequestProfile profile,
+                               LinkSink linkSink) {
+        if (forward || !profile.isArticlesOnly()) {
+            return fetchNeighborPages(apiUrl, 
+                                      currentTitles, 
+                                      forward, 
+                                      profile, 
+                                      linkSink, 
+                                      null);
+        }
+
+        Map<String, List<String>> redirectTargetMap = new LinkedHashMap<>();
+
+        int requests = fetchNeighborPages(apiUrl, 
+                                          currentTitles, 
+                                          false, 
+                                          profile, 
+                                          linkSink, 
+                                          (title, redirect) -> {
+            redirectTargetMap.computeIfAbsent(redirect, 
+                                              (r) -> new ArrayList<>())
+                             .add(title);
+        });
+
+        if (redirectTargetMap.isEmpty()) {
+            return requests;
+        }
+
+        for (Map.Entry<String, List<String>> entry 
+                : redirectTargetMap.entrySet()) {
+            redirectResolver.addRedirects(
+                    apiUrl, 
+                    Collections.singletonMap(entry.getKey(), 
+                                             entry.getValue().get(0)));
+        }
+
+        List<String> redirects = new ArrayList<>(redirectTargetMap.keySet());
+
+        for (int i = 0; i < redirects.size(); i += MAXIMUM_BATCH_SIZE) {
+            // Double redirects are broken on Wikipedia, so they are dropped.
+            requests += fetchNeighborPages(
+                    apiUrl, 
+                    redirects.subList(i, Math.min(redirects.size(), 
+                                                  i + MAXIMUM_BATCH_SIZE)), 
+                    false, 
+                    profile, 
+                    (redirect, link) -> {
+                        for (String title : redirectTargetMap.get(redirect)) {
+                            linkSink.onLink(title, link);
+                        }
+                    }, 
+                    (redirect, link) -> {});
+        }
+
+        return requests;
+    }
+
+    /**
+     * Requests the link lists of {@code currentTitles} page by page.
      * 
-     * @param current the current URL.
-     * @param forward if is set to {@code true}, this method return all the 
-     *                child URLs of {@code current}.
-     * @return the list of child URLs.
-     * @throws IOException may be thrown.
-     */
-    private static List<String> baseGetNeighbors(String apiUrl,
-                                                 String currentTitle, 
-                                                 boolean forward) {
+     * @param apiUrl           the URL to the Wikipedia API.
+     * @param currentTitles    the titles of the articles to expand.
+     * @param forward          the direction of the links.
+     * @param profile          the request profile.
+     * @param linkSink         the sink receiving the links.
+     * @param redirectLinkSink the sink receiving the backlinks from the 
+     *                         redirect pages, or {@code null} for reporting
+     *                         them to {@code linkSink}.
+     * @return the number of requests sent.
+     */
+    private int fetchNeighborPages(String apiUrl,
+                                   List<String> currentTitles, 
+                                   boolean forward,
+                                   ApiRequestProfile profile,
+                                   LinkSink linkSink,
+                                   LinkSink redirectLinkSink) {
         String jsonDataUrl;
 
         try {
             jsonDataUrl = 
-                    apiUrl + String.format(forward ? 
-                                                FORWARD_REQUEST_URL : 
-                                                BACKWARD_REQUEST_URL, 
-                                           URLEncoder.encode(currentTitle, 
-                                                             "UTF-8"));
+                    apiUrl + String.format(profile.getRequestUrl(forward), 
+                                           URLEncoder.encode(
+                                                   String.join(
+                                                           TITLE_SEPARATOR,
+                                                           currentTitles), 
+                                                   "UTF-8"));
         } catch (UnsupportedEncodingException ex) {
             throw new IllegalStateException(ex.getMessage(), ex);
         }
 
-        String jsonText;
-
-        try {
-            jsonText = IOUtils.toString(new URL(jsonDataUrl), 
-                                        Charset.forName("UTF-8"));
-        } catch (IOException ex) {
-            throw new IllegalStateException(
-                    "[I/O ERROR] Failed loading the JSON data from the " +
-                    "Wikipedia API: " + ex.getMessage(), ex);
-        }
+        LinkJsonParser parser = 
+                new LinkJsonParser(currentTitles, 
+                                   forward ? "links" : "linkshere",
+                                   profile.isArticlesOnly());
+        String continuation = "";
+        int requests = 0;
+
+        do {
+            ++requests;
+
+            try (HttpResponse response = 
+                    transport.get(jsonDataUrl + continuation)) {
+                if (response.getStatusCode() != HTTP_OK) {
+                    throw new IOException(
+                            "Unexpected HTTP status " + 
+                            response.getStatusCode() + ".");
+                }
+
+                continuation = parser.parse(response.getBody(), 
+                                            linkSink,
+                                            redirectLinkSink);
+                redirectResolver.addRedirects(apiUrl, parser.getRedirects());
+            } catch (IOException ex) {
+                throw new IllegalStateException(
+                        "[I/O ERROR] Failed loading the JSON data from the " +
+                        "Wikipedia API: " + ex.getMessage(), ex);
+            }
+        } while (continuation != null);
 
-        return forward ?
-               extractForwardLinkTitles(jsonText) : 
-               extractBackwardLinkTitles(jsonText);
+        return requests;
     }
 
     /**
@@ -173,9 +690,9 @@ public abstract class AbstractWikipediaShortestPathFinder {
      * @param current the URL of the current Wikipedia article.
      * @return the list of URLs that are pointed by {@code current}.
      */
-    protected static List<String> getChildArticles(String apiUrl,
-                                                   String current) {
-        return baseGetNeighbors(apiUrl, current, true);
+    protected List<String> getChildArticles(String apiUrl, String current) {
+        return getChildArticles(apiUrl, 
+                                Collections.singletonList(current)).get(current);
     }
 
     /**
@@ -185,102 +702,145 @@ public abstract class AbstractWikipediaShortestPathFinder {
      * @param current the URL of the current Wikipedia article.
      * @return the list of URLs that are pointing to {@code current}.
      */
-    protected static List<String> getParentArticles(String apiUrl,
-                                                    String current) {
-        return baseGetNeighbors(apiUrl, current, false);
+    protected List<String> getParentArticles(String apiUrl, String current) {
+        return getParentArticles(apiUrl, 
+                                 Collections.singletonList(current))
+                .get(current);
     }
 
-
     /**
-     * Returns all the Wikipedia article titles that the current article links 
-     * to.
+     * Returns the child articles of each article in {@code currentTitles}.
      * 
-     * @param jsonText the data in JSON format.
-     * @return a list of Wikipedia article titles parsed from {@code jsonText}.
+     * @param apiUrl        the URL to the Wikipedia API.
+     * @param currentTitles the titles of the articles to expand.
+     * @return the map mapping each title to the list of its child titles.
      */
-    private static List<String> extractForwardLinkTitles(String jsonText) {
-        List<String> linkNameList = new ArrayList<>();
-        JsonArray linkNameArray;
+    protected Map<String, List<String>> 
+        getChildArticles(String apiUrl, List<String> currentTitles) {
+        Map<String, List<String>> linkNameMap = 
+                createLinkNameMap(currentTitles);
 
-        try {
-            JsonObject root = new JsonParser().parse(jsonText).getAsJsonObject();
-            JsonObject queryObject = root.get("query").getAsJsonObject();
-            JsonObject pagesObject = queryObject.get("pages").getAsJsonObject();
-            JsonObject mainObject  = pagesObject.entrySet()
-                                                .iterator()
-                                                .next()
-                                                .getValue()
-                                                .getAsJsonObject();
-
-            linkNameArray = mainObject.get("links").getAsJsonArray();
-        } catch (NullPointerException ex) {
-            return linkNameList;
-        }
+        forEachChildArticle(apiUrl, currentTitles, (title, child) -> {
+            linkNameMap.get(title).add(child);
+        });
 
-        linkNameArray.forEach((element) -> {
-            int namespace = element.getAsJsonObject().get("ns").getAsInt();
+        return linkNameMap;
+    }
 
-            if (namespace == 0) {
-                String title = element.getAsJsonObject()
-                                      .get("title")
-                                      .getAsString();
+    /**
+     * Returns the parent articles of each article in {@code currentTitles}.
+     * 
+     * @param apiUrl        the URL to the Wikipedia API.
+     * @param currentTitles the titles of the articles to expand.
+     * @return the map mapping each title to the list of its parent titles.
+     */
+    protected Map<String, List<String>> 
+        getParentArticles(String apiUrl, List<String> currentTitles) {
+        Map<String, List<String>> linkNameMap = 
+                createLinkNameMap(currentTitles);
 
-                linkNameList.add(encodeWikipediaStyle(title));
-            }
+        forEachParentArticle(apiUrl, currentTitles, (title, parent) -> {
+            linkNameMap.get(title).add(parent);
         });
 
-        return linkNameList;
+        return linkNameMap;
     }
 
     /**
-     * Returns all the Wikipedia article titles that link to the current
-     * article.
+     * Reports the child articles of each article in {@code currentTitles} to
+     * {@code linkSink} page by page as they arrive from the Wikipedia API.
      * 
-     * @param jsonText the data in JSON format.
-     * @return a list of Wikipedia article titles parsed from {@code jsonText}.
+     * @param apiUrl        the URL to the Wikipedia API.
+     * @param currentTitles the titles of the articles to expand.
+     * @param linkSink      the sink receiving the child links.
      */
-    private static List<String> extractBackwardLinkTitles(String jsonText) {
-        List<String> linkNameList = new ArrayList<>();
-        JsonArray backLinkArray;
+    protected void forEachChildArticle(String apiUrl,
+                                       List<String> currentTitles,
+                                       LinkSink linkSink) {
+        baseGetNeighbors(apiUrl, currentTitles, true, linkSink);
+    }
 
-        try {
-            JsonObject root = new JsonParser().parse(jsonText).getAsJsonObject();
-            JsonObject queryObject = root.get("query").getAsJsonObject();
-            backLinkArray = queryObject.get("backlinks").getAsJsonArray();
-        } catch (NullPointerException ex) {
-            return linkNameList;
+    /**
+     * Reports the parent articles of each article in {@code currentTitles} to
+     * {@code linkSink} page by page as they arrive from the Wikipedia API.
+     * 
+     * @param apiUrl        the URL to the Wikipedia API.
+     * @param currentTitles the titles of the articles to expand.
+     * @param linkSink      the sink receiving the parent links.
+     */
+    protected void forEachParentArticle(String apiUrl,
+                                        List<String> currentTitles,
+                                        LinkSink linkSink) {
+        baseGetNeighbors(apiUrl, currentTitles, false, linkSink);
+    }
+
+    /**
+     * Holds back the links whose targets are not resolved yet until 
+     * {@link #MAXIMUM_BATCH_SIZE} distinct targets are pending, resolves them
+     * with a single request, and then passes the held links on. The links to
+     * the resolved targets are passed on right away.
+     */
+    private final class ResolvingLinkSink implements LinkSink {
+
+        private final String apiUrl;
+        private final LinkSink linkSink;
+        private final List<String> pendingTitles = new ArrayList<>();
+        private final List<String> pendingLinks = new ArrayList<>();
+        private final Set<String> unresolvedLinks = new HashSet<>();
+        private int requests;
+
+        ResolvingLinkSink(String apiUrl, LinkSink linkSink) {
+            this.apiUrl = apiUrl;
+            this.linkSink = linkSink;
         }
 
-        backLinkArray.forEach((element) -> {
-            int namespace = element.getAsJsonObject()
-                                   .get("ns")
-                                   .getAsInt();
+        @Override
+        public void onLink(String expandedTitle, String neighborTitle) {
+            if (!unresolvedLinks.contains(neighborTitle) &&
+                    redirectResolver.isResolved(apiUrl, neighborTitle)) {
+                linkSink.onLink(expandedTitle, neighborTitle);
+                return;
+            }
 
-            if (namespace == 0) {
-                String title = element.getAsJsonObject()
-                                      .get("title")
-                                      .getAsString();
+            pendingTitles.add(expandedTitle);
+            pendingLinks.add(neighborTitle);
+            unresolvedLinks.add(neighborTitle);
 
-                linkNameList.add(encodeWikipediaStyle(title));
+            if (unresolvedLinks.size() == MAXIMUM_BATCH_SIZE) {
+                flush();
             }
-        });
+        }
 
-        return linkNameList;
-    }
+        /**
+         * Resolves the pending targets and passes the held links on.
+         * 
+         * @return the number of requests sent by this sink.
+         */
+        int flush() {
+            if (!unresolvedLinks.isEmpty()) {
+                requests += redirectResolver.resolveUnseen(apiUrl, 
+                                                           unresolvedLinks);
+                unresolvedLinks.clear();
+            }
 
-    private static String encodeWikipediaStyle(String s) {
-        StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < pendingLinks.size(); ++i) {
+                linkSink.onLink(pendingTitles.get(i), pendingLinks.get(i));
+            }
+
+            pendingTitles.clear();
+            pendingLinks.clear();
+            return requests;
+        }
+    }
 
-        for (char c : s.toCharArray()) {
-            String encoder = ENCODING_MAP.get(c);
+    private static Map<String, List<String>> 
+        createLinkNameMap(List<String> titles) {
+        Map<String, List<String>> linkNameMap = new LinkedHashMap<>();
 
-            if (encoder != null) {
-                sb.append(encoder);
-            } else {
-                sb.append(c);
-            }
+        for (String title : titles) {
+            linkNameMap.put(title, new ArrayList<>());
         }
 
-        return sb.toString();
+        return linkNameMap;
     }
 }
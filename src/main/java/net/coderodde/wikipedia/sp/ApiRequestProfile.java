@@ -0,0 +1,117 @@
+package net.coderodde.wikipedia.sp;
+
+/**
+ * This enumeration lists the shapes of the link queries sent to the Wikipedia
+ * API.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public enum ApiRequestProfile {
+    
+    /**
+     * Requests the links in all the namespaces in the {@code formatversion=1}
+     * shape and keeps the articles on the client side. Backlinks from 
+     * redirect pages are included.
+     */
+    VERBOSE("?action=query" +
+            "&titles=%s" + 
+            "&prop=links" + 
+            "&pllimit=max" + 
+            "&format=json",
+            "?action=query" +
+            "&titles=%s" +
+            "&prop=linkshere" + 
+            "&lhprop=title" +
+            "&lhlimit=max" + 
+            "&format=json",
+            false,
+            ""),
+    
+    /**
+     * Lets the server drop everything but the articles: only the links in 
+     * namespace 0 are requested, and the response comes in the compact 
+     * {@code formatversion=2} shape with the titles in raw UTF-8. A requested
+     * redirect is resolved by the server and stands for the page it leads 
+     * to, and the backlinks coming from redirect pages are flagged so that 
+     * the finder can replace them with the backlinks of the redirects.
+     */
+    LEAN("?action=query" +
+         "&titles=%s" + 
+         "&prop=links" + 
+         "&plnamespace=0" +
+         "&redirects=1" +
+         "&pllimit=max" + 
+         "&format=json" +
+         "&formatversion=2",
+         "?action=query" +
+         "&titles=%s" +
+         "&prop=linkshere" + 
+         "&lhprop=title%%7Credirect" +
+         "&lhnamespace=0" +
+         "&lhlimit=max" + 
+         "&format=json" +
+         "&formatversion=2",
+         true,
+         "#lean");
+    
+    /**
+     * The query string template of the child link requests.
+     */
+    private final String forwardRequestUrl;
+    
+    /**
+     * The query string template of the parent link requests.
+     */
+    private final String backwardRequestUrl;
+    
+    /**
+     * Whether the server returns article links only.
+     */
+    private final boolean articlesOnly;
+    
+    /**
+     * Tells the neighbor lists of this profile apart in the caches.
+     */
+    private final String cacheTag;
+    
+    private ApiRequestProfile(String forwardRequestUrl,
+                              String backwardRequestUrl,
+                              boolean articlesOnly,
+                              String cacheTag) {
+        this.forwardRequestUrl  = forwardRequestUrl;
+        this.backwardRequestUrl = backwardRequestUrl;
+        this.articlesOnly       = articlesOnly;
+        this.cacheTag           = cacheTag;
+    }
+    
+    /**
+     * Returns the query string template of the link requests. The only 
+     * format specifier takes the URL encoded titles.
+     * 
+     * @param forward whether to return the template of the child link 
+     *                requests.
+     * @return the query string template.
+     */
+    public String getRequestUrl(boolean forward) {
+        return forward ? forwardRequestUrl : backwardRequestUrl;
+    }
+    
+    /**
+     * Returns {@code true} if the responses contain article links only.
+     * 
+     * @return {@code true} if the links need no namespace check.
+     */
+    public boolean isArticlesOnly() {
+        return articlesOnly;
+    }
+    
+    /**
+     * Returns the suffix of the API URL in the cache keys of this profile.
+     * 
+     * @return the cache tag.
+     */
+    public String getCacheTag() {
+        return cacheTag;
+    }
+}
@@ -7,6 +7,8 @@ import java.util.List;
 import static net.coderodde.wikipedia.sp.Miscellanea.nth;
 import static net.coderodde.wikipedia.sp.Miscellanea.parseInt;
 import static net.coderodde.wikipedia.sp.Miscellanea.removeLast;
+import net.coderodde.wikipedia.sp.http.ResilientTransport;
+import net.coderodde.wikipedia.sp.http.URLConnectionHttpTransport;
 
 /**
  * This class parses the command line arguments.
@@ -39,32 +41,87 @@ class CommandLineArgumentParser {
     static final String THREAD_SWITCH_LONG = "--threads";
     
     /**
-     * This switch (and its parameter) determine the number of trials to pop the
-     * queue before exiting.
+     * This switch (and its parameter) determine the maximum number of frontier
+     * nodes to expand with a single request to the Wikipedia API.
      */
-    static final String TRIAL_SWITCH_LONG = "--trials";
+    static final String BATCH_SWITCH_SHORT = "-b";
     
     /**
-     * This switch (and its parameter) determine the number of milliseconds for
-     * sleeping after each unsuccessful trials to pop the queue.
+     * This switch (and its parameter) determine the maximum number of frontier
+     * nodes to expand with a single request to the Wikipedia API.
      */
-    static final String WAIT_TIME_SWITCH_SHORT = "-w";
+    static final String BATCH_SWITCH_LONG = "--batch";
     
     /**
-     * This switch (and its parameter) determine the number of milliseconds for
-     * sleeping after each unsuccessful trials to pop the queue.
+     * This switch (and its parameter) determine the connection timeout in 
+     * milliseconds.
      */
-    static final String WAIT_TIME_SWITCH_LONG = "--wait";
+    static final String CONNECT_TIMEOUT_SWITCH_LONG = "--connect-timeout";
     
     /**
-     * The default number of trials to pop the queue.
+     * This switch (and its parameter) determine the read timeout in 
+     * milliseconds.
      */
-    private static final int DEFAULT_TRIALS = 100;
+    static final String READ_TIMEOUT_SWITCH_LONG = "--read-timeout";
     
     /**
-     * The default number of milliseconds to wait for the next trial.
+     * This switch (and its parameter) determine the maximum number of requests
+     * in flight to the Wikipedia API.
      */
-    private static final int DEFAULT_WAIT_TIME = 10;
+    static final String CONNECTIONS_SWITCH_LONG = "--connections";
+    
+    /**
+     * This switch (and its parameter) determine the directory of the 
+     * persistent neighbor store.
+     */
+    static final String CACHE_DIRECTORY_SWITCH_LONG = "--cache-dir";
+    
+    /**
+     * This switch (and its parameter) determine the number of retries of a 
+     * failed request.
+     */
+    static final String RETRIES_SWITCH_LONG = "--retries";
+    
+    /**
+     * This switch (and its parameter) determine the latency percentile after
+     * which a request is hedged.
+     */
+    static final String HEDGE_PERCENTILE_SWITCH_LONG = "--hedge-percentile";
+    
+    /**
+     * This switch (and its parameter) determine the shape of the link queries
+     * sent to the Wikipedia API.
+     */
+    static final String API_PROFILE_SWITCH_LONG = "--api-profile";
+    
+    /**
+     * This switch (and its parameter) determine the parallel engine searching
+     * the Wikipedia API.
+     */
+    static final String ENGINE_SWITCH_LONG = "--engine";
+    
+    /**
+     * This switch (and its parameter) determine the local link graph file to
+     * search instead of the Wikipedia API.
+     */
+    static final String GRAPH_SWITCH_LONG = "--graph";
+    
+    /**
+     * This switch specifies that the local link graph should be loaded to the
+     * heap instead of being memory-mapped.
+     */
+    static final String LOAD_GRAPH_SWITCH_LONG = "--load-graph";
+    
+    /**
+     * This switch (and its parameter) determine the change file applied over
+     * the local link graph.
+     */
+    static final String GRAPH_CHANGES_SWITCH_LONG = "--graph-changes";
+    
+    /**
+     * The default number of frontier nodes to expand per request.
+     */
+    private static final int DEFAULT_BATCH_SIZE = 1;
     
     CommandLineArguments parse(final String[] args) {
         if (args.length < 2) {
@@ -82,8 +139,19 @@ class CommandLineArgumentParser {
         boolean log = false;
         int threadCount = 1;
         int argumentIndex = 0;
-        int dequeueTrials = DEFAULT_TRIALS;
-        int trialWaitTime = DEFAULT_WAIT_TIME;
+        int batchSize = DEFAULT_BATCH_SIZE;
+        int connectTimeout = URLConnectionHttpTransport.DEFAULT_CONNECT_TIMEOUT;
+        int readTimeout = URLConnectionHttpTransport.DEFAULT_READ_TIMEOUT;
+        int connections = 
+                URLConnectionHttpTransport.DEFAULT_MAXIMUM_REQUESTS_PER_HOST;
+        String cacheDirectory = null;
+        int retries = ResilientTransport.DEFAULT_MAXIMUM_RETRIES;
+        int hedgePercentile = ResilientTransport.DEFAULT_HEDGE_PERCENTILE;
+        ApiRequestProfile apiProfile = ApiRequestProfile.LEAN;
+        SearchEngine engine = SearchEngine.MULTIDIRECTIONAL;
+        String graphFile = null;
+        boolean loadGraph = false;
+        String graphChangeFile = null;
         
         while (argumentIndex < argumentList.size()) {
             final String currentArgument = argumentList.get(argumentIndex++);
@@ -95,6 +163,11 @@ class CommandLineArgumentParser {
                     log = true;
                     break;
                     
+                case LOAD_GRAPH_SWITCH_LONG:
+                    
+                    loadGraph = true;
+                    break;
+                    
                 case THREAD_SWITCH_SHORT:
                 case THREAD_SWITCH_LONG:
                     
@@ -109,33 +182,154 @@ class CommandLineArgumentParser {
                 
                     break;
                     
-                case TRIAL_SWITCH_LONG:
+                case BATCH_SWITCH_SHORT:
+                case BATCH_SWITCH_LONG:
+                    
+                    if (argumentIndex == argumentList.size()) {
+                        throw new InvalidCommandLineOptionsException(
+                                "The batch size argument at index " +
+                                (argumentIndex - 1) + " does not precede an " +
+                                "integer.");
+                    } else {
+                        batchSize = parseInt(argumentList.get(argumentIndex));
+                    }
+                
+                    break;
+                    
+                case CONNECT_TIMEOUT_SWITCH_LONG:
                     
                     if (argumentIndex == argumentList.size()) {
                         throw new InvalidCommandLineOptionsException(
-                                "The number of trials argument at index " +
+                                "The connect timeout argument at index " +
                                 (argumentIndex - 1) + " does not precede an " +
                                 "integer.");
                     } else {
-                        dequeueTrials = 
+                        connectTimeout = 
                                 parseInt(argumentList.get(argumentIndex));
                     }
                 
                     break;
                     
-                case WAIT_TIME_SWITCH_SHORT:
-                case WAIT_TIME_SWITCH_LONG:
+                case READ_TIMEOUT_SWITCH_LONG:
                     
                     if (argumentIndex == argumentList.size()) {
                         throw new InvalidCommandLineOptionsException(
-                                "The wait time argument at index " +
+                                "The read timeout argument at index " +
                                 (argumentIndex - 1) + " does not precede an " +
                                 "integer.");
                     } else {
-                        trialWaitTime = 
+                        readTimeout = 
                                 parseInt(argumentList.get(argumentIndex));
                     }
                 
+                    break;
+                    
+                case CONNECTIONS_SWITCH_LONG:
+                    
+                    if (argumentIndex == argumentList.size()) {
+                        throw new InvalidCommandLineOptionsException(
+                                "The connection count argument at index " +
+                                (argumentIndex - 1) + " does not precede an " +
+                                "integer.");
+                    } else {
+                        connections = 
+                                parseInt(argumentList.get(argumentIndex));
+                    }
+                
+                    break;
+                    
+                case CACHE_DIRECTORY_SWITCH_LONG:
+                    
+                    if (argumentIndex == argumentList.size()) {
+                        throw new InvalidCommandLineOptionsException(
+                                "The cache directory argument at index " +
+                                (argumentIndex - 1) + " does not precede a " +
+                                "directory.");
+                    } else {
+                        cacheDirectory = argumentList.get(argumentIndex);
+                    }
+                
+                    break;
+                    
+                case RETRIES_SWITCH_LONG:
+                    
+                    if (argumentIndex == argumentList.size()) {
+                        throw new InvalidCommandLineOptionsException(
+                                "The retry count argument at index " +
+                                (argumentIndex - 1) + " does not precede an " +
+                                "integer.");
+                    } else {
+                        retries = parseInt(argumentList.get(argumentIndex));
+                    }
+                
+                    break;
+                    
+                case HEDGE_PERCENTILE_SWITCH_LONG:
+                    
+                    if (argumentIndex == argumentList.size()) {
+                        throw new InvalidCommandLineOptionsException(
+                                "The hedge percentile argument at index " +
+                                (argumentIndex - 1) + " does not precede an " +
+                                "integer.");
+                    } else {
+                        hedgePercentile = 
+                                parseInt(argumentList.get(argumentIndex));
+                    }
+                
+                    break;
+                    
+                case API_PROFILE_SWITCH_LONG:
+                    
+                    if (argumentIndex == argumentList.size()) {
+                        throw new InvalidCommandLineOptionsException(
+                                "The API profile argument at index " +
+                                (argumentIndex - 1) + " does not precede a " +
+                                "profile name.");
+                    } else {
+                        apiProfile = 
+                                parseApiProfile(
+                                        argumentList.get(argumentIndex));
+                    }
+                
+                    break;
+                    
+                case ENGINE_SWITCH_LONG:
+                    
+                    if (argumentIndex == argumentList.size()) {
+                        throw new InvalidCommandLineOptionsException(
+                                "The engine argument at index " +
+                                (argumentIndex - 1) + " does not precede an " +
+                                "engine name.");
+                    } else {
+                        engine = parseEngine(argumentList.get(argumentIndex));
+                    }
+                
+                    break;
+                    
+                case GRAPH_SWITCH_LONG:
+                    
+                    if (argumentIndex == argumentList.size()) {
+                        throw new InvalidCommandLineOptionsException(
+                                "The graph file argument at index " +
+                                (argumentIndex - 1) + " does not precede a " +
+                                "file.");
+                    } else {
+                        graphFile = argumentList.get(argumentIndex);
+                    }
+                
+                    break;
+                    
+                case GRAPH_CHANGES_SWITCH_LONG:
+                    
+                    if (argumentIndex == argumentList.size()) {
+                        throw new InvalidCommandLineOptionsException(
+                                "The graph change file argument at index " +
+                                (argumentIndex - 1) + " does not precede a " +
+                                "file.");
+                    } else {
+                        graphChangeFile = argumentList.get(argumentIndex);
+                    }
+                
                     break;
             }
         }
@@ -144,7 +338,42 @@ class CommandLineArgumentParser {
                                         threadCount, 
                                         sourceUrl, 
                                         targetUrl,
-                                        dequeueTrials,
-                                        trialWaitTime);
+                                        batchSize,
+                                        connectTimeout,
+                                        readTimeout,
+                                        connections,
+                                        cacheDirectory,
+                                        retries,
+                                        hedgePercentile,
+                                        apiProfile,
+                                        engine,
+                                        graphFile,
+                                        loadGraph,
+                                        graphChangeFile);
+    }
+    
+    private static ApiRequestProfile parseApiProfile(final String name) {
+        for (final ApiRequestProfile profile : ApiRequestProfile.values()) {
+            if (profile.name().equalsIgnoreCase(name)) {
+                return profile;
+            }
+        }
+        
+        throw new InvalidCommandLineOptionsException(
+                "Unknown API profile \"" + name + "\", expected one of " + 
+                Arrays.toString(ApiRequestProfile.values()).toLowerCase() + 
+                ".");
+    }
+    
+    private static SearchEngine parseEngine(final String name) {
+        for (final SearchEngine engine : SearchEngine.values()) {
+            if (engine.name().equalsIgnoreCase(name)) {
+                return engine;
+            }
+        }
+        
+        throw new InvalidCommandLineOptionsException(
+                "Unknown engine \"" + name + "\", expected one of " + 
+                Arrays.toString(SearchEngine.values()).toLowerCase() + ".");
     }
 }
@@ -29,15 +29,67 @@ class CommandLineArguments {
     private final String targetUrl;
     
     /**
-     * The number of trials to pop the queue before exiting.
+     * The maximum number of frontier nodes to expand with a single request.
      */
-    private final int dequeueTrials;
+    private final int batchSize;
     
     /**
-     * The number of milliseconds to wait after each unsuccessful trial to pop
-     * the queue.
+     * The connection timeout in milliseconds.
      */
-    private final int trialWaitTime;
+    private final int connectTimeout;
+    
+    /**
+     * The read timeout in milliseconds.
+     */
+    private final int readTimeout;
+    
+    /**
+     * The maximum number of requests in flight to the Wikipedia API.
+     */
+    private final int connections;
+    
+    /**
+     * The directory of the persistent neighbor store, or {@code null} if none
+     * is used.
+     */
+    private final String cacheDirectory;
+    
+    /**
+     * The number of retries of a failed request.
+     */
+    private final int retries;
+    
+    /**
+     * The latency percentile after which a request is hedged, or zero.
+     */
+    private final int hedgePercentile;
+    
+    /**
+     * The shape of the link queries sent to the Wikipedia API.
+     */
+    private final ApiRequestProfile apiProfile;
+    
+    /**
+     * The parallel engine searching the Wikipedia API.
+     */
+    private final SearchEngine engine;
+    
+    /**
+     * The local link graph file to search, or {@code null} if the Wikipedia 
+     * API is used.
+     */
+    private final String graphFile;
+    
+    /**
+     * Specifies whether the local link graph is loaded to the heap instead of
+     * being memory-mapped.
+     */
+    private final boolean loadGraph;
+    
+    /**
+     * The change file applied over the local link graph, or {@code null}.
+     */
+    private final String graphChangeFile;
     
     /**
      * Constructs this object holding the parsed command line arguments.
@@ -46,22 +98,56 @@ class CommandLineArguments {
      * @param threadCount   the number of threads to use in the search.
      * @param sourceUrl     the URL of the source article.
      * @param targetUrl     the URL of the target article.
-     * @param dequeueTrials the number of trials to pop the queue.
-     * @param trialWaitTime the number of milliseconds to wait after each 
-     *                      unsuccessful trial.
+     * @param batchSize     the maximum number of frontier nodes to expand 
+     *                      with a single request.
+     * @param connectTimeout the connection timeout in milliseconds.
+     * @param readTimeout   the read timeout in milliseconds.
+     * @param connections   the maximum number of requests in flight.
+     * @param cacheDirectory the directory of the persistent neighbor store, 
+     *                      or {@code null}.
+     * @param retries       the number of retries of a failed request.
+     * @param hedgePercentile the latency percentile after which a request is
+     *                      hedged, or zero.
+     * @param apiProfile    the shape of the link queries.
+     * @param engine        the parallel engine searching the Wikipedia API.
+     * @param graphFile     the local link graph file, or {@code null}.
+     * @param loadGraph     whether to load the graph to the heap instead of 
+     *                      mapping it.
+     * @param graphChangeFile the change file applied over the local link 
+     *                      graph, or {@code null}.
      */
     CommandLineArguments(final boolean log,
                          final int threadCount,
                          final String sourceUrl, 
                          final String targetUrl,
-                         final int dequeueTrials,
-                         final int trialWaitTime) {
+                         final int batchSize,
+                         final int connectTimeout,
+                         final int readTimeout,
+                         final int connections,
+                         final String cacheDirectory,
+                         final int retries,
+                         final int hedgePercentile,
+                         final ApiRequestProfile apiProfile,
+                         final SearchEngine engine,
+                         final String graphFile,
+                         final boolean loadGraph,
+                         final String graphChangeFile) {
         this.log           = log;
         this.threadCount   = threadCount;
         this.sourceUrl     = sourceUrl;
         this.targetUrl     = targetUrl;
-        this.dequeueTrials = dequeueTrials;
-        this.trialWaitTime = trialWaitTime;
+        this.batchSize      = batchSize;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout    = readTimeout;
+        this.connections    = connections;
+        this.cacheDirectory = cacheDirectory;
+        this.retries        = retries;
+        this.hedgePercentile = hedgePercentile;
+        this.apiProfile     = apiProfile;
+        this.engine         = engine;
+        this.graphFile      = graphFile;
+        this.loadGraph      = loadGraph;
+        this.graphChangeFile = graphChangeFile;
     }
     
     boolean doLog() {
@@ -80,11 +166,51 @@ class CommandLineArguments {
         return targetUrl;
     }
     
-    int getDequeueTrials() {
-        return dequeueTrials;
+    int getBatchSize() {
+        return batchSize;
+    }
+    
+    int getConnectTimeout() {
+        return connectTimeout;
+    }
+    
+    int getReadTimeout() {
+        return readTimeout;
+    }
+    
+    int getConnections() {
+        return connections;
+    }
+    
+    String getCacheDirectory() {
+        return cacheDirectory;
+    }
+    
+    int getRetries() {
+        return retries;
+    }
+    
+    int getHedgePercentile() {
+        return hedgePercentile;
+    }
+    
+    ApiRequestProfile getApiProfile() {
+        return apiProfile;
+    }
+    
+    SearchEngine getEngine() {
+        return engine;
+    }
+    
+    String getGraphFile() {
+        return graphFile;
+    }
+    
+    boolean doLoadGraph() {
+        return loadGraph;
     }
     
-    int getTrialWaitTime() {
-        return trialWaitTime;
+    String getGraphChangeFile() {
+        return graphChangeFile;
     }
 }
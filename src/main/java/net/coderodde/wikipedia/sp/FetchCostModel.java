@@ -0,0 +1,297 @@
+package net.coderodde.wikipedia.sp;
+
+/**
+ * This class estimates the cost of expanding a search frontier in terms of
+ * the requests sent to the Wikipedia API, and is learned online from the
+ * completed fetches.
+ * <p>
+ * A batch of nodes costs at least one request. On top of that, it costs one
+ * more request for each page its link lists overflow to, as the backlinks of
+ * a hub do, and the requests following the backlinks that come from redirect
+ * pages. For each direction of the links, the model keeps exponentially
+ * decaying sums of these extra requests, of the links fetched and of the
+ * fetched nodes, so that a single hub weighs as one node and not as a whole
+ * batch. The requests per node are the share of the first request plus the
+ * extra requests per node. Expanding a node costs these requests and puts
+ * its links on the next frontier of the same direction, which costs as much
+ * per node in turn, so the cost of a frontier is its size times the requests
+ * per node times one plus the links per node. A search thus picks the
+ * direction whose frontier is cheaper to expand and grows the less, and not
+ * merely the smaller one. Until a direction is sampled, it takes the average
+ * of the other one.
+ * <p>
+ * The links per node are learned from the nodes a search reaches only, and
+ * not from its source and target: these are picked by the user, often among
+ * the hubs, and their link lists tell little about the frontiers.
+ * <p>
+ * The fetches of the current search count as soon as they complete, so that
+ * the backlink pages of a hub weigh on the very next decision, and are folded
+ * into the decaying sums by {@link #learn()} once the search ends. A model
+ * constructed to learn between searches only ignores the current search
+ * until then: its decisions within a search follow from the earlier searches
+ * only, and a search repeated by another finder expands the same nodes,
+ * whatever order the fetches complete in.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public final class FetchCostModel {
+
+    /**
+     * The default share of the sums forgotten on each search.
+     */
+    public static final double DEFAULT_SMOOTHING = 0.2;
+
+    /**
+     * The share of the sums forgotten on each search. Zero turns the learning
+     * off so that the frontier sizes alone decide.
+     */
+    private final double smoothing;
+
+    /**
+     * Specifies whether the fetches of the current search count before the
+     * search ends.
+     */
+    private final boolean learnsWithinSearch;
+
+    private double forwardExtraRequests;
+    private double forwardNodes;
+    private double forwardLinks;
+    private double forwardLinkedNodes;
+    private double backwardExtraRequests;
+    private double backwardNodes;
+    private double backwardLinks;
+    private double backwardLinkedNodes;
+
+    // The fetches of the current search:
+    private int pendingForwardExtraRequests;
+    private int pendingForwardNodes;
+    private long pendingForwardLinks;
+    private int pendingForwardLinkedNodes;
+    private int pendingBackwardExtraRequests;
+    private int pendingBackwardNodes;
+    private long pendingBackwardLinks;
+    private int pendingBackwardLinkedNodes;
+
+    public FetchCostModel() {
+        this(DEFAULT_SMOOTHING);
+    }
+
+    public FetchCostModel(double smoothing) {
+        this(smoothing, true);
+    }
+
+    /**
+     * Constructs this model.
+     *
+     * @param smoothing          the share of the sums forgotten on each
+     *                           search, within {@code [0, 1]}.
+     * @param learnsWithinSearch whether the fetches of the current search
+     *                           count before it ends.
+     */
+    public FetchCostModel(double smoothing, boolean learnsWithinSearch) {
+        if (smoothing < 0.0 || smoothing > 1.0) {
+            throw new IllegalArgumentException(
+                    "The smoothing factor must be within [0, 1], received " +
+                    smoothing + ".");
+        }
+
+        this.smoothing = smoothing;
+        this.learnsWithinSearch = learnsWithinSearch;
+    }
+
+    /**
+     * Records a completed fetch of a single batch. The nodes served from the
+     * neighbor cache are not counted, since they cost nothing.
+     *
+     * @param forward  the direction of the fetched links.
+     * @param nodes    the number of nodes fetched.
+     * @param requests the number of requests sent for them.
+     */
+    public synchronized void record(boolean forward, int nodes, int requests) {
+        if (nodes <= 0) {
+            return;
+        }
+
+        int extraRequests = Math.max(requests - 1, 0);
+
+        if (forward) {
+            pendingForwardExtraRequests += extraRequests;
+            pendingForwardNodes += nodes;
+        } else {
+            pendingBackwardExtraRequests += extraRequests;
+            pendingBackwardNodes += nodes;
+        }
+    }
+
+    /**
+     * Records the links of the nodes reached by a search. The source and the
+     * target of the search are not to be recorded.
+     *
+     * @param forward the direction of the links.
+     * @param nodes   the number of nodes.
+     * @param links   the number of their links.
+     */
+    public synchronized void recordLinks(boolean forward, 
+                                         int nodes, 
+                                         int links) {
+        if (nodes <= 0) {
+            return;
+        }
+
+        if (forward) {
+            pendingForwardLinks += Math.max(links, 0);
+            pendingForwardLinkedNodes += nodes;
+        } else {
+            pendingBackwardLinks += Math.max(links, 0);
+            pendingBackwardLinkedNodes += nodes;
+        }
+    }
+
+    /**
+     * Folds the fetches recorded since the previous call into the estimates.
+     */
+    public synchronized void learn() {
+        if (smoothing > 0.0) {
+            double keep = 1.0 - smoothing;
+
+            if (pendingForwardNodes > 0) {
+                forwardExtraRequests = keep * forwardExtraRequests +
+                                       pendingForwardExtraRequests;
+                forwardNodes = keep * forwardNodes + pendingForwardNodes;
+            }
+
+            if (pendingForwardLinkedNodes > 0) {
+                forwardLinks = keep * forwardLinks + pendingForwardLinks;
+                forwardLinkedNodes = keep * forwardLinkedNodes +
+                                     pendingForwardLinkedNodes;
+            }
+
+            if (pendingBackwardNodes > 0) {
+                backwardExtraRequests = keep * backwardExtraRequests +
+                                        pendingBackwardExtraRequests;
+                backwardNodes = keep * backwardNodes + pendingBackwardNodes;
+            }
+
+            if (pendingBackwardLinkedNodes > 0) {
+                backwardLinks = keep * backwardLinks + pendingBackwardLinks;
+                backwardLinkedNodes = keep * backwardLinkedNodes +
+                                      pendingBackwardLinkedNodes;
+            }
+        }
+
+        pendingForwardExtraRequests = 0;
+        pendingForwardNodes = 0;
+        pendingForwardLinks = 0L;
+        pendingForwardLinkedNodes = 0;
+        pendingBackwardExtraRequests = 0;
+        pendingBackwardNodes = 0;
+        pendingBackwardLinks = 0L;
+        pendingBackwardLinkedNodes = 0;
+    }
+
+    /**
+     * Returns the estimated number of requests per node beyond the first
+     * request of a batch.
+     *
+     * @param forward the direction of the links.
+     * @return the estimated extra requests per node.
+     */
+    public synchronized double getExtraRequestsPerNode(boolean forward) {
+        return getPerNode(forward,
+                          forwardExtraRequests,
+                          pendingForwardExtraRequests,
+                          forwardNodes,
+                          pendingForwardNodes,
+                          backwardExtraRequests,
+                          pendingBackwardExtraRequests,
+                          backwardNodes,
+                          pendingBackwardNodes);
+    }
+
+    /**
+     * Returns the estimated number of links per node reached by a search.
+     *
+     * @param forward the direction of the links.
+     * @return the estimated links per node.
+     */
+    public synchronized double getLinksPerNode(boolean forward) {
+        return getPerNode(forward,
+                          forwardLinks,
+                          pendingForwardLinks,
+                          forwardLinkedNodes,
+                          pendingForwardLinkedNodes,
+                          backwardLinks,
+                          pendingBackwardLinks,
+                          backwardLinkedNodes,
+                          pendingBackwardLinkedNodes);
+    }
+
+    /**
+     * Returns the estimated number of requests for expanding
+     * {@code frontierSize} nodes and then the nodes they link to.
+     *
+     * @param forward      the direction of the links.
+     * @param frontierSize the number of nodes to expand.
+     * @param batchSize    the number of nodes expanded with a single request.
+     * @return the estimated cost.
+     */
+    public double estimateCost(boolean forward,
+                               int frontierSize,
+                               int batchSize) {
+        double requestsPerNode = 1.0 / Math.max(batchSize, 1) +
+                                 getExtraRequestsPerNode(forward);
+
+        return frontierSize * requestsPerNode *
+               (1.0 + getLinksPerNode(forward));
+    }
+
+    /**
+     * Returns a sum per node of the {@code forward} direction, or of both
+     * directions if that one is not sampled yet. Must be called with the
+     * monitor held.
+     */
+    private double getPerNode(boolean forward,
+                              double forwardSum,
+                              double pendingForwardSum,
+                              double forwardCount,
+                              int pendingForwardCount,
+                              double backwardSum,
+                              double pendingBackwardSum,
+                              double backwardCount,
+                              int pendingBackwardCount) {
+        if (learnsWithinSearch && smoothing > 0.0) {
+            forwardSum += pendingForwardSum;
+            forwardCount += pendingForwardCount;
+            backwardSum += pendingBackwardSum;
+            backwardCount += pendingBackwardCount;
+        }
+
+        double sum = forward ? forwardSum : backwardSum;
+        double nodes = forward ? forwardCount : backwardCount;
+
+        if (nodes == 0.0) {
+            sum = forwardSum + backwardSum;
+            nodes = forwardCount + backwardCount;
+        }
+
+        return nodes == 0.0 ? 0.0 : sum / nodes;
+    }
+
+    /**
+     * Decides whether the forward frontier is to be expanded next. A tie goes
+     * to the forward frontier.
+     *
+     * @param forwardFrontierSize  the size of the forward frontier.
+     * @param backwardFrontierSize the size of the backward frontier.
+     * @param batchSize            the number of nodes expanded with a single
+     *                             request.
+     * @return {@code true} if the forward frontier is cheaper to expand.
+     */
+    public boolean preferForward(int forwardFrontierSize,
+                                 int backwardFrontierSize,
+                                 int batchSize) {
+        return estimateCost(true, forwardFrontierSize, batchSize) <=
+               estimateCost(false, backwardFrontierSize, batchSize);
+    }
+}
@@ -0,0 +1,972 @@
+package net.coderodde.wikipedia.sp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import static net.coderodde.wikipedia.sp.Miscellanea.encodeWikipediaStyle;
+import static net.coderodde.wikipedia.sp.Miscellanea.getEncoder;
+
+/**
+ * This class parses the link query responses of the Wikipedia API straight
+ * from the UTF-8 bytes of the response stream. No document tree is built and
+ * no strings are created for the member names: each namespace 0 link is
+ * decoded right into its Wikipedia-style encoded title and passed to a
+ * {@link LinkSink}, so the caller may deduplicate the links while the
+ * response is still being parsed. The only allocation per link is its title.
+ * <p>
+ * The API reports pages under their normalized titles, so the
+ * {@code normalized} array, which precedes the {@code pages}, is used for
+ * mapping each page back to the title it was requested with.
+ * <p>
+ * A parser instance reuses its buffers over all the response pages of a
+ * single query and must not be shared between threads.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+final class LinkJsonParser {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * The titles that were requested.
+     */
+    private final List<String> requestedTitles;
+
+    /**
+     * The name of the link array in the page objects.
+     */
+    private final String linkArrayName;
+
+    /**
+     * Whether the server filtered the links to the articles, in which case 
+     * the namespaces are not checked.
+     */
+    private final boolean articlesOnly;
+
+    /**
+     * The input buffer.
+     */
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    /**
+     * The stream being parsed.
+     */
+    private InputStream in;
+
+    /**
+     * Receives the links from redirect pages, or {@code null} if they are 
+     * reported as ordinary links.
+     */
+    private LinkSink redirectLinkSink;
+
+    /**
+     * The index of the next unread byte in {@code buffer}.
+     */
+    private int position;
+
+    /**
+     * The number of valid bytes in {@code buffer}.
+     */
+    private int limit;
+
+    /**
+     * The number of bytes consumed before the current buffer contents.
+     */
+    private long offset;
+
+    /**
+     * Holds the characters of the most recently read string.
+     */
+    private char[] chars = new char[64];
+
+    /**
+     * The number of characters in {@code chars}.
+     */
+    private int length;
+
+    /**
+     * The buffer for building encoded titles.
+     */
+    private char[] encodedChars = new char[64];
+
+    /**
+     * Maps the Wikipedia-style encoded titles of the redirects reported by 
+     * the API to the encoded titles of their targets.
+     */
+    private final Map<String, String> redirectMap = new HashMap<>();
+
+    /**
+     * Constructs a parser for the responses to a link query.
+     *
+     * @param requestedTitles the titles that were requested.
+     * @param linkArrayName   the name of the link array in page objects.
+     */
+    LinkJsonParser(List<String> requestedTitles, String linkArrayName) {
+        this(requestedTitles, linkArrayName, false);
+    }
+
+    /**
+     * Constructs a parser for the responses to a link query.
+     *
+     * @param requestedTitles the titles that were requested.
+     * @param linkArrayName   the name of the link array in page objects.
+     * @param articlesOnly    whether the server returns article links only.
+     */
+    LinkJsonParser(List<String> requestedTitles, 
+                   String linkArrayName, 
+                   boolean articlesOnly) {
+        this.requestedTitles = requestedTitles;
+        this.linkArrayName   = linkArrayName;
+        this.articlesOnly    = articlesOnly;
+    }
+
+    /**
+     * Parses a single response page and reports its links to
+     * {@code linkSink}.
+     *
+     * @param in       the response body.
+     * @param linkSink the sink receiving the links.
+     * @return the query string for requesting the next page, or {@code null}
+     *         if this page is the last one.
+     * @throws IOException if reading fails, the response is malformed, or the
+     *                     response reports an API error.
+     */
+    String parse(InputStream in, LinkSink linkSink) throws IOException {
+        return parse(in, linkSink, null);
+    }
+
+    /**
+     * Parses a single response page and reports its links to 
+     * {@code linkSink}, except for the links from the pages flagged as 
+     * redirects by {@code lhprop=redirect}, which are reported to 
+     * {@code redirectLinkSink}.
+     *
+     * @param in               the response body.
+     * @param linkSink         the sink receiving the links.
+     * @param redirectLinkSink the sink receiving the links from redirects, or
+     *                         {@code null} for reporting them to 
+     *                         {@code linkSink}.
+     * @return the query string for requesting the next page, or {@code null}
+     *         if this page is the last one.
+     * @throws IOException if reading fails, the response is malformed, or the
+     *                     response reports an API error.
+     */
+    String parse(InputStream in, 
+                 LinkSink linkSink, 
+                 LinkSink redirectLinkSink) throws IOException {
+        this.in = in;
+        this.redirectLinkSink = redirectLinkSink;
+        this.position = 0;
+        this.limit = 0;
+        this.offset = 0L;
+
+        try {
+            return parseRoot(linkSink);
+        } finally {
+            this.in = null;
+            this.redirectLinkSink = null;
+        }
+    }
+
+    private String parseRoot(LinkSink linkSink) throws IOException {
+        String continuation = null;
+        expect('{');
+
+        if (!endOfContainer('}')) {
+            do {
+                readKey();
+
+                if (keyEquals("continue")) {
+                    continuation = parseContinuation();
+                } else if (keyEquals("query")) {
+                    parseQuery(linkSink);
+                } else if (keyEquals("error")) {
+                    throw parseError();
+                } else {
+                    skipValue();
+                }
+            } while (nextMember('}'));
+        }
+
+        return continuation;
+    }
+
+    /**
+     * Returns the redirects resolved by the API in the responses parsed so 
+     * far. The requested redirects stand for their targets: the links of a 
+     * target are reported under the redirect title that was requested.
+     *
+     * @return the map mapping the encoded redirect titles to the encoded 
+     *         target titles.
+     */
+    Map<String, String> getRedirects() {
+        return redirectMap;
+    }
+
+    private void parseQuery(LinkSink linkSink) throws IOException {
+        Map<String, String> requestedTitleMap = new HashMap<>();
+        Map<String, List<String>> redirectSourceMap = new HashMap<>();
+        expect('{');
+
+        if (!endOfContainer('}')) {
+            do {
+                readKey();
+
+                if (keyEquals("normalized")) {
+                    parseNormalized(requestedTitleMap);
+                } else if (keyEquals("redirects")) {
+                    parseRedirects(redirectSourceMap);
+                } else if (keyEquals("pages")) {
+                    parsePages(requestedTitleMap, 
+                               redirectSourceMap, 
+                               linkSink);
+                } else {
+                    skipValue();
+                }
+            } while (nextMember('}'));
+        }
+    }
+
+    private void parseNormalized(Map<String, String> requestedTitleMap)
+    throws IOException {
+        expect('[');
+
+        if (endOfContainer(']')) {
+            return;
+        }
+
+        do {
+            String from = null;
+            String to = null;
+            expect('{');
+
+            if (!endOfContainer('}')) {
+                do {
+                    readKey();
+
+                    if (keyEquals("from")) {
+                        from = readString();
+                    } else if (keyEquals("to")) {
+                        to = readString();
+                    } else {
+                        skipValue();
+                    }
+                } while (nextMember('}'));
+            }
+
+            if (from != null && to != null) {
+                requestedTitleMap.put(to, from);
+            }
+        } while (nextMember(']'));
+    }
+
+    /**
+     * Reads the redirects array mapping each redirect title to its target.
+     */
+    private void parseRedirects(Map<String, List<String>> redirectSourceMap)
+    throws IOException {
+        expect('[');
+
+        if (endOfContainer(']')) {
+            return;
+        }
+
+        do {
+            String from = null;
+            String to = null;
+            expect('{');
+
+            if (!endOfContainer('}')) {
+                do {
+                    readKey();
+
+                    if (keyEquals("from")) {
+                        from = readString();
+                    } else if (keyEquals("to")) {
+                        to = readString();
+                    } else {
+                        skipValue();
+                    }
+                } while (nextMember('}'));
+            }
+
+            if (from != null && to != null) {
+                redirectSourceMap.computeIfAbsent(to, (t) -> new ArrayList<>())
+                                 .add(from);
+                redirectMap.put(encodeWikipediaStyle(from), 
+                                encodeWikipediaStyle(to));
+            }
+        } while (nextMember(']'));
+    }
+
+    private void parsePages(Map<String, String> requestedTitleMap,
+                            Map<String, List<String>> redirectSourceMap,
+                            LinkSink linkSink) throws IOException {
+        // 'formatversion=1' keys the pages by their IDs, 'formatversion=2'
+        // lists them in an array.
+        if (peekNonWhitespace() == '[') {
+            expect('[');
+
+            if (!endOfContainer(']')) {
+                do {
+                    parsePage(requestedTitleMap, redirectSourceMap, linkSink);
+                } while (nextMember(']'));
+            }
+        } else {
+            expect('{');
+
+            if (!endOfContainer('}')) {
+                do {
+                    readKey();
+                    parsePage(requestedTitleMap, redirectSourceMap, linkSink);
+                } while (nextMember('}'));
+            }
+        }
+    }
+
+    private void parsePage(Map<String, String> requestedTitleMap,
+                           Map<String, List<String>> redirectSourceMap,
+                           LinkSink linkSink) throws IOException {
+        List<String> pageRequestedTitles = null;
+        List<String> pendingLinks = null;
+        List<String> pendingRedirectLinks = null;
+        expect('{');
+
+        if (!endOfContainer('}')) {
+            do {
+                readKey();
+
+                if (keyEquals("title")) {
+                    pageRequestedTitles = 
+                            getRequestedTitles(requestedTitleMap,
+                                               redirectSourceMap,
+                                               readString());
+                } else if (keyEquals(linkArrayName) 
+                        && pageRequestedTitles != null) {
+                    if (!pageRequestedTitles.isEmpty()) {
+                        parseLinks(pageRequestedTitles.get(0),
+                                   fanOut(pageRequestedTitles, linkSink));
+                    } else {
+                        skipValue();
+                    }
+                } else if (keyEquals(linkArrayName)) {
+                    // The title has not been seen yet, so hold the links:
+                    pendingLinks = new ArrayList<>();
+                    pendingRedirectLinks = new ArrayList<>();
+                    List<String> list = pendingLinks;
+                    List<String> redirectList = pendingRedirectLinks;
+                    LinkSink savedRedirectLinkSink = redirectLinkSink;
+
+                    if (redirectLinkSink != null) {
+                        redirectLinkSink = 
+                                (title, link) -> redirectList.add(link);
+                    }
+
+                    try {
+                        parseLinks(null, (title, link) -> list.add(link));
+                    } finally {
+                        redirectLinkSink = savedRedirectLinkSink;
+                    }
+                } else {
+                    skipValue();
+                }
+            } while (nextMember('}'));
+        }
+
+        if (pendingLinks != null && pageRequestedTitles != null) {
+            for (String requestedTitle : pageRequestedTitles) {
+                for (String link : pendingLinks) {
+                    linkSink.onLink(requestedTitle, link);
+                }
+
+                for (String link : pendingRedirectLinks) {
+                    redirectLinkSink.onLink(requestedTitle, link);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a sink reporting each link to all of {@code titles}, which are
+     * several requested redirects to the same page.
+     */
+    private static LinkSink fanOut(List<String> titles, LinkSink linkSink) {
+        if (titles.size() == 1) {
+            return linkSink;
+        }
+
+        return (ignored, link) -> {
+            for (String title : titles) {
+                linkSink.onLink(title, link);
+            }
+        };
+    }
+
+    private void parseLinks(String requestedTitle, LinkSink linkSink)
+    throws IOException {
+        expect('[');
+
+        if (endOfContainer(']')) {
+            return;
+        }
+
+        if (articlesOnly) {
+            parseArticleLinks(requestedTitle, linkSink);
+            return;
+        }
+
+        do {
+            int namespace = 0;
+            String title = null;
+            boolean redirect = false;
+            expect('{');
+
+            if (!endOfContainer('}')) {
+                do {
+                    readKey();
+
+                    if (keyEquals("ns")) {
+                        namespace = readInt();
+                    } else if (keyEquals("title") && namespace == 0) {
+                        title = readEncodedTitle();
+                    } else if (keyEquals("redirect")) {
+                        redirect = readFlag();
+                    } else {
+                        skipValue();
+                    }
+                } while (nextMember('}'));
+            }
+
+            if (namespace == 0 && title != null) {
+                reportLink(requestedTitle, title, redirect, linkSink);
+            }
+        } while (nextMember(']'));
+    }
+
+    /**
+     * The fast path of {@link #parseLinks(java.lang.String, LinkSink)} for 
+     * the responses filtered to namespace 0 by the server: the namespaces 
+     * are not read.
+     */
+    private void parseArticleLinks(String requestedTitle, LinkSink linkSink)
+    throws IOException {
+        do {
+            String title = null;
+            boolean redirect = false;
+            expect('{');
+
+            if (!endOfContainer('}')) {
+                do {
+                    readKey();
+
+                    if (keyEquals("title")) {
+                        title = readEncodedTitle();
+                    } else if (keyEquals("redirect")) {
+                        redirect = readFlag();
+                    } else {
+                        skipValue();
+                    }
+                } while (nextMember('}'));
+            }
+
+            if (title != null) {
+                reportLink(requestedTitle, title, redirect, linkSink);
+            }
+        } while (nextMember(']'));
+    }
+
+    private void reportLink(String requestedTitle, 
+                            String title, 
+                            boolean redirect,
+                            LinkSink linkSink) {
+        if (redirect && redirectLinkSink != null) {
+            redirectLinkSink.onLink(requestedTitle, title);
+        } else {
+            linkSink.onLink(requestedTitle, title);
+        }
+    }
+
+    /**
+     * Reads a flag: {@code true} or {@code false} in 
+     * {@code formatversion=2}, and the presence of the member in 
+     * {@code formatversion=1}, where its value is an empty string.
+     */
+    private boolean readFlag() throws IOException {
+        return !"false".equals(readScalar());
+    }
+
+    /**
+     * Returns the query string carrying all the continuation parameters.
+     *
+     * @return the continuation query string.
+     */
+    private String parseContinuation() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        expect('{');
+
+        if (!endOfContainer('}')) {
+            do {
+                readKey();
+                String name = new String(chars, 0, length);
+                sb.append('&')
+                  .append(name)
+                  .append('=')
+                  .append(urlEncode(readScalar()));
+            } while (nextMember('}'));
+        }
+
+        return sb.toString();
+    }
+
+    private IOException parseError() throws IOException {
+        String code = null;
+        String info = null;
+        expect('{');
+
+        if (!endOfContainer('}')) {
+            do {
+                readKey();
+
+                if (keyEquals("code")) {
+                    code = readScalar();
+                } else if (keyEquals("info")) {
+                    info = readScalar();
+                } else {
+                    skipValue();
+                }
+            } while (nextMember('}'));
+        }
+
+        return new IOException("The Wikipedia API reported an error \"" +
+                               code + "\": " + info);
+    }
+
+    /**
+     * Returns the requested titles that correspond to the page title 
+     * {@code pageTitle} reported by the API. There are several if many of the
+     * requested titles redirect to the same page, and none if the page was 
+     * not requested.
+     *
+     * @param requestedTitleMap the map mapping normalized titles to requested
+     *                          titles.
+     * @param redirectSourceMap the map mapping redirect targets to redirect
+     *                          titles.
+     * @param pageTitle         the page title reported by the API.
+     * @return the list of requested titles.
+     */
+    private List<String> getRequestedTitles(
+            Map<String, String> requestedTitleMap,
+            Map<String, List<String>> redirectSourceMap,
+            String pageTitle) {
+        if (requestedTitles.size() == 1) {
+            // Only one title requested, the page must be that one.
+            return requestedTitles;
+        }
+
+        List<String> pageRequestedTitles = new ArrayList<>(1);
+        addRequestedTitle(pageRequestedTitles, 
+                          getRequestedTitle(requestedTitleMap, pageTitle));
+
+        for (String redirectTitle : 
+                redirectSourceMap.getOrDefault(pageTitle, 
+                                               Collections.emptyList())) {
+            addRequestedTitle(pageRequestedTitles,
+                              getRequestedTitle(requestedTitleMap, 
+                                                redirectTitle));
+        }
+
+        return pageRequestedTitles;
+    }
+
+    private static void addRequestedTitle(List<String> pageRequestedTitles,
+                                          String requestedTitle) {
+        if (requestedTitle != null && 
+                !pageRequestedTitles.contains(requestedTitle)) {
+            pageRequestedTitles.add(requestedTitle);
+        }
+    }
+
+    /**
+     * Returns the requested title that corresponds to {@code pageTitle} 
+     * after the title normalization, or {@code null} if there is no such 
+     * requested title.
+     *
+     * @param requestedTitleMap the map mapping normalized titles to requested
+     *                          titles.
+     * @param pageTitle         the normalized title.
+     * @return the requested title or {@code null}.
+     */
+    private String getRequestedTitle(Map<String, String> requestedTitleMap,
+                                     String pageTitle) {
+        String requestedTitle = requestedTitleMap.get(pageTitle);
+
+        if (requestedTitle != null) {
+            return requestedTitle;
+        }
+
+        if (requestedTitles.contains(pageTitle)) {
+            return pageTitle;
+        }
+
+        String encodedPageTitle = encodeWikipediaStyle(pageTitle);
+        return requestedTitles.contains(encodedPageTitle) ?
+               encodedPageTitle :
+               null;
+    }
+
+    // Below are the tokenizer methods.
+
+    private boolean fill() throws IOException {
+        offset += limit;
+        position = 0;
+        limit = Math.max(0, in.read(buffer, 0, buffer.length));
+        return limit > 0;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+
+        return buffer[position++] & 0xff;
+    }
+
+    private int peekNonWhitespace() throws IOException {
+        while (true) {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+
+            int b = buffer[position] & 0xff;
+
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return b;
+            }
+
+            position++;
+        }
+    }
+
+    private void expect(char c) throws IOException {
+        int b = peekNonWhitespace();
+
+        if (b != c) {
+            throw syntaxError("expected '" + c + "'");
+        }
+
+        position++;
+    }
+
+    /**
+     * Consumes {@code close} and returns {@code true} if the container being
+     * read is empty.
+     */
+    private boolean endOfContainer(char close) throws IOException {
+        if (peekNonWhitespace() == close) {
+            position++;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Consumes the separator after a container member and returns
+     * {@code true} if another member follows.
+     */
+    private boolean nextMember(char close) throws IOException {
+        int b = peekNonWhitespace();
+
+        if (b == ',') {
+            position++;
+            return true;
+        }
+
+        if (b == close) {
+            position++;
+            return false;
+        }
+
+        throw syntaxError("expected ',' or '" + close + "'");
+    }
+
+    private void readKey() throws IOException {
+        expect('"');
+        readChars();
+        expect(':');
+    }
+
+    private boolean keyEquals(String key) {
+        if (key.length() != length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; ++i) {
+            if (key.charAt(i) != chars[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private String readString() throws IOException {
+        expect('"');
+        readChars();
+        return new String(chars, 0, length);
+    }
+
+    /**
+     * Reads a string or a literal value as text.
+     */
+    private String readScalar() throws IOException {
+        if (peekNonWhitespace() == '"') {
+            return readString();
+        }
+
+        length = 0;
+        int b;
+
+        while ((b = peekNonWhitespace()) != -1 && isLiteralByte(b)) {
+            append((char) b);
+            position++;
+        }
+
+        if (length == 0) {
+            throw syntaxError("expected a value");
+        }
+
+        return new String(chars, 0, length);
+    }
+
+    /**
+     * Reads a string value and returns it encoded the way
+     * {@link Miscellanea#encodeWikipediaStyle(java.lang.String)} does,
+     * without creating the intermediate string.
+     */
+    private String readEncodedTitle() throws IOException {
+        expect('"');
+        readChars();
+        int encodedLength = 0;
+
+        for (int i = 0; i < length; ++i) {
+            String encoder = getEncoder(chars[i]);
+            int needed = encodedLength + (encoder == null ?
+                                          1 :
+                                          encoder.length());
+
+            if (needed > encodedChars.length) {
+                encodedChars = Arrays.copyOf(encodedChars, 2 * needed);
+            }
+
+            if (encoder == null) {
+                encodedChars[encodedLength++] = chars[i];
+            } else {
+                for (int j = 0; j < encoder.length(); ++j) {
+                    encodedChars[encodedLength++] = encoder.charAt(j);
+                }
+            }
+        }
+
+        return new String(encodedChars, 0, encodedLength);
+    }
+
+    private int readInt() throws IOException {
+        int b = peekNonWhitespace();
+        boolean negative = b == '-';
+
+        if (negative) {
+            position++;
+            b = peekNonWhitespace();
+        }
+
+        if (b < '0' || b > '9') {
+            throw syntaxError("expected an integer");
+        }
+
+        int value = 0;
+
+        while (b >= '0' && b <= '9') {
+            value = 10 * value + (b - '0');
+            position++;
+
+            if (position == limit && !fill()) {
+                break;
+            }
+
+            b = buffer[position] & 0xff;
+        }
+
+        return negative ? -value : value;
+    }
+
+    /**
+     * Reads the characters of a string whose opening quote is consumed into
+     * {@code chars}, decoding the escapes and the UTF-8 sequences.
+     */
+    private void readChars() throws IOException {
+        length = 0;
+
+        while (true) {
+            int b = read();
+
+            if (b == '"') {
+                return;
+            }
+
+            if (b == -1) {
+                throw syntaxError("unterminated string");
+            }
+
+            if (b == '\\') {
+                append(readEscape());
+            } else if (b < 0x80) {
+                append((char) b);
+            } else {
+                readUtf8Sequence(b);
+            }
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int b = read();
+
+        switch (b) {
+            case '"':
+            case '\\':
+            case '/':
+                return (char) b;
+
+            case 'b':
+                return '\b';
+
+            case 'f':
+                return '\f';
+
+            case 'n':
+                return '\n';
+
+            case 'r':
+                return '\r';
+
+            case 't':
+                return '\t';
+
+            case 'u':
+                int value = 0;
+
+                for (int i = 0; i < 4; ++i) {
+                    int digit = Character.digit(read(), 16);
+
+                    if (digit < 0) {
+                        throw syntaxError("malformed unicode escape");
+                    }
+
+                    value = (value << 4) | digit;
+                }
+
+                return (char) value;
+
+            default:
+                throw syntaxError("malformed escape");
+        }
+    }
+
+    private void readUtf8Sequence(int first) throws IOException {
+        int codePoint;
+        int continuationBytes;
+
+        if ((first & 0xe0) == 0xc0) {
+            codePoint = first & 0x1f;
+            continuationBytes = 1;
+        } else if ((first & 0xf0) == 0xe0) {
+            codePoint = first & 0x0f;
+            continuationBytes = 2;
+        } else if ((first & 0xf8) == 0xf0) {
+            codePoint = first & 0x07;
+            continuationBytes = 3;
+        } else {
+            throw syntaxError("malformed UTF-8");
+        }
+
+        for (int i = 0; i < continuationBytes; ++i) {
+            int b = read();
+
+            if ((b & 0xc0) != 0x80) {
+                throw syntaxError("malformed UTF-8");
+            }
+
+            codePoint = (codePoint << 6) | (b & 0x3f);
+        }
+
+        if (Character.isBmpCodePoint(codePoint)) {
+            append((char) codePoint);
+        } else {
+            append(Character.highSurrogate(codePoint));
+            append(Character.lowSurrogate(codePoint));
+        }
+    }
+
+    private void append(char c) {
+        if (length == chars.length) {
+            chars = Arrays.copyOf(chars, 2 * length);
+        }
+
+        chars[length++] = c;
+    }
+
+    private void skipValue() throws IOException {
+        int b = peekNonWhitespace();
+
+        if (b == '{') {
+            position++;
+
+            if (!endOfContainer('}')) {
+                do {
+                    readKey();
+                    skipValue();
+                } while (nextMember('}'));
+            }
+        } else if (b == '[') {
+            position++;
+
+            if (!endOfContainer(']')) {
+                do {
+                    skipValue();
+                } while (nextMember(']'));
+            }
+        } else {
+            readScalar();
+        }
+    }
+
+    private static boolean isLiteralByte(int b) {
+        return (b >= '0' && b <= '9')
+            || (b >= 'a' && b <= 'z')
+            || (b >= 'A' && b <= 'Z')
+            || b == '-'
+            || b == '+'
+            || b == '.';
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException("Malformed JSON response at byte " +
+                               (offset + position) + ": " + message + ".");
+    }
+
+    private static String urlEncode(String text) {
+        try {
+            return URLEncoder.encode(text, "UTF-8");
+        } catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex.getMessage(), ex);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package net.coderodde.wikipedia.sp;
+
+/**
+ * This interface defines the API for receiving the links of expanded articles
+ * as soon as they are parsed from the responses of the Wikipedia API.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+@FunctionalInterface
+public interface LinkSink {
+    
+    /**
+     * This method is called for each neighbor article of an expanded article.
+     * 
+     * @param expandedTitle the title of the expanded article.
+     * @param neighborTitle the title of the neighbor article.
+     */
+    void onLink(String expandedTitle, String neighborTitle);
+}
@@ -1,9 +1,29 @@
 package net.coderodde.wikipedia.sp;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.io.PrintStream;
 import static net.coderodde.wikipedia.sp.Miscellanea.nth;
+import net.coderodde.wikipedia.sp.cache.DiskNeighborStore;
+import net.coderodde.wikipedia.sp.cache.NeighborCache;
+import net.coderodde.wikipedia.sp.cache.TieredNeighborCache;
+import net.coderodde.wikipedia.sp.graph.CSRLinkGraph;
+import net.coderodde.wikipedia.sp.graph.CompressedLinkGraph;
+import net.coderodde.wikipedia.sp.graph.DeltaLinkGraph;
+import net.coderodde.wikipedia.sp.graph.LinkGraph;
+import net.coderodde.wikipedia.sp.graph.MappedLinkGraph;
+import net.coderodde.wikipedia.sp.http.AdaptiveRateLimitingTransport;
+import net.coderodde.wikipedia.sp.http.ResilientTransport;
+import net.coderodde.wikipedia.sp.http.URLConnectionHttpTransport;
+import net.coderodde.wikipedia.sp.support.AsynchronousWikipediaShortestPathFinder;
 import net.coderodde.wikipedia.sp.support.BidirectionalWikipediaShortestPathFinder;
+import net.coderodde.wikipedia.sp.support.LayeredWikipediaShortestPathFinder;
+import net.coderodde.wikipedia.sp.support.OfflineBidirectionalWikipediaShortestPathFinder;
 import net.coderodde.wikipedia.sp.support.ParallelBidirectionalWikipediaShortestPathFinder;
 import net.coderodde.wikipedia.sp.support.ParallelMultidirectionalWikipediaShortestPathFinder;
 
@@ -41,11 +61,38 @@ public class Main {
         System.out.println("[CONFIGURATION] Target URL:       " +
                 arguments.getTargetUrl());
         
-        System.out.println("[CONFIGURATION] Dequeue trials:   " + 
-                arguments.getDequeueTrials());
+        System.out.println("[CONFIGURATION] Batch size:       " +
+                arguments.getBatchSize());
         
-        System.out.println("[CONFIGURATION] Trial wait time:  " +
-                arguments.getTrialWaitTime());
+        System.out.println("[CONFIGURATION] Connect timeout:  " +
+                arguments.getConnectTimeout());
+        
+        System.out.println("[CONFIGURATION] Read timeout:     " +
+                arguments.getReadTimeout());
+        
+        System.out.println("[CONFIGURATION] Connections:      " +
+                arguments.getConnections());
+        
+        System.out.println("[CONFIGURATION] Cache directory:  " +
+                arguments.getCacheDirectory());
+        
+        System.out.println("[CONFIGURATION] Retries:          " +
+                arguments.getRetries());
+        
+        System.out.println("[CONFIGURATION] Hedge percentile: " +
+                arguments.getHedgePercentile());
+        
+        System.out.println("[CONFIGURATION] API profile:      " +
+                arguments.getApiProfile().name().toLowerCase());
+        
+        System.out.println("[CONFIGURATION] Engine:           " +
+                arguments.getEngine().name().toLowerCase());
+        
+        System.out.println("[CONFIGURATION] Graph file:       " +
+                arguments.getGraphFile());
+        
+        System.out.println("[CONFIGURATION] Graph changes:    " +
+                arguments.getGraphChangeFile());
 
         WikipediaURLHandler fromUrlHandler = null;
         WikipediaURLHandler toUrlHandler   = null;
@@ -70,17 +117,81 @@ public class Main {
                 "\" to \"" + arguments.getTargetUrl() + "\" using " +
                 arguments.getThreadCount() + " thread" + nth(arguments.getThreadCount()) + ".");
 
+        if (arguments.getGraphFile() != null) {
+            searchGraph(arguments, fromUrlHandler, toUrlHandler);
+            return;
+        }
+
         PrintStream out = arguments.doLog() ? System.out : null;
         AbstractWikipediaShortestPathFinder finder; 
         
         final int numberOfThreads = arguments.getThreadCount();
+        final AdaptiveRateLimitingTransport rateLimitingTransport = 
+                new AdaptiveRateLimitingTransport(
+                        new URLConnectionHttpTransport(
+                                arguments.getConnectTimeout(),
+                                arguments.getReadTimeout(),
+                                arguments.getConnections()),
+                        arguments.getConnections());
+        final ResilientTransport transport;
         
-        if (numberOfThreads < 2) {
-            finder = new BidirectionalWikipediaShortestPathFinder();
+        try {
+            transport = new ResilientTransport(
+                    rateLimitingTransport,
+                    arguments.getRetries(),
+                    arguments.getHedgePercentile(),
+                    ResilientTransport.DEFAULT_INITIAL_BACKOFF,
+                    ResilientTransport.DEFAULT_MAXIMUM_BACKOFF);
+        } catch (IllegalArgumentException ex) {
+            System.err.println("ERROR: " + ex.getMessage());
+            printUsageMessage();
+            System.exit(1);
+            return;
+        }
+        
+        if (arguments.getEngine() == SearchEngine.LAYERED) {
+            finder = new LayeredWikipediaShortestPathFinder(numberOfThreads, 
+                                                            transport);
+        } else if (arguments.getEngine() == SearchEngine.ASYNCHRONOUS) {
+            finder = new AsynchronousWikipediaShortestPathFinder(
+                    numberOfThreads,
+                    transport);
+        } else if (numberOfThreads < 2) {
+            finder = new BidirectionalWikipediaShortestPathFinder(transport);
         } else {
             finder = new 
             ParallelMultidirectionalWikipediaShortestPathFinder(
-                    arguments.getThreadCount() / 2);
+                    arguments.getThreadCount() / 2,
+                    transport);
+        }
+        
+        finder.setExpansionBatchSize(arguments.getBatchSize());
+        finder.setRequestProfile(arguments.getApiProfile());
+        
+        DiskNeighborStore neighborStore = null;
+        
+        if (arguments.getCacheDirectory() != null) {
+            try {
+                neighborStore = 
+                        new DiskNeighborStore(
+                                new File(arguments.getCacheDirectory()),
+                                DiskNeighborStore.DEFAULT_TIME_TO_LIVE);
+            } catch (IOException ex) {
+                System.err.println("ERROR: " + ex.getMessage());
+                System.exit(1);
+            }
+            
+            if (neighborStore.getTruncatedSegmentCount() > 0) {
+                System.err.println("WARNING: Truncated a torn record in " + 
+                                   neighborStore.getTruncatedSegmentCount() + 
+                                   " neighbor store segment(s).");
+            }
+            
+            finder.setNeighborCache(
+                    new TieredNeighborCache(
+                            AbstractWikipediaShortestPathFinder
+                                    .getSharedNeighborCache(), 
+                            neighborStore));
         }
 
         final ProgressLogger<String> forwardSearchProgressLogger = 
@@ -92,22 +203,194 @@ public class Main {
         final ProgressLogger<String> sharedSearchProgressLogger = 
                 new SharedProgressLogger();
         
-        final String sourceTitle = fromUrlHandler.getTitle();
-        final String targetTitle = toUrlHandler.getTitle();
+        final String apiUrl = fromUrlHandler.getAPIURL();
+        final Map<String, String> canonicalTitleMap;
+        
+        // Check both articles in one request before any search threads start.
+        try {
+            canonicalTitleMap = 
+                    finder.getRedirectResolver()
+                          .resolve(apiUrl, 
+                                   Arrays.asList(fromUrlHandler.getTitle(),
+                                                 toUrlHandler.getTitle()));
+        } catch (IllegalStateException ex) {
+            System.err.println("ERROR: " + ex.getMessage());
+            System.exit(1);
+            return;
+        }
+        
+        final String sourceTitle = 
+                canonicalTitleMap.get(fromUrlHandler.getTitle());
+        final String targetTitle = 
+                canonicalTitleMap.get(toUrlHandler.getTitle());
+        
+        if (sourceTitle == null || targetTitle == null) {
+            System.err.println(
+                    "ERROR: The " + (sourceTitle == null ? "source" : "target") +
+                    " article \"" + 
+                    (sourceTitle == null ? 
+                            fromUrlHandler.getTitle() : 
+                            toUrlHandler.getTitle()) + 
+                    "\" does not exist.");
+            System.exit(1);
+            return;
+        }
 
-        List<String> path = finder.search(sourceTitle,
-                                          targetTitle, 
-                                          fromUrlHandler.getAPIURL(), 
-                                          forwardSearchProgressLogger,
-                                          backwardSearchProgressLogger,
-                                          sharedSearchProgressLogger);
-                                          
+        List<String> path;
+        
+        try {
+            path = finder.search(sourceTitle,
+                                 targetTitle, 
+                                 apiUrl, 
+                                 forwardSearchProgressLogger,
+                                 backwardSearchProgressLogger,
+                                 sharedSearchProgressLogger);
+        } finally {
+            if (neighborStore != null) {
+                try {
+                    neighborStore.close();
+                } catch (IOException ex) {
+                    System.err.println("ERROR: Closing the neighbor store " +
+                                       "failed: " + ex.getMessage());
+                }
+            }
+        }
 
         System.out.println("[RESULT] The search took " + finder.getDuration() +
                            " milliseconds, expanding " + 
                            finder.getNumberOfExpandedNodes() + 
                            " nodes.");
+
+        System.out.println("[RESULT] Coalesced fetches: " + 
+                           finder.getNumberOfCoalescedFetches() + ".");
+
+        System.out.println("[RESULT] Throttling responses: " + 
+                           rateLimitingTransport.getThrottleCount() + 
+                           ", final concurrency limit: " + 
+                           (int) rateLimitingTransport.getConcurrencyLimit() +
+                           ".");
+
+        System.out.println("[RESULT] Retried requests: " + 
+                           transport.getRetryCount() + 
+                           ", hedged requests: " + 
+                           transport.getHedgeCount() + ".");
+
+        NeighborCache neighborCache = finder.getNeighborCache();
+
+        if (neighborCache != null) {
+            System.out.println("[RESULT] Neighbor cache hits: " + 
+                               neighborCache.getHitCount() + ", misses: " +
+                               neighborCache.getMissCount() + ".");
+        }
        
+        printPath(path);
+    }
+    
+    /**
+     * Searches the local link graph file instead of the Wikipedia API.
+     */
+    private static void searchGraph(CommandLineArguments arguments,
+                                    WikipediaURLHandler fromUrlHandler,
+                                    WikipediaURLHandler toUrlHandler) {
+        LinkGraph graph;
+        long loadStartTime = System.currentTimeMillis();
+        
+        try {
+            File graphFile = new File(arguments.getGraphFile());
+            
+            if (CompressedLinkGraph.isCompressedGraphFile(graphFile)) {
+                // The compressed graphs are always loaded to the heap.
+                graph = CompressedLinkGraph.load(graphFile);
+            } else {
+                graph = arguments.doLoadGraph() ? 
+                        CSRLinkGraph.load(graphFile) : 
+                        new MappedLinkGraph(graphFile);
+            }
+        } catch (IOException ex) {
+            System.err.println("[I/O ERROR] Failed loading the graph file: " +
+                               ex.getMessage());
+            System.exit(1);
+            return;
+        }
+        
+        System.out.println("[STATUS] " + 
+                           (graph instanceof MappedLinkGraph ? 
+                                   "Mapped " : "Loaded ") +
+                           graph.getNumberOfArticles() +
+                           " articles and " + graph.getNumberOfLinks() + 
+                           " links in " + 
+                           (System.currentTimeMillis() - loadStartTime) + 
+                           " milliseconds.");
+        
+        if (arguments.getGraphChangeFile() != null) {
+            DeltaLinkGraph deltaGraph;
+            
+            try {
+                deltaGraph = DeltaLinkGraph.load(
+                        graph, 
+                        new File(arguments.getGraphChangeFile()));
+            } catch (IOException ex) {
+                System.err.println("[I/O ERROR] Failed loading the graph " +
+                                   "changes: " + ex.getMessage());
+                System.exit(1);
+                return;
+            }
+            
+            System.out.println("[STATUS] Applied " + 
+                               deltaGraph.getNumberOfAddedLinks() + 
+                               " added and " + 
+                               deltaGraph.getNumberOfRemovedLinks() + 
+                               " removed links.");
+            graph = deltaGraph;
+        }
+        
+        String sourceTitle = toGraphTitle(fromUrlHandler.getTitle());
+        String targetTitle = toGraphTitle(toUrlHandler.getTitle());
+        
+        for (String title : Arrays.asList(sourceTitle, targetTitle)) {
+            if (graph.getId(title) < 0) {
+                System.err.println("ERROR: The article \"" + title + 
+                                   "\" is not in the graph.");
+                System.exit(1);
+                return;
+            }
+        }
+        
+        AbstractWikipediaShortestPathFinder finder = 
+                new OfflineBidirectionalWikipediaShortestPathFinder(graph);
+        boolean log = arguments.doLog();
+        
+        List<String> path = 
+                finder.search(sourceTitle,
+                              targetTitle,
+                              fromUrlHandler.getAPIURL(),
+                              log ? new ForwardSearchProgressLogger() : null,
+                              log ? new BackwardSearchProgressLogger() : null,
+                              log ? new SharedProgressLogger() : null);
+        
+        System.out.println("[RESULT] The search took " + finder.getDuration() +
+                           " milliseconds, expanding " + 
+                           finder.getNumberOfExpandedNodes() + 
+                           " nodes.");
+        
+        printPath(path);
+    }
+    
+    /**
+     * Percent-decodes a title taken from an article URL. The graph lookups
+     * encode the reserved characters back the way the Wikipedia API finders
+     * do, while the rest stays in UTF-8 as stored in the graph files.
+     */
+    private static String toGraphTitle(String urlTitle) {
+        try {
+            // A plus sign in a URL path is literal.
+            return URLDecoder.decode(urlTitle.replace("+", "%2B"), "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException ex) {
+            return urlTitle;
+        }
+    }
+    
+    private static void printPath(List<String> path) {
         System.out.println("[RESULT] A shortest path:");
         
         if (path.isEmpty()) {
@@ -125,12 +408,33 @@ public class Main {
                         CommandLineArgumentParser.LOG_SWITCH_LONG + "] " +
                         "[" + CommandLineArgumentParser.THREAD_SWITCH_SHORT + 
                         " N | " + CommandLineArgumentParser.THREAD_SWITCH_LONG + 
-                        " N] [" + CommandLineArgumentParser.TRIAL_SWITCH_LONG + 
                         " N] [" + 
-                        CommandLineArgumentParser.WAIT_TIME_SWITCH_SHORT + 
+                        CommandLineArgumentParser.BATCH_SWITCH_SHORT + 
                         " N | " + 
-                        CommandLineArgumentParser.WAIT_TIME_SWITCH_LONG +
-                        " N] SOURCE_URL TARGET_URL");
+                        CommandLineArgumentParser.BATCH_SWITCH_LONG +
+                        " N] [" +
+                        CommandLineArgumentParser.CONNECT_TIMEOUT_SWITCH_LONG +
+                        " N] [" +
+                        CommandLineArgumentParser.READ_TIMEOUT_SWITCH_LONG +
+                        " N] [" +
+                        CommandLineArgumentParser.CONNECTIONS_SWITCH_LONG +
+                        " N] [" +
+                        CommandLineArgumentParser.CACHE_DIRECTORY_SWITCH_LONG +
+                        " DIR] [" +
+                        CommandLineArgumentParser.RETRIES_SWITCH_LONG +
+                        " N] [" +
+                        CommandLineArgumentParser.HEDGE_PERCENTILE_SWITCH_LONG +
+                        " N] [" +
+                        CommandLineArgumentParser.API_PROFILE_SWITCH_LONG +
+                        " lean | verbose] [" +
+                        CommandLineArgumentParser.ENGINE_SWITCH_LONG +
+                        " multidirectional | layered | asynchronous] [" +
+                        CommandLineArgumentParser.GRAPH_SWITCH_LONG +
+                        " FILE [" + 
+                        CommandLineArgumentParser.LOAD_GRAPH_SWITCH_LONG +
+                        "] [" +
+                        CommandLineArgumentParser.GRAPH_CHANGES_SWITCH_LONG +
+                        " FILE]] SOURCE_URL TARGET_URL");
         
         System.out.println(
                 "Where:");
@@ -145,13 +449,63 @@ public class Main {
                 "Request N threads for the search.");
         
         System.out.println("    " +
-                CommandLineArgumentParser.TRIAL_SWITCH_LONG + " N  " +
-                "       Request N trials for popping the queue.");
+                CommandLineArgumentParser.BATCH_SWITCH_SHORT + " N, " +
+                CommandLineArgumentParser.BATCH_SWITCH_LONG + " N" +
+                "     Expand up to N (at most " + 
+                AbstractWikipediaShortestPathFinder.MAXIMUM_BATCH_SIZE + 
+                ") nodes per request.");
+        
+        System.out.println("    " +
+                CommandLineArgumentParser.CONNECT_TIMEOUT_SWITCH_LONG + " N" +
+                "  Request the connect timeout of N milliseconds.");
+        
+        System.out.println("    " +
+                CommandLineArgumentParser.READ_TIMEOUT_SWITCH_LONG + " N" +
+                "     Request the read timeout of N milliseconds.");
+        
+        System.out.println("    " +
+                CommandLineArgumentParser.CONNECTIONS_SWITCH_LONG + " N" +
+                "      Allow N requests in flight to the API.");
+        
+        System.out.println("    " +
+                CommandLineArgumentParser.CACHE_DIRECTORY_SWITCH_LONG + " DIR" +
+                "      Keep the fetched links in the directory DIR.");
+        
+        System.out.println("    " +
+                CommandLineArgumentParser.RETRIES_SWITCH_LONG + " N" +
+                "          Retry a failed request up to N times.");
+        
+        System.out.println("    " +
+                CommandLineArgumentParser.HEDGE_PERCENTILE_SWITCH_LONG + " N" +
+                " Hedge the requests slower than the Nth percentile " +
+                "(0 for never).");
+        
+        System.out.println("    " +
+                CommandLineArgumentParser.API_PROFILE_SWITCH_LONG + " P" +
+                "      Use the query profile P: \"lean\" (default) lets " +
+                "the server filter the links, \"verbose\" filters them " +
+                "locally.");
+        
+        System.out.println("    " +
+                CommandLineArgumentParser.ENGINE_SWITCH_LONG + " E" +
+                "           Search with the engine E: \"multidirectional\" " +
+                "(default) runs N / 2 threads per direction, \"layered\" " +
+                "expands whole levels with N parallel fetches, " +
+                "\"asynchronous\" runs each fetch as a task, N in flight " +
+                "at most.");
+        
+        System.out.println("    " +
+                CommandLineArgumentParser.GRAPH_SWITCH_LONG + " FILE" +
+                "         Search the local link graph FILE instead of the " +
+                "Wikipedia API; a compressed graph FILE is always loaded.");
+        
+        System.out.println("    " +
+                CommandLineArgumentParser.LOAD_GRAPH_SWITCH_LONG +
+                "       Load the graph to the heap instead of mapping it.");
         
         System.out.println("    " +
-                CommandLineArgumentParser.WAIT_TIME_SWITCH_SHORT + " N, " +
-                CommandLineArgumentParser.WAIT_TIME_SWITCH_LONG + " N" +
-                "      Request the trial wait time of N milliseconds.");
+                CommandLineArgumentParser.GRAPH_CHANGES_SWITCH_LONG + " FILE" +
+                " Apply the link changes of FILE over the graph.");
         
         System.out.println("    SOURCE_URL         the URL of the source article.");
         System.out.println("    TARGET_URL         the URL of the target article.");
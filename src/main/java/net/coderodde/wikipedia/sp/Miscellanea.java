@@ -11,6 +11,30 @@ import java.util.List;
  */
 public class Miscellanea {
 
+    /**
+     * Maps each ASCII character that must be encoded in article titles to its
+     * encoding. All such characters are ASCII, so a table indexed by the 
+     * character replaces a boxing map lookup.
+     */
+    private static final String[] ENCODING_MAP = new String[128];
+
+    static {
+        ENCODING_MAP[' '] = "_";
+        ENCODING_MAP['"'] = "%22";
+        ENCODING_MAP[';'] = "%3B";
+        ENCODING_MAP['<'] = "%3C";
+        ENCODING_MAP['>'] = "%3E";
+
+        ENCODING_MAP['?'] = "%3F";
+        ENCODING_MAP['['] = "%5B";
+        ENCODING_MAP[']'] = "%5D";
+        ENCODING_MAP['{'] = "%7B";
+        ENCODING_MAP['|'] = "%7C";
+
+        ENCODING_MAP['}'] = "%7D";
+        ENCODING_MAP['?'] = "%3F";
+    }
+
     public static String nth(final int number) {
         return number == 1 ? "" : "s";
     }
@@ -33,4 +57,51 @@ public class Miscellanea {
                     "Cannot convert \"" + integerString + "\" to an integer.");
         }
     }
+    
+    /**
+     * Encodes the article title {@code s} as it appears in the Wikipedia 
+     * article URLs. If there is nothing to encode, {@code s} itself is 
+     * returned without allocating.
+     * 
+     * @param s the article title.
+     * @return the encoded title.
+     */
+    public static String encodeWikipediaStyle(final String s) {
+        int index = 0;
+        
+        while (index < s.length() && getEncoder(s.charAt(index)) == null) {
+            ++index;
+        }
+        
+        if (index == s.length()) {
+            return s;
+        }
+        
+        final StringBuilder sb = new StringBuilder(s.length() + 8);
+        sb.append(s, 0, index);
+
+        for (; index < s.length(); ++index) {
+            final char c = s.charAt(index);
+            final String encoder = getEncoder(c);
+
+            if (encoder != null) {
+                sb.append(encoder);
+            } else {
+                sb.append(c);
+            }
+        }
+
+        return sb.toString();
+    }
+    
+    /**
+     * Returns the encoding of the character {@code c} in article titles, or
+     * {@code null} if the character stands for itself.
+     * 
+     * @param c the character to encode.
+     * @return the encoding of {@code c} or {@code null}.
+     */
+    public static String getEncoder(final char c) {
+        return c < ENCODING_MAP.length ? ENCODING_MAP[c] : null;
+    }
 }
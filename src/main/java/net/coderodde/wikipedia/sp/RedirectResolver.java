@@ -0,0 +1,327 @@
+package net.coderodde.wikipedia.sp;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import net.coderodde.wikipedia.sp.http.HttpResponse;
+import net.coderodde.wikipedia.sp.http.HttpTransport;
+import static net.coderodde.wikipedia.sp.Miscellanea.encodeWikipediaStyle;
+
+/**
+ * This class resolves article titles to their canonical form: the title of 
+ * the page a redirect leads to, or the title itself if it is not a redirect.
+ * The redirects are learned for free from the link queries, which resolve 
+ * the requested titles, and explicitly by {@link #resolve(String, Collection)}
+ * asking the Wikipedia API about up to 
+ * {@link AbstractWikipediaShortestPathFinder#MAXIMUM_BATCH_SIZE} titles per 
+ * request. The titles asked about are remembered, so that
+ * {@link #resolveUnseen(String, Collection)} asks about each title once. All
+ * the titles are Wikipedia-style encoded.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public class RedirectResolver {
+    
+    private static final String RESOLVE_REQUEST_URL = 
+            "?action=query" +
+            "&titles=%s" +
+            "&redirects=1" +
+            "&format=json" +
+            "&formatversion=2";
+    
+    /**
+     * The longest redirect chain followed by {@link #canonicalize}.
+     */
+    private static final int MAXIMUM_CHAIN_LENGTH = 8;
+    
+    private static final int HTTP_OK = 200;
+    
+    /**
+     * The transport carrying the resolution requests.
+     */
+    private final HttpTransport transport;
+    
+    /**
+     * Maps each API URL to the map from the known redirects to their targets.
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, String>> 
+            redirectMaps = new ConcurrentHashMap<>();
+    
+    /**
+     * Maps each API URL to the set of the titles resolved so far.
+     */
+    private final ConcurrentMap<String, Set<String>> resolvedTitleSets = 
+            new ConcurrentHashMap<>();
+    
+    public RedirectResolver(HttpTransport transport) {
+        this.transport = transport;
+    }
+    
+    /**
+     * Records the redirects learned from a response of the API at 
+     * {@code apiUrl}.
+     * 
+     * @param apiUrl    the URL to the Wikipedia API.
+     * @param redirects the map mapping redirect titles to their targets.
+     */
+    public void addRedirects(String apiUrl, Map<String, String> redirects) {
+        if (!redirects.isEmpty()) {
+            getRedirectMap(apiUrl).putAll(redirects);
+        }
+    }
+    
+    /**
+     * Returns {@code true} if the canonical title of {@code title} is known:
+     * {@code title} is a redirect learned so far, or it was resolved before.
+     * 
+     * @param apiUrl the URL to the Wikipedia API.
+     * @param title  the title to check.
+     * @return {@code true} if {@code title} needs no resolving.
+     */
+    public boolean isResolved(String apiUrl, String title) {
+        Map<String, String> redirectMap = redirectMaps.get(apiUrl);
+        Set<String> resolvedTitles = resolvedTitleSets.get(apiUrl);
+        return (redirectMap != null && redirectMap.containsKey(title)) ||
+               (resolvedTitles != null && resolvedTitles.contains(title));
+    }
+    
+    /**
+     * Returns the canonical title of {@code title} as far as the redirects 
+     * learned so far tell.
+     * 
+     * @param apiUrl the URL to the Wikipedia API.
+     * @param title  the title to canonicalize.
+     * @return the canonical title.
+     */
+    public String canonicalize(String apiUrl, String title) {
+        Map<String, String> redirectMap = redirectMaps.get(apiUrl);
+        
+        if (redirectMap == null) {
+            return title;
+        }
+        
+        for (int i = 0; i < MAXIMUM_CHAIN_LENGTH; ++i) {
+            String target = redirectMap.get(title);
+            
+            if (target == null) {
+                break;
+            }
+            
+            title = target;
+        }
+        
+        return title;
+    }
+    
+    /**
+     * Replaces each title in {@code path} with its canonical title and 
+     * removes the repeated titles left by a redirect next to its target.
+     * 
+     * @param apiUrl the URL to the Wikipedia API.
+     * @param path   the path to canonicalize.
+     * @return the canonical path.
+     */
+    public List<String> canonicalizePath(String apiUrl, List<String> path) {
+        List<String> canonicalPath = new ArrayList<>(path.size());
+        
+        for (String title : path) {
+            String canonicalTitle = canonicalize(apiUrl, title);
+            
+            if (canonicalPath.isEmpty() || 
+                    !canonicalPath.get(canonicalPath.size() - 1)
+                                  .equals(canonicalTitle)) {
+                canonicalPath.add(canonicalTitle);
+            }
+        }
+        
+        return canonicalPath;
+    }
+    
+    /**
+     * Asks the API at {@code apiUrl} for the canonical titles of 
+     * {@code titles}.
+     * 
+     * @param apiUrl the URL to the Wikipedia API.
+     * @param titles the titles to resolve.
+     * @return the map mapping each of {@code titles} that exists to its 
+     *         canonical title. The missing and the invalid titles are left 
+     *         out.
+     */
+    public Map<String, String> resolve(String apiUrl, 
+                                       Collection<String> titles) {
+        List<String> uniqueTitles = new ArrayList<>(
+                new LinkedHashSet<>(titles));
+        Map<String, String> canonicalTitleMap = new LinkedHashMap<>();
+        
+        for (int i = 0; 
+                i < uniqueTitles.size(); 
+                i += AbstractWikipediaShortestPathFinder.MAXIMUM_BATCH_SIZE) {
+            List<String> batch = 
+                    uniqueTitles.subList(
+                            i, 
+                            Math.min(uniqueTitles.size(), 
+                                     i + AbstractWikipediaShortestPathFinder
+                                             .MAXIMUM_BATCH_SIZE));
+            resolveBatch(apiUrl, batch, canonicalTitleMap);
+        }
+        
+        return canonicalTitleMap;
+    }
+    
+    /**
+     * Resolves those of {@code titles} that are not resolved yet, so that 
+     * {@link #canonicalize(String, String)} knows the canonical titles of all
+     * of them afterwards.
+     * 
+     * @param apiUrl the URL to the Wikipedia API.
+     * @param titles the titles to resolve.
+     * @return the number of requests sent.
+     */
+    public int resolveUnseen(String apiUrl, Collection<String> titles) {
+        Set<String> unseenTitles = new LinkedHashSet<>();
+        
+        for (String title : titles) {
+            if (!isResolved(apiUrl, title)) {
+                unseenTitles.add(title);
+            }
+        }
+        
+        resolve(apiUrl, unseenTitles);
+        return (unseenTitles.size() + 
+                AbstractWikipediaShortestPathFinder.MAXIMUM_BATCH_SIZE - 1) /
+               AbstractWikipediaShortestPathFinder.MAXIMUM_BATCH_SIZE;
+    }
+    
+    private void resolveBatch(String apiUrl,
+                              List<String> titles,
+                              Map<String, String> canonicalTitleMap) {
+        String url;
+        
+        try {
+            url = apiUrl + String.format(
+                    RESOLVE_REQUEST_URL,
+                    URLEncoder.encode(String.join("|", titles), "UTF-8"));
+        } catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex.getMessage(), ex);
+        }
+        
+        JsonObject query;
+        
+        try (HttpResponse response = transport.get(url);
+             Reader reader = new InputStreamReader(response.getBody(), 
+                                                   StandardCharsets.UTF_8)) {
+            if (response.getStatusCode() != HTTP_OK) {
+                throw new IOException("Unexpected HTTP status " + 
+                                      response.getStatusCode() + ".");
+            }
+            
+            JsonObject root = new JsonParser().parse(reader).getAsJsonObject();
+            
+            if (root.has("error")) {
+                throw new IOException("The Wikipedia API reported an error: " +
+                                      root.get("error"));
+            }
+            
+            query = root.getAsJsonObject("query");
+        } catch (IOException | RuntimeException ex) {
+            throw new IllegalStateException(
+                    "[I/O ERROR] Failed resolving titles with the Wikipedia " +
+                    "API: " + ex.getMessage(), ex);
+        }
+        
+        Set<String> resolvedTitles = getResolvedTitles(apiUrl);
+        
+        if (query == null) {
+            resolvedTitles.addAll(titles);
+            return;
+        }
+        
+        Map<String, String> normalizedMap = readMapping(query, "normalized");
+        Map<String, String> redirectMap = readMapping(query, "redirects");
+        Map<String, String> learnedRedirects = new HashMap<>();
+        
+        redirectMap.forEach((from, to) -> 
+                learnedRedirects.put(encodeWikipediaStyle(from), 
+                                     encodeWikipediaStyle(to)));
+        
+        addRedirects(apiUrl, learnedRedirects);
+        Map<String, Boolean> existenceMap = new HashMap<>();
+        
+        for (JsonElement element : query.getAsJsonArray("pages")) {
+            JsonObject page = element.getAsJsonObject();
+            existenceMap.put(page.get("title").getAsString(), 
+                             !page.has("missing") && !page.has("invalid"));
+        }
+        
+        for (String title : titles) {
+            String pageTitle = title;
+            pageTitle = normalizedMap.getOrDefault(pageTitle, pageTitle);
+            pageTitle = redirectMap.getOrDefault(pageTitle, pageTitle);
+            
+            if (!existenceMap.containsKey(pageTitle)) {
+                // Not normalized by the API, but told apart by the encoding.
+                for (String candidate : existenceMap.keySet()) {
+                    if (encodeWikipediaStyle(candidate).equals(
+                            encodeWikipediaStyle(pageTitle))) {
+                        pageTitle = candidate;
+                        break;
+                    }
+                }
+            }
+            
+            if (existenceMap.getOrDefault(pageTitle, false)) {
+                canonicalTitleMap.put(title, encodeWikipediaStyle(pageTitle));
+                resolvedTitles.add(encodeWikipediaStyle(pageTitle));
+            }
+            
+            // The missing titles are remembered too, so that a red link is
+            // not asked about again.
+            resolvedTitles.add(title);
+        }
+    }
+    
+    private static Map<String, String> readMapping(JsonObject query, 
+                                                   String name) {
+        Map<String, String> mapping = new HashMap<>();
+        JsonArray array = query.getAsJsonArray(name);
+        
+        if (array != null) {
+            for (JsonElement element : array) {
+                JsonObject object = element.getAsJsonObject();
+                mapping.put(object.get("from").getAsString(),
+                            object.get("to").getAsString());
+            }
+        }
+        
+        return mapping;
+    }
+    
+    private ConcurrentMap<String, String> getRedirectMap(String apiUrl) {
+        return redirectMaps.computeIfAbsent(apiUrl, 
+                                            (url) -> new ConcurrentHashMap<>());
+    }
+    
+    private Set<String> getResolvedTitles(String apiUrl) {
+        return resolvedTitleSets.computeIfAbsent(
+                apiUrl, 
+                (url) -> ConcurrentHashMap.newKeySet());
+    }
+}
@@ -0,0 +1,29 @@
+package net.coderodde.wikipedia.sp;
+
+/**
+ * This enumeration lists the parallel search engines searching the Wikipedia
+ * API.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public enum SearchEngine {
+
+    /**
+     * Expands single batches in a fixed set of threads per search direction,
+     * as soon as the nodes reach the frontier.
+     */
+    MULTIDIRECTIONAL,
+
+    /**
+     * Expands whole levels of the cheaper frontier at a time, fetching their
+     * batches in parallel.
+     */
+    LAYERED,
+
+    /**
+     * Expands each batch of either frontier as a task of its own, with a
+     * global limit on the number of fetches in flight.
+     */
+    ASYNCHRONOUS
+}
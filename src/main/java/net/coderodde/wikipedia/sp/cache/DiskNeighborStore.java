@@ -0,0 +1,856 @@
+package net.coderodde.wikipedia.sp.cache;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.zip.CRC32;
+
+/**
+ * This class implements a persistent neighbor store in a directory. The 
+ * neighbor lists are appended to segment files, and an in-memory index maps
+ * each key to its latest record. The index is rebuilt by scanning the 
+ * segments when the store is opened; a torn record at the end of a segment, 
+ * left by a crash, is truncated away. The records of the sealed segments are
+ * read through a memory mapping of each segment, created once, while the 
+ * records of the growing active segment are read from its channel.
+ * <p>
+ * Overwritten and expired records are garbage. A background task compacts 
+ * the store by copying the live records of the sealed segments that are 
+ * mostly garbage to the active segment and deleting the sealed segments. A
+ * failure of the background task is reported by {@link #close()}.
+ * <p>
+ * Each record is laid out as follows:
+ * <pre>
+ *   int    payload length
+ *   int    CRC-32 of the payload
+ *   long   write time in milliseconds since the epoch
+ *   byte   1 for child links, 0 for parent links
+ *   string API URL
+ *   string title
+ *   int    number of neighbors
+ *   string neighbor, repeated
+ * </pre>
+ * where each string is its UTF-8 byte count as an {@code int} followed by the
+ * bytes.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public class DiskNeighborStore implements NeighborCache, Closeable {
+    
+    /**
+     * The default time to live in milliseconds.
+     */
+    public static final long DEFAULT_TIME_TO_LIVE = TimeUnit.DAYS.toMillis(7);
+    
+    /**
+     * The default maximum size of a segment file in bytes.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    
+    /**
+     * The number of minutes between the compaction checks.
+     */
+    private static final long COMPACTION_PERIOD = 1L;
+    
+    /**
+     * A sealed segment is compacted when at least this fraction of it is 
+     * garbage.
+     */
+    private static final double COMPACTION_THRESHOLD = 0.5;
+    
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    
+    /**
+     * The size of the record header: the payload length and its checksum.
+     */
+    private static final int HEADER_SIZE = 8;
+    
+    /**
+     * The directory holding the segments.
+     */
+    private final File directory;
+    
+    /**
+     * The time to live in milliseconds.
+     */
+    private final long timeToLiveMillis;
+    
+    /**
+     * The maximum size of a segment file in bytes.
+     */
+    private final int segmentSize;
+    
+    /**
+     * The source of the current time in milliseconds.
+     */
+    private final LongSupplier clock;
+    
+    /**
+     * Maps the segment IDs to the segments. The segment with the largest ID 
+     * is the active one.
+     */
+    private final TreeMap<Integer, Segment> segmentMap = new TreeMap<>();
+    
+    /**
+     * Maps each key to its latest record.
+     */
+    private final Map<NeighborKey, Location> index = new HashMap<>();
+    
+    /**
+     * Runs the compaction in the background.
+     */
+    private final ScheduledExecutorService compactionExecutor;
+    
+    /**
+     * Lets a single compaction run at a time.
+     */
+    private final Object compactionLock = new Object();
+    
+    /**
+     * Runs after each record is read for copying. For testing only.
+     */
+    volatile Runnable copyListener;
+    
+    /**
+     * The first failure of a background compaction, reported on closing.
+     */
+    private Exception compactionFailure;
+    
+    /**
+     * The number of segments truncated after a torn record on opening.
+     */
+    private int truncatedSegmentCount;
+    
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    
+    private boolean closed;
+    
+    /**
+     * Opens the store in {@code directory}, creating the directory if needed.
+     * 
+     * @param directory        the directory of the store.
+     * @param timeToLiveMillis the time to live of a neighbor list in 
+     *                         milliseconds.
+     * @throws IOException if the store cannot be opened.
+     */
+    public DiskNeighborStore(File directory, long timeToLiveMillis) 
+    throws IOException {
+        this(directory, 
+             timeToLiveMillis, 
+             DEFAULT_SEGMENT_SIZE, 
+             System::currentTimeMillis, 
+             true);
+    }
+    
+    DiskNeighborStore(File directory,
+                      long timeToLiveMillis,
+                      int segmentSize,
+                      LongSupplier clock,
+                      boolean compactInBackground) throws IOException {
+        if (timeToLiveMillis <= 0L) {
+            throw new IllegalArgumentException(
+                    "The time to live is not positive: " + timeToLiveMillis);
+        }
+        
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException(
+                    "Cannot create the cache directory \"" + directory + 
+                    "\".");
+        }
+        
+        this.directory = directory;
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.segmentSize = segmentSize;
+        this.clock = clock;
+        
+        loadSegments();
+        
+        if (segmentMap.isEmpty()) {
+            openSegment(1);
+        }
+        
+        if (compactInBackground) {
+            compactionExecutor = Executors.newSingleThreadScheduledExecutor(
+                    (runnable) -> {
+                        Thread thread = new Thread(runnable, 
+                                                   "neighbor-store-compactor");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            
+            compactionExecutor.scheduleWithFixedDelay(this::compactInBackground, 
+                                                      COMPACTION_PERIOD,
+                                                      COMPACTION_PERIOD, 
+                                                      TimeUnit.MINUTES);
+        } else {
+            compactionExecutor = null;
+        }
+    }
+    
+    @Override
+    public List<String> get(NeighborKey key) {
+        List<String> neighbors = null;
+        
+        synchronized (this) {
+            checkOpen();
+            Location location = index.get(key);
+            
+            if (location != null) {
+                if (isExpired(location)) {
+                    removeLocation(key, location);
+                } else {
+                    neighbors = readNeighbors(location);
+                }
+            }
+        }
+        
+        if (neighbors == null) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        
+        return neighbors;
+    }
+    
+    @Override
+    public synchronized void put(NeighborKey key, List<String> neighbors) {
+        checkOpen();
+        
+        try {
+            append(key, neighbors, clock.getAsLong());
+        } catch (IOException ex) {
+            throw new IllegalStateException(
+                    "[I/O ERROR] Failed writing to the neighbor store: " + 
+                    ex.getMessage(), ex);
+        }
+    }
+    
+    /**
+     * Deletes all the neighbor lists and resets the counters.
+     */
+    @Override
+    public synchronized void clear() {
+        checkOpen();
+        
+        try {
+            int nextId = segmentMap.lastKey() + 1;
+            
+            for (Segment segment : segmentMap.values()) {
+                segment.delete();
+            }
+            
+            segmentMap.clear();
+            index.clear();
+            openSegment(nextId);
+        } catch (IOException ex) {
+            throw new IllegalStateException(
+                    "[I/O ERROR] Failed clearing the neighbor store: " + 
+                    ex.getMessage(), ex);
+        }
+        
+        hitCount.set(0L);
+        missCount.set(0L);
+    }
+    
+    @Override
+    public long getHitCount() {
+        return hitCount.get();
+    }
+    
+    @Override
+    public long getMissCount() {
+        return missCount.get();
+    }
+    
+    /**
+     * Returns the number of neighbor lists in the index, including the ones 
+     * that expired but were not looked up since.
+     * 
+     * @return the number of neighbor lists.
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+    
+    /**
+     * Returns the number of segment files.
+     * 
+     * @return the number of segments.
+     */
+    public synchronized int getSegmentCount() {
+        return segmentMap.size();
+    }
+    
+    /**
+     * Returns the total size of the segment files in bytes.
+     * 
+     * @return the size on disk.
+     */
+    public synchronized long getSizeOnDisk() {
+        long size = 0L;
+        
+        for (Segment segment : segmentMap.values()) {
+            size += segment.size;
+        }
+        
+        return size;
+    }
+    
+    /**
+     * Returns the number of segments whose torn last record was truncated 
+     * when this store was opened, such as after a crash in the middle of a 
+     * write.
+     * 
+     * @return the number of truncated segments.
+     */
+    public synchronized int getTruncatedSegmentCount() {
+        return truncatedSegmentCount;
+    }
+    
+    /**
+     * Copies the live records of the sealed segments that are mostly garbage
+     * to the active segment and deletes the sealed segments. Runs 
+     * periodically in the background, but may be called at any time.
+     * <p>
+     * The store is locked only for picking the segments, for appending each
+     * copy and for deleting the segments, so that the searches may read and 
+     * write the store meanwhile. A record overwritten during the compaction
+     * is not copied.
+     * 
+     * @throws IOException if the compaction fails.
+     */
+    public void compact() throws IOException {
+        synchronized (compactionLock) {
+            List<Segment> victims = new ArrayList<>();
+            List<Map.Entry<NeighborKey, Location>> survivors = 
+                    new ArrayList<>();
+            
+            synchronized (this) {
+                checkOpen();
+                pickVictims(victims, survivors);
+                
+                if (victims.isEmpty()) {
+                    return;
+                }
+            }
+            
+            for (Map.Entry<NeighborKey, Location> entry : survivors) {
+                Location location = entry.getValue();
+                
+                // The sealed segments are mapped already and never change, 
+                // so the record is read without the lock:
+                ByteBuffer source = location.segment.read(location.offset, 
+                                                          location.length);
+                ByteBuffer record = ByteBuffer.allocate(location.length);
+                record.put(source);
+                record.flip();
+                
+                if (copyListener != null) {
+                    copyListener.run();
+                }
+                
+                synchronized (this) {
+                    if (closed) {
+                        return;
+                    }
+                    
+                    // Skip the records overwritten, expired or cleared since:
+                    if (index.get(entry.getKey()) == location) {
+                        append(entry.getKey(), record, location.writeTime);
+                    }
+                }
+            }
+            
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                
+                // Only now the copies are durable enough to drop the 
+                // originals.
+                activeSegment().channel.force(false);
+                
+                for (Segment victim : victims) {
+                    if (segmentMap.get(victim.id) == victim) {
+                        segmentMap.remove(victim.id);
+                        victim.delete();
+                    }
+                }
+            }
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (compactionExecutor != null) {
+            compactionExecutor.shutdown();
+            
+            try {
+                compactionExecutor.awaitTermination(1L, TimeUnit.MINUTES);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            
+            closed = true;
+            
+            for (Segment segment : segmentMap.values()) {
+                segment.close();
+            }
+            
+            index.clear();
+            
+            if (compactionFailure != null) {
+                throw new IOException(
+                        "Compacting the neighbor store failed: " + 
+                        compactionFailure.getMessage(), 
+                        compactionFailure);
+            }
+        }
+    }
+    
+    private void compactInBackground() {
+        try {
+            compact();
+        } catch (IOException | RuntimeException ex) {
+            synchronized (this) {
+                if (compactionFailure == null) {
+                    compactionFailure = ex;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Drops the expired records from the index, and adds the sealed segments
+     * that are mostly garbage to {@code victims} and their live records to 
+     * {@code survivors}, in the order they were written. The victims are
+     * mapped so that their records may be read without the lock.
+     */
+    private void pickVictims(List<Segment> victims,
+                             List<Map.Entry<NeighborKey, Location>> survivors)
+    throws IOException {
+        long now = clock.getAsLong();
+        
+        // Expired records are garbage as well.
+        for (Iterator<Map.Entry<NeighborKey, Location>> iterator = 
+                index.entrySet().iterator(); iterator.hasNext();) {
+            Location location = iterator.next().getValue();
+            
+            if (now - location.writeTime >= timeToLiveMillis) {
+                location.segment.liveBytes -= location.length;
+                iterator.remove();
+            }
+        }
+        
+        for (Segment segment : segmentMap.headMap(segmentMap.lastKey())
+                                         .values()) {
+            if (segment.liveBytes <= 
+                    (1.0 - COMPACTION_THRESHOLD) * segment.size) {
+                segment.map();
+                victims.add(segment);
+            }
+        }
+        
+        for (Map.Entry<NeighborKey, Location> entry : index.entrySet()) {
+            if (victims.contains(entry.getValue().segment)) {
+                survivors.add(new AbstractMap.SimpleImmutableEntry<>(entry));
+            }
+        }
+        
+        // Copy in the original order so that a rebuilt index is the same.
+        Collections.sort(survivors, (a, b) -> {
+            int cmp = Integer.compare(a.getValue().segment.id, 
+                                      b.getValue().segment.id);
+            return cmp != 0 ? 
+                   cmp : 
+                   Long.compare(a.getValue().offset, b.getValue().offset);
+        });
+    }
+    
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The neighbor store is closed.");
+        }
+    }
+    
+    private boolean isExpired(Location location) {
+        return clock.getAsLong() - location.writeTime >= timeToLiveMillis;
+    }
+    
+    private void removeLocation(NeighborKey key, Location location) {
+        index.remove(key);
+        location.segment.liveBytes -= location.length;
+    }
+    
+    private Segment activeSegment() {
+        return segmentMap.lastEntry().getValue();
+    }
+    
+    private void append(NeighborKey key, 
+                        List<String> neighbors,
+                        long writeTime) throws IOException {
+        append(key, encode(key, neighbors, writeTime), writeTime);
+    }
+    
+    private void append(NeighborKey key, 
+                        ByteBuffer record,
+                        long writeTime) throws IOException {
+        Segment segment = activeSegment();
+        
+        if (segment.size > 0L && 
+                segment.size + record.remaining() > segmentSize) {
+            segment = openSegment(segment.id + 1);
+        }
+        
+        long offset = segment.size;
+        int length = record.remaining();
+        
+        while (record.hasRemaining()) {
+            segment.channel.write(record, segment.size + record.position());
+        }
+        
+        segment.size += length;
+        segment.liveBytes += length;
+        
+        Location previous = index.put(key, new Location(segment,
+                                                        offset, 
+                                                        length, 
+                                                        writeTime));
+        
+        if (previous != null) {
+            previous.segment.liveBytes -= previous.length;
+        }
+    }
+    
+    private List<String> readNeighbors(Location location) {
+        ByteBuffer record;
+        
+        try {
+            record = location.segment.read(location.offset, location.length);
+        } catch (IOException ex) {
+            throw new IllegalStateException(
+                    "[I/O ERROR] Failed reading the neighbor store: " + 
+                    ex.getMessage(), ex);
+        }
+        
+        record.position(HEADER_SIZE + 9);
+        skipString(record);
+        skipString(record);
+        int count = record.getInt();
+        List<String> neighbors = new ArrayList<>(count);
+        
+        for (int i = 0; i < count; ++i) {
+            neighbors.add(readString(record));
+        }
+        
+        return Collections.unmodifiableList(neighbors);
+    }
+    
+    private void loadSegments() throws IOException {
+        File[] files = directory.listFiles();
+        
+        if (files == null) {
+            throw new IOException("Cannot list the cache directory \"" + 
+                                  directory + "\".");
+        }
+        
+        for (File file : files) {
+            String name = file.getName();
+            
+            if (name.startsWith(SEGMENT_PREFIX) && 
+                    name.endsWith(SEGMENT_SUFFIX)) {
+                int id = Integer.parseInt(
+                        name.substring(SEGMENT_PREFIX.length(), 
+                                       name.length() - 
+                                               SEGMENT_SUFFIX.length()));
+                segmentMap.put(id, new Segment(id, file));
+            }
+        }
+        
+        for (Segment segment : segmentMap.headMap(segmentMap.isEmpty() ?
+                                                  0 :
+                                                  segmentMap.lastKey())
+                                         .values()) {
+            segment.sealed = true;
+        }
+        
+        for (Segment segment : segmentMap.values()) {
+            scan(segment);
+        }
+    }
+    
+    /**
+     * Adds the records of {@code segment} to the index and truncates the 
+     * segment after its last intact record.
+     */
+    private void scan(Segment segment) throws IOException {
+        long fileSize = segment.channel.size();
+        ByteBuffer data = fileSize == 0L ? 
+                          ByteBuffer.allocate(0) :
+                          segment.read(0L, (int) fileSize);
+        int offset = 0;
+        CRC32 crc = new CRC32();
+        
+        while (data.limit() - offset >= HEADER_SIZE) {
+            int payloadLength = data.getInt(offset);
+            int checksum = data.getInt(offset + 4);
+            
+            if (payloadLength < 0 || 
+                    payloadLength > data.limit() - offset - HEADER_SIZE) {
+                break;
+            }
+            
+            ByteBuffer payload = data.duplicate();
+            payload.position(offset + HEADER_SIZE);
+            payload.limit(offset + HEADER_SIZE + payloadLength);
+            crc.reset();
+            crc.update(payload);
+            
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            
+            ByteBuffer record = data.duplicate();
+            record.position(offset + HEADER_SIZE);
+            long writeTime = record.getLong();
+            boolean forward = record.get() != 0;
+            String apiUrl = readString(record);
+            String title = readString(record);
+            int length = HEADER_SIZE + payloadLength;
+            
+            NeighborKey key = new NeighborKey(apiUrl, title, forward);
+            Location location = 
+                    new Location(segment, offset, length, writeTime);
+            Location previous = index.put(key, location);
+            segment.liveBytes += length;
+            
+            if (previous != null) {
+                previous.segment.liveBytes -= previous.length;
+            }
+            
+            offset += length;
+        }
+        
+        if (offset < fileSize) {
+            ++truncatedSegmentCount;
+            segment.unmap();
+            segment.channel.truncate(offset);
+        }
+        
+        segment.size = offset;
+    }
+    
+    private Segment openSegment(int id) throws IOException {
+        Segment segment = new Segment(id, 
+                                      new File(directory, 
+                                               String.format("%s%06d%s",
+                                                             SEGMENT_PREFIX,
+                                                             id,
+                                                             SEGMENT_SUFFIX)));
+        
+        if (!segmentMap.isEmpty()) {
+            activeSegment().sealed = true;
+        }
+        
+        segmentMap.put(id, segment);
+        return segment;
+    }
+    
+    private static ByteBuffer encode(NeighborKey key, 
+                                     List<String> neighbors, 
+                                     long writeTime) {
+        byte[] apiUrlBytes = key.getApiUrl().getBytes(StandardCharsets.UTF_8);
+        byte[] titleBytes = key.getTitle().getBytes(StandardCharsets.UTF_8);
+        List<byte[]> neighborBytesList = new ArrayList<>(neighbors.size());
+        int payloadLength = 8 + 1 + 4 + apiUrlBytes.length + 
+                            4 + titleBytes.length + 4;
+        
+        for (String neighbor : neighbors) {
+            byte[] neighborBytes = neighbor.getBytes(StandardCharsets.UTF_8);
+            neighborBytesList.add(neighborBytes);
+            payloadLength += 4 + neighborBytes.length;
+        }
+        
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payloadLength);
+        record.position(HEADER_SIZE);
+        record.putLong(writeTime);
+        record.put((byte)(key.isForward() ? 1 : 0));
+        record.putInt(apiUrlBytes.length).put(apiUrlBytes);
+        record.putInt(titleBytes.length).put(titleBytes);
+        record.putInt(neighborBytesList.size());
+        
+        for (byte[] neighborBytes : neighborBytesList) {
+            record.putInt(neighborBytes.length).put(neighborBytes);
+        }
+        
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_SIZE, payloadLength);
+        record.putInt(0, payloadLength);
+        record.putInt(4, (int) crc.getValue());
+        record.flip();
+        return record;
+    }
+    
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static void skipString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        buffer.position(buffer.position() + length);
+    }
+    
+    /**
+     * Points to a record in a segment.
+     */
+    private static final class Location {
+        
+        final Segment segment;
+        final long offset;
+        final int length;
+        final long writeTime;
+        
+        Location(Segment segment, long offset, int length, long writeTime) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.writeTime = writeTime;
+        }
+    }
+    
+    /**
+     * A segment file of the store.
+     */
+    private static final class Segment {
+        
+        final int id;
+        final File file;
+        final FileChannel channel;
+        
+        /**
+         * The number of bytes of intact records in the file.
+         */
+        long size;
+        
+        /**
+         * The number of bytes of the records the index points to.
+         */
+        long liveBytes;
+        
+        /**
+         * Set once a newer segment is opened, after which this segment no 
+         * longer grows.
+         */
+        boolean sealed;
+        
+        /**
+         * The read-only mapping of the sealed file.
+         */
+        MappedByteBuffer mapping;
+        
+        Segment(int id, File file) throws IOException {
+            this.id = id;
+            this.file = file;
+            this.channel = FileChannel.open(file.toPath(), 
+                                            StandardOpenOption.CREATE,
+                                            StandardOpenOption.READ,
+                                            StandardOpenOption.WRITE);
+        }
+        
+        /**
+         * Returns a buffer holding {@code length} bytes starting at 
+         * {@code offset}, positioned at zero.
+         */
+        ByteBuffer read(long offset, int length) throws IOException {
+            long end = offset + length;
+            
+            if (!sealed) {
+                // Mapping a growing file would have to remap it on each read
+                // past the last append:
+                ByteBuffer buffer = ByteBuffer.allocate(length);
+                
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, 
+                                     offset + buffer.position()) < 0) {
+                        throw new EOFException(
+                                "Unexpected end of \"" + file + "\".");
+                    }
+                }
+                
+                buffer.flip();
+                return buffer;
+            }
+            
+            if (mapping == null) {
+                mapping = channel.map(FileChannel.MapMode.READ_ONLY, 
+                                      0L, 
+                                      Math.max(end, size));
+            }
+            
+            ByteBuffer buffer = mapping.duplicate();
+            buffer.position((int) offset);
+            buffer.limit((int) end);
+            return buffer.slice();
+        }
+        
+        /**
+         * Maps this sealed segment unless it is mapped already.
+         */
+        void map() throws IOException {
+            if (mapping == null) {
+                mapping = channel.map(FileChannel.MapMode.READ_ONLY, 
+                                      0L, 
+                                      size);
+            }
+        }
+        
+        void unmap() {
+            mapping = null;
+        }
+        
+        void close() throws IOException {
+            unmap();
+            channel.close();
+        }
+        
+        void delete() throws IOException {
+            close();
+            
+            if (!file.delete() && file.exists()) {
+                throw new IOException("Cannot delete \"" + file + "\".");
+            }
+        }
+    }
+}
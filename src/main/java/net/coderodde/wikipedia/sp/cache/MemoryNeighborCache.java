@@ -0,0 +1,250 @@
+package net.coderodde.wikipedia.sp.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * This class implements an in-memory neighbor cache with a memory budget 
+ * counted in bytes. When the budget is exceeded, the least recently used 
+ * neighbor lists are evicted. Each neighbor list expires after a fixed time to
+ * live so that the edits to Wikipedia are eventually seen.
+ * <p>
+ * The sizes are estimates of the retained heap of the titles assuming a 
+ * 64-bit JVM with compressed references.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public class MemoryNeighborCache implements NeighborCache {
+    
+    /**
+     * The default memory budget in bytes.
+     */
+    public static final long DEFAULT_MAXIMUM_BYTES = 64L * 1024 * 1024;
+    
+    /**
+     * The default time to live in milliseconds.
+     */
+    public static final long DEFAULT_TIME_TO_LIVE = TimeUnit.HOURS.toMillis(1);
+    
+    /**
+     * The estimated size of a cache entry without its strings: the map entry,
+     * the entry object, the key and the list.
+     */
+    private static final int ENTRY_OVERHEAD = 160;
+    
+    /**
+     * The estimated size of a string without its characters plus the list 
+     * slot referring to it.
+     */
+    private static final int STRING_OVERHEAD = 44;
+    
+    /**
+     * The memory budget in bytes.
+     */
+    private final long maximumBytes;
+    
+    /**
+     * The time to live in nanoseconds.
+     */
+    private final long timeToLiveNanos;
+    
+    /**
+     * The source of the current time in nanoseconds.
+     */
+    private final LongSupplier clock;
+    
+    /**
+     * Maps the keys to the entries in the order of access, least recently 
+     * used first.
+     */
+    private final LinkedHashMap<NeighborKey, Entry> map = 
+            new LinkedHashMap<>(16, 0.75f, true);
+    
+    /**
+     * The estimated size of all the entries in bytes.
+     */
+    private long currentBytes;
+    
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    
+    public MemoryNeighborCache() {
+        this(DEFAULT_MAXIMUM_BYTES, DEFAULT_TIME_TO_LIVE);
+    }
+    
+    /**
+     * Constructs an empty cache.
+     * 
+     * @param maximumBytes     the memory budget in bytes.
+     * @param timeToLiveMillis the time to live of each neighbor list in 
+     *                         milliseconds.
+     */
+    public MemoryNeighborCache(long maximumBytes, long timeToLiveMillis) {
+        this(maximumBytes, timeToLiveMillis, System::nanoTime);
+    }
+    
+    MemoryNeighborCache(long maximumBytes, 
+                        long timeToLiveMillis, 
+                        LongSupplier clock) {
+        if (maximumBytes < 0L) {
+            throw new IllegalArgumentException(
+                    "The memory budget is negative: " + maximumBytes);
+        }
+        
+        if (timeToLiveMillis <= 0L) {
+            throw new IllegalArgumentException(
+                    "The time to live is not positive: " + timeToLiveMillis);
+        }
+        
+        this.maximumBytes = maximumBytes;
+        this.timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis);
+        this.clock = clock;
+    }
+    
+    @Override
+    public List<String> get(NeighborKey key) {
+        Entry entry;
+        
+        synchronized (this) {
+            entry = map.get(key);
+            
+            if (entry != null && entry.isExpired(clock.getAsLong())) {
+                map.remove(key);
+                currentBytes -= entry.bytes;
+                entry = null;
+            }
+        }
+        
+        if (entry == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        
+        hitCount.incrementAndGet();
+        return entry.neighbors;
+    }
+    
+    @Override
+    public void put(NeighborKey key, List<String> neighbors) {
+        long bytes = estimateSize(key, neighbors);
+        
+        if (bytes > maximumBytes) {
+            // Would evict everything and still not fit.
+            return;
+        }
+        
+        Entry entry = new Entry(
+                Collections.unmodifiableList(new ArrayList<>(neighbors)),
+                bytes,
+                clock.getAsLong() + timeToLiveNanos);
+        
+        synchronized (this) {
+            Entry previous = map.put(key, entry);
+            
+            if (previous != null) {
+                currentBytes -= previous.bytes;
+            }
+            
+            currentBytes += bytes;
+            evict();
+        }
+    }
+    
+    @Override
+    public synchronized void clear() {
+        map.clear();
+        currentBytes = 0L;
+        hitCount.set(0L);
+        missCount.set(0L);
+        evictionCount.set(0L);
+    }
+    
+    @Override
+    public long getHitCount() {
+        return hitCount.get();
+    }
+    
+    @Override
+    public long getMissCount() {
+        return missCount.get();
+    }
+    
+    /**
+     * Returns the number of neighbor lists evicted for exceeding the memory 
+     * budget.
+     * 
+     * @return the number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+    
+    /**
+     * Returns the estimated size of the cached neighbor lists in bytes.
+     * 
+     * @return the estimated size.
+     */
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+    
+    /**
+     * Returns the number of cached neighbor lists.
+     * 
+     * @return the number of neighbor lists.
+     */
+    public synchronized int size() {
+        return map.size();
+    }
+    
+    /**
+     * Evicts the least recently used entries until the budget is met. Must be
+     * called with the lock held.
+     */
+    private void evict() {
+        Iterator<Entry> iterator = map.values().iterator();
+        
+        while (currentBytes > maximumBytes && iterator.hasNext()) {
+            currentBytes -= iterator.next().bytes;
+            iterator.remove();
+            evictionCount.incrementAndGet();
+        }
+    }
+    
+    private static long estimateSize(NeighborKey key, List<String> neighbors) {
+        long bytes = ENTRY_OVERHEAD + 
+                     STRING_OVERHEAD + 2L * key.getTitle().length();
+        
+        for (String neighbor : neighbors) {
+            bytes += STRING_OVERHEAD + 2L * neighbor.length();
+        }
+        
+        return bytes;
+    }
+    
+    private static final class Entry {
+        
+        final List<String> neighbors;
+        final long bytes;
+        final long expirationTime;
+        
+        Entry(List<String> neighbors, long bytes, long expirationTime) {
+            this.neighbors = neighbors;
+            this.bytes = bytes;
+            this.expirationTime = expirationTime;
+        }
+        
+        boolean isExpired(long now) {
+            return now - expirationTime >= 0L;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package net.coderodde.wikipedia.sp.cache;
+
+import java.util.List;
+
+/**
+ * This interface defines the API for the caches of neighbor lists. The 
+ * implementations must be safe for use by multiple threads.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public interface NeighborCache {
+    
+    /**
+     * Returns the cached neighbor list of {@code key}, or {@code null} if 
+     * there is no such list or it has expired.
+     * 
+     * @param key the key of the neighbor list.
+     * @return the unmodifiable neighbor list or {@code null}.
+     */
+    List<String> get(NeighborKey key);
+    
+    /**
+     * Stores the complete neighbor list of {@code key}.
+     * 
+     * @param key       the key of the neighbor list.
+     * @param neighbors the neighbor list.
+     */
+    void put(NeighborKey key, List<String> neighbors);
+    
+    /**
+     * Removes all the neighbor lists and resets the counters.
+     */
+    void clear();
+    
+    /**
+     * Returns the number of lookups that found a neighbor list.
+     * 
+     * @return the number of cache hits.
+     */
+    long getHitCount();
+    
+    /**
+     * Returns the number of lookups that found no neighbor list.
+     * 
+     * @return the number of cache misses.
+     */
+    long getMissCount();
+}
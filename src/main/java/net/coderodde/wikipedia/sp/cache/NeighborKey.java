@@ -0,0 +1,80 @@
+package net.coderodde.wikipedia.sp.cache;
+
+import java.util.Objects;
+
+/**
+ * This class identifies a neighbor list: the articles linked from, or the 
+ * articles linking to, a given article in a given Wikipedia.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public final class NeighborKey {
+    
+    /**
+     * The URL of the Wikipedia API.
+     */
+    private final String apiUrl;
+    
+    /**
+     * The title of the article.
+     */
+    private final String title;
+    
+    /**
+     * Whether the neighbors are the child articles ({@code true}) or the 
+     * parent articles ({@code false}).
+     */
+    private final boolean forward;
+    
+    /**
+     * Caches the hash code.
+     */
+    private final int hashCode;
+    
+    public NeighborKey(String apiUrl, String title, boolean forward) {
+        this.apiUrl   = Objects.requireNonNull(apiUrl, "The API URL is null.");
+        this.title    = Objects.requireNonNull(title, "The title is null.");
+        this.forward  = forward;
+        this.hashCode = 31 * (31 * apiUrl.hashCode() + title.hashCode()) + 
+                        (forward ? 1 : 0);
+    }
+    
+    public String getApiUrl() {
+        return apiUrl;
+    }
+    
+    public String getTitle() {
+        return title;
+    }
+    
+    public boolean isForward() {
+        return forward;
+    }
+    
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        
+        if (!(o instanceof NeighborKey)) {
+            return false;
+        }
+        
+        NeighborKey other = (NeighborKey) o;
+        return forward == other.forward 
+                && title.equals(other.title)
+                && apiUrl.equals(other.apiUrl);
+    }
+    
+    @Override
+    public String toString() {
+        return (forward ? "links of " : "links to ") + title + " at " + apiUrl;
+    }
+}
@@ -0,0 +1,91 @@
+package net.coderodde.wikipedia.sp.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class coalesces concurrent computations of the same key. The first 
+ * caller for a key becomes the leader of the flight and performs the 
+ * computation; every caller arriving while the flight is in progress waits 
+ * for the leader's outcome instead of repeating the work. A failure is 
+ * delivered to all the waiters.
+ * 
+ * @param <K> the key type.
+ * @param <V> the value type.
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public class SingleFlight<K, V> {
+    
+    /**
+     * Maps the keys to the futures of the flights in progress.
+     */
+    private final ConcurrentMap<K, CompletableFuture<V>> flightMap = 
+            new ConcurrentHashMap<>();
+    
+    /**
+     * The number of callers that joined a flight in progress.
+     */
+    private final AtomicLong coalescedCount = new AtomicLong();
+    
+    /**
+     * Joins the flight of {@code key} in progress, or starts a new one. In 
+     * the latter case the caller is the leader and must finish the flight by
+     * calling either {@link #complete(java.lang.Object, java.lang.Object)} or
+     * {@link #fail(java.lang.Object, java.lang.Throwable)}.
+     * 
+     * @param key the key.
+     * @return the future of the flight in progress, or {@code null} if the 
+     *         caller is the leader of a new flight.
+     */
+    public CompletableFuture<V> joinOrLead(K key) {
+        CompletableFuture<V> future = 
+                flightMap.putIfAbsent(key, new CompletableFuture<>());
+        
+        if (future != null) {
+            coalescedCount.incrementAndGet();
+        }
+        
+        return future;
+    }
+    
+    /**
+     * Finishes the flight of {@code key} successfully.
+     * 
+     * @param key   the key.
+     * @param value the outcome.
+     */
+    public void complete(K key, V value) {
+        CompletableFuture<V> future = flightMap.remove(key);
+        
+        if (future != null) {
+            future.complete(value);
+        }
+    }
+    
+    /**
+     * Finishes the flight of {@code key} with a failure.
+     * 
+     * @param key   the key.
+     * @param cause the cause of the failure.
+     */
+    public void fail(K key, Throwable cause) {
+        CompletableFuture<V> future = flightMap.remove(key);
+        
+        if (future != null) {
+            future.completeExceptionally(cause);
+        }
+    }
+    
+    /**
+     * Returns the number of callers that waited for a flight in progress 
+     * instead of starting their own.
+     * 
+     * @return the number of coalesced calls.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+}
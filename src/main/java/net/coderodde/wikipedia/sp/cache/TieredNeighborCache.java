@@ -0,0 +1,81 @@
+package net.coderodde.wikipedia.sp.cache;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class stacks two neighbor caches: a fast upper tier, typically in 
+ * memory, over a slower lower tier, typically on disk. A lookup falls 
+ * through to the lower tier on a miss in the upper one and copies a found 
+ * neighbor list to the upper tier. A stored neighbor list goes to both tiers.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public class TieredNeighborCache implements NeighborCache {
+    
+    private final NeighborCache upperTier;
+    private final NeighborCache lowerTier;
+    
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    
+    public TieredNeighborCache(NeighborCache upperTier, 
+                               NeighborCache lowerTier) {
+        this.upperTier = upperTier;
+        this.lowerTier = lowerTier;
+    }
+    
+    @Override
+    public List<String> get(NeighborKey key) {
+        List<String> neighbors = upperTier.get(key);
+        
+        if (neighbors == null) {
+            neighbors = lowerTier.get(key);
+            
+            if (neighbors != null) {
+                upperTier.put(key, neighbors);
+            }
+        }
+        
+        if (neighbors == null) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        
+        return neighbors;
+    }
+    
+    @Override
+    public void put(NeighborKey key, List<String> neighbors) {
+        lowerTier.put(key, neighbors);
+        upperTier.put(key, neighbors);
+    }
+    
+    @Override
+    public void clear() {
+        upperTier.clear();
+        lowerTier.clear();
+        hitCount.set(0L);
+        missCount.set(0L);
+    }
+    
+    @Override
+    public long getHitCount() {
+        return hitCount.get();
+    }
+    
+    @Override
+    public long getMissCount() {
+        return missCount.get();
+    }
+    
+    public NeighborCache getUpperTier() {
+        return upperTier;
+    }
+    
+    public NeighborCache getLowerTier() {
+        return lowerTier;
+    }
+}
@@ -0,0 +1,115 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * This class numbers the articles of a dump in the order of their titles and
+ * resolves the link targets, the redirects included, to the article IDs. The
+ * titles and the redirects are kept in arrays sorted by
+ * {@link TitleDictionary#TITLE_ORDER} and searched by binary search, so that
+ * the index takes little more than the title strings themselves.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+final class ArticleIndex {
+
+    /**
+     * The titles of the articles, the IDs being the indices.
+     */
+    private final String[] titles;
+
+    /**
+     * The titles of the redirects leading to an article.
+     */
+    private final String[] redirectTitles;
+
+    /**
+     * The IDs of the articles the redirects lead to.
+     */
+    private final int[] redirectTargetIds;
+
+    /**
+     * Constructs this index. A redirect leading to a page that is not an
+     * article is dropped: double redirects are broken on Wikipedia, so they
+     * lead nowhere.
+     *
+     * @param titles      the titles of the articles, sorted in place.
+     * @param redirectMap maps the titles of the redirects to the titles they
+     *                    lead to.
+     */
+    ArticleIndex(String[] titles, Map<String, String> redirectMap) {
+        Arrays.sort(titles, TitleDictionary.TITLE_ORDER);
+        this.titles = titles;
+
+        String[] redirectTitles = redirectMap.keySet().toArray(new String[0]);
+        Arrays.sort(redirectTitles, TitleDictionary.TITLE_ORDER);
+        int[] redirectTargetIds = new int[redirectTitles.length];
+        int size = 0;
+
+        for (String redirectTitle : redirectTitles) {
+            int targetId = getArticleId(redirectMap.get(redirectTitle));
+
+            if (targetId >= 0) {
+                redirectTitles[size] = redirectTitle;
+                redirectTargetIds[size++] = targetId;
+            }
+        }
+
+        this.redirectTitles = Arrays.copyOf(redirectTitles, size);
+        this.redirectTargetIds = Arrays.copyOf(redirectTargetIds, size);
+    }
+
+    /**
+     * Returns the titles of the articles in the order of their IDs.
+     *
+     * @return the titles.
+     */
+    String[] getTitles() {
+        return titles;
+    }
+
+    /**
+     * Returns the number of the redirects leading to an article.
+     *
+     * @return the number of redirects.
+     */
+    int getNumberOfRedirects() {
+        return redirectTitles.length;
+    }
+
+    /**
+     * Returns the ID of the article titled {@code title}, or -1 if there is
+     * no such article.
+     *
+     * @param title the encoded title.
+     * @return the article ID or -1.
+     */
+    int getArticleId(String title) {
+        int index = Arrays.binarySearch(titles,
+                                        title,
+                                        TitleDictionary.TITLE_ORDER);
+        return index < 0 ? -1 : index;
+    }
+
+    /**
+     * Returns the ID of the article a link to {@code title} leads to: the
+     * article itself, or the article the redirect {@code title} leads to.
+     *
+     * @param title the encoded title.
+     * @return the article ID, or -1 if the link leads nowhere.
+     */
+    int getLinkTargetId(String title) {
+        int id = getArticleId(title);
+
+        if (id >= 0) {
+            return id;
+        }
+
+        int index = Arrays.binarySearch(redirectTitles,
+                                        title,
+                                        TitleDictionary.TITLE_ORDER);
+        return index < 0 ? -1 : redirectTargetIds[index];
+    }
+}
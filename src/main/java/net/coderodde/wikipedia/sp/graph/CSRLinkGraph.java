@@ -0,0 +1,117 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * This class implements a link graph held on the heap in the compressed
+ * sparse row form of a {@link LinkGraphFile}. The titles are kept front-coded
+ * in the {@link TitleDictionary} of the file.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public final class CSRLinkGraph implements LinkGraph {
+
+    private final TitleDictionary titles;
+    private final int[] forwardOffsets;
+    private final int[] forwardTargets;
+    private final int[] backwardOffsets;
+    private final int[] backwardTargets;
+    private final int[] titleIds;
+    private final int[] articleIds;
+
+    /**
+     * Constructs a graph over the arrays of {@code graphFile}.
+     *
+     * @param graphFile the graph.
+     */
+    public CSRLinkGraph(LinkGraphFile graphFile) {
+        Objects.requireNonNull(graphFile, "The graph file is null.");
+        this.titles = graphFile.titles;
+        this.forwardOffsets = graphFile.forwardOffsets;
+        this.forwardTargets = graphFile.forwardTargets;
+        this.backwardOffsets = graphFile.backwardOffsets;
+        this.backwardTargets = graphFile.backwardTargets;
+        this.titleIds = graphFile.titleIds;
+        this.articleIds = graphFile.articleIds;
+    }
+
+    /**
+     * Loads the graph file {@code file} to the heap.
+     *
+     * @param file the graph file.
+     * @return the graph.
+     * @throws IOException if reading fails or the file is not a graph file.
+     */
+    public static CSRLinkGraph load(File file) throws IOException {
+        return new CSRLinkGraph(LinkGraphFile.read(file));
+    }
+
+    @Override
+    public int getNumberOfArticles() {
+        return titles.size();
+    }
+
+    @Override
+    public long getNumberOfLinks() {
+        return forwardTargets.length;
+    }
+
+    @Override
+    public String getTitle(int id) {
+        return titles.getTitle(titleIds == null ? id : titleIds[id]);
+    }
+
+    @Override
+    public int getId(String title) {
+        int titleId = titles.getId(title);
+        return titleId < 0 || articleIds == null ? 
+               titleId : 
+               articleIds[titleId];
+    }
+
+    @Override
+    public int getDegree(int id, boolean forward) {
+        int[] offsets = forward ? forwardOffsets : backwardOffsets;
+        return offsets[id + 1] - offsets[id];
+    }
+
+    @Override
+    public NeighborIterator newNeighborIterator(boolean forward) {
+        return forward ?
+               new ArrayNeighborIterator(forwardOffsets, forwardTargets) :
+               new ArrayNeighborIterator(backwardOffsets, backwardTargets);
+    }
+
+    private static final class ArrayNeighborIterator
+    implements NeighborIterator {
+
+        private final int[] offsets;
+        private final int[] targets;
+        private int index;
+        private int end;
+
+        ArrayNeighborIterator(int[] offsets, int[] targets) {
+            this.offsets = offsets;
+            this.targets = targets;
+        }
+
+        @Override
+        public void reset(int id) {
+            index = offsets[id];
+            end = offsets[id + 1];
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < end;
+        }
+
+        @Override
+        public int next() {
+            return targets[index++];
+        }
+    }
+}
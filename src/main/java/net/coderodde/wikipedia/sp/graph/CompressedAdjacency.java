@@ -0,0 +1,455 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.util.Arrays;
+
+/**
+ * This class holds one direction of a link graph with its neighbor lists
+ * compressed in the manner of WebGraph. The list of the article {@code x} is
+ * encoded as
+ * <pre>
+ *   degree d
+ *   reference r        (only if d &gt; 0; 0 for none)
+ *   copy blocks        (only if r &gt; 0)
+ *   residual gaps
+ * </pre>
+ * with every number a variable-length integer. A nonzero reference says that
+ * the list copies a part of the list of the article {@code x - r}, described
+ * as the number of blocks followed by their lengths; the blocks alternate
+ * between copying and skipping, start with copying, and the elements after
+ * the last block are skipped. Since the articles next to each other in the
+ * order of the IDs tend to link to the same articles, the copies are
+ * frequent. The rest of the list, the residuals, is stored as gaps: the
+ * first relative to {@code x} in the zig-zag form, and the others as the
+ * difference to the previous residual minus one.
+ * <p>
+ * The reference is chosen among the {@code window} preceding articles as the
+ * one that gives the shortest encoding. The chains of references are cut at
+ * {@code maxReferenceChain} so that decoding a list decodes at most that
+ * many other lists.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+final class CompressedAdjacency {
+
+    /**
+     * The default number of the preceding lists tried as a reference.
+     */
+    static final int DEFAULT_WINDOW = 7;
+
+    /**
+     * The default maximum length of a chain of references. Longer chains
+     * save little on the link graphs and slow down every decoding.
+     */
+    static final int DEFAULT_MAX_REFERENCE_CHAIN = 1;
+
+    /**
+     * The positions of the lists in {@link #data}.
+     */
+    final int[] offsets;
+
+    /**
+     * The encoded lists.
+     */
+    final byte[] data;
+
+    /**
+     * The maximum length of a chain of references.
+     */
+    final int maxReferenceChain;
+
+    /**
+     * The length of the longest list.
+     */
+    final int maxDegree;
+
+    CompressedAdjacency(int[] offsets,
+                        byte[] data,
+                        int maxReferenceChain,
+                        int maxDegree) {
+        this.offsets = offsets;
+        this.data = data;
+        this.maxReferenceChain = maxReferenceChain;
+        this.maxDegree = maxDegree;
+    }
+
+    /**
+     * Compresses the lists in the compressed sparse row form.
+     *
+     * @param offsets           the list offsets, one per article and one
+     *                          more.
+     * @param targets           the sorted lists.
+     * @param window            the number of the preceding lists tried as a
+     *                          reference.
+     * @param maxReferenceChain the maximum length of a chain of references.
+     * @return the compressed lists.
+     * @throws IllegalStateException if the encoding exceeds two gigabytes.
+     */
+    static CompressedAdjacency compress(int[] offsets,
+                                        int[] targets,
+                                        int window,
+                                        int maxReferenceChain) {
+        int numberOfArticles = offsets.length - 1;
+        int[] encodedOffsets = new int[numberOfArticles + 1];
+        int[] chainLengths = new int[numberOfArticles];
+        ByteSink output = new ByteSink(4 * targets.length / 3 + 16);
+        ByteSink best = new ByteSink(64);
+        ByteSink candidate = new ByteSink(64);
+        int maxDegree = 0;
+
+        for (int x = 0; x < numberOfArticles; ++x) {
+            int start = offsets[x];
+            int end = offsets[x + 1];
+            maxDegree = Math.max(maxDegree, end - start);
+            output.writeVarint(end - start);
+
+            if (start < end) {
+                best.clear();
+                best.writeVarint(0);
+                writeResiduals(best, x, targets, start, end, null, 0, 0);
+                int bestReference = 0;
+
+                for (int r = 1; r <= window && r <= x; ++r) {
+                    int y = x - r;
+
+                    if (offsets[y] == offsets[y + 1] ||
+                            chainLengths[y] >= maxReferenceChain) {
+                        continue;
+                    }
+
+                    candidate.clear();
+                    candidate.writeVarint(r);
+                    writeCopyBlocks(candidate,
+                                    targets, offsets[y], offsets[y + 1],
+                                    start, end);
+                    writeResiduals(candidate, x, targets, start, end,
+                                   targets, offsets[y], offsets[y + 1]);
+
+                    if (candidate.size < best.size) {
+                        ByteSink swap = best;
+                        best = candidate;
+                        candidate = swap;
+                        bestReference = r;
+                    }
+                }
+
+                output.write(best);
+                chainLengths[x] = bestReference == 0 ?
+                                  0 :
+                                  chainLengths[x - bestReference] + 1;
+            }
+
+            encodedOffsets[x + 1] = output.size;
+        }
+
+        return new CompressedAdjacency(encodedOffsets,
+                                       Arrays.copyOf(output.bytes,
+                                                     output.size),
+                                       maxReferenceChain,
+                                       maxDegree);
+    }
+
+    /**
+     * Returns the length of the list of the article {@code id}.
+     *
+     * @param id the ID of the article.
+     * @return the length of the list.
+     */
+    int getDegree(int id) {
+        int position = offsets[id];
+        int value = 0;
+        int shift = 0;
+        byte b;
+
+        do {
+            b = data[position++];
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+
+        return value;
+    }
+
+    /**
+     * Returns the number of bytes taken by the encoded lists and their
+     * offsets.
+     *
+     * @return the size in bytes.
+     */
+    long getSizeInBytes() {
+        return data.length + 4L * offsets.length;
+    }
+
+    /**
+     * Writes the copy blocks of the list {@code targets[start, end)} against
+     * the reference list {@code targets[referenceStart, referenceEnd)}.
+     */
+    private static void writeCopyBlocks(ByteSink sink,
+                                        int[] targets,
+                                        int referenceStart,
+                                        int referenceEnd,
+                                        int start,
+                                        int end) {
+        // Collect the run lengths; the first run copies and may be empty.
+        int[] runs = new int[referenceEnd - referenceStart + 1];
+        int numberOfRuns = 0;
+        boolean copying = true;
+        int runLength = 0;
+        int j = start;
+
+        for (int i = referenceStart; i < referenceEnd; ++i) {
+            while (j < end && targets[j] < targets[i]) {
+                ++j;
+            }
+
+            boolean copied = j < end && targets[j] == targets[i];
+
+            if (copied != copying) {
+                runs[numberOfRuns++] = runLength;
+                copying = copied;
+                runLength = 0;
+            }
+
+            ++runLength;
+        }
+
+        if (copying) {
+            // A trailing skipping run is implicit.
+            runs[numberOfRuns++] = runLength;
+        }
+
+        sink.writeVarint(numberOfRuns);
+
+        for (int i = 0; i < numberOfRuns; ++i) {
+            // Every run but the first is nonempty.
+            sink.writeVarint(i == 0 ? runs[i] : runs[i] - 1);
+        }
+    }
+
+    /**
+     * Writes the gaps of the elements of {@code targets[start, end)} missing
+     * from the reference list {@code reference[referenceStart,
+     * referenceEnd)}.
+     */
+    private static void writeResiduals(ByteSink sink,
+                                       int x,
+                                       int[] targets,
+                                       int start,
+                                       int end,
+                                       int[] reference,
+                                       int referenceStart,
+                                       int referenceEnd) {
+        int previous = -1;
+        int i = referenceStart;
+
+        for (int j = start; j < end; ++j) {
+            int target = targets[j];
+
+            if (reference != null) {
+                while (i < referenceEnd && reference[i] < target) {
+                    ++i;
+                }
+
+                if (i < referenceEnd && reference[i] == target) {
+                    continue;
+                }
+            }
+
+            if (previous < 0) {
+                int gap = target - x;
+                sink.writeVarint((gap << 1) ^ (gap >> 31));
+            } else {
+                sink.writeVarint(target - previous - 1);
+            }
+
+            previous = target;
+        }
+    }
+
+    /**
+     * This class decodes the lists one at a time into reusable buffers. A
+     * decoder is not thread-safe.
+     */
+    final class Decoder implements LinkGraph.NeighborIterator {
+
+        /**
+         * The decoded lists, one per level of the reference chain.
+         */
+        private final int[][] lists;
+
+        private int[] list;
+        private int index;
+        private int length;
+        private int position;
+
+        Decoder() {
+            this.lists = new int[maxReferenceChain + 1][maxDegree];
+        }
+
+        @Override
+        public void reset(int id) {
+            length = decode(id, 0);
+            list = lists[0];
+            index = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < length;
+        }
+
+        @Override
+        public int next() {
+            return list[index++];
+        }
+
+        /**
+         * Decodes the list of {@code x} into {@code lists[depth]}.
+         *
+         * @return the length of the list.
+         */
+        private int decode(int x, int depth) {
+            position = offsets[x];
+            int degree = readVarint();
+
+            if (degree == 0) {
+                return 0;
+            }
+
+            int reference = readVarint();
+            int[] out = lists[depth];
+            int copied = 0;
+
+            if (reference > 0) {
+                int resume = position;
+                decode(x - reference, depth + 1);
+                position = resume;
+
+                int[] referenceList = lists[depth + 1];
+                int numberOfRuns = readVarint();
+                int referenceIndex = 0;
+
+                for (int k = 0; k < numberOfRuns; ++k) {
+                    int run = k == 0 ? readVarint() : readVarint() + 1;
+
+                    if ((k & 1) == 0) {
+                        System.arraycopy(referenceList, referenceIndex,
+                                         out, copied, run);
+                        copied += run;
+                    }
+
+                    referenceIndex += run;
+                }
+            }
+
+            if (copied == degree) {
+                return degree;
+            }
+
+            int gap = readVarint();
+            int residual = x + ((gap >>> 1) ^ -(gap & 1));
+
+            if (copied == 0) {
+                out[0] = residual;
+
+                for (int i = 1; i < degree; ++i) {
+                    residual += readVarint() + 1;
+                    out[i] = residual;
+                }
+
+                return degree;
+            }
+
+            // Move the copied elements to the end and merge the residuals
+            // in from the start; the output never overtakes the copies.
+            System.arraycopy(out, 0, out, degree - copied, copied);
+            int copiedIndex = degree - copied;
+            int outIndex = 0;
+
+            while (true) {
+                while (copiedIndex < degree && out[copiedIndex] < residual) {
+                    out[outIndex++] = out[copiedIndex++];
+                }
+
+                out[outIndex++] = residual;
+
+                if (outIndex == copiedIndex) {
+                    // All the residuals are in; the rest are in place.
+                    return degree;
+                }
+
+                residual += readVarint() + 1;
+            }
+        }
+
+        private int readVarint() {
+            byte b = data[position++];
+
+            if (b >= 0) {
+                return b;
+            }
+
+            int value = b & 0x7f;
+            int shift = 7;
+
+            do {
+                b = data[position++];
+                value |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            return value;
+        }
+    }
+
+    /**
+     * A growable byte array.
+     */
+    private static final class ByteSink {
+
+        byte[] bytes;
+        int size;
+
+        ByteSink(int capacity) {
+            this.bytes = new byte[Math.max(capacity, 16)];
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void writeVarint(int value) {
+            ensureCapacity(5);
+
+            while ((value & ~0x7f) != 0) {
+                bytes[size++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+
+            bytes[size++] = (byte) value;
+        }
+
+        void write(ByteSink other) {
+            ensureCapacity(other.size);
+            System.arraycopy(other.bytes, 0, bytes, size, other.size);
+            size += other.size;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (bytes.length - size >= extra) {
+                return;
+            }
+
+            long capacity = Math.max(2L * bytes.length, (long) size + extra);
+
+            if ((long) size + extra > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException(
+                        "The compressed adjacency exceeds two gigabytes.");
+            }
+
+            bytes = Arrays.copyOf(bytes,
+                                  (int) Math.min(capacity,
+                                                 Integer.MAX_VALUE - 8));
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * This class implements a link graph held on the heap with both directions
+ * of its adjacency compressed as described in {@link CompressedAdjacency}.
+ * The neighbor iterators decode a whole list at a time into reusable buffers
+ * and allocate nothing per list. The graphs are compressed from the graph
+ * files and stored in files of their own laid out as follows, with the
+ * integers big-endian:
+ * <pre>
+ *   int    magic number "WKCG"
+ *   int    format version
+ *   int    number of articles n
+ *   int    number of links m
+ *   int    maximum length of a reference chain
+ *   twice, for the forward and the reverse direction:
+ *     int    maximum degree
+ *     int    list offsets, n + 1 of them
+ *     byte   encoded lists, as many as the last offset says
+ *   the relabeling section as in {@link LinkGraphFile}
+ *   int    byte count of the title dictionary
+ *   byte   the title dictionary
+ * </pre>
+ * The version 1 files, which lack the relabeling section, are still read.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public final class CompressedLinkGraph implements LinkGraph {
+
+    /**
+     * The magic number opening a compressed graph file.
+     */
+    static final int MAGIC = 0x574B4347;
+
+    /**
+     * The version of the format.
+     */
+    static final int VERSION = 2;
+
+    /**
+     * The version without the relabeling section.
+     */
+    static final int UNLABELED_VERSION = 1;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final TitleDictionary titles;
+    private final CompressedAdjacency forward;
+    private final CompressedAdjacency backward;
+    private final int numberOfLinks;
+    private final int[] titleIds;
+    private final int[] articleIds;
+
+    private CompressedLinkGraph(TitleDictionary titles,
+                                CompressedAdjacency forward,
+                                CompressedAdjacency backward,
+                                int numberOfLinks,
+                                int[] titleIds,
+                                int[] articleIds) {
+        this.titles = titles;
+        this.forward = forward;
+        this.backward = backward;
+        this.numberOfLinks = numberOfLinks;
+        this.titleIds = titleIds;
+        this.articleIds = articleIds;
+    }
+
+    /**
+     * Compresses the graph {@code graphFile}.
+     *
+     * @param graphFile the graph.
+     */
+    public CompressedLinkGraph(LinkGraphFile graphFile) {
+        this(graphFile,
+             CompressedAdjacency.DEFAULT_WINDOW,
+             CompressedAdjacency.DEFAULT_MAX_REFERENCE_CHAIN);
+    }
+
+    /**
+     * Compresses the graph {@code graphFile} trying the {@code window}
+     * preceding lists as a reference and cutting the reference chains at
+     * {@code maxReferenceChain}.
+     *
+     * @param graphFile         the graph.
+     * @param window            the reference window; zero disables the
+     *                          references.
+     * @param maxReferenceChain the maximum length of a reference chain.
+     */
+    public CompressedLinkGraph(LinkGraphFile graphFile,
+                               int window,
+                               int maxReferenceChain) {
+        Objects.requireNonNull(graphFile, "The graph file is null.");
+
+        if (window < 0 || maxReferenceChain < 0) {
+            throw new IllegalArgumentException(
+                    "The window and the maximum reference chain must be " +
+                    "nonnegative.");
+        }
+
+        this.titles = graphFile.titles;
+        this.forward = CompressedAdjacency.compress(graphFile.forwardOffsets,
+                                                    graphFile.forwardTargets,
+                                                    window,
+                                                    maxReferenceChain);
+        this.backward = CompressedAdjacency.compress(
+                graphFile.backwardOffsets,
+                graphFile.backwardTargets,
+                window,
+                maxReferenceChain);
+        this.numberOfLinks = graphFile.getNumberOfLinks();
+        this.titleIds = graphFile.titleIds;
+        this.articleIds = graphFile.articleIds;
+    }
+
+    /**
+     * Returns {@code true} if {@code file} starts as a compressed graph file.
+     *
+     * @param file the file to check.
+     * @return {@code true} if the file is a compressed graph file.
+     * @throws IOException if reading fails.
+     */
+    public static boolean isCompressedGraphFile(File file) throws IOException {
+        try (DataInputStream in =
+                new DataInputStream(new FileInputStream(file))) {
+            return file.length() >= 4 && in.readInt() == MAGIC;
+        }
+    }
+
+    /**
+     * Loads the compressed graph file {@code file} to the heap.
+     *
+     * @param file the compressed graph file.
+     * @return the graph.
+     * @throws IOException if reading fails or the file is not a compressed
+     *                     graph file.
+     */
+    public static CompressedLinkGraph load(File file) throws IOException {
+        try (DataInputStream in =
+                new DataInputStream(
+                        new BufferedInputStream(new FileInputStream(file),
+                                                BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(
+                        "\"" + file + "\" is not a compressed link graph " +
+                        "file.");
+            }
+
+            int version = in.readInt();
+
+            if (version != VERSION && version != UNLABELED_VERSION) {
+                throw new IOException(
+                        "Unsupported compressed link graph file version " +
+                        version + ".");
+            }
+
+            int numberOfArticles = in.readInt();
+            int numberOfLinks = in.readInt();
+            int maxReferenceChain = in.readInt();
+            CompressedAdjacency forward =
+                    readAdjacency(in, numberOfArticles, maxReferenceChain);
+            CompressedAdjacency backward =
+                    readAdjacency(in, numberOfArticles, maxReferenceChain);
+            int[] titleIds = null;
+            int[] articleIds = null;
+
+            if (version == VERSION && in.readInt() != 0) {
+                titleIds = LinkGraphFile.readInts(in, numberOfArticles);
+                articleIds = LinkGraphFile.readInts(in, numberOfArticles);
+            }
+
+            byte[] dictionary = new byte[in.readInt()];
+            in.readFully(dictionary);
+            TitleDictionary titles;
+
+            try {
+                titles = new TitleDictionary(ByteBuffer.wrap(dictionary));
+            } catch (IllegalArgumentException ex) {
+                throw new IOException(ex.getMessage(), ex);
+            }
+
+            if (titles.size() != numberOfArticles) {
+                throw new IOException(
+                        "The title dictionary of \"" + file + "\" does " +
+                        "not match the graph.");
+            }
+
+            return new CompressedLinkGraph(titles,
+                                           forward,
+                                           backward,
+                                           numberOfLinks,
+                                           titleIds,
+                                           articleIds);
+        }
+    }
+
+    /**
+     * Writes this graph to {@code file}.
+     *
+     * @param file the file to write.
+     * @throws IOException if writing fails.
+     */
+    public void write(File file) throws IOException {
+        try (DataOutputStream out =
+                new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(file),
+                                                 BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(titles.size());
+            out.writeInt(numberOfLinks);
+            out.writeInt(forward.maxReferenceChain);
+            writeAdjacency(out, forward);
+            writeAdjacency(out, backward);
+            LinkGraphFile.writeRelabeling(out, titleIds, articleIds);
+            out.writeInt(titles.getSizeInBytes());
+            titles.write(out);
+        }
+    }
+
+    /**
+     * Returns the number of bytes taken by the compressed adjacency of both
+     * directions, the list offsets included.
+     *
+     * @return the size of the adjacency in bytes.
+     */
+    public long getAdjacencySizeInBytes() {
+        return forward.getSizeInBytes() + backward.getSizeInBytes();
+    }
+
+    @Override
+    public int getNumberOfArticles() {
+        return titles.size();
+    }
+
+    @Override
+    public long getNumberOfLinks() {
+        return numberOfLinks;
+    }
+
+    @Override
+    public String getTitle(int id) {
+        return titles.getTitle(titleIds == null ? id : titleIds[id]);
+    }
+
+    @Override
+    public int getId(String title) {
+        int titleId = titles.getId(title);
+        return titleId < 0 || articleIds == null ? 
+               titleId : 
+               articleIds[titleId];
+    }
+
+    @Override
+    public int getDegree(int id, boolean forward) {
+        return (forward ? this.forward : backward).getDegree(id);
+    }
+
+    @Override
+    public NeighborIterator newNeighborIterator(boolean forward) {
+        return (forward ? this.forward : backward).new Decoder();
+    }
+
+    private static CompressedAdjacency readAdjacency(DataInputStream in,
+                                                     int numberOfArticles,
+                                                     int maxReferenceChain)
+    throws IOException {
+        int maxDegree = in.readInt();
+        int[] offsets = LinkGraphFile.readInts(in, numberOfArticles + 1);
+        byte[] data = new byte[offsets[numberOfArticles]];
+        in.readFully(data);
+        return new CompressedAdjacency(offsets,
+                                       data,
+                                       maxReferenceChain,
+                                       maxDegree);
+    }
+
+    private static void writeAdjacency(DataOutputStream out,
+                                       CompressedAdjacency adjacency)
+    throws IOException {
+        out.writeInt(adjacency.maxDegree);
+        LinkGraphFile.writeInts(out, adjacency.offsets);
+        out.write(adjacency.data);
+    }
+
+    /**
+     * Compresses a graph file.
+     *
+     * @param args the input graph file and the output file.
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println(
+                    "Usage: java -cp ... " +
+                    CompressedLinkGraph.class.getName() +
+                    " GRAPH_FILE OUTPUT_FILE");
+            return;
+        }
+
+        try {
+            LinkGraphFile graphFile = LinkGraphFile.read(new File(args[0]));
+            long startTime = System.currentTimeMillis();
+            CompressedLinkGraph graph = new CompressedLinkGraph(graphFile);
+            long compressDuration = System.currentTimeMillis() - startTime;
+            graph.write(new File(args[1]));
+            long adjacencySize = graph.getAdjacencySizeInBytes();
+            long links = Math.max(1L, graph.getNumberOfLinks());
+
+            System.out.println("Articles:        " +
+                               graph.getNumberOfArticles());
+            System.out.println("Links:           " +
+                               graph.getNumberOfLinks());
+            System.out.printf("Bytes per link:  %.3f (%.3f uncompressed)%n",
+                              (double) adjacencySize / links,
+                              (8.0 * links + 8.0 *
+                               (graph.getNumberOfArticles() + 1)) / links);
+            System.out.println("Compression:     " +
+                               compressDuration + " ms.");
+        } catch (IOException ex) {
+            System.err.println("[I/O ERROR] " + ex.getMessage());
+            System.exit(1);
+        } catch (IllegalStateException ex) {
+            System.err.println("ERROR: " + ex.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,652 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import static net.coderodde.wikipedia.sp.Miscellanea.encodeWikipediaStyle;
+
+/**
+ * This class implements a link graph made of an immutable base graph and a
+ * mutable layer of changes over it: the links added to and removed from each
+ * article, and the articles added. The neighbor iterators yield the links of
+ * both alike, so the searches need not know about the layer. The articles
+ * without changes are marked in a bit set and iterated straight from the
+ * base, so the changes slow down only the articles they touch.
+ * <p>
+ * The changes are read from a UTF-8 change file, one per line:
+ * <pre>
+ *   +&lt;TAB&gt;SOURCE_TITLE&lt;TAB&gt;TARGET_TITLE
+ *   -&lt;TAB&gt;SOURCE_TITLE&lt;TAB&gt;TARGET_TITLE
+ * </pre>
+ * adding or removing the link from the source to the target. The empty lines
+ * and the lines starting with {@code #} are skipped, and the changes apply in
+ * order. A title missing from the graph adds an article when a link to or
+ * from it is added. Once the layer grows large, {@link #merge(File)} folds it
+ * into a fresh base graph file, after which the change file may be emptied.
+ * <p>
+ * The graph may be changed only while no search runs on it.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public final class DeltaLinkGraph implements LinkGraph {
+
+    private final LinkGraph base;
+    private final int numberOfBaseArticles;
+    private final List<String> addedTitles = new ArrayList<>();
+    private final Map<String, Integer> addedIdMap = new HashMap<>();
+    private final Delta forwardDelta = new Delta();
+    private final Delta backwardDelta = new Delta();
+    private final LinkGraph.NeighborIterator baseIterator;
+    private long numberOfLinks;
+    private long numberOfAddedLinks;
+    private long numberOfRemovedLinks;
+
+    /**
+     * Constructs a graph with no changes over {@code base}.
+     *
+     * @param base the base graph.
+     */
+    public DeltaLinkGraph(LinkGraph base) {
+        this.base = Objects.requireNonNull(base, "The base graph is null.");
+        this.numberOfBaseArticles = base.getNumberOfArticles();
+        this.numberOfLinks = base.getNumberOfLinks();
+        this.baseIterator = base.newNeighborIterator(true);
+    }
+
+    /**
+     * Constructs a graph over {@code base} with the changes of the change file
+     * {@code changeFile}.
+     *
+     * @param base       the base graph.
+     * @param changeFile the change file.
+     * @return the graph.
+     * @throws IOException if reading fails or the change file is malformed.
+     */
+    public static DeltaLinkGraph load(LinkGraph base, File changeFile)
+    throws IOException {
+        DeltaLinkGraph graph = new DeltaLinkGraph(base);
+        graph.applyChanges(changeFile);
+        return graph;
+    }
+
+    /**
+     * Applies the changes of the change file {@code changeFile}.
+     *
+     * @param changeFile the change file.
+     * @return the number of the changes that changed the graph.
+     * @throws IOException if reading fails or the change file is malformed.
+     */
+    public int applyChanges(File changeFile) throws IOException {
+        int numberOfChanges = 0;
+        int lineNumber = 0;
+
+        try (BufferedReader reader =
+                new BufferedReader(
+                        new InputStreamReader(new FileInputStream(changeFile),
+                                              StandardCharsets.UTF_8))) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                ++lineNumber;
+
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] fields = line.split("\t", -1);
+
+                if (fields.length != 3 ||
+                        fields[1].isEmpty() ||
+                        fields[2].isEmpty()) {
+                    throw new IOException(
+                            "Malformed change at line " + lineNumber +
+                            " of \"" + changeFile + "\".");
+                }
+
+                boolean changed;
+
+                switch (fields[0]) {
+                    case "+":
+                        changed = addLink(fields[1], fields[2]);
+                        break;
+
+                    case "-":
+                        changed = removeLink(fields[1], fields[2]);
+                        break;
+
+                    default:
+                        throw new IOException(
+                                "Unknown change \"" + fields[0] +
+                                "\" at line " + lineNumber + " of \"" +
+                                changeFile + "\".");
+                }
+
+                if (changed) {
+                    ++numberOfChanges;
+                }
+            }
+        }
+
+        return numberOfChanges;
+    }
+
+    /**
+     * Adds the link from the article {@code sourceTitle} to the article
+     * {@code targetTitle}, adding the articles missing from the graph.
+     *
+     * @param sourceTitle the title of the linking article.
+     * @param targetTitle the title of the linked article.
+     * @return {@code true} if the link was not in the graph and is not a
+     *         self-loop.
+     */
+    public boolean addLink(String sourceTitle, String targetTitle) {
+        int source = getOrAddArticle(sourceTitle);
+        int target = getOrAddArticle(targetTitle);
+
+        if (source == target || hasLink(source, target)) {
+            return false;
+        }
+
+        if (forwardDelta.isRemoved(source, target)) {
+            forwardDelta.get(source).unremove(target);
+            backwardDelta.get(target).unremove(source);
+            --numberOfRemovedLinks;
+        } else {
+            forwardDelta.getOrCreate(source).add(target);
+            backwardDelta.getOrCreate(target).add(source);
+            ++numberOfAddedLinks;
+        }
+
+        ++numberOfLinks;
+        return true;
+    }
+
+    /**
+     * Removes the link from the article {@code sourceTitle} to the article
+     * {@code targetTitle}.
+     *
+     * @param sourceTitle the title of the linking article.
+     * @param targetTitle the title of the linked article.
+     * @return {@code true} if the link was in the graph.
+     */
+    public boolean removeLink(String sourceTitle, String targetTitle) {
+        int source = getId(sourceTitle);
+        int target = getId(targetTitle);
+
+        if (source < 0 || target < 0 || !hasLink(source, target)) {
+            return false;
+        }
+
+        if (forwardDelta.isAdded(source, target)) {
+            forwardDelta.get(source).unadd(target);
+            backwardDelta.get(target).unadd(source);
+            --numberOfAddedLinks;
+        } else {
+            forwardDelta.getOrCreate(source).remove(target);
+            backwardDelta.getOrCreate(target).remove(source);
+            ++numberOfRemovedLinks;
+        }
+
+        --numberOfLinks;
+        return true;
+    }
+
+    /**
+     * Returns the number of the links added over the base graph.
+     *
+     * @return the number of the added links.
+     */
+    public long getNumberOfAddedLinks() {
+        return numberOfAddedLinks;
+    }
+
+    /**
+     * Returns the number of the links of the base graph removed.
+     *
+     * @return the number of the removed links.
+     */
+    public long getNumberOfRemovedLinks() {
+        return numberOfRemovedLinks;
+    }
+
+    /**
+     * Returns the number of the articles added over the base graph.
+     *
+     * @return the number of the added articles.
+     */
+    public int getNumberOfAddedArticles() {
+        return addedTitles.size();
+    }
+
+    /**
+     * Writes this graph to {@code file} as a fresh base graph file, the
+     * articles numbered in the order of their titles. The links are sorted in
+     * runs spilled next to {@code file}, so the heap need not hold them.
+     *
+     * @param file the graph file to write.
+     * @throws IOException if writing fails.
+     */
+    public void merge(File file) throws IOException {
+        int numberOfArticles = getNumberOfArticles();
+        String[] titles = new String[numberOfArticles];
+
+        for (int id = 0; id < numberOfArticles; ++id) {
+            titles[id] = getTitle(id);
+        }
+
+        Arrays.sort(titles, TitleDictionary.TITLE_ORDER);
+        TitleDictionary dictionary = TitleDictionary.build(titles);
+        int[] newIds = new int[numberOfArticles];
+
+        for (int id = 0; id < numberOfArticles; ++id) {
+            newIds[id] = dictionary.getId(getTitle(id));
+        }
+
+        try (ExternalLinkGraphBuilder builder =
+                new ExternalLinkGraphBuilder(
+                        file.getAbsoluteFile().getParentFile(),
+                        ExternalLinkGraphBuilder.DEFAULT_RUN_SIZE)) {
+            LinkCollector collector = builder.newCollector();
+            NeighborIterator iterator = newNeighborIterator(true);
+
+            for (int id = 0; id < numberOfArticles; ++id) {
+                iterator.reset(id);
+
+                while (iterator.hasNext()) {
+                    collector.addLink(newIds[id], newIds[iterator.next()]);
+                }
+            }
+
+            builder.build(dictionary, file);
+        }
+    }
+
+    @Override
+    public int getNumberOfArticles() {
+        return numberOfBaseArticles + addedTitles.size();
+    }
+
+    @Override
+    public long getNumberOfLinks() {
+        return numberOfLinks;
+    }
+
+    @Override
+    public String getTitle(int id) {
+        return id < numberOfBaseArticles ?
+               base.getTitle(id) :
+               addedTitles.get(id - numberOfBaseArticles);
+    }
+
+    @Override
+    public int getId(String title) {
+        int id = base.getId(title);
+
+        if (id >= 0 || addedTitles.isEmpty()) {
+            return id;
+        }
+
+        Integer addedId = addedIdMap.get(encodeWikipediaStyle(title));
+        return addedId == null ? -1 : addedId;
+    }
+
+    @Override
+    public int getDegree(int id, boolean forward) {
+        int degree = id < numberOfBaseArticles ?
+                     base.getDegree(id, forward) :
+                     0;
+        NodeDelta nodeDelta = (forward ? forwardDelta : backwardDelta).get(id);
+
+        if (nodeDelta != null) {
+            degree += nodeDelta.addedSize - nodeDelta.removedSize;
+        }
+
+        return degree;
+    }
+
+    @Override
+    public NeighborIterator newNeighborIterator(boolean forward) {
+        return new DeltaNeighborIterator(forward);
+    }
+
+    /**
+     * Folds a change file into a base graph file.
+     *
+     * @param args the base graph file, the change file and the output file.
+     */
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.out.println(
+                    "Usage: java -cp ... " + DeltaLinkGraph.class.getName() +
+                    " GRAPH_FILE CHANGE_FILE OUTPUT_FILE");
+            return;
+        }
+
+        LinkGraph base = null;
+
+        try {
+            File graphFile = new File(args[0]);
+            base = CompressedLinkGraph.isCompressedGraphFile(graphFile) ?
+                   CompressedLinkGraph.load(graphFile) :
+                   new MappedLinkGraph(graphFile);
+
+            long startTime = System.currentTimeMillis();
+            DeltaLinkGraph graph = load(base, new File(args[1]));
+            long loadDuration = System.currentTimeMillis() - startTime;
+
+            startTime = System.currentTimeMillis();
+            graph.merge(new File(args[2]));
+            long mergeDuration = System.currentTimeMillis() - startTime;
+
+            System.out.println("Articles:        " +
+                               graph.getNumberOfArticles() + " (" +
+                               graph.getNumberOfAddedArticles() + " added)");
+            System.out.println("Links:           " +
+                               graph.getNumberOfLinks() + " (" +
+                               graph.getNumberOfAddedLinks() + " added, " +
+                               graph.getNumberOfRemovedLinks() +
+                               " removed)");
+            System.out.println("Changes:         " + loadDuration + " ms.");
+            System.out.println("Merge:           " + mergeDuration + " ms.");
+        } catch (IOException ex) {
+            System.err.println("[I/O ERROR] " + ex.getMessage());
+            System.exit(1);
+        } catch (IllegalStateException ex) {
+            System.err.println("ERROR: " + ex.getMessage());
+            System.exit(1);
+        } finally {
+            if (base instanceof Closeable) {
+                try {
+                    ((Closeable) base).close();
+                } catch (IOException ex) {
+                    // The graph was only read.
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the ID of the article titled {@code title}, adding the article
+     * if it is missing.
+     */
+    private int getOrAddArticle(String title) {
+        int id = getId(title);
+
+        if (id >= 0) {
+            return id;
+        }
+
+        String encodedTitle = encodeWikipediaStyle(title);
+        id = getNumberOfArticles();
+        addedTitles.add(encodedTitle);
+        addedIdMap.put(encodedTitle, id);
+        return id;
+    }
+
+    private boolean hasLink(int source, int target) {
+        if (forwardDelta.isAdded(source, target)) {
+            return true;
+        }
+
+        if (forwardDelta.isRemoved(source, target) ||
+                source >= numberOfBaseArticles ||
+                target >= numberOfBaseArticles) {
+            return false;
+        }
+
+        // Scan the shorter of the two lists holding the link:
+        boolean forward = base.getDegree(source, true) <=
+                          base.getDegree(target, false);
+        NeighborIterator iterator = forward ?
+                                    baseIterator :
+                                    base.newNeighborIterator(false);
+        iterator.reset(forward ? source : target);
+        int neighbor = forward ? target : source;
+
+        while (iterator.hasNext()) {
+            if (iterator.next() == neighbor) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * The changes to the lists of a single direction, in an open-addressing
+     * table keyed by the article IDs so that the lookups do not box them.
+     */
+    private static final class Delta {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        /**
+         * Marks the articles with changes, so that the rest skip the table.
+         */
+        private final BitSet changed = new BitSet();
+        private int[] keys = new int[INITIAL_CAPACITY];
+        private NodeDelta[] values = new NodeDelta[INITIAL_CAPACITY];
+        private int size;
+
+        NodeDelta get(int id) {
+            if (!changed.get(id)) {
+                return null;
+            }
+
+            int mask = keys.length - 1;
+            int index = hash(id) & mask;
+
+            while (keys[index] != id) {
+                index = (index + 1) & mask;
+            }
+
+            return values[index];
+        }
+
+        NodeDelta getOrCreate(int id) {
+            NodeDelta nodeDelta = get(id);
+
+            if (nodeDelta == null) {
+                if (2 * (size + 1) > keys.length) {
+                    grow();
+                }
+
+                nodeDelta = new NodeDelta();
+                put(id, nodeDelta);
+                changed.set(id);
+                ++size;
+            }
+
+            return nodeDelta;
+        }
+
+        boolean isAdded(int id, int neighbor) {
+            NodeDelta nodeDelta = get(id);
+            return nodeDelta != null && nodeDelta.isAdded(neighbor);
+        }
+
+        boolean isRemoved(int id, int neighbor) {
+            NodeDelta nodeDelta = get(id);
+            return nodeDelta != null && nodeDelta.isRemoved(neighbor);
+        }
+
+        private void put(int id, NodeDelta nodeDelta) {
+            int mask = keys.length - 1;
+            int index = hash(id) & mask;
+
+            while (values[index] != null) {
+                index = (index + 1) & mask;
+            }
+
+            keys[index] = id;
+            values[index] = nodeDelta;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            NodeDelta[] oldValues = values;
+            keys = new int[2 * oldKeys.length];
+            values = new NodeDelta[2 * oldValues.length];
+
+            for (int i = 0; i < oldKeys.length; ++i) {
+                if (oldValues[i] != null) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(int id) {
+            int hash = id * 0x9e3779b9;
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    /**
+     * The sorted added and removed neighbors of an article.
+     */
+    private static final class NodeDelta {
+
+        private static final int[] EMPTY = new int[0];
+
+        /**
+         * No changes. Never changed itself.
+         */
+        static final NodeDelta NONE = new NodeDelta();
+
+        int[] added = EMPTY;
+        int addedSize;
+        int[] removed = EMPTY;
+        int removedSize;
+
+        boolean isAdded(int neighbor) {
+            return Arrays.binarySearch(added, 0, addedSize, neighbor) >= 0;
+        }
+
+        boolean isRemoved(int neighbor) {
+            return removedSize > 0 &&
+                   Arrays.binarySearch(removed, 0, removedSize, neighbor) >= 0;
+        }
+
+        void add(int neighbor) {
+            added = insert(added, addedSize++, neighbor);
+        }
+
+        void unadd(int neighbor) {
+            addedSize = delete(added, addedSize, neighbor);
+        }
+
+        void remove(int neighbor) {
+            removed = insert(removed, removedSize++, neighbor);
+        }
+
+        void unremove(int neighbor) {
+            removedSize = delete(removed, removedSize, neighbor);
+        }
+
+        private static int[] insert(int[] array, int size, int value) {
+            int index = -Arrays.binarySearch(array, 0, size, value) - 1;
+
+            if (size == array.length) {
+                array = Arrays.copyOf(array, Math.max(4, 2 * size));
+            }
+
+            System.arraycopy(array, index, array, index + 1, size - index);
+            array[index] = value;
+            return array;
+        }
+
+        private static int delete(int[] array, int size, int value) {
+            int index = Arrays.binarySearch(array, 0, size, value);
+            System.arraycopy(array, index + 1, array, index, size - index - 1);
+            return size - 1;
+        }
+    }
+
+    /**
+     * Iterates the neighbors of the base not removed and then the neighbors
+     * added. The articles without changes are iterated by the base iterator
+     * alone.
+     */
+    private final class DeltaNeighborIterator implements NeighborIterator {
+
+        private final Delta delta;
+        private final NeighborIterator baseIterator;
+        private NodeDelta nodeDelta;
+        private boolean inBase;
+        private int addedIndex;
+        private int nextNeighbor;
+        private boolean hasNextNeighbor;
+
+        DeltaNeighborIterator(boolean forward) {
+            this.delta = forward ? forwardDelta : backwardDelta;
+            this.baseIterator = base.newNeighborIterator(forward);
+        }
+
+        @Override
+        public void reset(int id) {
+            nodeDelta = delta.get(id);
+            inBase = id < numberOfBaseArticles;
+
+            if (inBase) {
+                baseIterator.reset(id);
+            }
+
+            if (nodeDelta == null && !inBase) {
+                // An added article whose links are all gone:
+                nodeDelta = NodeDelta.NONE;
+            }
+
+            if (nodeDelta != null) {
+                addedIndex = 0;
+                advance();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nodeDelta == null ? baseIterator.hasNext() : hasNextNeighbor;
+        }
+
+        @Override
+        public int next() {
+            if (nodeDelta == null) {
+                return baseIterator.next();
+            }
+
+            int neighbor = nextNeighbor;
+            advance();
+            return neighbor;
+        }
+
+        private void advance() {
+            while (inBase && baseIterator.hasNext()) {
+                int neighbor = baseIterator.next();
+
+                if (!nodeDelta.isRemoved(neighbor)) {
+                    nextNeighbor = neighbor;
+                    hasNextNeighbor = true;
+                    return;
+                }
+            }
+
+            inBase = false;
+            hasNextNeighbor = addedIndex < nodeDelta.addedSize;
+
+            if (hasNextNeighbor) {
+                nextNeighbor = nodeDelta.added[addedIndex++];
+            }
+        }
+    }
+}
@@ -0,0 +1,684 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import static net.coderodde.wikipedia.sp.Miscellanea.encodeWikipediaStyle;
+
+/**
+ * This class builds an article link graph out of the SQL dumps of a
+ * Wikipedia: {@code page.sql.gz}, {@code redirect.sql.gz} and
+ * {@code pagelinks.sql.gz}, possibly prefixed with the wiki and the date as
+ * in {@code enwiki-20240601-page.sql.gz}. The dumps in the newer schema, in
+ * which {@code pagelinks} refers to the link targets by ID, need
+ * {@code linktarget.sql.gz} as well.
+ * <p>
+ * The articles are the pages in namespace 0 that are not redirects. A link to
+ * a redirect counts as a link to the article the redirect leads to, and the
+ * links from the redirects, the links to the other namespaces and the links
+ * to the missing pages are dropped. The titles are encoded as the Wikipedia
+ * API finders encode them and kept in a {@link TitleDictionary}, whose order
+ * numbers the articles. Each dump is decompressed by a single thread and
+ * parsed by a pool of workers; the page and the redirect dumps are read at
+ * the same time.
+ * <p>
+ * A graph with more links than fit in the heap is built with
+ * {@link #ingest(File, File)} and a positive run size: the links are then
+ * sorted in runs spilled next to the graph file and merged into it.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public final class DumpIngester {
+
+    /**
+     * The name of the page dump.
+     */
+    public static final String PAGE_DUMP = "page.sql.gz";
+
+    /**
+     * The name of the redirect dump.
+     */
+    public static final String REDIRECT_DUMP = "redirect.sql.gz";
+
+    /**
+     * The name of the link dump.
+     */
+    public static final String PAGE_LINKS_DUMP = "pagelinks.sql.gz";
+
+    /**
+     * The name of the link target dump.
+     */
+    public static final String LINK_TARGET_DUMP = "linktarget.sql.gz";
+
+    /**
+     * The namespace of the articles.
+     */
+    private static final int ARTICLE_NAMESPACE = 0;
+
+    /**
+     * The number of workers parsing each dump.
+     */
+    private final int numberOfThreads;
+
+    /**
+     * The number of links per spilled run, or zero for building the graph in
+     * the heap.
+     */
+    private final int runSize;
+
+    private volatile long pageDuration;
+    private volatile long linkDuration;
+    private volatile long buildDuration;
+    private volatile long spillDuration;
+    private volatile long writeDuration;
+
+    /**
+     * Constructs an ingester building the graphs in the heap.
+     *
+     * @param numberOfThreads the number of workers parsing each dump.
+     */
+    public DumpIngester(int numberOfThreads) {
+        this(numberOfThreads, 0);
+    }
+
+    /**
+     * Constructs an ingester. If {@code runSize} is positive,
+     * {@link #ingest(File, File)} sorts the links in runs of {@code runSize}
+     * links spilled to the disk; each worker buffers a run.
+     *
+     * @param numberOfThreads the number of workers parsing each dump.
+     * @param runSize         the number of links per run, or zero for
+     *                        building the graph in the heap.
+     */
+    public DumpIngester(int numberOfThreads, int runSize) {
+        if (runSize < 0) {
+            throw new IllegalArgumentException(
+                    "The run size may not be negative: " + runSize + ".");
+        }
+
+        this.numberOfThreads = Math.max(1, numberOfThreads);
+        this.runSize = runSize;
+    }
+
+    /**
+     * Returns the time spent reading the page and the redirect dumps in the
+     * last ingestion, in milliseconds.
+     *
+     * @return the duration in milliseconds.
+     */
+    public long getPageDuration() {
+        return pageDuration;
+    }
+
+    /**
+     * Returns the time spent reading the link dumps in the last ingestion, in
+     * milliseconds.
+     *
+     * @return the duration in milliseconds.
+     */
+    public long getLinkDuration() {
+        return linkDuration;
+    }
+
+    /**
+     * Returns the time spent building the adjacency in the last ingestion, in
+     * milliseconds. With spilled runs, this is the time spent merging them.
+     *
+     * @return the duration in milliseconds.
+     */
+    public long getBuildDuration() {
+        return buildDuration;
+    }
+
+    /**
+     * Returns the time the workers spent sorting and spilling the runs in the
+     * last ingestion, in milliseconds, summed over the workers. The time is
+     * part of the link dump time.
+     *
+     * @return the duration in milliseconds.
+     */
+    public long getSpillDuration() {
+        return spillDuration;
+    }
+
+    /**
+     * Returns the time spent writing the graph file in the last ingestion, in
+     * milliseconds.
+     *
+     * @return the duration in milliseconds.
+     */
+    public long getWriteDuration() {
+        return writeDuration;
+    }
+
+    /**
+     * Builds the link graph out of the dumps in {@code dumpDirectory}.
+     *
+     * @param dumpDirectory the directory holding the dumps.
+     * @return the link graph.
+     * @throws IOException if a dump is missing, cannot be read or is
+     *                     malformed.
+     */
+    public LinkGraphFile ingest(File dumpDirectory) throws IOException {
+        List<LinkGraphBuilder> builders =
+                Collections.synchronizedList(new ArrayList<>());
+        String[] titles = readDumps(dumpDirectory, () -> {
+            LinkGraphBuilder builder = new LinkGraphBuilder();
+            builders.add(builder);
+            return builder;
+        });
+
+        long startTime = System.currentTimeMillis();
+        LinkGraphFile graph = LinkGraphBuilder.build(titles, builders);
+        this.buildDuration = System.currentTimeMillis() - startTime;
+        this.spillDuration = 0L;
+        return graph;
+    }
+
+    /**
+     * Builds the link graph out of the dumps in {@code dumpDirectory} and
+     * writes it to {@code file}. If the run size of this ingester is
+     * positive, the links are sorted in runs spilled to the directory of
+     * {@code file}. The heap then holds, through the link dumps, the titles
+     * of the articles and of the redirects, the page IDs and the link target
+     * IDs at 8 bytes each, a run per worker and the degrees of the articles.
+     *
+     * @param dumpDirectory the directory holding the dumps.
+     * @param file          the graph file to write.
+     * @throws IOException if a dump is missing, cannot be read or is
+     *                     malformed, or if writing a file fails.
+     */
+    public void ingest(File dumpDirectory, File file) throws IOException {
+        if (runSize == 0) {
+            LinkGraphFile graph = ingest(dumpDirectory);
+            long startTime = System.currentTimeMillis();
+            graph.write(file);
+            this.writeDuration = System.currentTimeMillis() - startTime;
+            return;
+        }
+
+        try (ExternalLinkGraphBuilder builder =
+                new ExternalLinkGraphBuilder(
+                        file.getAbsoluteFile().getParentFile(),
+                        runSize)) {
+            String[] titles = readDumps(dumpDirectory, builder::newCollector);
+            builder.build(TitleDictionary.build(titles), file);
+            this.spillDuration = builder.getSpillDuration();
+            this.buildDuration = builder.getForwardMergeDuration() +
+                                 builder.getBackwardMergeDuration();
+            this.writeDuration = builder.getWriteDuration();
+        }
+    }
+
+    /**
+     * Reads the dumps in {@code dumpDirectory}, adding the links to the
+     * collectors handed out by {@code collectors}, one per worker.
+     *
+     * @return the encoded titles of the articles in the order of their IDs.
+     */
+    private String[] readDumps(File dumpDirectory,
+                               Supplier<LinkCollector> collectors)
+    throws IOException {
+        File pageDump = findDump(dumpDirectory, PAGE_DUMP, true);
+        File redirectDump = findDump(dumpDirectory, REDIRECT_DUMP, true);
+        File pageLinksDump = findDump(dumpDirectory, PAGE_LINKS_DUMP, true);
+        File linkTargetDump = findDump(dumpDirectory, LINK_TARGET_DUMP, false);
+        SqlDumpReader reader = new SqlDumpReader(numberOfThreads);
+
+        long startTime = System.currentTimeMillis();
+        Articles articles = readArticles(reader, pageDump, redirectDump);
+        ArticleIndex index = articles.index;
+        PackedIdMap pageIdMap = articles.pageIdMap;
+        int numberOfArticles = index.getTitles().length;
+        this.pageDuration = System.currentTimeMillis() - startTime;
+        startTime = System.currentTimeMillis();
+
+        PackedIdMap linkTargetIdMap = null;
+
+        if (linkTargetDump != null) {
+            linkTargetIdMap = new PackedIdMap(numberOfArticles);
+
+            for (LinkTargetHandler handler :
+                    reader.read(linkTargetDump,
+                                (columnNames) ->
+                                        new LinkTargetHandler(
+                                                columnNames,
+                                                index,
+                                                numberOfArticles))) {
+                linkTargetIdMap.putAll(handler.idMap);
+            }
+
+            linkTargetIdMap.sort();
+        }
+
+        PackedIdMap finalLinkTargetIdMap = linkTargetIdMap;
+        reader.read(pageLinksDump,
+                    (columnNames) ->
+                            new PageLinkHandler(columnNames,
+                                                collectors.get(),
+                                                index,
+                                                pageIdMap,
+                                                finalLinkTargetIdMap));
+
+        this.linkDuration = System.currentTimeMillis() - startTime;
+        return index.getTitles();
+    }
+
+    /**
+     * Reads the page and the redirect dumps at the same time. The maps of the
+     * handlers are dropped on return, so that only the index and the page IDs
+     * stay in the heap for the link dumps.
+     */
+    private static Articles readArticles(SqlDumpReader reader,
+                                         File pageDump,
+                                         File redirectDump)
+    throws IOException {
+        List<PageHandler> pageHandlers;
+        List<RedirectHandler> redirectHandlers;
+        ExecutorService pageExecutor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<List<PageHandler>> pageFuture =
+                    pageExecutor.submit(
+                            () -> reader.read(pageDump, PageHandler::new));
+            redirectHandlers = reader.read(redirectDump, RedirectHandler::new);
+            pageHandlers = getDumpResult(pageFuture);
+        } finally {
+            pageExecutor.shutdownNow();
+        }
+
+        List<String> titleList = new ArrayList<>();
+        Map<Integer, String> redirectPageIdMap = new HashMap<>();
+
+        for (PageHandler handler : pageHandlers) {
+            titleList.addAll(handler.articlePageIdMap.values());
+            redirectPageIdMap.putAll(handler.redirectPageIdMap);
+        }
+
+        Map<String, String> redirectMap = new HashMap<>();
+
+        for (RedirectHandler handler : redirectHandlers) {
+            handler.targetMap.forEach((pageId, targetTitle) -> {
+                String redirectTitle = redirectPageIdMap.get(pageId);
+
+                if (redirectTitle != null) {
+                    redirectMap.put(redirectTitle, targetTitle);
+                }
+            });
+        }
+
+        // Number the articles in the order of their titles:
+        ArticleIndex index = 
+                new ArticleIndex(titleList.toArray(new String[0]), 
+                                 redirectMap);
+        PackedIdMap pageIdMap = new PackedIdMap(index.getTitles().length);
+
+        for (PageHandler handler : pageHandlers) {
+            handler.articlePageIdMap.forEach((pageId, title) -> 
+                    pageIdMap.put(pageId, index.getArticleId(title)));
+        }
+
+        pageIdMap.sort();
+        return new Articles(index, pageIdMap);
+    }
+
+    /**
+     * Builds a graph file out of a dump directory.
+     *
+     * @param args the dump directory, the output file and optionally the
+     *             number of workers per dump and the number of links per
+     *             spilled run; a run size of zero builds the graph in the
+     *             heap.
+     */
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 4) {
+            System.out.println(
+                    "Usage: java -cp ... " + DumpIngester.class.getName() +
+                    " DUMP_DIRECTORY OUTPUT_FILE [THREADS [RUN_SIZE]]");
+            return;
+        }
+
+        int numberOfThreads = Runtime.getRuntime().availableProcessors();
+        int runSize = 0;
+
+        try {
+            if (args.length >= 3) {
+                numberOfThreads = parseInt(args[2]);
+            }
+
+            if (args.length == 4) {
+                runSize = parseInt(args[3]);
+            }
+        } catch (NumberFormatException ex) {
+            System.err.println("ERROR: " + ex.getMessage());
+            System.exit(1);
+        }
+
+        try {
+            DumpIngester ingester = new DumpIngester(numberOfThreads,
+                                                     runSize);
+            File file = new File(args[1]);
+            ingester.ingest(new File(args[0]), file);
+
+            try (MappedLinkGraph graph = new MappedLinkGraph(file)) {
+                System.out.println("Articles:          " +
+                                   graph.getNumberOfArticles());
+                System.out.println("Links:             " +
+                                   graph.getNumberOfLinks());
+            }
+
+            System.out.println("Pages & redirects: " +
+                               ingester.getPageDuration() + " ms.");
+            System.out.println("Link dumps:        " +
+                               ingester.getLinkDuration() + " ms.");
+
+            if (runSize > 0) {
+                System.out.println("  Spilling runs:   " +
+                                   ingester.getSpillDuration() + " ms.");
+            }
+
+            System.out.println("Adjacency:         " +
+                               ingester.getBuildDuration() + " ms.");
+            System.out.println("Writing:           " +
+                               ingester.getWriteDuration() + " ms.");
+        } catch (IOException ex) {
+            System.err.println("[I/O ERROR] " + ex.getMessage());
+            System.exit(1);
+        } catch (IllegalArgumentException | IllegalStateException ex) {
+            System.err.println("ERROR: " + ex.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static int parseInt(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException ex) {
+            throw new NumberFormatException(
+                    "\"" + text + "\" is not an integer.");
+        }
+    }
+
+    /**
+     * Finds the dump named {@code name} in {@code dumpDirectory}, with or
+     * without the usual prefix.
+     */
+    private static File findDump(File dumpDirectory,
+                                 String name,
+                                 boolean required) throws IOException {
+        File[] files = dumpDirectory.listFiles();
+
+        if (files == null) {
+            throw new IOException(
+                    "\"" + dumpDirectory + "\" is not a directory.");
+        }
+
+        for (File file : files) {
+            String fileName = file.getName();
+
+            if (fileName.equals(name) || fileName.endsWith("-" + name)) {
+                return file;
+            }
+        }
+
+        if (required) {
+            throw new IOException(
+                    "No " + name + " in \"" + dumpDirectory + "\".");
+        }
+
+        return null;
+    }
+
+    private static <T> T getDumpResult(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading a dump.", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+
+            throw new IOException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Returns the index of the column {@code name}.
+     *
+     * @throws IllegalStateException if there is no such column.
+     */
+    private static int getColumnIndex(List<String> columnNames, String name) {
+        int index = columnNames.indexOf(name);
+
+        if (index < 0) {
+            throw new IllegalStateException(
+                    "The dump has no column \"" + name + "\".");
+        }
+
+        return index;
+    }
+
+    /**
+     * Holds the articles read from the page and the redirect dumps.
+     */
+    private static final class Articles {
+
+        final ArticleIndex index;
+
+        /**
+         * Maps the page IDs of the articles to the article IDs.
+         */
+        final PackedIdMap pageIdMap;
+
+        Articles(ArticleIndex index, PackedIdMap pageIdMap) {
+            this.index = index;
+            this.pageIdMap = pageIdMap;
+        }
+    }
+
+    /**
+     * Collects the articles and the redirects in namespace 0.
+     */
+    private static final class PageHandler
+    implements SqlDumpReader.RowHandler {
+
+        final Map<Integer, String> articlePageIdMap = new HashMap<>();
+        final Map<Integer, String> redirectPageIdMap = new HashMap<>();
+
+        private final int idIndex;
+        private final int namespaceIndex;
+        private final int titleIndex;
+        private final int redirectIndex;
+
+        PageHandler(List<String> columnNames) {
+            this.idIndex = getColumnIndex(columnNames, "page_id");
+            this.namespaceIndex = getColumnIndex(columnNames,
+                                                 "page_namespace");
+            this.titleIndex = getColumnIndex(columnNames, "page_title");
+            this.redirectIndex = getColumnIndex(columnNames,
+                                                "page_is_redirect");
+        }
+
+        @Override
+        public void onRow(SqlDumpReader.SqlRow row) {
+            if (row.getInt(namespaceIndex) != ARTICLE_NAMESPACE) {
+                return;
+            }
+
+            int pageId = row.getInt(idIndex);
+            String title = encodeWikipediaStyle(row.getString(titleIndex));
+
+            if (row.getInt(redirectIndex) != 0) {
+                redirectPageIdMap.put(pageId, title);
+            } else {
+                articlePageIdMap.put(pageId, title);
+            }
+        }
+    }
+
+    /**
+     * Collects the targets of the redirects leading to namespace 0.
+     */
+    private static final class RedirectHandler
+    implements SqlDumpReader.RowHandler {
+
+        final Map<Integer, String> targetMap = new HashMap<>();
+
+        private final int fromIndex;
+        private final int namespaceIndex;
+        private final int titleIndex;
+        private final int interwikiIndex;
+
+        RedirectHandler(List<String> columnNames) {
+            this.fromIndex = getColumnIndex(columnNames, "rd_from");
+            this.namespaceIndex = getColumnIndex(columnNames, "rd_namespace");
+            this.titleIndex = getColumnIndex(columnNames, "rd_title");
+            this.interwikiIndex = columnNames.indexOf("rd_interwiki");
+        }
+
+        @Override
+        public void onRow(SqlDumpReader.SqlRow row) {
+            if (row.getInt(namespaceIndex) != ARTICLE_NAMESPACE) {
+                return;
+            }
+
+            if (interwikiIndex >= 0) {
+                String interwiki = row.getString(interwikiIndex);
+
+                if (interwiki != null && !interwiki.isEmpty()) {
+                    return;
+                }
+            }
+
+            targetMap.put(row.getInt(fromIndex),
+                          encodeWikipediaStyle(row.getString(titleIndex)));
+        }
+    }
+
+    /**
+     * Maps the link target IDs of the newer schema to the article IDs.
+     */
+    private static final class LinkTargetHandler
+    implements SqlDumpReader.RowHandler {
+
+        final PackedIdMap idMap;
+
+        private final ArticleIndex index;
+        private final int idIndex;
+        private final int namespaceIndex;
+        private final int titleIndex;
+
+        LinkTargetHandler(List<String> columnNames,
+                          ArticleIndex index,
+                          int numberOfArticles) {
+            this.idMap = new PackedIdMap(numberOfArticles);
+            this.index = index;
+            this.idIndex = getColumnIndex(columnNames, "lt_id");
+            this.namespaceIndex = getColumnIndex(columnNames, "lt_namespace");
+            this.titleIndex = getColumnIndex(columnNames, "lt_title");
+        }
+
+        @Override
+        public void onRow(SqlDumpReader.SqlRow row) {
+            if (row.getInt(namespaceIndex) != ARTICLE_NAMESPACE) {
+                return;
+            }
+
+            int id = index.getLinkTargetId(
+                    encodeWikipediaStyle(row.getString(titleIndex)));
+
+            if (id >= 0) {
+                idMap.put(row.getLong(idIndex), id);
+            }
+        }
+    }
+
+    /**
+     * Turns the link rows into links between the article IDs.
+     */
+    private static final class PageLinkHandler
+    implements SqlDumpReader.RowHandler {
+
+        private final LinkCollector collector;
+        private final ArticleIndex index;
+        private final PackedIdMap pageIdMap;
+        private final PackedIdMap linkTargetIdMap;
+        private final int fromIndex;
+        private final int fromNamespaceIndex;
+        private final int namespaceIndex;
+        private final int titleIndex;
+        private final int targetIdIndex;
+
+        PageLinkHandler(List<String> columnNames,
+                        LinkCollector collector,
+                        ArticleIndex index,
+                        PackedIdMap pageIdMap,
+                        PackedIdMap linkTargetIdMap) {
+            this.collector = collector;
+            this.index = index;
+            this.pageIdMap = pageIdMap;
+            this.linkTargetIdMap = linkTargetIdMap;
+            this.fromIndex = getColumnIndex(columnNames, "pl_from");
+            this.fromNamespaceIndex = columnNames.indexOf("pl_from_namespace");
+            this.targetIdIndex = columnNames.indexOf("pl_target_id");
+
+            if (targetIdIndex >= 0) {
+                if (linkTargetIdMap == null) {
+                    throw new IllegalStateException(
+                            "The link dump refers to the link targets by " +
+                            "ID, but there is no " + LINK_TARGET_DUMP + ".");
+                }
+
+                this.namespaceIndex = -1;
+                this.titleIndex = -1;
+            } else {
+                this.namespaceIndex = getColumnIndex(columnNames,
+                                                     "pl_namespace");
+                this.titleIndex = getColumnIndex(columnNames, "pl_title");
+            }
+        }
+
+        @Override
+        public void onRow(SqlDumpReader.SqlRow row) {
+            if (fromNamespaceIndex >= 0 &&
+                    row.getInt(fromNamespaceIndex) != ARTICLE_NAMESPACE) {
+                return;
+            }
+
+            int source = pageIdMap.get(row.getInt(fromIndex));
+
+            if (source < 0) {
+                return;
+            }
+
+            int target;
+
+            if (targetIdIndex >= 0) {
+                target = linkTargetIdMap.get(row.getLong(targetIdIndex));
+            } else if (row.getInt(namespaceIndex) == ARTICLE_NAMESPACE) {
+                target = index.getLinkTargetId(
+                        encodeWikipediaStyle(row.getString(titleIndex)));
+            } else {
+                return;
+            }
+
+            if (target >= 0) {
+                collector.addLink(source, target);
+            }
+        }
+    }
+}
@@ -0,0 +1,475 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class builds a graph file out of more links than fit in the heap.
+ * The links are packed into longs, {@code source << 32 | target}, collected
+ * into buffers of {@code runSize} links, and each full buffer is sorted and
+ * spilled to a temporary file as a run, the duplicates and the self-loops
+ * dropped. Building the graph then takes three phases:
+ * <ol>
+ *   <li>the forward runs are merged; the merged links are the forward
+ *       adjacency and are written to a temporary file, and each link is
+ *       collected reversed into the runs of the reverse links;</li>
+ *   <li>the reverse runs are merged into the reverse adjacency;</li>
+ *   <li>the graph file is written out of the two adjacency files.</li>
+ * </ol>
+ * At most {@value #MERGE_FAN_IN} runs are merged at a time; before a phase
+ * merges more runs than that, the runs are merged in groups into longer runs.
+ * The heap holds two integers per article for the degrees and a buffer of
+ * {@code runSize} links per collector.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+final class ExternalLinkGraphBuilder implements Closeable {
+
+    /**
+     * The default number of links per run: 128 megabytes of buffer.
+     */
+    static final int DEFAULT_RUN_SIZE = 1 << 24;
+
+    /**
+     * The maximum number of runs merged at a time, each holding a file open.
+     */
+    static final int MERGE_FAN_IN = 64;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final long TARGET_MASK = 0xffffffffL;
+
+    private final File temporaryDirectory;
+    private final int runSize;
+    private final List<Run> forwardRuns = new ArrayList<>();
+    private final List<RunBuffer> buffers = new ArrayList<>();
+    private final List<File> temporaryFiles = new ArrayList<>();
+    private final AtomicLong spillDuration = new AtomicLong();
+
+    private long forwardMergeDuration;
+    private long backwardMergeDuration;
+    private long writeDuration;
+
+    /**
+     * Constructs a builder spilling the runs of {@code runSize} links to
+     * {@code temporaryDirectory}.
+     *
+     * @param temporaryDirectory the directory of the temporary files, or
+     *                           {@code null} for the default one.
+     * @param runSize            the number of links per run.
+     */
+    ExternalLinkGraphBuilder(File temporaryDirectory, int runSize) {
+        if (runSize < 1) {
+            throw new IllegalArgumentException(
+                    "The run size must be positive: " + runSize + ".");
+        }
+
+        this.temporaryDirectory = temporaryDirectory;
+        this.runSize = runSize;
+    }
+
+    /**
+     * Returns a new link collector spilling to this builder. Each thread
+     * adding links needs a collector of its own.
+     *
+     * @return a new link collector.
+     */
+    synchronized LinkCollector newCollector() {
+        RunBuffer buffer = new RunBuffer();
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    /**
+     * Builds the graph of the articles titled in {@code titles} out of the
+     * collected links and writes it to {@code file}. The collectors must not
+     * be used any more.
+     *
+     * @param titles the titles of the articles.
+     * @param file   the graph file to write.
+     * @throws IOException if a temporary file or the graph file fails.
+     */
+    void build(TitleDictionary titles, File file) throws IOException {
+        for (RunBuffer buffer : buffers) {
+            buffer.spill(forwardRuns);
+        }
+
+        int numberOfArticles = titles.size();
+        int[] forwardDegrees = new int[numberOfArticles];
+        int[] backwardDegrees = new int[numberOfArticles];
+
+        // Phase 1: merge the forward runs and spill the reverse links.
+        long startTime = System.currentTimeMillis();
+        File forwardFile = newTemporaryFile(".fwd");
+        List<Run> backwardRuns = new ArrayList<>();
+        RunBuffer reverseBuffer = new RunBuffer();
+        long numberOfLinks = 0L;
+        reduceRuns(forwardRuns);
+
+        try (RunMerger merger = new RunMerger(forwardRuns);
+             DataOutputStream out = newOutputStream(forwardFile)) {
+            long previous = -1L;
+
+            while (merger.hasNext()) {
+                long link = merger.next();
+
+                if (link == previous) {
+                    continue;
+                }
+
+                previous = link;
+                int source = (int) (link >>> 32);
+                int target = (int) (link & TARGET_MASK);
+                out.writeInt(target);
+                ++forwardDegrees[source];
+                ++numberOfLinks;
+                reverseBuffer.add(target, source, backwardRuns);
+            }
+        }
+
+        reverseBuffer.spill(backwardRuns);
+        deleteRuns(forwardRuns);
+        this.forwardMergeDuration = System.currentTimeMillis() - startTime;
+
+        if (numberOfLinks > Integer.MAX_VALUE) {
+            throw new IllegalStateException(
+                    "Too many links: " + numberOfLinks + ".");
+        }
+
+        // Phase 2: merge the reverse runs.
+        startTime = System.currentTimeMillis();
+        File backwardFile = newTemporaryFile(".bwd");
+        reduceRuns(backwardRuns);
+
+        try (RunMerger merger = new RunMerger(backwardRuns);
+             DataOutputStream out = newOutputStream(backwardFile)) {
+            while (merger.hasNext()) {
+                long link = merger.next();
+                out.writeInt((int) (link & TARGET_MASK));
+                ++backwardDegrees[(int) (link >>> 32)];
+            }
+        }
+
+        deleteRuns(backwardRuns);
+        this.backwardMergeDuration = System.currentTimeMillis() - startTime;
+
+        // Phase 3: write the graph file.
+        startTime = System.currentTimeMillis();
+
+        try (DataOutputStream out = newOutputStream(file)) {
+            out.writeInt(LinkGraphFile.MAGIC);
+            out.writeInt(LinkGraphFile.VERSION);
+            out.writeInt(numberOfArticles);
+            out.writeInt((int) numberOfLinks);
+            writeOffsets(out, forwardDegrees);
+            copy(forwardFile, out);
+            writeOffsets(out, backwardDegrees);
+            copy(backwardFile, out);
+            LinkGraphFile.writeRelabeling(out, null, null);
+            out.writeInt(titles.getSizeInBytes());
+            titles.write(out);
+        }
+
+        delete(forwardFile);
+        delete(backwardFile);
+        this.writeDuration = System.currentTimeMillis() - startTime;
+    }
+
+    /**
+     * Returns the total time the collectors spent sorting and spilling the
+     * runs, in milliseconds. The collectors spill in parallel, so the sum
+     * may exceed the time elapsed.
+     *
+     * @return the duration in milliseconds.
+     */
+    long getSpillDuration() {
+        return spillDuration.get();
+    }
+
+    /**
+     * Returns the duration of merging the forward runs, in milliseconds.
+     *
+     * @return the duration in milliseconds.
+     */
+    long getForwardMergeDuration() {
+        return forwardMergeDuration;
+    }
+
+    /**
+     * Returns the duration of merging the reverse runs, in milliseconds.
+     *
+     * @return the duration in milliseconds.
+     */
+    long getBackwardMergeDuration() {
+        return backwardMergeDuration;
+    }
+
+    /**
+     * Returns the duration of writing the graph file, in milliseconds.
+     *
+     * @return the duration in milliseconds.
+     */
+    long getWriteDuration() {
+        return writeDuration;
+    }
+
+    /**
+     * Deletes the temporary files left.
+     */
+    @Override
+    public synchronized void close() {
+        for (File file : temporaryFiles) {
+            file.delete();
+        }
+
+        temporaryFiles.clear();
+    }
+
+    /**
+     * Merges the oldest runs into longer ones until at most
+     * {@link #MERGE_FAN_IN} runs are left.
+     */
+    private void reduceRuns(List<Run> runs) throws IOException {
+        while (runs.size() > MERGE_FAN_IN) {
+            List<Run> group = new ArrayList<>(runs.subList(0, MERGE_FAN_IN));
+            runs.subList(0, MERGE_FAN_IN).clear();
+            File file = newTemporaryFile(".run");
+            long runLength = 0L;
+
+            try (RunMerger merger = new RunMerger(group);
+                 DataOutputStream out = newOutputStream(file)) {
+                long previous = -1L;
+
+                while (merger.hasNext()) {
+                    long link = merger.next();
+
+                    if (link != previous) {
+                        out.writeLong(link);
+                        previous = link;
+                        ++runLength;
+                    }
+                }
+            }
+
+            deleteRuns(group);
+            runs.add(new Run(file, runLength));
+        }
+    }
+
+    private synchronized File newTemporaryFile(String suffix)
+    throws IOException {
+        File file = File.createTempFile("links-", suffix, temporaryDirectory);
+        temporaryFiles.add(file);
+        return file;
+    }
+
+    private synchronized void delete(File file) {
+        file.delete();
+        temporaryFiles.remove(file);
+    }
+
+    private void deleteRuns(List<Run> runs) {
+        for (Run run : runs) {
+            delete(run.file);
+        }
+
+        runs.clear();
+    }
+
+    private static DataOutputStream newOutputStream(File file)
+    throws IOException {
+        return new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file),
+                                         BUFFER_SIZE));
+    }
+
+    private static void writeOffsets(DataOutputStream out, int[] degrees)
+    throws IOException {
+        int offset = 0;
+        out.writeInt(offset);
+
+        for (int degree : degrees) {
+            offset += degree;
+            out.writeInt(offset);
+        }
+    }
+
+    private static void copy(File file, DataOutputStream out)
+    throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        try (InputStream in = new FileInputStream(file)) {
+            int bytesRead;
+
+            while ((bytesRead = in.read(buffer)) != -1) {
+                out.write(buffer, 0, bytesRead);
+            }
+        }
+    }
+
+    /**
+     * A sorted run of packed links in a temporary file.
+     */
+    private static final class Run {
+
+        final File file;
+        final long size;
+
+        Run(File file, long size) {
+            this.file = file;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Collects the links into a buffer spilled as a run when full.
+     */
+    private final class RunBuffer implements LinkCollector {
+
+        private long[] links = new long[Math.min(runSize, 1024)];
+        private int size;
+
+        @Override
+        public void addLink(int source, int target) {
+            if (source == target) {
+                return;
+            }
+
+            try {
+                add(source, target, forwardRuns);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        void add(int source, int target, List<Run> runs) throws IOException {
+            if (size == links.length) {
+                if (size == runSize) {
+                    spill(runs);
+                } else {
+                    links = Arrays.copyOf(links,
+                                          (int) Math.min(2L * size, runSize));
+                }
+            }
+
+            links[size++] = ((long) source << 32) | target;
+        }
+
+        void spill(List<Run> runs) throws IOException {
+            if (size == 0) {
+                return;
+            }
+
+            long startTime = System.currentTimeMillis();
+            Arrays.sort(links, 0, size);
+            File file = newTemporaryFile(".run");
+            long runLength = 0L;
+
+            try (DataOutputStream out = newOutputStream(file)) {
+                for (int i = 0; i < size; ++i) {
+                    if (i == 0 || links[i] != links[i - 1]) {
+                        out.writeLong(links[i]);
+                        ++runLength;
+                    }
+                }
+            }
+
+            synchronized (runs) {
+                runs.add(new Run(file, runLength));
+            }
+
+            size = 0;
+            spillDuration.addAndGet(System.currentTimeMillis() - startTime);
+        }
+    }
+
+    /**
+     * Merges the sorted runs into a single sorted sequence.
+     */
+    private static final class RunMerger implements Closeable {
+
+        private final PriorityQueue<RunReader> queue;
+        private final List<RunReader> readers = new ArrayList<>();
+
+        RunMerger(List<Run> runs) throws IOException {
+            this.queue = new PriorityQueue<>(
+                    Math.max(1, runs.size()),
+                    (a, b) -> Long.compare(a.current, b.current));
+
+            try {
+                for (Run run : runs) {
+                    RunReader reader = new RunReader(run);
+                    readers.add(reader);
+
+                    if (reader.advance()) {
+                        queue.add(reader);
+                    }
+                }
+            } catch (IOException ex) {
+                close();
+                throw ex;
+            }
+        }
+
+        boolean hasNext() {
+            return !queue.isEmpty();
+        }
+
+        long next() throws IOException {
+            RunReader reader = queue.poll();
+            long link = reader.current;
+
+            if (reader.advance()) {
+                queue.add(reader);
+            }
+
+            return link;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (RunReader reader : readers) {
+                reader.in.close();
+            }
+        }
+    }
+
+    private static final class RunReader {
+
+        final DataInputStream in;
+        long remaining;
+        long current;
+
+        RunReader(Run run) throws IOException {
+            this.in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(run.file),
+                                            BUFFER_SIZE));
+            this.remaining = run.size;
+        }
+
+        boolean advance() throws IOException {
+            if (remaining == 0L) {
+                return false;
+            }
+
+            current = in.readLong();
+            --remaining;
+            return true;
+        }
+    }
+}
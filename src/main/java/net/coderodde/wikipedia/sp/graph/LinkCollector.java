@@ -0,0 +1,22 @@
+package net.coderodde.wikipedia.sp.graph;
+
+/**
+ * This interface defines the API for collecting the links of a graph being
+ * built. A collector is used by a single thread.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+interface LinkCollector {
+
+    /**
+     * Adds the link from the article {@code source} to the article
+     * {@code target}.
+     *
+     * @param source the ID of the linking article.
+     * @param target the ID of the linked article.
+     * @throws java.io.UncheckedIOException if the collector fails to store
+     *                                      the link.
+     */
+    void addLink(int source, int target);
+}
@@ -0,0 +1,97 @@
+package net.coderodde.wikipedia.sp.graph;
+
+/**
+ * This interface defines the API of the local article link graphs. The
+ * articles are identified by the integers {@code 0, 1, ..., n - 1}, and the
+ * neighbors are visited through reusable iterators so that a search does not
+ * allocate per node.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public interface LinkGraph {
+
+    /**
+     * This interface defines the API of the iterators over the neighbors of
+     * an article. An iterator is reset to an article before each use and is
+     * not thread-safe.
+     */
+    interface NeighborIterator {
+
+        /**
+         * Positions this iterator before the first neighbor of the article
+         * {@code id}.
+         *
+         * @param id the ID of the article.
+         */
+        void reset(int id);
+
+        /**
+         * Returns {@code true} if there are more neighbors.
+         *
+         * @return {@code true} if there are more neighbors.
+         */
+        boolean hasNext();
+
+        /**
+         * Returns the next neighbor.
+         *
+         * @return the ID of the next neighbor.
+         */
+        int next();
+    }
+
+    /**
+     * Returns the number of articles in this graph.
+     *
+     * @return the number of articles.
+     */
+    int getNumberOfArticles();
+
+    /**
+     * Returns the number of links in this graph.
+     *
+     * @return the number of links.
+     */
+    long getNumberOfLinks();
+
+    /**
+     * Returns the title of the article {@code id}.
+     *
+     * @param id the ID of the article.
+     * @return the title of the article.
+     */
+    String getTitle(int id);
+
+    /**
+     * Returns the ID of the article titled {@code title}. The title is
+     * normalized as
+     * {@link net.coderodde.wikipedia.sp.Miscellanea#encodeWikipediaStyle(String)}
+     * does, so the titles of the article URLs are accepted as such.
+     *
+     * @param title the title of the article.
+     * @return the ID of the article, or {@code -1} if there is no such
+     *         article.
+     */
+    int getId(String title);
+
+    /**
+     * Returns the number of the children of the article {@code id} if
+     * {@code forward} is {@code true}, and the number of its parents
+     * otherwise.
+     *
+     * @param id      the ID of the article.
+     * @param forward the direction of the links.
+     * @return the number of the neighbors.
+     */
+    int getDegree(int id, boolean forward);
+
+    /**
+     * Returns a new iterator over the children of the articles if
+     * {@code forward} is {@code true}, and over their parents otherwise.
+     *
+     * @param forward the direction of the links.
+     * @return a new neighbor iterator.
+     */
+    NeighborIterator newNeighborIterator(boolean forward);
+}
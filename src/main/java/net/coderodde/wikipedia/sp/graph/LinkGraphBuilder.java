@@ -0,0 +1,150 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class collects the links of an article graph and builds the
+ * compressed sparse row form of the graph out of them. The duplicate links
+ * and the self-loops are dropped. A builder is not thread-safe; concurrent
+ * producers should use a builder each and build the graph out of all of
+ * them.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+final class LinkGraphBuilder implements LinkCollector {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int[] sources = new int[INITIAL_CAPACITY];
+    private int[] targets = new int[INITIAL_CAPACITY];
+    private int size;
+
+    @Override
+    public void addLink(int source, int target) {
+        if (size == sources.length) {
+            int capacity = 2 * sources.length;
+            sources = Arrays.copyOf(sources, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+        }
+
+        sources[size] = source;
+        targets[size] = target;
+        ++size;
+    }
+
+    /**
+     * Returns the number of links added, the duplicates included.
+     *
+     * @return the number of links added.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Builds the graph out of the links of this builder.
+     *
+     * @param titles the encoded titles of the articles in the order of
+     *               {@link TitleDictionary#TITLE_ORDER}.
+     * @return the graph.
+     */
+    LinkGraphFile build(String[] titles) {
+        return build(titles, Collections.singletonList(this));
+    }
+
+    /**
+     * Builds the graph out of the links of all {@code builders}.
+     *
+     * @param titles   the encoded titles of the articles in the order of
+     *                 {@link TitleDictionary#TITLE_ORDER}.
+     * @param builders the builders holding the links.
+     * @return the graph.
+     */
+    static LinkGraphFile build(String[] titles,
+                               List<LinkGraphBuilder> builders) {
+        int numberOfArticles = titles.length;
+        int[] forwardOffsets = new int[numberOfArticles + 1];
+        long totalSize = 0L;
+
+        for (LinkGraphBuilder builder : builders) {
+            totalSize += builder.size;
+
+            for (int i = 0; i < builder.size; ++i) {
+                ++forwardOffsets[builder.sources[i] + 1];
+            }
+        }
+
+        if (totalSize > Integer.MAX_VALUE) {
+            throw new IllegalStateException(
+                    "Too many links: " + totalSize + ".");
+        }
+
+        for (int id = 0; id < numberOfArticles; ++id) {
+            forwardOffsets[id + 1] += forwardOffsets[id];
+        }
+
+        // Bucket the targets by the source:
+        int[] forwardTargets = new int[(int) totalSize];
+        int[] positions = Arrays.copyOf(forwardOffsets, numberOfArticles);
+
+        for (LinkGraphBuilder builder : builders) {
+            for (int i = 0; i < builder.size; ++i) {
+                forwardTargets[positions[builder.sources[i]]++] =
+                        builder.targets[i];
+            }
+        }
+
+        // Sort each row and squeeze out the duplicates and the self-loops:
+        int numberOfLinks = 0;
+        int rowStart = 0;
+
+        for (int id = 0; id < numberOfArticles; ++id) {
+            int rowEnd = forwardOffsets[id + 1];
+            Arrays.sort(forwardTargets, rowStart, rowEnd);
+            forwardOffsets[id] = numberOfLinks;
+
+            for (int i = rowStart; i < rowEnd; ++i) {
+                int target = forwardTargets[i];
+
+                if (target != id && (i == rowStart ||
+                                     target != forwardTargets[i - 1])) {
+                    forwardTargets[numberOfLinks++] = target;
+                }
+            }
+
+            rowStart = rowEnd;
+        }
+
+        forwardOffsets[numberOfArticles] = numberOfLinks;
+        forwardTargets = Arrays.copyOf(forwardTargets, numberOfLinks);
+
+        // Transpose; the sources come out in ascending order per row:
+        int[] backwardOffsets = new int[numberOfArticles + 1];
+
+        for (int target : forwardTargets) {
+            ++backwardOffsets[target + 1];
+        }
+
+        for (int id = 0; id < numberOfArticles; ++id) {
+            backwardOffsets[id + 1] += backwardOffsets[id];
+        }
+
+        int[] backwardTargets = new int[numberOfLinks];
+        positions = Arrays.copyOf(backwardOffsets, numberOfArticles);
+
+        for (int id = 0; id < numberOfArticles; ++id) {
+            for (int i = forwardOffsets[id]; i < forwardOffsets[id + 1]; ++i) {
+                backwardTargets[positions[forwardTargets[i]]++] = id;
+            }
+        }
+
+        return new LinkGraphFile(TitleDictionary.build(titles),
+                                 forwardOffsets,
+                                 forwardTargets,
+                                 backwardOffsets,
+                                 backwardTargets);
+    }
+}
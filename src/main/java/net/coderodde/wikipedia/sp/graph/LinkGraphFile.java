@@ -0,0 +1,309 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * This class holds an article link graph in the form stored in a graph file.
+ * The articles are identified by the integers {@code 0, 1, ..., n - 1}, by
+ * default in the order of their titles in a {@link TitleDictionary}; a graph
+ * relabeled by {@link GraphReorderer} maps its IDs to the title IDs and back
+ * with a stored permutation. Both the forward and the reverse adjacency are
+ * in the compressed sparse row form:
+ * the neighbors of the article {@code id} are at the indices
+ * {@code offsets[id], ..., offsets[id + 1] - 1} of the target array, in
+ * ascending order.
+ * <p>
+ * The file is laid out as follows, with all the integers big-endian:
+ * <pre>
+ *   int    magic number "WKLG"
+ *   int    format version
+ *   int    number of articles n
+ *   int    number of links m
+ *   int    forward offsets, n + 1 of them
+ *   int    forward targets, m of them
+ *   int    reverse offsets, n + 1 of them
+ *   int    reverse targets, m of them
+ *   int    1 if the graph is relabeled, 0 otherwise
+ *   int    if relabeled, the title ID of each article, n of them
+ *   int    if relabeled, the article ID of each title, n of them
+ *   int    byte count of the title dictionary
+ *   byte   the title dictionary
+ * </pre>
+ * Every section is at a fixed or computable position, so the file can be used
+ * through a memory mapping as well; see {@link MappedLinkGraph}. The version
+ * 3 files, which lack the relabeling section, are still read. The earlier
+ * versions stored the titles unencoded and in another order, so they are not
+ * read; such files are to be rebuilt with {@link DumpIngester}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public final class LinkGraphFile {
+
+    /**
+     * The magic number opening a graph file.
+     */
+    static final int MAGIC = 0x574B4C47;
+
+    /**
+     * The version of the format.
+     */
+    static final int VERSION = 4;
+
+    /**
+     * The version without the relabeling section.
+     */
+    static final int UNLABELED_VERSION = 3;
+
+    /**
+     * The size of the file header in bytes.
+     */
+    static final int HEADER_SIZE = 16;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The titles of the articles.
+     */
+    final TitleDictionary titles;
+
+    final int[] forwardOffsets;
+    final int[] forwardTargets;
+    final int[] backwardOffsets;
+    final int[] backwardTargets;
+
+    /**
+     * The title ID of each article, or {@code null} if the article IDs are
+     * the title IDs.
+     */
+    final int[] titleIds;
+
+    /**
+     * The article ID of each title, or {@code null} if the article IDs are
+     * the title IDs.
+     */
+    final int[] articleIds;
+
+    LinkGraphFile(TitleDictionary titles,
+                  int[] forwardOffsets,
+                  int[] forwardTargets,
+                  int[] backwardOffsets,
+                  int[] backwardTargets) {
+        this(titles,
+             forwardOffsets,
+             forwardTargets,
+             backwardOffsets,
+             backwardTargets,
+             null,
+             null);
+    }
+
+    LinkGraphFile(TitleDictionary titles,
+                  int[] forwardOffsets,
+                  int[] forwardTargets,
+                  int[] backwardOffsets,
+                  int[] backwardTargets,
+                  int[] titleIds,
+                  int[] articleIds) {
+        this.titles = Objects.requireNonNull(titles);
+        this.forwardOffsets = Objects.requireNonNull(forwardOffsets);
+        this.forwardTargets = Objects.requireNonNull(forwardTargets);
+        this.backwardOffsets = Objects.requireNonNull(backwardOffsets);
+        this.backwardTargets = Objects.requireNonNull(backwardTargets);
+        this.titleIds = titleIds;
+        this.articleIds = articleIds;
+    }
+
+    /**
+     * Returns the number of articles in this graph.
+     *
+     * @return the number of articles.
+     */
+    public int getNumberOfArticles() {
+        return titles.size();
+    }
+
+    /**
+     * Returns the number of links in this graph.
+     *
+     * @return the number of links.
+     */
+    public int getNumberOfLinks() {
+        return forwardTargets.length;
+    }
+
+    /**
+     * Returns the title of the article {@code id}.
+     *
+     * @param id the ID of the article.
+     * @return the title of the article.
+     */
+    public String getTitle(int id) {
+        return titles.getTitle(titleIds == null ? id : titleIds[id]);
+    }
+
+    /**
+     * Returns the ID of the article titled {@code title}.
+     *
+     * @param title the title of the article.
+     * @return the ID of the article, or {@code -1} if there is no such
+     *         article.
+     * @see LinkGraph#getId(String)
+     */
+    public int getId(String title) {
+        int titleId = titles.getId(title);
+        return titleId < 0 || articleIds == null ? 
+               titleId : 
+               articleIds[titleId];
+    }
+
+    /**
+     * Returns {@code true} if the articles of this graph have been relabeled.
+     *
+     * @return {@code true} if the graph is relabeled.
+     */
+    public boolean isRelabeled() {
+        return titleIds != null;
+    }
+
+    /**
+     * Returns the title dictionary of this graph.
+     *
+     * @return the title dictionary.
+     */
+    public TitleDictionary getTitleDictionary() {
+        return titles;
+    }
+
+    /**
+     * Reads the graph file {@code file}.
+     *
+     * @param file the graph file.
+     * @return the graph.
+     * @throws IOException if reading fails or the file is not a graph file.
+     */
+    public static LinkGraphFile read(File file) throws IOException {
+        try (DataInputStream in =
+                new DataInputStream(
+                        new BufferedInputStream(new FileInputStream(file),
+                                                BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(
+                        "\"" + file + "\" is not a link graph file.");
+            }
+
+            int version = in.readInt();
+
+            if (version != VERSION && version != UNLABELED_VERSION) {
+                throw new IOException(
+                        "Unsupported link graph file version " + version +
+                        "; rebuild the file from the dumps.");
+            }
+
+            int numberOfArticles = in.readInt();
+            int numberOfLinks = in.readInt();
+            int[] forwardOffsets = readInts(in, numberOfArticles + 1);
+            int[] forwardTargets = readInts(in, numberOfLinks);
+            int[] backwardOffsets = readInts(in, numberOfArticles + 1);
+            int[] backwardTargets = readInts(in, numberOfLinks);
+            int[] titleIds = null;
+            int[] articleIds = null;
+
+            if (version == VERSION && in.readInt() != 0) {
+                titleIds = readInts(in, numberOfArticles);
+                articleIds = readInts(in, numberOfArticles);
+            }
+
+            byte[] dictionary = new byte[in.readInt()];
+            in.readFully(dictionary);
+            TitleDictionary titles;
+
+            try {
+                titles = new TitleDictionary(ByteBuffer.wrap(dictionary));
+            } catch (IllegalArgumentException ex) {
+                throw new IOException(ex.getMessage(), ex);
+            }
+
+            if (titles.size() != numberOfArticles) {
+                throw new IOException(
+                        "The title dictionary of \"" + file + "\" does " +
+                        "not match the graph.");
+            }
+
+            return new LinkGraphFile(titles,
+                                     forwardOffsets,
+                                     forwardTargets,
+                                     backwardOffsets,
+                                     backwardTargets,
+                                     titleIds,
+                                     articleIds);
+        }
+    }
+
+    /**
+     * Writes this graph to {@code file}.
+     *
+     * @param file the file to write.
+     * @throws IOException if writing fails.
+     */
+    public void write(File file) throws IOException {
+        try (DataOutputStream out =
+                new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(file),
+                                                 BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(titles.size());
+            out.writeInt(forwardTargets.length);
+            writeInts(out, forwardOffsets);
+            writeInts(out, forwardTargets);
+            writeInts(out, backwardOffsets);
+            writeInts(out, backwardTargets);
+            writeRelabeling(out, titleIds, articleIds);
+            out.writeInt(titles.getSizeInBytes());
+            titles.write(out);
+        }
+    }
+
+    /**
+     * Writes the relabeling section of a graph file.
+     */
+    static void writeRelabeling(DataOutputStream out,
+                                int[] titleIds,
+                                int[] articleIds) throws IOException {
+        if (titleIds == null) {
+            out.writeInt(0);
+        } else {
+            out.writeInt(1);
+            writeInts(out, titleIds);
+            writeInts(out, articleIds);
+        }
+    }
+
+    static int[] readInts(DataInputStream in, int length)
+    throws IOException {
+        int[] array = new int[length];
+
+        for (int i = 0; i < length; ++i) {
+            array[i] = in.readInt();
+        }
+
+        return array;
+    }
+
+    static void writeInts(DataOutputStream out, int[] array)
+    throws IOException {
+        for (int value : array) {
+            out.writeInt(value);
+        }
+    }
+}
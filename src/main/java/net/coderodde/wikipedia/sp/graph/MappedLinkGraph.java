@@ -0,0 +1,254 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class implements a link graph read straight from a memory mapping of
+ * a graph file in the format of {@link LinkGraphFile}. Opening the graph
+ * maps the file without reading it, so the startup takes constant time, and
+ * the pages are loaded on demand into the page cache of the operating
+ * system, which is shared by all the processes mapping the same file.
+ * <p>
+ * A single mapping cannot exceed two gigabytes, so the adjacency is mapped as
+ * a sequence of segments of {@code 2^k} bytes. The integer sections start at
+ * multiples of four, hence no integer straddles two segments. The title
+ * dictionary is mapped on its own and read in place.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public final class MappedLinkGraph implements LinkGraph, Closeable {
+
+    /**
+     * The base-2 logarithm of the default segment size: one gigabyte.
+     */
+    static final int DEFAULT_SEGMENT_SHIFT = 30;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final int segmentShift;
+    private final long segmentMask;
+
+    private final int numberOfArticles;
+    private final int numberOfLinks;
+
+    private final long forwardOffsetsPosition;
+    private final long forwardTargetsPosition;
+    private final long backwardOffsetsPosition;
+    private final long backwardTargetsPosition;
+    private final TitleDictionary titles;
+
+    /**
+     * The position of the title IDs of the articles, or {@code -1} if the
+     * graph is not relabeled.
+     */
+    private final long titleIdsPosition;
+
+    /**
+     * The position of the article IDs of the titles, or {@code -1} if the
+     * graph is not relabeled.
+     */
+    private final long articleIdsPosition;
+
+    /**
+     * Maps the graph file {@code file}.
+     *
+     * @param file the graph file.
+     * @throws IOException if mapping fails or the file is not a graph file of
+     *                     the current version.
+     */
+    public MappedLinkGraph(File file) throws IOException {
+        this(file, DEFAULT_SEGMENT_SHIFT);
+    }
+
+    MappedLinkGraph(File file, int segmentShift) throws IOException {
+        this.channel = FileChannel.open(file.toPath(),
+                                        StandardOpenOption.READ);
+
+        try {
+            long size = channel.size();
+            long segmentSize = 1L << segmentShift;
+            int numberOfSegments = (int) ((size + segmentSize - 1) /
+                                          segmentSize);
+            this.segmentShift = segmentShift;
+            this.segmentMask = segmentSize - 1;
+            this.segments = new MappedByteBuffer[numberOfSegments];
+
+            for (int i = 0; i < numberOfSegments; ++i) {
+                long start = i * segmentSize;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                                          start,
+                                          Math.min(segmentSize, size - start));
+            }
+
+            if (size < LinkGraphFile.HEADER_SIZE ||
+                    getInt(0L) != LinkGraphFile.MAGIC) {
+                throw new IOException(
+                        "\"" + file + "\" is not a link graph file.");
+            }
+
+            int version = getInt(4L);
+
+            if (version != LinkGraphFile.VERSION &&
+                    version != LinkGraphFile.UNLABELED_VERSION) {
+                throw new IOException(
+                        "Cannot map the link graph file version " + version +
+                        "; version " + LinkGraphFile.VERSION +
+                        " is required.");
+            }
+
+            this.numberOfArticles = getInt(8L);
+            this.numberOfLinks = getInt(12L);
+            long offsetsSize = 4L * (numberOfArticles + 1);
+            long targetsSize = 4L * numberOfLinks;
+            this.forwardOffsetsPosition = LinkGraphFile.HEADER_SIZE;
+            this.forwardTargetsPosition = forwardOffsetsPosition + offsetsSize;
+            this.backwardOffsetsPosition = forwardTargetsPosition + targetsSize;
+            this.backwardTargetsPosition = backwardOffsetsPosition +
+                                           offsetsSize;
+            long dictionaryPosition = backwardTargetsPosition + targetsSize;
+            long relabelingPosition = dictionaryPosition;
+
+            if (version == LinkGraphFile.VERSION) {
+                if (relabelingPosition + 4L > size) {
+                    throw new IOException(
+                            "The link graph file \"" + file + 
+                            "\" is truncated.");
+                }
+
+                boolean relabeled = getInt(relabelingPosition) != 0;
+                dictionaryPosition += relabeled ? 
+                                      4L + 8L * numberOfArticles :
+                                      4L;
+                this.titleIdsPosition = relabeled ? 
+                                        relabelingPosition + 4L : 
+                                        -1L;
+            } else {
+                this.titleIdsPosition = -1L;
+            }
+
+            this.articleIdsPosition = titleIdsPosition < 0L ? 
+                                      -1L : 
+                                      titleIdsPosition + 4L * numberOfArticles;
+
+            if (dictionaryPosition + 4L > size ||
+                    dictionaryPosition + 4L + getInt(dictionaryPosition) !=
+                    size) {
+                throw new IOException(
+                        "The link graph file \"" + file + "\" is truncated.");
+            }
+
+            try {
+                this.titles = new TitleDictionary(
+                        channel.map(FileChannel.MapMode.READ_ONLY,
+                                    dictionaryPosition + 4L,
+                                    size - dictionaryPosition - 4L));
+            } catch (IllegalArgumentException ex) {
+                throw new IOException(ex.getMessage(), ex);
+            }
+
+            if (titles.size() != numberOfArticles) {
+                throw new IOException(
+                        "The title dictionary of \"" + file + "\" does " +
+                        "not match the graph.");
+            }
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public int getNumberOfArticles() {
+        return numberOfArticles;
+    }
+
+    @Override
+    public long getNumberOfLinks() {
+        return numberOfLinks;
+    }
+
+    @Override
+    public String getTitle(int id) {
+        return titles.getTitle(titleIdsPosition < 0L ? 
+                               id : 
+                               getInt(titleIdsPosition + 4L * id));
+    }
+
+    @Override
+    public int getId(String title) {
+        int titleId = titles.getId(title);
+        return titleId < 0 || articleIdsPosition < 0L ? 
+               titleId : 
+               getInt(articleIdsPosition + 4L * titleId);
+    }
+
+    @Override
+    public int getDegree(int id, boolean forward) {
+        long position = (forward ? forwardOffsetsPosition :
+                                   backwardOffsetsPosition) + 4L * id;
+        return getInt(position + 4L) - getInt(position);
+    }
+
+    @Override
+    public NeighborIterator newNeighborIterator(boolean forward) {
+        return forward ?
+               new MappedNeighborIterator(forwardOffsetsPosition,
+                                          forwardTargetsPosition) :
+               new MappedNeighborIterator(backwardOffsetsPosition,
+                                          backwardTargetsPosition);
+    }
+
+    /**
+     * Closes the file. The mappings stay valid until they are garbage
+     * collected.
+     *
+     * @throws IOException if closing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int getInt(long position) {
+        return segments[(int) (position >>> segmentShift)]
+                .getInt((int) (position & segmentMask));
+    }
+
+    private final class MappedNeighborIterator implements NeighborIterator {
+
+        private final long offsetsPosition;
+        private final long targetsPosition;
+        private long position;
+        private long end;
+
+        MappedNeighborIterator(long offsetsPosition, long targetsPosition) {
+            this.offsetsPosition = offsetsPosition;
+            this.targetsPosition = targetsPosition;
+        }
+
+        @Override
+        public void reset(int id) {
+            long offsetPosition = offsetsPosition + 4L * id;
+            position = targetsPosition + 4L * getInt(offsetPosition);
+            end = targetsPosition + 4L * getInt(offsetPosition + 4L);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < end;
+        }
+
+        @Override
+        public int next() {
+            int target = getInt(position);
+            position += 4L;
+            return target;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.util.Arrays;
+
+/**
+ * This class maps non-negative {@code long} keys, such as page IDs, to
+ * article IDs. Each entry is a single {@code long} holding the key in its
+ * high bits and the value in as many low bits as the largest value needs,
+ * so that an entry takes 8 bytes where a {@code HashMap<Long, Integer>} 
+ * takes some 80. The entries are sorted by {@link #sort()} once all are put
+ * and then searched by binary search; a sorted map may be read by many 
+ * threads at a time.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+final class PackedIdMap {
+
+    /**
+     * The number of low bits holding the value.
+     */
+    private final int valueBits;
+
+    private long[] entries = new long[16];
+    private int size;
+
+    /**
+     * Constructs an empty map.
+     *
+     * @param valueBound the bound on the values, exclusive.
+     */
+    PackedIdMap(int valueBound) {
+        this.valueBits = Math.max(1,
+                                  32 - Integer.numberOfLeadingZeros(
+                                          Math.max(valueBound - 1, 0)));
+    }
+
+    /**
+     * Puts an entry.
+     *
+     * @param key   the key.
+     * @param value the value, below the value bound.
+     * @throws IllegalArgumentException if the key does not fit beside the
+     *                                  value.
+     */
+    void put(long key, int value) {
+        if (key < 0L || key >= 1L << (63 - valueBits)) {
+            throw new IllegalArgumentException(
+                    "The key " + key + " does not fit in " +
+                    (63 - valueBits) + " bits.");
+        }
+
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, 2 * size);
+        }
+
+        entries[size++] = key << valueBits | value;
+    }
+
+    /**
+     * Puts all the entries of {@code other}, constructed with the same value
+     * bound.
+     *
+     * @param other the map to copy.
+     */
+    void putAll(PackedIdMap other) {
+        if (other.valueBits != valueBits) {
+            throw new IllegalArgumentException(
+                    "The maps have different value bounds.");
+        }
+
+        if (entries.length < size + other.size) {
+            entries = Arrays.copyOf(entries, size + other.size);
+        }
+
+        System.arraycopy(other.entries, 0, entries, size, other.size);
+        size += other.size;
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the number of entries.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Sorts the entries so that they can be got, and trims the array to them.
+     */
+    void sort() {
+        entries = Arrays.copyOf(entries, size);
+        Arrays.sort(entries);
+    }
+
+    /**
+     * Returns the value of {@code key}, or -1 if there is none. The map must
+     * be sorted since the last entry was put.
+     *
+     * @param key the key.
+     * @return the value or -1.
+     */
+    int get(long key) {
+        int low = 0;
+        int high = size - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleKey = entries[middle] >>> valueBits;
+
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                return (int)(entries[middle] & ((1L << valueBits) - 1L));
+            }
+        }
+
+        return -1;
+    }
+}
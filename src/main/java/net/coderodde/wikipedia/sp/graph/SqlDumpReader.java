@@ -0,0 +1,600 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * This class reads the rows of a gzipped MySQL dump of a MediaWiki table,
+ * such as {@code page.sql.gz}. A dump consists of a {@code CREATE TABLE}
+ * statement followed by long {@code INSERT INTO ... VALUES (...),(...);}
+ * lines. The calling thread decompresses the dump and splits it into lines,
+ * and the {@code INSERT} lines are parsed by a pool of workers, each of which
+ * reports the rows to a row handler of its own. The column names are taken
+ * from the {@code CREATE TABLE} statement.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+final class SqlDumpReader {
+
+    /**
+     * Receives the rows parsed by a single worker.
+     */
+    interface RowHandler {
+
+        /**
+         * Handles a row. The row is valid only during this call.
+         *
+         * @param row the row.
+         */
+        void onRow(SqlRow row);
+    }
+
+    /**
+     * Creates a row handler for each worker.
+     *
+     * @param <H> the type of the row handlers.
+     */
+    interface RowHandlerFactory<H extends RowHandler> {
+
+        /**
+         * Creates a row handler.
+         *
+         * @param columnNames the column names of the table in order.
+         * @return a row handler.
+         */
+        H create(List<String> columnNames);
+    }
+
+    private static final byte[] INSERT_PREFIX =
+            "INSERT INTO ".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] CREATE_TABLE_PREFIX =
+            "CREATE TABLE ".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The number of lines waiting for the workers per worker.
+     */
+    private static final int QUEUE_CAPACITY_PER_WORKER = 2;
+
+    /**
+     * Tells the workers that there are no more lines.
+     */
+    private static final byte[] END_OF_DUMP = new byte[0];
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The number of workers parsing the lines.
+     */
+    private final int numberOfWorkers;
+
+    SqlDumpReader(int numberOfWorkers) {
+        this.numberOfWorkers = Math.max(1, numberOfWorkers);
+    }
+
+    /**
+     * Reads the gzipped dump {@code file}.
+     *
+     * @param <H>            the type of the row handlers.
+     * @param file           the dump file.
+     * @param handlerFactory the factory creating a row handler for each
+     *                       worker.
+     * @return the row handlers of the workers.
+     * @throws IOException if reading fails or the dump is malformed.
+     */
+    <H extends RowHandler> List<H> read(File file,
+                                        RowHandlerFactory<H> handlerFactory)
+    throws IOException {
+        try (InputStream in =
+                new GZIPInputStream(new FileInputStream(file), BUFFER_SIZE)) {
+            return read(in, handlerFactory);
+        }
+    }
+
+    /**
+     * Reads an uncompressed dump from {@code in}.
+     *
+     * @param <H>            the type of the row handlers.
+     * @param in             the dump.
+     * @param handlerFactory the factory creating a row handler for each
+     *                       worker.
+     * @return the row handlers of the workers.
+     * @throws IOException if reading fails or the dump is malformed.
+     */
+    <H extends RowHandler> List<H> read(InputStream in,
+                                        RowHandlerFactory<H> handlerFactory)
+    throws IOException {
+        LineReader lineReader = new LineReader(in);
+        List<String> columnNames = new ArrayList<>();
+        byte[] line = lineReader.readLine();
+
+        // The table definition precedes the data:
+        while (line != null && !startsWith(line, INSERT_PREFIX)) {
+            if (startsWith(line, CREATE_TABLE_PREFIX)) {
+                readColumnNames(lineReader, columnNames);
+            }
+
+            line = lineReader.readLine();
+        }
+
+        List<String> unmodifiableColumnNames =
+                Collections.unmodifiableList(columnNames);
+        List<H> handlers = new ArrayList<>(numberOfWorkers);
+
+        for (int i = 0; i < numberOfWorkers; ++i) {
+            handlers.add(handlerFactory.create(unmodifiableColumnNames));
+        }
+
+        BlockingQueue<byte[]> lineQueue =
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY_PER_WORKER *
+                                         numberOfWorkers);
+        ExecutorService executor = Executors.newFixedThreadPool(
+                numberOfWorkers,
+                (runnable) -> {
+                    Thread thread = new Thread(runnable, "sql-dump-reader");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        List<Future<?>> futures = new ArrayList<>(numberOfWorkers);
+
+        for (H handler : handlers) {
+            futures.add(executor.submit(() -> {
+                SqlRow row = new SqlRow();
+
+                while (true) {
+                    byte[] insertLine = lineQueue.take();
+
+                    if (insertLine == END_OF_DUMP) {
+                        return null;
+                    }
+
+                    parseInsert(insertLine, row, handler);
+                }
+            }));
+        }
+
+        try {
+            while (line != null) {
+                if (startsWith(line, INSERT_PREFIX)) {
+                    putLine(lineQueue, line, futures);
+                }
+
+                line = lineReader.readLine();
+            }
+
+            for (int i = 0; i < numberOfWorkers; ++i) {
+                putLine(lineQueue, END_OF_DUMP, futures);
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading the dump.", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+
+            throw new IOException(cause.getMessage(), cause);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return handlers;
+    }
+
+    /**
+     * Puts {@code line} to {@code lineQueue}, giving up if a worker has
+     * failed so that the reader does not block on a full queue forever.
+     */
+    private static void putLine(BlockingQueue<byte[]> lineQueue,
+                                byte[] line,
+                                List<Future<?>> futures)
+    throws InterruptedException, ExecutionException {
+        while (!lineQueue.offer(line,
+                                100L,
+                                TimeUnit.MILLISECONDS)) {
+            for (Future<?> future : futures) {
+                if (future.isDone()) {
+                    // Rethrows the failure of the worker:
+                    future.get();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the column names from the lines of a {@code CREATE TABLE}
+     * statement, which look like {@code   `page_id` int(8) unsigned ...}.
+     */
+    private static void readColumnNames(LineReader lineReader,
+                                        List<String> columnNames)
+    throws IOException {
+        columnNames.clear();
+        byte[] line;
+
+        while ((line = lineReader.readLine()) != null) {
+            int start = 0;
+
+            while (start < line.length && line[start] == ' ') {
+                ++start;
+            }
+
+            if (start == line.length || line[start] != '`') {
+                // A key definition or the end of the statement.
+                return;
+            }
+
+            int end = start + 1;
+
+            while (end < line.length && line[end] != '`') {
+                ++end;
+            }
+
+            columnNames.add(new String(line,
+                                       start + 1,
+                                       end - start - 1,
+                                       StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Parses the tuples of an {@code INSERT} statement and reports them to
+     * {@code handler}.
+     */
+    static void parseInsert(byte[] line, SqlRow row, RowHandler handler)
+    throws IOException {
+        int i = indexOf(line, (byte) '(', 0);
+
+        while (i >= 0 && i < line.length && line[i] == '(') {
+            i = row.parse(line, i);
+            handler.onRow(row);
+
+            if (i < line.length && line[i] == ',') {
+                ++i;
+            }
+        }
+    }
+
+    private static int indexOf(byte[] line, byte b, int from) {
+        for (int i = from; i < line.length; ++i) {
+            if (line[i] == b) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean startsWith(byte[] line, byte[] prefix) {
+        if (line.length < prefix.length) {
+            return false;
+        }
+
+        for (int i = 0; i < prefix.length; ++i) {
+            if (line[i] != prefix[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * This class splits a stream into lines. The {@code INSERT} lines of the
+     * dumps are about a megabyte long, so the lines are cut out of a buffer
+     * instead of being collected byte by byte.
+     */
+    private static final class LineReader {
+
+        private final InputStream in;
+        private byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+        private int limit;
+
+        LineReader(InputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * Reads a line without its terminator, or returns {@code null} at 
+         * the end of the stream.
+         */
+        byte[] readLine() throws IOException {
+            // The number of the pending bytes known to hold no terminator:
+            int scanned = 0;
+
+            while (true) {
+                for (int i = position + scanned; i < limit; ++i) {
+                    if (buffer[i] == '\n') {
+                        byte[] line = Arrays.copyOfRange(buffer, position, i);
+                        position = i + 1;
+                        return line;
+                    }
+                }
+
+                scanned = limit - position;
+
+                if (!fill()) {
+                    if (position == limit) {
+                        return null;
+                    }
+
+                    byte[] line = Arrays.copyOfRange(buffer, position, limit);
+                    position = limit;
+                    return line;
+                }
+            }
+        }
+
+        private boolean fill() throws IOException {
+            int pending = limit - position;
+
+            if (pending == buffer.length) {
+                buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+            } else if (position > 0) {
+                System.arraycopy(buffer, position, buffer, 0, pending);
+            }
+
+            position = 0;
+            limit = pending;
+            int read = in.read(buffer, limit, buffer.length - limit);
+
+            if (read == -1) {
+                return false;
+            }
+
+            limit += read;
+            return true;
+        }
+    }
+
+    /**
+     * This class is a view of a single tuple of an {@code INSERT} statement.
+     * The values are decoded on demand.
+     */
+    static final class SqlRow {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private byte[] line;
+        private int[] starts = new int[INITIAL_CAPACITY];
+        private int[] ends = new int[INITIAL_CAPACITY];
+        private boolean[] quoted = new boolean[INITIAL_CAPACITY];
+        private int columnCount;
+        private byte[] decodeBuffer = new byte[256];
+
+        /**
+         * Returns the number of values in this row.
+         *
+         * @return the number of values.
+         */
+        int getColumnCount() {
+            return columnCount;
+        }
+
+        /**
+         * Returns the value of the column at {@code index} as a
+         * {@code long}.
+         *
+         * @param index the column index.
+         * @return the value.
+         * @throws NumberFormatException if the value is not an integer.
+         */
+        long getLong(int index) {
+            checkIndex(index);
+            int i = starts[index];
+            int end = ends[index];
+            boolean negative = i < end && line[i] == '-';
+
+            if (negative) {
+                ++i;
+            }
+
+            if (i == end || quoted[index]) {
+                throw new NumberFormatException(
+                        "Not an integer: " + getString(index));
+            }
+
+            long value = 0L;
+
+            for (; i < end; ++i) {
+                int digit = line[i] - '0';
+
+                if (digit < 0 || digit > 9) {
+                    throw new NumberFormatException(
+                            "Not an integer: " + getString(index));
+                }
+
+                value = 10 * value + digit;
+            }
+
+            return negative ? -value : value;
+        }
+
+        /**
+         * Returns the value of the column at {@code index} as an
+         * {@code int}.
+         *
+         * @param index the column index.
+         * @return the value.
+         * @throws NumberFormatException if the value is not an integer.
+         */
+        int getInt(int index) {
+            return (int) getLong(index);
+        }
+
+        /**
+         * Returns the value of the column at {@code index} with the escapes
+         * of a quoted string undone, or {@code null} for {@code NULL}.
+         *
+         * @param index the column index.
+         * @return the value.
+         */
+        String getString(int index) {
+            checkIndex(index);
+            int start = starts[index];
+            int end = ends[index];
+
+            if (!quoted[index]) {
+                String text = new String(line,
+                                         start,
+                                         end - start,
+                                         StandardCharsets.UTF_8);
+                return "NULL".equals(text) ? null : text;
+            }
+
+            if (decodeBuffer.length < end - start) {
+                decodeBuffer = new byte[2 * (end - start)];
+            }
+
+            int length = 0;
+
+            for (int i = start; i < end; ++i) {
+                byte b = line[i];
+
+                if (b == '\\' && i + 1 < end) {
+                    b = unescape(line[++i]);
+                }
+
+                decodeBuffer[length++] = b;
+            }
+
+            return new String(decodeBuffer, 0, length, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Parses the tuple starting at the opening parenthesis at
+         * {@code position} of {@code line}.
+         *
+         * @return the position after the closing parenthesis.
+         */
+        int parse(byte[] line, int position) throws IOException {
+            this.line = line;
+            this.columnCount = 0;
+            int i = position + 1;
+
+            while (true) {
+                if (i >= line.length) {
+                    throw new IOException("Unterminated tuple in the dump.");
+                }
+
+                ensureCapacity();
+
+                if (line[i] == '\'') {
+                    int start = ++i;
+
+                    while (i < line.length && line[i] != '\'') {
+                        i += line[i] == '\\' ? 2 : 1;
+                    }
+
+                    if (i >= line.length) {
+                        throw new IOException(
+                                "Unterminated string in the dump.");
+                    }
+
+                    addValue(start, i, true);
+                    ++i;
+                } else {
+                    int start = i;
+
+                    while (i < line.length &&
+                            line[i] != ',' &&
+                            line[i] != ')') {
+                        ++i;
+                    }
+
+                    addValue(start, i, false);
+                }
+
+                if (i >= line.length) {
+                    throw new IOException("Unterminated tuple in the dump.");
+                }
+
+                if (line[i] == ')') {
+                    return i + 1;
+                }
+
+                if (line[i] != ',') {
+                    throw new IOException(
+                            "Unexpected character '" + (char) line[i] +
+                            "' in a tuple of the dump.");
+                }
+
+                ++i;
+            }
+        }
+
+        private void addValue(int start, int end, boolean isQuoted) {
+            starts[columnCount] = start;
+            ends[columnCount] = end;
+            quoted[columnCount] = isQuoted;
+            ++columnCount;
+        }
+
+        private void ensureCapacity() {
+            if (columnCount == starts.length) {
+                int capacity = 2 * starts.length;
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                quoted = Arrays.copyOf(quoted, capacity);
+            }
+        }
+
+        private void checkIndex(int index) {
+            if (index < 0 || index >= columnCount) {
+                throw new IndexOutOfBoundsException(
+                        "Column " + index + " of a row with " + columnCount +
+                        " columns.");
+            }
+        }
+
+        private static byte unescape(byte b) {
+            switch (b) {
+                case 'n':
+                    return '\n';
+
+                case 'r':
+                    return '\r';
+
+                case 't':
+                    return '\t';
+
+                case '0':
+                    return 0;
+
+                case 'Z':
+                    return 26;
+
+                default:
+                    // \\, \' and \" stand for themselves.
+                    return b;
+            }
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import static net.coderodde.wikipedia.sp.Miscellanea.encodeWikipediaStyle;
+
+/**
+ * This class implements a sorted dictionary of article titles stored with
+ * front coding. The titles are split into blocks of {@code k} titles; the
+ * first title of a block is stored in full, and each of the others as the
+ * length of the prefix it shares with its predecessor followed by the rest
+ * of its bytes. A title is found by a binary search over the first titles of
+ * the blocks followed by a scan of a single block, and decoded by scanning at
+ * most {@code k} titles, so both directions are fast without a
+ * {@code String} per title.
+ * <p>
+ * The titles are kept in the form
+ * {@link net.coderodde.wikipedia.sp.Miscellanea#encodeWikipediaStyle(String)}
+ * produces and ordered by their UTF-8 bytes, which is the order of
+ * {@link #TITLE_ORDER}; the lookups encode the title asked for the same way.
+ * The dictionary is laid out as follows, with the integers big-endian:
+ * <pre>
+ *   int    number of titles n
+ *   int    block size k
+ *   int    number of blocks b
+ *   int    block offsets relative to the block data, b of them
+ *   byte   block data
+ * </pre>
+ * where each length in the block data is an unsigned LEB128 variable-length
+ * integer. The dictionary reads the layout from a byte buffer, which may wrap
+ * an array or map a file.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public final class TitleDictionary {
+
+    /**
+     * Orders the titles by their code points, which agrees with the order of
+     * their UTF-8 bytes.
+     */
+    public static final Comparator<String> TITLE_ORDER =
+            TitleDictionary::compareTitles;
+
+    /**
+     * The default number of titles per block.
+     */
+    static final int DEFAULT_BLOCK_SIZE = 16;
+
+    private static final int HEADER_SIZE = 12;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int blockSize;
+    private final int numberOfBlocks;
+    private final int dataPosition;
+
+    /**
+     * Constructs a dictionary reading the layout from {@code buffer}, which
+     * starts at index zero.
+     *
+     * @param buffer the buffer holding the dictionary.
+     * @throws IllegalArgumentException if the layout is malformed.
+     */
+    TitleDictionary(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.size = buffer.getInt(0);
+        this.blockSize = buffer.getInt(4);
+        this.numberOfBlocks = buffer.getInt(8);
+        this.dataPosition = HEADER_SIZE + 4 * numberOfBlocks;
+
+        if (size < 0 || blockSize < 1 ||
+                numberOfBlocks != (size + blockSize - 1) / blockSize ||
+                dataPosition > buffer.limit()) {
+            throw new IllegalArgumentException(
+                    "Malformed title dictionary.");
+        }
+    }
+
+    /**
+     * Builds a dictionary of {@code titles} with the default block size.
+     *
+     * @param titles the encoded titles in the order of {@link #TITLE_ORDER}.
+     * @return the dictionary.
+     */
+    public static TitleDictionary build(String[] titles) {
+        return build(titles, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Builds a dictionary of {@code titles} with {@code blockSize} titles per
+     * block.
+     *
+     * @param titles    the encoded titles in the order of
+     *                  {@link #TITLE_ORDER}.
+     * @param blockSize the number of titles per block.
+     * @return the dictionary.
+     * @throws IllegalArgumentException if the titles are not in ascending
+     *                                  order or contain duplicates.
+     */
+    public static TitleDictionary build(String[] titles, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException(
+                    "The block size must be positive: " + blockSize + ".");
+        }
+
+        int numberOfBlocks = (titles.length + blockSize - 1) / blockSize;
+        int[] blockOffsets = new int[numberOfBlocks];
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        byte[] previous = new byte[0];
+
+        for (int i = 0; i < titles.length; ++i) {
+            byte[] bytes = titles[i].getBytes(StandardCharsets.UTF_8);
+
+            if (i > 0 && compareBytes(previous, bytes) >= 0) {
+                throw new IllegalArgumentException(
+                        "The titles are not in ascending order at \"" +
+                        titles[i] + "\".");
+            }
+
+            if (i % blockSize == 0) {
+                blockOffsets[i / blockSize] = data.size();
+                writeVarint(data, bytes.length);
+                data.write(bytes, 0, bytes.length);
+            } else {
+                int shared = 0;
+                int limit = Math.min(previous.length, bytes.length);
+
+                while (shared < limit && previous[shared] == bytes[shared]) {
+                    ++shared;
+                }
+
+                writeVarint(data, shared);
+                writeVarint(data, bytes.length - shared);
+                data.write(bytes, shared, bytes.length - shared);
+            }
+
+            previous = bytes;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE +
+                                                4 * numberOfBlocks +
+                                                data.size());
+        buffer.putInt(titles.length)
+              .putInt(blockSize)
+              .putInt(numberOfBlocks);
+
+        for (int blockOffset : blockOffsets) {
+            buffer.putInt(blockOffset);
+        }
+
+        buffer.put(data.toByteArray());
+        buffer.clear();
+        return new TitleDictionary(buffer);
+    }
+
+    /**
+     * Returns the number of titles in this dictionary.
+     *
+     * @return the number of titles.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes this dictionary takes.
+     *
+     * @return the size in bytes.
+     */
+    public int getSizeInBytes() {
+        return buffer.limit();
+    }
+
+    /**
+     * Returns the title {@code id}.
+     *
+     * @param id the ID of the title.
+     * @return the title.
+     * @throws IndexOutOfBoundsException if there is no such title.
+     */
+    public String getTitle(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException(
+                    "Title " + id + " of " + size + ".");
+        }
+
+        Cursor cursor = new Cursor(id / blockSize);
+
+        for (int i = id % blockSize; i >= 0; --i) {
+            cursor.next();
+        }
+
+        return new String(cursor.title, 0, cursor.length,
+                          StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the ID of {@code title}, which is encoded first as
+     * {@link net.coderodde.wikipedia.sp.Miscellanea#encodeWikipediaStyle(String)}
+     * does.
+     *
+     * @param title the title.
+     * @return the ID of the title, or {@code -1} if there is no such title.
+     */
+    public int getId(String title) {
+        byte[] key = encodeWikipediaStyle(title)
+                .getBytes(StandardCharsets.UTF_8);
+
+        // Find the last block whose first title is not after the key:
+        int low = 0;
+        int high = numberOfBlocks - 1;
+        int block = -1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int cmp = compareFirstTitle(middle, key);
+
+            if (cmp < 0) {
+                block = middle;
+                low = middle + 1;
+            } else if (cmp > 0) {
+                high = middle - 1;
+            } else {
+                return middle * blockSize;
+            }
+        }
+
+        if (block < 0) {
+            return -1;
+        }
+
+        Cursor cursor = new Cursor(block);
+        int end = Math.min(size, (block + 1) * blockSize);
+
+        for (int id = block * blockSize; id < end; ++id) {
+            cursor.next();
+            int cmp = compareBytes(cursor.title, cursor.length,
+                                   key, key.length);
+
+            if (cmp == 0) {
+                return id;
+            }
+
+            if (cmp > 0) {
+                break;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Writes the layout of this dictionary to {@code out}.
+     *
+     * @param out the stream to write to.
+     * @throws IOException if writing fails.
+     */
+    void write(OutputStream out) throws IOException {
+        byte[] chunk = new byte[8192];
+        ByteBuffer view = buffer.duplicate();
+        view.clear();
+
+        while (view.hasRemaining()) {
+            int length = Math.min(chunk.length, view.remaining());
+            view.get(chunk, 0, length);
+            out.write(chunk, 0, length);
+        }
+    }
+
+    /**
+     * Compares two titles by their code points.
+     *
+     * @param a the first title.
+     * @param b the second title.
+     * @return a negative integer, zero, or a positive integer as {@code a}
+     *         comes before, is equal to, or comes after {@code b}.
+     */
+    static int compareTitles(String a, String b) {
+        int i = 0;
+        int j = 0;
+
+        while (i < a.length() && j < b.length()) {
+            int codePointA = a.codePointAt(i);
+            int codePointB = b.codePointAt(j);
+
+            if (codePointA != codePointB) {
+                return Integer.compare(codePointA, codePointB);
+            }
+
+            i += Character.charCount(codePointA);
+            j += Character.charCount(codePointB);
+        }
+
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    private int compareFirstTitle(int block, byte[] key) {
+        int position = dataPosition + buffer.getInt(HEADER_SIZE + 4 * block);
+        int length = 0;
+        int shift = 0;
+        byte b;
+
+        do {
+            b = buffer.get(position++);
+            length |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+
+        int limit = Math.min(length, key.length);
+
+        for (int i = 0; i < limit; ++i) {
+            int cmp = (buffer.get(position + i) & 0xff) - (key[i] & 0xff);
+
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+
+        return length - key.length;
+    }
+
+    private static int compareBytes(byte[] a, byte[] b) {
+        return compareBytes(a, a.length, b, b.length);
+    }
+
+    private static int compareBytes(byte[] a, int lengthA,
+                                    byte[] b, int lengthB) {
+        int limit = Math.min(lengthA, lengthB);
+
+        for (int i = 0; i < limit; ++i) {
+            int cmp = (a[i] & 0xff) - (b[i] & 0xff);
+
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+
+        return lengthA - lengthB;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+
+        out.write(value);
+    }
+
+    /**
+     * Decodes the titles of a block one by one.
+     */
+    private final class Cursor {
+
+        byte[] title = new byte[64];
+        int length;
+        private int position;
+        private boolean first = true;
+
+        Cursor(int block) {
+            this.position = dataPosition +
+                            buffer.getInt(HEADER_SIZE + 4 * block);
+        }
+
+        void next() {
+            int shared = first ? 0 : readVarint();
+            int suffixLength = readVarint();
+            first = false;
+            length = shared + suffixLength;
+
+            if (title.length < length) {
+                title = Arrays.copyOf(title, Math.max(length,
+                                                      2 * title.length));
+            }
+
+            for (int i = 0; i < suffixLength; ++i) {
+                title[shared + i] = buffer.get(position++);
+            }
+        }
+
+        private int readVarint() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+
+            do {
+                b = buffer.get(position++);
+                value |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            return value;
+        }
+    }
+}
@@ -0,0 +1,492 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import static net.coderodde.wikipedia.sp.Miscellanea.encodeWikipediaStyle;
+
+/**
+ * This class builds an article link graph out of a MediaWiki XML dump, such
+ * as {@code enwiki-20240601-pages-articles.xml.bz2}, for the mirrors that
+ * lack the SQL link tables read by {@link DumpIngester}. The graph file is
+ * the same, so the offline searches work on it alike.
+ * <p>
+ * The dump is read twice. The first pass collects the titles of the articles
+ * and the redirects; the second one pulls the {@code [[...]]} links out of the
+ * wikitext of the articles and resolves them against the titles and the
+ * redirects, as {@link DumpIngester} resolves the link rows. A link target is
+ * normalized as MediaWiki normalizes it: the fragment is cut, the underscores
+ * and the runs of whitespace become single spaces, and the first letter is
+ * upper-cased if the wiki does so. The links into the other namespaces, to
+ * the missing pages and from the redirects are dropped. The links coming
+ * from templates are not seen, since the templates are not expanded.
+ * <p>
+ * The wikitext is parsed by a pool of workers, and the links are sorted in
+ * runs spilled next to the graph file by an {@link ExternalLinkGraphBuilder}.
+ * Through the link pass the heap holds the titles of the articles and of the
+ * redirects in sorted arrays, a run per worker and the degrees of the
+ * articles, however many links the dump has.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public final class XmlDumpIngester {
+
+    /**
+     * The namespace of the articles.
+     */
+    private static final int ARTICLE_NAMESPACE = 0;
+
+    /**
+     * The number of workers parsing the pages.
+     */
+    private final int numberOfThreads;
+
+    /**
+     * The number of links per spilled run.
+     */
+    private final int runSize;
+
+    private volatile long numberOfPages;
+    private volatile long titleDuration;
+    private volatile long linkDuration;
+    private volatile long spillDuration;
+    private volatile long buildDuration;
+    private volatile long writeDuration;
+
+    /**
+     * Constructs an ingester spilling runs of the default size.
+     *
+     * @param numberOfThreads the number of workers parsing the pages.
+     */
+    public XmlDumpIngester(int numberOfThreads) {
+        this(numberOfThreads, ExternalLinkGraphBuilder.DEFAULT_RUN_SIZE);
+    }
+
+    /**
+     * Constructs an ingester.
+     *
+     * @param numberOfThreads the number of workers parsing the pages.
+     * @param runSize         the number of links per spilled run; each worker
+     *                        buffers a run.
+     */
+    public XmlDumpIngester(int numberOfThreads, int runSize) {
+        if (runSize < 1) {
+            throw new IllegalArgumentException(
+                    "The run size must be positive: " + runSize + ".");
+        }
+
+        this.numberOfThreads = Math.max(1, numberOfThreads);
+        this.runSize = runSize;
+    }
+
+    /**
+     * Returns the number of pages in the dump of the last ingestion.
+     *
+     * @return the number of pages.
+     */
+    public long getNumberOfPages() {
+        return numberOfPages;
+    }
+
+    /**
+     * Returns the time spent on the pass collecting the titles in the last
+     * ingestion, in milliseconds.
+     *
+     * @return the duration in milliseconds.
+     */
+    public long getTitleDuration() {
+        return titleDuration;
+    }
+
+    /**
+     * Returns the time spent on the pass collecting the links in the last
+     * ingestion, in milliseconds.
+     *
+     * @return the duration in milliseconds.
+     */
+    public long getLinkDuration() {
+        return linkDuration;
+    }
+
+    /**
+     * Returns the time the workers spent sorting and spilling the runs in the
+     * last ingestion, in milliseconds, summed over the workers. The time is
+     * part of the link pass.
+     *
+     * @return the duration in milliseconds.
+     */
+    public long getSpillDuration() {
+        return spillDuration;
+    }
+
+    /**
+     * Returns the time spent merging the runs in the last ingestion, in
+     * milliseconds.
+     *
+     * @return the duration in milliseconds.
+     */
+    public long getBuildDuration() {
+        return buildDuration;
+    }
+
+    /**
+     * Returns the time spent writing the graph file in the last ingestion, in
+     * milliseconds.
+     *
+     * @return the duration in milliseconds.
+     */
+    public long getWriteDuration() {
+        return writeDuration;
+    }
+
+    /**
+     * Builds the link graph out of the XML dump {@code dumpFile} and writes it
+     * to {@code file}. The dump may be compressed with bzip2 or gzip, as told
+     * by its extension.
+     *
+     * @param dumpFile the dump.
+     * @param file     the graph file to write.
+     * @throws IOException if the dump cannot be read or is malformed, or if
+     *                     writing a file fails.
+     */
+    public void ingest(File dumpFile, File file) throws IOException {
+        XmlDumpReader reader = new XmlDumpReader(numberOfThreads);
+
+        long startTime = System.currentTimeMillis();
+        ArticleIndex index = readTitles(reader, dumpFile);
+        this.titleDuration = System.currentTimeMillis() - startTime;
+
+        Set<String> namespaceNames = new HashSet<>();
+
+        for (String name : reader.getNamespaceMap().keySet()) {
+            namespaceNames.add(name.toLowerCase(Locale.ROOT));
+        }
+
+        boolean firstLetterCase = reader.isFirstLetterCase();
+
+        try (ExternalLinkGraphBuilder builder =
+                new ExternalLinkGraphBuilder(
+                        file.getAbsoluteFile().getParentFile(),
+                        runSize)) {
+            startTime = System.currentTimeMillis();
+            reader.read(dumpFile,
+                        true,
+                        () -> new LinkHandler(builder.newCollector(),
+                                              index,
+                                              namespaceNames,
+                                              firstLetterCase));
+            this.numberOfPages = reader.getNumberOfPages();
+            this.linkDuration = System.currentTimeMillis() - startTime;
+
+            builder.build(TitleDictionary.build(index.getTitles()), file);
+            this.spillDuration = builder.getSpillDuration();
+            this.buildDuration = builder.getForwardMergeDuration() +
+                                 builder.getBackwardMergeDuration();
+            this.writeDuration = builder.getWriteDuration();
+        }
+    }
+
+    /**
+     * Runs the pass collecting the titles. The maps of the handlers are
+     * dropped on return, so that only the index stays in the heap for the
+     * link pass.
+     */
+    private static ArticleIndex readTitles(XmlDumpReader reader,
+                                           File dumpFile)
+    throws IOException {
+        List<TitleHandler> titleHandlers =
+                reader.read(dumpFile, false, TitleHandler::new);
+        List<String> titleList = new ArrayList<>();
+        Map<String, String> redirectMap = new HashMap<>();
+
+        for (TitleHandler handler : titleHandlers) {
+            titleList.addAll(handler.articleTitles);
+            redirectMap.putAll(handler.redirectMap);
+        }
+
+        // Number the articles in the order of their titles:
+        return new ArticleIndex(titleList.toArray(new String[0]), 
+                                redirectMap);
+    }
+
+    /**
+     * Builds a graph file out of an XML dump.
+     *
+     * @param args the dump file, the output file and optionally the number of
+     *             workers and the number of links per spilled run.
+     */
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 4) {
+            System.out.println(
+                    "Usage: java -cp ... " + XmlDumpIngester.class.getName() +
+                    " DUMP_FILE OUTPUT_FILE [THREADS [RUN_SIZE]]");
+            return;
+        }
+
+        int numberOfThreads = Runtime.getRuntime().availableProcessors();
+        int runSize = ExternalLinkGraphBuilder.DEFAULT_RUN_SIZE;
+
+        try {
+            if (args.length >= 3) {
+                numberOfThreads = parseInt(args[2]);
+            }
+
+            if (args.length == 4) {
+                runSize = parseInt(args[3]);
+            }
+        } catch (NumberFormatException ex) {
+            System.err.println("ERROR: " + ex.getMessage());
+            System.exit(1);
+        }
+
+        try {
+            XmlDumpIngester ingester = new XmlDumpIngester(numberOfThreads,
+                                                           runSize);
+            File file = new File(args[1]);
+            ingester.ingest(new File(args[0]), file);
+            long pages = ingester.getNumberOfPages();
+
+            try (MappedLinkGraph graph = new MappedLinkGraph(file)) {
+                System.out.println("Articles:        " +
+                                   graph.getNumberOfArticles());
+                System.out.println("Links:           " +
+                                   graph.getNumberOfLinks());
+            }
+
+            System.out.println("Pages:           " + pages);
+            System.out.println("Title pass:      " +
+                               ingester.getTitleDuration() + " ms, " +
+                               getPagesPerSecond(
+                                       pages,
+                                       ingester.getTitleDuration()) +
+                               " pages/s.");
+            System.out.println("Link pass:       " +
+                               ingester.getLinkDuration() + " ms, " +
+                               getPagesPerSecond(
+                                       pages,
+                                       ingester.getLinkDuration()) +
+                               " pages/s.");
+            System.out.println("  Spilling runs: " +
+                               ingester.getSpillDuration() + " ms.");
+            System.out.println("Adjacency:       " +
+                               ingester.getBuildDuration() + " ms.");
+            System.out.println("Writing:         " +
+                               ingester.getWriteDuration() + " ms.");
+        } catch (IOException ex) {
+            System.err.println("[I/O ERROR] " + ex.getMessage());
+            System.exit(1);
+        } catch (IllegalArgumentException | IllegalStateException ex) {
+            System.err.println("ERROR: " + ex.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static long getPagesPerSecond(long pages, long duration) {
+        return 1000L * pages / Math.max(1L, duration);
+    }
+
+    private static int parseInt(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException ex) {
+            throw new NumberFormatException(
+                    "\"" + text + "\" is not an integer.");
+        }
+    }
+
+    /**
+     * Normalizes the link target {@code text.substring(start, end)} and
+     * returns it encoded as the titles of the graph, or returns {@code null}
+     * if the target is not in the main namespace or is empty.
+     *
+     * @param namespaceNames  the lower-case names of the other namespaces.
+     * @param firstLetterCase whether to upper-case the first letter.
+     */
+    static String toLinkTitle(String text,
+                              int start,
+                              int end,
+                              Set<String> namespaceNames,
+                              boolean firstLetterCase) {
+        if (start < end && text.charAt(start) == ':') {
+            ++start;
+        }
+
+        int fragmentIndex = text.indexOf('#', start);
+
+        if (fragmentIndex >= 0 && fragmentIndex < end) {
+            end = fragmentIndex;
+        }
+
+        // Turn the underscores and the runs of whitespace into single spaces:
+        StringBuilder sb = new StringBuilder(end - start);
+        boolean space = false;
+
+        for (int i = start; i < end; ++i) {
+            char c = text.charAt(i);
+
+            if (c == '_' || Character.isWhitespace(c)) {
+                space = sb.length() > 0;
+            } else {
+                if (space) {
+                    sb.append(' ');
+                    space = false;
+                }
+
+                sb.append(c);
+            }
+        }
+
+        if (sb.length() == 0) {
+            return null;
+        }
+
+        int colonIndex = sb.indexOf(":");
+
+        if (colonIndex >= 0) {
+            String prefix = sb.substring(0, colonIndex).trim();
+
+            if (namespaceNames.contains(prefix.toLowerCase(Locale.ROOT))) {
+                return null;
+            }
+        }
+
+        if (firstLetterCase) {
+            int codePoint = sb.codePointAt(0);
+            int upperCodePoint = Character.toUpperCase(codePoint);
+
+            if (upperCodePoint != codePoint) {
+                sb.replace(0,
+                           Character.charCount(codePoint),
+                           new String(Character.toChars(upperCodePoint)));
+            }
+        }
+
+        return encodeWikipediaStyle(sb.toString());
+    }
+
+    /**
+     * Collects the articles and the redirects in namespace 0.
+     */
+    private static final class TitleHandler
+    implements XmlDumpReader.PageHandler {
+
+        final List<String> articleTitles = new ArrayList<>();
+        final Map<String, String> redirectMap = new HashMap<>();
+
+        @Override
+        public void onPage(XmlDumpReader.Page page) {
+            if (page.namespace != ARTICLE_NAMESPACE) {
+                return;
+            }
+
+            String title = encodeWikipediaStyle(page.title);
+
+            if (page.redirectTitle != null) {
+                redirectMap.put(title,
+                                encodeWikipediaStyle(page.redirectTitle));
+            } else {
+                articleTitles.add(title);
+            }
+        }
+    }
+
+    /**
+     * Pulls the links out of the wikitext of the articles.
+     */
+    private static final class LinkHandler
+    implements XmlDumpReader.PageHandler {
+
+        private final LinkCollector collector;
+        private final ArticleIndex articleIndex;
+        private final Set<String> namespaceNames;
+        private final boolean firstLetterCase;
+
+        LinkHandler(LinkCollector collector,
+                    ArticleIndex articleIndex,
+                    Set<String> namespaceNames,
+                    boolean firstLetterCase) {
+            this.collector = collector;
+            this.articleIndex = articleIndex;
+            this.namespaceNames = namespaceNames;
+            this.firstLetterCase = firstLetterCase;
+        }
+
+        @Override
+        public void onPage(XmlDumpReader.Page page) {
+            if (page.namespace != ARTICLE_NAMESPACE ||
+                    page.redirectTitle != null ||
+                    page.text == null) {
+                return;
+            }
+
+            int source =
+                    articleIndex.getArticleId(encodeWikipediaStyle(page.title));
+
+            if (source < 0) {
+                return;
+            }
+
+            String text = page.text;
+            int index = text.indexOf("[[");
+
+            while (index >= 0) {
+                int start = index + 2;
+                int end = findTargetEnd(text, start);
+
+                if (end >= 0) {
+                    String title = toLinkTitle(text,
+                                               start,
+                                               end,
+                                               namespaceNames,
+                                               firstLetterCase);
+                    int target = title == null ?
+                                 -1 :
+                                 articleIndex.getLinkTargetId(title);
+
+                    if (target >= 0) {
+                        collector.addLink(source, target);
+                    }
+                }
+
+                // The captions of the files may hold links, so the scan
+                // resumes inside the link.
+                index = text.indexOf("[[", start);
+            }
+        }
+
+        /**
+         * Returns the end of the link target starting at {@code start}: the
+         * index of the {@code |} or the {@code ]]} closing it, or -1 if the
+         * target holds a character no title may hold.
+         */
+        private static int findTargetEnd(String text, int start) {
+            for (int i = start; i < text.length(); ++i) {
+                switch (text.charAt(i)) {
+                    case '|':
+                        return i;
+
+                    case ']':
+                        return i + 1 < text.length() &&
+                               text.charAt(i + 1) == ']' ? i : -1;
+
+                    case '[':
+                    case '{':
+                    case '}':
+                    case '<':
+                    case '>':
+                    case '\n':
+                        return -1;
+                }
+            }
+
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+
+/**
+ * This class reads the pages of a MediaWiki XML dump, such as
+ * {@code pages-articles.xml.bz2}, compressed with bzip2 or gzip or not at all.
+ * The calling thread decompresses the dump and pulls the pages out of it with
+ * StAX, and the pages are handed in batches to a pool of workers, each of
+ * which reports them to a page handler of its own. The queue of the batches
+ * is bounded, so only a few batches are in the heap at a time. The namespaces
+ * and the title case of the wiki are taken from the {@code siteinfo} element.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+final class XmlDumpReader {
+
+    /**
+     * A page of the dump.
+     */
+    static final class Page {
+
+        String title;
+        int namespace;
+
+        /**
+         * The title the page redirects to, or {@code null} if the page is not
+         * a redirect.
+         */
+        String redirectTitle;
+
+        /**
+         * The wikitext of the last revision, or {@code null} if the text is
+         * not read.
+         */
+        String text;
+    }
+
+    /**
+     * Receives the pages of a single worker.
+     */
+    interface PageHandler {
+
+        /**
+         * Handles a page.
+         *
+         * @param page the page.
+         */
+        void onPage(Page page);
+    }
+
+    /**
+     * Creates a page handler for each worker.
+     *
+     * @param <H> the type of the page handlers.
+     */
+    interface PageHandlerFactory<H extends PageHandler> {
+
+        /**
+         * Creates a page handler.
+         *
+         * @return a page handler.
+         */
+        H create();
+    }
+
+    /**
+     * The number of pages in a batch handed to a worker.
+     */
+    private static final int BATCH_SIZE = 64;
+
+    /**
+     * The number of batches waiting for the workers per worker.
+     */
+    private static final int QUEUE_CAPACITY_PER_WORKER = 2;
+
+    /**
+     * Tells the workers that there are no more pages.
+     */
+    private static final List<Page> END_OF_DUMP = Collections.emptyList();
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The JDK property limiting the total size of the entities of a document.
+     * The predefined entities count, and a dump holds billions of them.
+     */
+    private static final String TOTAL_ENTITY_SIZE_LIMIT =
+            "http://www.oracle.com/xml/jaxp/properties/totalEntitySizeLimit";
+
+    /**
+     * The number of workers handling the pages.
+     */
+    private final int numberOfWorkers;
+
+    private final Map<String, Integer> namespaceMap = new HashMap<>();
+    private boolean firstLetterCase = true;
+    private long numberOfPages;
+
+    XmlDumpReader(int numberOfWorkers) {
+        this.numberOfWorkers = Math.max(1, numberOfWorkers);
+    }
+
+    /**
+     * Returns the namespace keys of the last dump read by their names, the
+     * main namespace excluded.
+     *
+     * @return the namespace map.
+     */
+    Map<String, Integer> getNamespaceMap() {
+        return Collections.unmodifiableMap(namespaceMap);
+    }
+
+    /**
+     * Tells whether the first letters of the titles of the last dump read are
+     * always upper case, as on Wikipedia.
+     *
+     * @return {@code true} if the first letters are upper case.
+     */
+    boolean isFirstLetterCase() {
+        return firstLetterCase;
+    }
+
+    /**
+     * Returns the number of pages in the last dump read.
+     *
+     * @return the number of pages.
+     */
+    long getNumberOfPages() {
+        return numberOfPages;
+    }
+
+    /**
+     * Reads the dump {@code file}, decompressing it by its extension.
+     *
+     * @param <H>            the type of the page handlers.
+     * @param file           the dump file.
+     * @param readText       whether to read the wikitext of the pages.
+     * @param handlerFactory the factory creating a page handler for each
+     *                       worker.
+     * @return the page handlers of the workers.
+     * @throws IOException if reading fails or the dump is malformed.
+     */
+    <H extends PageHandler> List<H> read(File file,
+                                         boolean readText,
+                                         PageHandlerFactory<H> handlerFactory)
+    throws IOException {
+        try (InputStream in = open(file)) {
+            return read(in, readText, handlerFactory);
+        }
+    }
+
+    /**
+     * Reads an uncompressed dump from {@code in}.
+     *
+     * @param <H>            the type of the page handlers.
+     * @param in             the dump.
+     * @param readText       whether to read the wikitext of the pages.
+     * @param handlerFactory the factory creating a page handler for each
+     *                       worker.
+     * @return the page handlers of the workers.
+     * @throws IOException if reading fails or the dump is malformed.
+     */
+    <H extends PageHandler> List<H> read(InputStream in,
+                                         boolean readText,
+                                         PageHandlerFactory<H> handlerFactory)
+    throws IOException {
+        namespaceMap.clear();
+        firstLetterCase = true;
+        numberOfPages = 0L;
+
+        List<H> handlers = new ArrayList<>(numberOfWorkers);
+
+        for (int i = 0; i < numberOfWorkers; ++i) {
+            handlers.add(handlerFactory.create());
+        }
+
+        BlockingQueue<List<Page>> batchQueue =
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY_PER_WORKER *
+                                         numberOfWorkers);
+        ExecutorService executor = Executors.newFixedThreadPool(
+                numberOfWorkers,
+                (runnable) -> {
+                    Thread thread = new Thread(runnable, "xml-dump-reader");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        List<Future<?>> futures = new ArrayList<>(numberOfWorkers);
+
+        for (H handler : handlers) {
+            futures.add(executor.submit(() -> {
+                while (true) {
+                    List<Page> batch = batchQueue.take();
+
+                    if (batch == END_OF_DUMP) {
+                        return null;
+                    }
+
+                    for (Page page : batch) {
+                        handler.onPage(page);
+                    }
+                }
+            }));
+        }
+
+        XMLStreamReader reader = null;
+
+        try {
+            reader = newInputFactory().createXMLStreamReader(in);
+            List<Page> batch = new ArrayList<>(BATCH_SIZE);
+
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+
+                switch (reader.getLocalName()) {
+                    case "namespace":
+                        readNamespace(reader);
+                        break;
+
+                    case "case":
+                        firstLetterCase =
+                                reader.getElementText().equals("first-letter");
+                        break;
+
+                    case "page":
+                        batch.add(readPage(reader, readText));
+                        ++numberOfPages;
+
+                        if (batch.size() == BATCH_SIZE) {
+                            putBatch(batchQueue, batch, futures);
+                            batch = new ArrayList<>(BATCH_SIZE);
+                        }
+
+                        break;
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                putBatch(batchQueue, batch, futures);
+            }
+
+            for (int i = 0; i < numberOfWorkers; ++i) {
+                putBatch(batchQueue, END_OF_DUMP, futures);
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (XMLStreamException ex) {
+            throw new IOException("Malformed dump: " + ex.getMessage(), ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading the dump.", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+
+            throw new IOException(cause.getMessage(), cause);
+        } finally {
+            executor.shutdownNow();
+
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ex) {
+                    // The stream is closed by the caller.
+                }
+            }
+        }
+
+        return handlers;
+    }
+
+    /**
+     * Opens {@code file}, decompressing it if its name ends with
+     * {@code .bz2} or {@code .gz}. The bzip2 dumps of Wikipedia consist of
+     * many concatenated streams.
+     */
+    private static InputStream open(File file) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file),
+                                                 BUFFER_SIZE);
+
+        try {
+            if (file.getName().endsWith(".bz2")) {
+                return new BufferedInputStream(
+                        new BZip2CompressorInputStream(in, true),
+                        BUFFER_SIZE);
+            }
+
+            if (file.getName().endsWith(".gz")) {
+                return new GZIPInputStream(in, BUFFER_SIZE);
+            }
+
+            return in;
+        } catch (IOException ex) {
+            in.close();
+            throw ex;
+        }
+    }
+
+    private static XMLInputFactory newInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+                            false);
+
+        try {
+            factory.setProperty(TOTAL_ENTITY_SIZE_LIMIT, 0);
+        } catch (IllegalArgumentException ex) {
+            // Not the JDK parser, which has no such limit.
+        }
+
+        return factory;
+    }
+
+    /**
+     * Reads a {@code <namespace key="14">Category</namespace>} element.
+     */
+    private void readNamespace(XMLStreamReader reader)
+    throws XMLStreamException {
+        String key = reader.getAttributeValue(null, "key");
+        String name = reader.getElementText();
+
+        if (key != null && !name.isEmpty()) {
+            try {
+                namespaceMap.put(name, Integer.parseInt(key));
+            } catch (NumberFormatException ex) {
+                throw new XMLStreamException(
+                        "The namespace key \"" + key + "\" is not an integer.",
+                        reader.getLocation());
+            }
+        }
+    }
+
+    /**
+     * Reads a {@code page} element, the start tag of which the reader is at.
+     */
+    private static Page readPage(XMLStreamReader reader, boolean readText)
+    throws XMLStreamException {
+        Page page = new Page();
+        int depth = 1;
+
+        while (depth > 0) {
+            int event = reader.next();
+
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                --depth;
+                continue;
+            }
+
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+
+            switch (reader.getLocalName()) {
+                case "title":
+                    page.title = reader.getElementText();
+                    break;
+
+                case "ns":
+                    try {
+                        page.namespace =
+                                Integer.parseInt(reader.getElementText());
+                    } catch (NumberFormatException ex) {
+                        throw new XMLStreamException(
+                                "The namespace of a page is not an integer.",
+                                reader.getLocation());
+                    }
+
+                    break;
+
+                case "redirect":
+                    page.redirectTitle =
+                            reader.getAttributeValue(null, "title");
+                    ++depth;
+                    break;
+
+                case "text":
+                    if (readText) {
+                        page.text = reader.getElementText();
+                    } else {
+                        ++depth;
+                    }
+
+                    break;
+
+                default:
+                    ++depth;
+            }
+        }
+
+        if (page.title == null) {
+            throw new XMLStreamException("A page has no title.",
+                                         reader.getLocation());
+        }
+
+        return page;
+    }
+
+    /**
+     * Puts {@code batch} to {@code batchQueue}, giving up if a worker has
+     * failed so that the reader does not block on a full queue forever.
+     */
+    private static void putBatch(BlockingQueue<List<Page>> batchQueue,
+                                 List<Page> batch,
+                                 List<Future<?>> futures)
+    throws InterruptedException, ExecutionException {
+        while (!batchQueue.offer(batch, 100L, TimeUnit.MILLISECONDS)) {
+            for (Future<?> future : futures) {
+                if (future.isDone()) {
+                    // Rethrows the failure of the worker:
+                    future.get();
+                }
+            }
+        }
+    }
+}
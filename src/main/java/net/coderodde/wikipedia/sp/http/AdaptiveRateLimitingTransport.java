@@ -0,0 +1,449 @@
+package net.coderodde.wikipedia.sp.http;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+/**
+ * This class implements a transport decorator adapting the number of 
+ * requests in flight to what the Wikipedia API tolerates. 
+ * <p>
+ * The concurrency limit follows the AIMD scheme: each response arriving 
+ * within the latency tolerance raises the limit by one over the current 
+ * limit, that is, by one per round of requests, while a throttling response 
+ * (HTTP 429, HTTP 503 or a {@code maxlag} error) halves it and a response 
+ * slower than {@link #LATENCY_TOLERANCE} times the fastest recent one cuts 
+ * it by a tenth. At most one decrease is applied per round trip so that a 
+ * burst of bad responses to requests sent together counts once. The fastest
+ * recent response is taken over the last {@link #LATENCY_WINDOW_SIZE} to 
+ * twice as many responses, so that a lucky outlier, or a server that has 
+ * since become slower for good, does not pin the limit at one.
+ * <p>
+ * A throttled request is not failed but retried after the time asked for by
+ * the {@code Retry-After} header, or after an exponential backoff if there is
+ * none; no request is sent to the API until then. Every request carries the
+ * {@code maxlag} parameter so that the API pushes back when its replicas lag.
+ * The latencies reported to the listeners exclude the time spent waiting for
+ * a permit or a backoff.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public class AdaptiveRateLimitingTransport implements RateLimitedTransport {
+    
+    /**
+     * The default {@code maxlag} parameter in seconds.
+     */
+    public static final int DEFAULT_MAXLAG = 5;
+    
+    /**
+     * The default number of retries of a throttled request.
+     */
+    public static final int DEFAULT_MAXIMUM_RETRIES = 8;
+    
+    /**
+     * A response slower than this many times the fastest recent response 
+     * decreases the concurrency limit.
+     */
+    public static final double LATENCY_TOLERANCE = 3.0;
+    
+    /**
+     * The number of responses after which the fastest one is forgotten at the
+     * earliest.
+     */
+    public static final int LATENCY_WINDOW_SIZE = 100;
+    
+    private static final double THROTTLE_DECREASE_FACTOR = 0.5;
+    private static final double LATENCY_DECREASE_FACTOR = 0.9;
+    
+    /**
+     * The first backoff in milliseconds when the API gives no 
+     * {@code Retry-After}.
+     */
+    private static final long INITIAL_BACKOFF = 1_000L;
+    
+    /**
+     * The maximum backoff in milliseconds.
+     */
+    private static final long MAXIMUM_BACKOFF = 60_000L;
+    
+    private static final String MAXLAG_PARAMETER = "maxlag=";
+    private static final String API_ERROR_HEADER = "MediaWiki-API-Error";
+    private static final String RETRY_AFTER_HEADER = "Retry-After";
+    private static final String MAXLAG_ERROR = "maxlag";
+    
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final int HTTP_SERVICE_UNAVAILABLE = 503;
+    
+    /**
+     * The decorated transport.
+     */
+    private final HttpTransport transport;
+    
+    /**
+     * The upper bound of the concurrency limit.
+     */
+    private final int maximumConcurrency;
+    
+    /**
+     * The {@code maxlag} parameter in seconds, or zero if not sent.
+     */
+    private final int maxlag;
+    
+    /**
+     * The number of retries of a throttled request before its response is 
+     * returned as is.
+     */
+    private final int maximumRetries;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitAvailable = lock.newCondition();
+    
+    /**
+     * The listeners of the response latencies.
+     */
+    private final List<LongConsumer> latencyListeners = 
+            new CopyOnWriteArrayList<>();
+    
+    /**
+     * The current concurrency limit.
+     */
+    private double concurrencyLimit;
+    
+    /**
+     * The number of requests in flight.
+     */
+    private int requestsInFlight;
+    
+    /**
+     * The time in nanoseconds before which no request is sent.
+     */
+    private long resumeTime = System.nanoTime();
+    
+    /**
+     * The time of the latest decrease in nanoseconds.
+     */
+    private long lastDecreaseTime = System.nanoTime();
+    
+    /**
+     * The fastest response in the current latency window in nanoseconds.
+     */
+    private long minimumLatency = Long.MAX_VALUE;
+    
+    /**
+     * The fastest response in the previous latency window in nanoseconds.
+     */
+    private long previousMinimumLatency = Long.MAX_VALUE;
+    
+    /**
+     * The number of responses in the current latency window.
+     */
+    private int latencyWindowCount;
+    
+    /**
+     * The number of throttling responses received.
+     */
+    private long throttleCount;
+    
+    public AdaptiveRateLimitingTransport(final HttpTransport transport,
+                                         final int maximumConcurrency) {
+        this(transport, 
+             maximumConcurrency, 
+             DEFAULT_MAXLAG, 
+             DEFAULT_MAXIMUM_RETRIES);
+    }
+    
+    /**
+     * Constructs this transport.
+     * 
+     * @param transport          the transport to decorate.
+     * @param maximumConcurrency the maximum number of requests in flight.
+     * @param maxlag             the {@code maxlag} parameter in seconds, or 
+     *                           zero for not sending it.
+     * @param maximumRetries     the number of retries of a throttled request.
+     */
+    public AdaptiveRateLimitingTransport(final HttpTransport transport,
+                                         final int maximumConcurrency,
+                                         final int maxlag,
+                                         final int maximumRetries) {
+        this.transport          = transport;
+        this.maximumConcurrency = Math.max(1, maximumConcurrency);
+        this.maxlag             = Math.max(0, maxlag);
+        this.maximumRetries     = Math.max(0, maximumRetries);
+        
+        // Start low and probe upwards.
+        this.concurrencyLimit   = Math.min(2, this.maximumConcurrency);
+    }
+    
+    @Override
+    public HttpResponse get(final String url) throws IOException {
+        final String requestUrl = addMaxlag(url);
+        
+        for (int attempt = 0;; ++attempt) {
+            acquirePermit();
+            final long startTime = System.nanoTime();
+            final HttpResponse response;
+            
+            try {
+                response = transport.get(requestUrl);
+            } catch (final IOException | RuntimeException ex) {
+                releasePermit();
+                throw ex;
+            }
+            
+            final long latency = System.nanoTime() - startTime;
+            
+            if (!isThrottled(response)) {
+                onResponse(latency);
+                
+                for (final LongConsumer listener : latencyListeners) {
+                    listener.accept(latency);
+                }
+                
+                return withPermit(response);
+            }
+            
+            onThrottle(getRetryDelay(response, attempt));
+            
+            if (attempt == maximumRetries) {
+                return withPermit(response);
+            }
+            
+            try {
+                response.close();
+            } finally {
+                releasePermit();
+            }
+        }
+    }
+    
+    @Override
+    public void addLatencyListener(final LongConsumer listener) {
+        latencyListeners.add(listener);
+    }
+    
+    @Override
+    public boolean isSaturated() {
+        lock.lock();
+        
+        try {
+            return resumeTime - System.nanoTime() > 0L ||
+                   requestsInFlight >= (int) concurrencyLimit;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Returns the current concurrency limit.
+     * 
+     * @return the concurrency limit.
+     */
+    public double getConcurrencyLimit() {
+        lock.lock();
+        
+        try {
+            return concurrencyLimit;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Returns the number of throttling responses received so far.
+     * 
+     * @return the number of throttling responses.
+     */
+    public long getThrottleCount() {
+        lock.lock();
+        
+        try {
+            return throttleCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private String addMaxlag(final String url) {
+        if (maxlag == 0 || url.contains(MAXLAG_PARAMETER)) {
+            return url;
+        }
+        
+        return url + (url.indexOf('?') < 0 ? '?' : '&') + 
+               MAXLAG_PARAMETER + maxlag;
+    }
+    
+    private static boolean isThrottled(final HttpResponse response) {
+        final int statusCode = response.getStatusCode();
+        
+        return statusCode == HTTP_TOO_MANY_REQUESTS
+            || statusCode == HTTP_SERVICE_UNAVAILABLE
+            || MAXLAG_ERROR.equals(response.getHeader(API_ERROR_HEADER));
+    }
+    
+    /**
+     * Returns the delay in nanoseconds asked for by {@code response}, or an 
+     * exponential backoff if the response does not ask for any.
+     */
+    private static long getRetryDelay(final HttpResponse response, 
+                                      final int attempt) {
+        final String retryAfter = response.getHeader(RETRY_AFTER_HEADER);
+        
+        if (retryAfter != null) {
+            try {
+                return TimeUnit.SECONDS.toNanos(
+                        Math.max(0L, Long.parseLong(retryAfter.trim())));
+            } catch (final NumberFormatException ex) {
+                // An HTTP date; fall back to the backoff.
+            }
+        }
+        
+        final long backoff = INITIAL_BACKOFF << Math.min(attempt, 16);
+        return TimeUnit.MILLISECONDS.toNanos(Math.min(backoff, 
+                                                      MAXIMUM_BACKOFF));
+    }
+    
+    private void acquirePermit() throws InterruptedIOException {
+        lock.lock();
+        
+        try {
+            while (true) {
+                final long waitTime = resumeTime - System.nanoTime();
+                
+                if (waitTime > 0L) {
+                    permitAvailable.awaitNanos(waitTime);
+                } else if (requestsInFlight < (int) concurrencyLimit) {
+                    ++requestsInFlight;
+                    return;
+                } else {
+                    permitAvailable.await();
+                }
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                    "Interrupted while waiting for a request permit.");
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void releasePermit() {
+        lock.lock();
+        
+        try {
+            --requestsInFlight;
+            permitAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void onResponse(final long latency) {
+        lock.lock();
+        
+        try {
+            if (latencyWindowCount == LATENCY_WINDOW_SIZE) {
+                previousMinimumLatency = minimumLatency;
+                minimumLatency = Long.MAX_VALUE;
+                latencyWindowCount = 0;
+            }
+            
+            ++latencyWindowCount;
+            minimumLatency = Math.min(minimumLatency, latency);
+            
+            if (latency > LATENCY_TOLERANCE * getBaseLatency()) {
+                decrease(LATENCY_DECREASE_FACTOR, latency);
+            } else {
+                concurrencyLimit = Math.min(maximumConcurrency, 
+                                            concurrencyLimit + 
+                                            1.0 / concurrencyLimit);
+                permitAvailable.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void onThrottle(final long retryDelay) {
+        lock.lock();
+        
+        try {
+            ++throttleCount;
+            final long now = System.nanoTime();
+            final long baseLatency = getBaseLatency();
+            decrease(THROTTLE_DECREASE_FACTOR, 
+                     baseLatency == Long.MAX_VALUE ? 0L : baseLatency);
+            
+            if (now + retryDelay - resumeTime > 0L) {
+                resumeTime = now + retryDelay;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Returns the fastest recent response in nanoseconds, or 
+     * {@link Long#MAX_VALUE} if there is none. Must be called with the lock 
+     * held.
+     */
+    private long getBaseLatency() {
+        return Math.min(minimumLatency, previousMinimumLatency);
+    }
+    
+    /**
+     * Multiplies the concurrency limit by {@code factor} unless it was 
+     * decreased within the last {@code roundTripTime} nanoseconds. Must be 
+     * called with the lock held.
+     */
+    private void decrease(final double factor, final long roundTripTime) {
+        final long now = System.nanoTime();
+        
+        if (now - lastDecreaseTime >= roundTripTime) {
+            concurrencyLimit = Math.max(1.0, concurrencyLimit * factor);
+            lastDecreaseTime = now;
+        }
+    }
+    
+    /**
+     * Returns a response releasing the permit of its request when closed.
+     */
+    private HttpResponse withPermit(final HttpResponse response) {
+        return new HttpResponse(response.getStatusCode(),
+                                response.getHeaders(),
+                                new PermitReleasingInputStream(
+                                        response.getBody()));
+    }
+    
+    private final class PermitReleasingInputStream extends FilterInputStream {
+        
+        private boolean closed;
+        
+        PermitReleasingInputStream(final InputStream in) {
+            super(in);
+        }
+        
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            
+            closed = true;
+            
+            try {
+                in.close();
+            } finally {
+                releasePermit();
+            }
+        }
+    }
+}
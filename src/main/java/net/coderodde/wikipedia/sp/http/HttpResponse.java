@@ -0,0 +1,82 @@
+package net.coderodde.wikipedia.sp.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class holds a response received through a {@link HttpTransport}. The
+ * body is already decoded from its content encoding.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public class HttpResponse implements Closeable {
+    
+    /**
+     * The HTTP status code.
+     */
+    private final int statusCode;
+    
+    /**
+     * Maps each header name in lower case to its value.
+     */
+    private final Map<String, String> headers;
+    
+    /**
+     * The response body.
+     */
+    private final InputStream body;
+    
+    /**
+     * Constructs this response.
+     * 
+     * @param statusCode the HTTP status code.
+     * @param headers    the response headers.
+     * @param body       the response body.
+     */
+    public HttpResponse(final int statusCode, 
+                        final Map<String, String> headers, 
+                        final InputStream body) {
+        this.statusCode = statusCode;
+        this.headers    = new HashMap<>(headers.size());
+        this.body       = body;
+        
+        headers.forEach((name, value) -> {
+            if (name != null) {
+                this.headers.put(name.toLowerCase(), value);
+            }
+        });
+    }
+    
+    public int getStatusCode() {
+        return statusCode;
+    }
+    
+    /**
+     * Returns the value of the header {@code name} or {@code null} if there is
+     * no such header. The header names are case insensitive.
+     * 
+     * @param name the name of the header.
+     * @return the header value or {@code null}.
+     */
+    public String getHeader(final String name) {
+        return headers.get(name.toLowerCase());
+    }
+    
+    public Map<String, String> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+    
+    public InputStream getBody() {
+        return body;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        body.close();
+    }
+}
@@ -0,0 +1,23 @@
+package net.coderodde.wikipedia.sp.http;
+
+import java.io.IOException;
+
+/**
+ * This interface defines the API for the transports carrying the requests to
+ * the Wikipedia API.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public interface HttpTransport {
+    
+    /**
+     * Issues a {@code GET} request to {@code url}. The caller must close the
+     * returned response so that the underlying connection may be reused.
+     * 
+     * @param url the URL to request.
+     * @return the response.
+     * @throws IOException if the request fails.
+     */
+    HttpResponse get(String url) throws IOException;
+}
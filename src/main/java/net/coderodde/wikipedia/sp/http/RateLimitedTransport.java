@@ -0,0 +1,32 @@
+package net.coderodde.wikipedia.sp.http;
+
+import java.util.function.LongConsumer;
+
+/**
+ * This interface defines a transport pacing its requests, so that a request
+ * may wait for its turn before it is sent. A decorator measuring the
+ * latencies of the requests should take them from
+ * {@link #addLatencyListener(LongConsumer)} instead of timing the calls,
+ * which include the wait.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public interface RateLimitedTransport extends HttpTransport {
+
+    /**
+     * Registers a listener receiving the latency in nanoseconds of each
+     * response, measured from sending its request to its headers arriving.
+     *
+     * @param listener the latency listener.
+     */
+    void addLatencyListener(LongConsumer listener);
+
+    /**
+     * Tells whether a request made now would have to wait before being sent,
+     * either for a backoff asked for by the server or for a permit.
+     *
+     * @return {@code true} if this transport is saturated.
+     */
+    boolean isSaturated();
+}
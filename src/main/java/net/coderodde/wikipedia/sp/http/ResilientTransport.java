@@ -0,0 +1,365 @@
+package net.coderodde.wikipedia.sp.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class implements a transport decorator guarding against failed and 
+ * slow requests.
+ * <p>
+ * A request failing with an {@link IOException}, or answered with HTTP 500, 
+ * 502 or 504, is retried a bounded number of times after a backoff drawn 
+ * uniformly from zero to an exponentially growing cap ("full jitter"). The
+ * throttling responses HTTP 429 and 503 are left to 
+ * {@link AdaptiveRateLimitingTransport}.
+ * <p>
+ * A request still waiting for its response after the configured percentile
+ * of the recent latencies is hedged: a duplicate is sent, and whichever 
+ * answers first wins. The losing request is cancelled; since a blocking 
+ * {@link java.net.HttpURLConnection} cannot be aborted, its response is 
+ * closed as soon as it arrives so that its connection and permits are 
+ * released. The latency is the time until the response headers arrive.
+ * <p>
+ * Above a {@link RateLimitedTransport} the latencies are the ones it reports,
+ * so that the time a request waits for its turn does not raise the hedging
+ * threshold, and no request is hedged while that transport is saturated: the
+ * hedge would only queue behind the request it duplicates, or add load just
+ * when the API has asked for less.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public class ResilientTransport implements HttpTransport {
+    
+    /**
+     * The default number of retries of a failed request.
+     */
+    public static final int DEFAULT_MAXIMUM_RETRIES = 3;
+    
+    /**
+     * The default latency percentile after which a request is hedged.
+     */
+    public static final int DEFAULT_HEDGE_PERCENTILE = 95;
+    
+    /**
+     * The default backoff cap of the first retry in milliseconds.
+     */
+    public static final long DEFAULT_INITIAL_BACKOFF = 200L;
+    
+    /**
+     * The default maximum backoff cap in milliseconds.
+     */
+    public static final long DEFAULT_MAXIMUM_BACKOFF = 10_000L;
+    
+    /**
+     * The number of the most recent latencies the percentile is taken over.
+     */
+    private static final int LATENCY_WINDOW_SIZE = 512;
+    
+    /**
+     * The number of latencies needed before any request is hedged.
+     */
+    private static final int MINIMUM_LATENCY_SAMPLES = 32;
+    
+    /**
+     * The decorated transport.
+     */
+    private final HttpTransport transport;
+    
+    /**
+     * The decorated transport if it paces its requests, or {@code null}.
+     */
+    private final RateLimitedTransport rateLimitedTransport;
+    
+    /**
+     * The number of retries of a failed request.
+     */
+    private final int maximumRetries;
+    
+    /**
+     * The latency percentile after which a request is hedged, or zero if the
+     * requests are not hedged.
+     */
+    private final int hedgePercentile;
+    
+    /**
+     * The backoff cap of the first retry in milliseconds.
+     */
+    private final long initialBackoff;
+    
+    /**
+     * The maximum backoff cap in milliseconds.
+     */
+    private final long maximumBackoff;
+    
+    /**
+     * Runs the hedged requests.
+     */
+    private final ExecutorService executor;
+    
+    /**
+     * The ring buffer of the most recent latencies in nanoseconds.
+     */
+    private final long[] latencyWindow = new long[LATENCY_WINDOW_SIZE];
+    
+    /**
+     * The number of latencies recorded so far.
+     */
+    private long latencyCount;
+    
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong hedgeCount = new AtomicLong();
+    
+    public ResilientTransport(final HttpTransport transport) {
+        this(transport, 
+             DEFAULT_MAXIMUM_RETRIES, 
+             DEFAULT_HEDGE_PERCENTILE,
+             DEFAULT_INITIAL_BACKOFF,
+             DEFAULT_MAXIMUM_BACKOFF);
+    }
+    
+    /**
+     * Constructs this transport.
+     * 
+     * @param transport       the transport to decorate.
+     * @param maximumRetries  the number of retries of a failed request.
+     * @param hedgePercentile the latency percentile after which a request is
+     *                        hedged, between 1 and 99, or zero for no 
+     *                        hedging.
+     * @param initialBackoff  the backoff cap of the first retry in 
+     *                        milliseconds.
+     * @param maximumBackoff  the maximum backoff cap in milliseconds.
+     */
+    public ResilientTransport(final HttpTransport transport,
+                              final int maximumRetries,
+                              final int hedgePercentile,
+                              final long initialBackoff,
+                              final long maximumBackoff) {
+        if (hedgePercentile < 0 || hedgePercentile > 99) {
+            throw new IllegalArgumentException(
+                    "The hedge percentile is not within [0, 99]: " + 
+                    hedgePercentile + ".");
+        }
+        
+        this.transport       = transport;
+        this.maximumRetries  = Math.max(0, maximumRetries);
+        this.hedgePercentile = hedgePercentile;
+        this.initialBackoff  = Math.max(1L, initialBackoff);
+        this.maximumBackoff  = Math.max(this.initialBackoff, maximumBackoff);
+        this.executor        = Executors.newCachedThreadPool((runnable) -> {
+            final Thread thread = new Thread(runnable, "hedged-request");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        if (transport instanceof RateLimitedTransport) {
+            this.rateLimitedTransport = (RateLimitedTransport) transport;
+            this.rateLimitedTransport.addLatencyListener(this::recordLatency);
+        } else {
+            this.rateLimitedTransport = null;
+        }
+    }
+    
+    @Override
+    public HttpResponse get(final String url) throws IOException {
+        for (int attempt = 0;; ++attempt) {
+            final HttpResponse response;
+            
+            try {
+                response = hedgedGet(url);
+            } catch (final InterruptedIOException ex) {
+                if (Thread.currentThread().isInterrupted() ||
+                        attempt == maximumRetries) {
+                    throw ex;
+                }
+                
+                // A timeout.
+                backOff(attempt);
+                continue;
+            } catch (final IOException ex) {
+                if (attempt == maximumRetries) {
+                    throw ex;
+                }
+                
+                backOff(attempt);
+                continue;
+            }
+            
+            if (!isTransientError(response.getStatusCode()) || 
+                    attempt == maximumRetries) {
+                return response;
+            }
+            
+            response.close();
+            backOff(attempt);
+        }
+    }
+    
+    /**
+     * Returns the number of retried requests.
+     * 
+     * @return the number of retries.
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+    
+    /**
+     * Returns the number of hedged requests.
+     * 
+     * @return the number of hedges.
+     */
+    public long getHedgeCount() {
+        return hedgeCount.get();
+    }
+    
+    /**
+     * Returns the latency after which a request is hedged, or -1 if the 
+     * requests are not hedged at the moment.
+     * 
+     * @return the hedging threshold in nanoseconds.
+     */
+    public synchronized long getHedgeThreshold() {
+        if (hedgePercentile == 0 || 
+                latencyCount < MINIMUM_LATENCY_SAMPLES) {
+            return -1L;
+        }
+        
+        final int size = (int) Math.min(latencyCount, LATENCY_WINDOW_SIZE);
+        final long[] sorted = Arrays.copyOf(latencyWindow, size);
+        Arrays.sort(sorted);
+        return sorted[Math.min(size - 1, size * hedgePercentile / 100)];
+    }
+    
+    private static boolean isTransientError(final int statusCode) {
+        return statusCode == 500 || statusCode == 502 || statusCode == 504;
+    }
+    
+    private void backOff(final int attempt) throws InterruptedIOException {
+        retryCount.incrementAndGet();
+        final long cap = 
+                Math.min(maximumBackoff, 
+                         initialBackoff << Math.min(attempt, 20));
+        
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                    "Interrupted while backing off a retry.");
+        }
+    }
+    
+    private synchronized void recordLatency(final long latency) {
+        latencyWindow[(int)(latencyCount++ % LATENCY_WINDOW_SIZE)] = latency;
+    }
+    
+    private HttpResponse timedGet(final String url) throws IOException {
+        if (rateLimitedTransport != null) {
+            // Records the latency itself.
+            return transport.get(url);
+        }
+        
+        final long startTime = System.nanoTime();
+        final HttpResponse response = transport.get(url);
+        recordLatency(System.nanoTime() - startTime);
+        return response;
+    }
+    
+    private HttpResponse hedgedGet(final String url) throws IOException {
+        final long threshold = getHedgeThreshold();
+        
+        if (threshold < 0L) {
+            return timedGet(url);
+        }
+        
+        final Race race = new Race();
+        final Future<?> primary = race.launch(url);
+        
+        try {
+            try {
+                return race.winner.get(threshold, TimeUnit.NANOSECONDS);
+            } catch (final TimeoutException ex) {
+                if (rateLimitedTransport != null && 
+                        rateLimitedTransport.isSaturated()) {
+                    return race.winner.get();
+                }
+                
+                hedgeCount.incrementAndGet();
+            }
+            
+            final Future<?> hedge = race.launch(url);
+            
+            try {
+                return race.winner.get();
+            } finally {
+                hedge.cancel(true);
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                    "Interrupted while waiting for a response.");
+        } catch (final ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            
+            throw new IOException(cause.getMessage(), cause);
+        } finally {
+            primary.cancel(true);
+        }
+    }
+    
+    /**
+     * Holds the state of the requests racing for the same response.
+     */
+    private final class Race {
+        
+        /**
+         * Completed by the first response, or by the last failure.
+         */
+        final CompletableFuture<HttpResponse> winner = 
+                new CompletableFuture<>();
+        
+        /**
+         * The number of requests not finished yet.
+         */
+        final AtomicInteger running = new AtomicInteger();
+        
+        Future<?> launch(final String url) {
+            running.incrementAndGet();
+            
+            return executor.submit(() -> {
+                try {
+                    final HttpResponse response = timedGet(url);
+                    
+                    if (!winner.complete(response)) {
+                        // Lost the race.
+                        response.close();
+                    }
+                } catch (final IOException | RuntimeException ex) {
+                    if (running.decrementAndGet() == 0) {
+                        winner.completeExceptionally(ex);
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package net.coderodde.wikipedia.sp.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * This class implements a transport on top of {@link HttpURLConnection}. 
+ * <p>
+ * The connections are kept alive and pooled by the JDK: whenever a response 
+ * is closed, its remaining body is drained so that the connection returns to
+ * the keep-alive cache and is reused by the next request to the same host.
+ * The responses are requested gzip-compressed, and the number of requests in
+ * flight is bounded per host; a response holds its permit until it is 
+ * closed.
+ * <p>
+ * {@code HttpURLConnection} speaks HTTP/1.1 only. A multiplexing HTTP/2 
+ * transport may be plugged in through {@link HttpTransport} on newer JDKs.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public class URLConnectionHttpTransport implements HttpTransport {
+    
+    /**
+     * The default connection timeout in milliseconds.
+     */
+    public static final int DEFAULT_CONNECT_TIMEOUT = 10_000;
+    
+    /**
+     * The default read timeout in milliseconds.
+     */
+    public static final int DEFAULT_READ_TIMEOUT = 30_000;
+    
+    /**
+     * The default maximum number of requests in flight per host.
+     */
+    public static final int DEFAULT_MAXIMUM_REQUESTS_PER_HOST = 8;
+    
+    /**
+     * The user agent sent with each request as required by the Wikimedia 
+     * User-Agent policy.
+     */
+    private static final String USER_AGENT = 
+            "WikipediaArticleShortestPath/1.61 " + 
+            "(https://github.com/coderodde/WikipediaArticleShortestPath)";
+    
+    private static final String GZIP_ENCODING = "gzip";
+    
+    /**
+     * The connection timeout in milliseconds.
+     */
+    private final int connectTimeout;
+    
+    /**
+     * The read timeout in milliseconds.
+     */
+    private final int readTimeout;
+    
+    /**
+     * The maximum number of requests in flight per host.
+     */
+    private final int maximumRequestsPerHost;
+    
+    /**
+     * Maps each host to the semaphore bounding the requests in flight.
+     */
+    private final Map<String, Semaphore> hostPermitMap = 
+            new ConcurrentHashMap<>();
+    
+    public URLConnectionHttpTransport() {
+        this(DEFAULT_CONNECT_TIMEOUT,
+             DEFAULT_READ_TIMEOUT,
+             DEFAULT_MAXIMUM_REQUESTS_PER_HOST);
+    }
+    
+    /**
+     * Constructs this transport.
+     * 
+     * @param connectTimeout         the connection timeout in milliseconds.
+     * @param readTimeout            the read timeout in milliseconds.
+     * @param maximumRequestsPerHost the maximum number of requests in flight
+     *                               per host.
+     */
+    public URLConnectionHttpTransport(final int connectTimeout,
+                                      final int readTimeout,
+                                      final int maximumRequestsPerHost) {
+        this.connectTimeout         = checkNonNegative(connectTimeout, 
+                                                       "connect timeout");
+        this.readTimeout            = checkNonNegative(readTimeout,
+                                                       "read timeout");
+        this.maximumRequestsPerHost = Math.max(1, maximumRequestsPerHost);
+    }
+    
+    @Override
+    public HttpResponse get(final String url) throws IOException {
+        final URL requestUrl = new URL(url);
+        final Semaphore permits = 
+                hostPermitMap.computeIfAbsent(
+                        requestUrl.getHost(), 
+                        (host) -> new Semaphore(maximumRequestsPerHost, true));
+        
+        try {
+            permits.acquire();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                    "Interrupted while waiting for a connection to " + 
+                    requestUrl.getHost() + ".");
+        }
+        
+        try {
+            return open(requestUrl, permits);
+        } catch (final IOException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+    
+    private HttpResponse open(final URL url, final Semaphore permits) 
+    throws IOException {
+        final URLConnection urlConnection = url.openConnection();
+        
+        if (!(urlConnection instanceof HttpURLConnection)) {
+            throw new IOException("Not an HTTP URL: " + url);
+        }
+        
+        final HttpURLConnection connection = (HttpURLConnection) urlConnection;
+        
+        connection.setConnectTimeout(connectTimeout);
+        connection.setReadTimeout(readTimeout);
+        connection.setRequestProperty("Accept-Encoding", GZIP_ENCODING);
+        connection.setRequestProperty("User-Agent", USER_AGENT);
+        
+        final int statusCode = connection.getResponseCode();
+        InputStream body = statusCode >= 400 ? 
+                           connection.getErrorStream() : 
+                           connection.getInputStream();
+        
+        if (body == null) {
+            body = new ByteArrayInputStream(new byte[0]);
+        }
+        
+        if (GZIP_ENCODING.equalsIgnoreCase(
+                connection.getContentEncoding())) {
+            body = new GZIPInputStream(body);
+        }
+        
+        final Map<String, String> headers = new HashMap<>();
+        
+        for (final Map.Entry<String, List<String>> entry 
+                : connection.getHeaderFields().entrySet()) {
+            if (entry.getKey() != null && !entry.getValue().isEmpty()) {
+                headers.put(entry.getKey(), entry.getValue().get(0));
+            }
+        }
+        
+        return new HttpResponse(statusCode,
+                                headers, 
+                                new PooledBodyInputStream(body, permits));
+    }
+    
+    private static int checkNonNegative(final int value, final String name) {
+        if (value < 0) {
+            throw new IllegalArgumentException(
+                    "The " + name + " is negative: " + value + ".");
+        }
+        
+        return value;
+    }
+    
+    /**
+     * This class drains the body on closing so that the connection is reused,
+     * and releases the host permit exactly once.
+     */
+    private static final class PooledBodyInputStream 
+    extends FilterInputStream {
+        
+        private final Semaphore permits;
+        private boolean closed;
+        
+        PooledBodyInputStream(final InputStream in, final Semaphore permits) {
+            super(in);
+            this.permits = permits;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            
+            closed = true;
+            
+            try {
+                final byte[] buffer = new byte[8192];
+                
+                while (in.read(buffer) != -1) {
+                    // Drain the stream for the keep-alive cache.
+                }
+            } catch (final IOException ex) {
+                // A broken connection is simply not reused.
+            } finally {
+                try {
+                    in.close();
+                } finally {
+                    permits.release();
+                }
+            }
+        }
+    }
+}
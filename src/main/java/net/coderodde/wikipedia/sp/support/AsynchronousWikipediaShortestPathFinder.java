@@ -0,0 +1,520 @@
+package net.coderodde.wikipedia.sp.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import net.coderodde.wikipedia.sp.AbstractWikipediaShortestPathFinder;
+import net.coderodde.wikipedia.sp.ProgressLogger;
+import net.coderodde.wikipedia.sp.http.HttpTransport;
+
+/**
+ * This class implements a parallel bidirectional breadth-first search for
+ * finding shortest paths in the Wikipedia article graph, in which every fetch
+ * is a task of its own.
+ * <p>
+ * The calling thread cuts the levels of both the frontiers into batches of at
+ * most {@link #getExpansionBatchSize()} nodes and hands each batch to the
+ * executor as a separate task, as long as a permit out of
+ * {@link #getMaximumFetchesInFlight()} is free. Thus the number of fetches in
+ * flight is bounded by the permits shared by both the directions, and not by
+ * a fixed set of threads. By default the tasks run in virtual threads if the
+ * runtime has them, and in a pool of threads created on demand otherwise.
+ * <p>
+ * A task claims the neighbors it receives in the visited table of its
+ * direction, so that each node is expanded once, and reports the nodes
+ * reached by both the directions to a meeting tracker, just as the threads of
+ * {@link ParallelMultidirectionalWikipediaShortestPathFinder} do. Each
+ * direction starts its next level once all the fetches of its current level
+ * complete, so that the distances are exact. Once the forward search has
+ * expanded every node within {@code a - 1} links from the source and the
+ * backward search every node within {@code b - 1} links to the target, every
+ * path of at most {@code a + b} links passes a node reached by both. Hence
+ * the search stops as soon as the best meeting is at most {@code a + b + 1}
+ * links long, even in the middle of a level.
+ * <p>
+ * The frontier that is cheaper to expand according to the
+ * {@link #getFetchCostModel() fetch cost model} goes first. A direction
+ * begins its next level while the other one still waits for its fetches only
+ * if the new level is cheaper than the next level of the other direction
+ * collected so far, so that the levels are fetched in the order of the
+ * sequential search.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public final class AsynchronousWikipediaShortestPathFinder
+extends AbstractWikipediaShortestPathFinder {
+
+    /**
+     * The minimum allowed number of fetches in flight.
+     */
+    private static final int MINIMUM_FETCHES_IN_FLIGHT = 1;
+
+    /**
+     * Runs the fetches of the finders constructed without an executor.
+     */
+    private static final ExecutorService DEFAULT_EXECUTOR = createExecutor();
+
+    /**
+     * The maximum number of fetches in flight in a search.
+     */
+    private final int maximumFetchesInFlight;
+
+    /**
+     * Runs the fetch tasks.
+     */
+    private final Executor executor;
+
+    public AsynchronousWikipediaShortestPathFinder(
+            int maximumFetchesInFlight) {
+        this.maximumFetchesInFlight =
+                Math.max(maximumFetchesInFlight, MINIMUM_FETCHES_IN_FLIGHT);
+        this.executor = DEFAULT_EXECUTOR;
+    }
+
+    public AsynchronousWikipediaShortestPathFinder(
+            int maximumFetchesInFlight,
+            HttpTransport transport) {
+        this(maximumFetchesInFlight, transport, DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * Constructs this finder.
+     *
+     * @param maximumFetchesInFlight the maximum number of fetches in flight.
+     * @param transport              the transport of the requests.
+     * @param executor               the executor running the fetch tasks.
+     */
+    public AsynchronousWikipediaShortestPathFinder(
+            int maximumFetchesInFlight,
+            HttpTransport transport,
+            Executor executor) {
+        super(transport);
+
+        if (executor == null) {
+            throw new IllegalArgumentException("The executor is null.");
+        }
+
+        this.maximumFetchesInFlight =
+                Math.max(maximumFetchesInFlight, MINIMUM_FETCHES_IN_FLIGHT);
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the maximum number of fetches in flight in a search.
+     *
+     * @return the maximum number of fetches in flight.
+     */
+    public int getMaximumFetchesInFlight() {
+        return maximumFetchesInFlight;
+    }
+
+    /**
+     * Searches for the shortest path from the Wikipedia article with the title
+     * {@code sourceTitle} to the article with the title {@code targetTitle}.
+     *
+     * @param sourceTitle the title of the source article.
+     * @param targetTitle the title of the target article.
+     * @param apiUrlText  the Wikipedia API access URL text.
+     * @param forwardSearchProgressLogger
+     * @param backwardSearchProgressLogger
+     * @param sharedProgressLogger
+     * @return the shortest path, or an empty list if there is none.
+     */
+    @Override
+    public List<String> search(String sourceTitle,
+                               String targetTitle,
+                               String apiUrlText,
+                               ProgressLogger<String> forwardSearchProgressLogger,
+                               ProgressLogger<String> backwardSearchProgressLogger,
+                               ProgressLogger<String> sharedProgressLogger) {
+        this.numberOfExpandedNodes = 0;
+        this.duration = 0L;
+
+        if (sharedProgressLogger != null) {
+            sharedProgressLogger.onBeginSearch(sourceTitle, targetTitle);
+        }
+
+        if (sourceTitle.equals(targetTitle)) {
+            return new ArrayList<>(Arrays.asList(sourceTitle));
+        }
+
+        beginSearch(sourceTitle, targetTitle);
+        this.duration = System.currentTimeMillis();
+
+        SearchState searchState =
+                new SearchState(apiUrlText,
+                                new SearchDirection(
+                                        sourceTitle,
+                                        true,
+                                        forwardSearchProgressLogger),
+                                new SearchDirection(
+                                        targetTitle,
+                                        false,
+                                        backwardSearchProgressLogger));
+        searchState.run();
+
+        List<String> path =
+                redirectResolver.canonicalizePath(
+                        apiUrlText,
+                        searchState.meetingTracker.getPath());
+
+        this.duration = System.currentTimeMillis() - this.duration;
+        fetchCostModel.learn();
+
+        if (sharedProgressLogger != null) {
+            if (path.isEmpty()) {
+                sharedProgressLogger.onTargetUnreachable(sourceTitle,
+                                                         targetTitle);
+            } else {
+                sharedProgressLogger.onShortestPath(path);
+            }
+        }
+
+        return path;
+    }
+
+    /**
+     * Returns an executor starting a virtual thread per task if the runtime
+     * has them (Java 21 and later), or else an executor reusing daemon
+     * threads created on demand.
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService)
+                    Executors.class
+                             .getMethod("newVirtualThreadPerTaskExecutor")
+                             .invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newCachedThreadPool((task) -> {
+                Thread thread = new Thread(task, "wikipedia-fetch");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * This class holds the state of a single search, shared by the calling
+     * thread and the fetch tasks.
+     */
+    private final class SearchState {
+
+        private final String apiUrl;
+        private final SearchDirection forward;
+        private final SearchDirection backward;
+        private final MeetingTracker meetingTracker;
+
+        /**
+         * The permits of the fetches in flight.
+         */
+        private final Semaphore fetchPermits =
+                new Semaphore(maximumFetchesInFlight);
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * Signalled whenever a fetch completes.
+         */
+        private final Condition fetchCompleted = lock.newCondition();
+
+        /**
+         * The first failure of a fetch, if any.
+         */
+        private RuntimeException failure;
+
+        SearchState(String apiUrl,
+                    SearchDirection forward,
+                    SearchDirection backward) {
+            this.apiUrl = apiUrl;
+            this.forward = forward;
+            this.backward = backward;
+            this.meetingTracker = new MeetingTracker(forward.visited,
+                                                     backward.visited);
+        }
+
+        /**
+         * Dispatches the fetches until the shortest path is known or either
+         * of the directions runs out of nodes, and waits for the fetches in
+         * flight to complete.
+         */
+        void run() {
+            lock.lock();
+
+            try {
+                while (failure == null && !isOver()) {
+                    SearchDirection direction = pickDirection();
+
+                    if (direction != null && fetchPermits.tryAcquire()) {
+                        dispatch(direction);
+                    } else {
+                        fetchCompleted.awaitUninterruptibly();
+                    }
+                }
+
+                // The tasks in flight still update the search trees:
+                while (forward.fetchesInFlight +
+                       backward.fetchesInFlight > 0) {
+                    fetchCompleted.awaitUninterruptibly();
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        /**
+         * Moves the directions whose levels are expanded to their next levels
+         * and decides whether the search is over.
+         */
+        private boolean isOver() {
+            for (SearchDirection direction :
+                    Arrays.asList(forward, backward)) {
+                if (direction.isLevelExpanded()) {
+                    direction.advanceLevel();
+                }
+
+                if (direction.level.isEmpty()) {
+                    // Each node reachable is reached at its exact distance,
+                    // and so is the root of the other direction, if at all.
+                    return true;
+                }
+            }
+
+            // Every path of at most 'forward.depth + backward.depth' links is
+            // known, so that a meeting one link longer is the shortest:
+            return meetingTracker.getBestPathLength() <=
+                   forward.depth + backward.depth + 1;
+        }
+
+        /**
+         * Returns the direction to fetch the next batch for, or {@code null}
+         * if the next batch is to wait for the fetches in flight.
+         */
+        private SearchDirection pickDirection() {
+            int forwardNodes = forward.getNumberOfUndispatchedNodes();
+            int backwardNodes = backward.getNumberOfUndispatchedNodes();
+
+            if (forwardNodes > 0 && backwardNodes > 0) {
+                return fetchCostModel.preferForward(forwardNodes,
+                                                    backwardNodes,
+                                                    expansionBatchSize) ?
+                       forward :
+                       backward;
+            }
+
+            if (forwardNodes > 0) {
+                return mayDispatch(forward, backward) ? forward : null;
+            }
+
+            if (backwardNodes > 0) {
+                return mayDispatch(backward, forward) ? backward : null;
+            }
+
+            return null;
+        }
+
+        /**
+         * Decides whether a batch of {@code direction} may be fetched while
+         * {@code other} completes its level. A level once begun is fetched
+         * to the end. A new level begins early only if it is cheaper than the
+         * next level of {@code other} collected so far: then it precedes that
+         * level in the order of the sequential search anyway, and is not
+         * fetched in vain unless the current level of {@code other} ends the
+         * search.
+         */
+        private boolean mayDispatch(SearchDirection direction,
+                                    SearchDirection other) {
+            if (direction.nextNodeIndex > 0 || other.fetchesInFlight == 0) {
+                return true;
+            }
+
+            int directionCost = direction.getNumberOfUndispatchedNodes();
+            int otherCost = other.nextLevelSize.get();
+
+            return direction.isForward ?
+                   fetchCostModel.preferForward(directionCost,
+                                                otherCost,
+                                                expansionBatchSize) :
+                   !fetchCostModel.preferForward(otherCost,
+                                                 directionCost,
+                                                 expansionBatchSize);
+        }
+
+        /**
+         * Hands the next batch of {@code direction} over to the executor. The
+         * caller holds a fetch permit, released by the task.
+         */
+        private void dispatch(SearchDirection direction) {
+            List<String> batch = direction.removeBatch(expansionBatchSize);
+            direction.fetchesInFlight++;
+            numberOfExpandedNodes += batch.size();
+
+            try {
+                executor.execute(() -> fetch(direction, batch));
+            } catch (RuntimeException ex) {
+                direction.fetchesInFlight--;
+                fetchPermits.release();
+                failure = ex;
+            }
+        }
+
+        /**
+         * Fetches the neighbors of {@code batch} and claims the new ones for
+         * the next level of {@code direction}.
+         */
+        private void fetch(SearchDirection direction, List<String> batch) {
+            RuntimeException fetchFailure = null;
+
+            try {
+                for (String current : batch) {
+                    if (direction.progressLogger != null) {
+                        direction.progressLogger.onExpansion(current);
+                    }
+                }
+
+                if (direction.isForward) {
+                    forEachChildArticle(apiUrl, batch, (current, child) ->
+                            claim(direction, current, child));
+                } else {
+                    forEachParentArticle(apiUrl, batch, (current, parent) ->
+                            claim(direction, current, parent));
+                }
+            } catch (RuntimeException ex) {
+                fetchFailure = ex;
+            } finally {
+                fetchPermits.release();
+                lock.lock();
+
+                try {
+                    direction.fetchesInFlight--;
+
+                    if (failure == null) {
+                        failure = fetchFailure;
+                    }
+
+                    fetchCompleted.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        private void claim(SearchDirection direction,
+                           String current,
+                           String neighbor) {
+            // Only the task claiming the node adds it to the next level:
+            if (direction.visited.claim(
+                    neighbor,
+                    current,
+                    direction.visited.getDistance(current) + 1)) {
+                direction.nextLevel.add(neighbor);
+                direction.nextLevelSize.incrementAndGet();
+
+                if (direction.progressLogger != null) {
+                    direction.progressLogger.onNeighborGeneration(neighbor);
+                }
+
+                meetingTracker.update(neighbor);
+            }
+        }
+    }
+
+    /**
+     * This class holds the state of a single search direction. The levels are
+     * guarded by the lock of the search, while the next level is filled by the
+     * fetch tasks.
+     */
+    private static final class SearchDirection {
+
+        /**
+         * Specifies whether this direction follows the links or the
+         * backlinks.
+         */
+        final boolean isForward;
+
+        final ProgressLogger<String> progressLogger;
+
+        /**
+         * Maps each discovered node to its parent and its distance.
+         */
+        final VisitedTable visited = new VisitedTable();
+
+        /**
+         * The nodes claimed for the next level.
+         */
+        ConcurrentLinkedQueue<String> nextLevel =
+                new ConcurrentLinkedQueue<>();
+
+        /**
+         * The number of nodes in {@link #nextLevel}.
+         */
+        final AtomicInteger nextLevelSize = new AtomicInteger();
+
+        /**
+         * The nodes of the current level.
+         */
+        List<String> level = new ArrayList<>();
+
+        /**
+         * The index of the first node of the current level not yet
+         * dispatched.
+         */
+        int nextNodeIndex;
+
+        /**
+         * The distance of the current level from the root. Every node within
+         * this distance is in {@link #visited}.
+         */
+        int depth;
+
+        /**
+         * The number of fetches of the current level in flight.
+         */
+        int fetchesInFlight;
+
+        SearchDirection(String root,
+                        boolean isForward,
+                        ProgressLogger<String> progressLogger) {
+            this.isForward = isForward;
+            this.progressLogger = progressLogger;
+            visited.claim(root, null, 0);
+            level.add(root);
+        }
+
+        int getNumberOfUndispatchedNodes() {
+            return level.size() - nextNodeIndex;
+        }
+
+        boolean isLevelExpanded() {
+            return getNumberOfUndispatchedNodes() == 0 && fetchesInFlight == 0;
+        }
+
+        List<String> removeBatch(int batchSize) {
+            int end = Math.min(level.size(), nextNodeIndex + batchSize);
+            List<String> batch =
+                    new ArrayList<>(level.subList(nextNodeIndex, end));
+            nextNodeIndex = end;
+            return batch;
+        }
+
+        void advanceLevel() {
+            level = new ArrayList<>(nextLevel);
+            nextLevel = new ConcurrentLinkedQueue<>();
+            nextLevelSize.set(0);
+            nextNodeIndex = 0;
+            depth++;
+        }
+    }
+}
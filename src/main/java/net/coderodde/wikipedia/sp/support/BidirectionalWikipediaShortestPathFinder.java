@@ -10,6 +10,7 @@ import java.util.List;
 import java.util.Map;
 import net.coderodde.wikipedia.sp.AbstractWikipediaShortestPathFinder;
 import net.coderodde.wikipedia.sp.ProgressLogger;
+import net.coderodde.wikipedia.sp.http.HttpTransport;
 
 /**
  * This class implements a bidirectional breadth-first search for finding 
@@ -21,10 +22,20 @@ import net.coderodde.wikipedia.sp.ProgressLogger;
 public final class BidirectionalWikipediaShortestPathFinder 
 extends AbstractWikipediaShortestPathFinder {
 
+    public BidirectionalWikipediaShortestPathFinder() {}
+
+    public BidirectionalWikipediaShortestPathFinder(HttpTransport transport) {
+        super(transport);
+    }
+
     /**
      * Searches for the shortest path from the Wikipedia article with the title
      * {@code sourceTitle} to the article with the title {@code targetTitle}.
-     * The algorithm is a bidirectional breadth-first search.
+     * The algorithm is a bidirectional breadth-first search. Up to 
+     * {@link #getExpansionBatchSize()} frontier nodes at the same level are
+     * expanded with a single request to the Wikipedia API. The next batch is
+     * taken from the frontier with the lower estimated cost, as given by the
+     * {@link #getFetchCostModel() fetch cost model}.
      * 
      * @param sourceTitle the title of the source article.
      * @param targetTitle the title of the target article.
@@ -48,6 +59,7 @@ extends AbstractWikipediaShortestPathFinder {
             return new ArrayList<>(Arrays.asList(sourceTitle));
         }
 
+        beginSearch(sourceTitle, targetTitle);
         this.duration = System.currentTimeMillis();
 
         Deque<String> QUEUEA = new ArrayDeque<>();
@@ -78,76 +90,102 @@ extends AbstractWikipediaShortestPathFinder {
 
                 if (bestDistanceSoFar < distanceFromSource + 
                                         distanceFromTarget) {
-                    List<String> path = tracebackPath(touchNode, 
-                                                      PARENTSA,
-                                                      PARENTSB);
+                    List<String> path = 
+                            redirectResolver.canonicalizePath(
+                                    apiUrlText,
+                                    tracebackPath(touchNode, 
+                                                  PARENTSA,
+                                                  PARENTSB));
                     this.duration = System.currentTimeMillis() - this.duration;
+                    fetchCostModel.learn();
                     return path;
                 }
             }
 
-            if (DISTANCEA.size() < DISTANCEB.size()) {
-                String current = QUEUEA.removeFirst();
-
-                if (forwardSearchProgressLogger != null) {
-                    forwardSearchProgressLogger.onExpansion(current);
-                }
+            // Expand the frontier estimated to cost fewer requests, counting
+            // the requests per node and the links per node learned so far.
+            // Without any estimates, the smaller frontier is expanded:
+            if (fetchCostModel.preferForward(QUEUEA.size(), 
+                                             QUEUEB.size(), 
+                                             expansionBatchSize)) {
+                List<String> batch = removeBatch(QUEUEA, 
+                                                 DISTANCEA, 
+                                                 expansionBatchSize);
+
+                for (String current : batch) {
+                    if (forwardSearchProgressLogger != null) {
+                        forwardSearchProgressLogger.onExpansion(current);
+                    }
 
-                if (PARENTSB.containsKey(current) 
-                        && bestDistanceSoFar > DISTANCEA.get(current) +
-                                               DISTANCEB.get(current)) {
-                    bestDistanceSoFar = DISTANCEA.get(current) +
-                                        DISTANCEB.get(current);
-                    touchNode = current;
+                    if (PARENTSB.containsKey(current) 
+                            && bestDistanceSoFar > DISTANCEA.get(current) +
+                                                   DISTANCEB.get(current)) {
+                        bestDistanceSoFar = DISTANCEA.get(current) +
+                                            DISTANCEB.get(current);
+                        touchNode = current;
+                    }
                 }
 
-                numberOfExpandedNodes++;
+                numberOfExpandedNodes += batch.size();
 
-                for (String child : getChildArticles(apiUrlText, current)) {
+                forEachChildArticle(apiUrlText, batch, (current, child) -> {
                     if (!PARENTSA.containsKey(child)) {
                         PARENTSA.put(child, current);
                         DISTANCEA.put(child, DISTANCEA.get(current) + 1);
                         QUEUEA.addLast(child);
-                        
+
                         if (forwardSearchProgressLogger != null) {
                             forwardSearchProgressLogger
                                     .onNeighborGeneration(child);
                         }
                     }
-                }
+                });
             } else {
-                String current = QUEUEB.removeFirst();
+                List<String> batch = removeBatch(QUEUEB, 
+                                                 DISTANCEB, 
+                                                 expansionBatchSize);
 
-                if (backwardSearchProgressLogger != null) {
-                    backwardSearchProgressLogger.onExpansion(current);
-                }
+                for (String current : batch) {
+                    if (backwardSearchProgressLogger != null) {
+                        backwardSearchProgressLogger.onExpansion(current);
+                    }
 
-                if (PARENTSA.containsKey(current) 
-                        && bestDistanceSoFar > DISTANCEA.get(current) + 
-                                               DISTANCEB.get(current)) {
-                    bestDistanceSoFar = DISTANCEA.get(current) +
-                                        DISTANCEB.get(current);
-                    touchNode = current;
+                    if (PARENTSA.containsKey(current) 
+                            && bestDistanceSoFar > DISTANCEA.get(current) + 
+                                                   DISTANCEB.get(current)) {
+                        bestDistanceSoFar = DISTANCEA.get(current) +
+                                            DISTANCEB.get(current);
+                        touchNode = current;
+                    }
                 }
 
-                numberOfExpandedNodes++;
+                numberOfExpandedNodes += batch.size();
 
-                for (String parent : getParentArticles(apiUrlText, current)) {
+                forEachParentArticle(apiUrlText, batch, (current, parent) -> {
                     if (!PARENTSB.containsKey(parent)) {
                         PARENTSB.put(parent, current);
                         DISTANCEB.put(parent, DISTANCEB.get(current) + 1);
                         QUEUEB.addLast(parent);
-                        
+
                         if (backwardSearchProgressLogger != null) {
                             backwardSearchProgressLogger
                                     .onNeighborGeneration(parent);
                         }
                     }
-                }
+                });
             }
         }
 
         this.duration = System.currentTimeMillis() - this.duration;
+        fetchCostModel.learn();
+
+        if (touchNode != null) {
+            // A frontier ran empty right after the searches met.
+            return redirectResolver.canonicalizePath(
+                    apiUrlText,
+                    tracebackPath(touchNode, PARENTSA, PARENTSB));
+        }
+
         return new ArrayList<>();
     }
 }
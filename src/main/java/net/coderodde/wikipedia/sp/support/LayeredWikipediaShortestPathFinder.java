@@ -0,0 +1,274 @@
+package net.coderodde.wikipedia.sp.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import net.coderodde.wikipedia.sp.AbstractWikipediaShortestPathFinder;
+import net.coderodde.wikipedia.sp.ProgressLogger;
+import net.coderodde.wikipedia.sp.http.HttpTransport;
+
+/**
+ * This class implements a level-synchronous parallel bidirectional
+ * breadth-first search for finding shortest paths in the Wikipedia article
+ * graph.
+ * <p>
+ * Each step expands the whole current level of the frontier that is cheaper
+ * to expand according to the {@link #getFetchCostModel() fetch cost model}.
+ * The level is cut into batches of at most {@link #getExpansionBatchSize()}
+ * nodes, and the batches are fetched in parallel in a fork-join pool, which
+ * lives as long as the search and is shut down when the search ends. The
+ * fetched neighbor lists are then merged into the search tree by the calling
+ * thread in the frontier order, so that the parents, the next level and the
+ * number of expanded nodes do not depend on the timing of the fetches. The
+ * frontiers are checked for a meeting once per level, and the search stops
+ * right after the first level in which they meet: every path through a later
+ * level is at least as long.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public final class LayeredWikipediaShortestPathFinder
+extends AbstractWikipediaShortestPathFinder {
+
+    /**
+     * The minimum allowed number of parallel fetches.
+     */
+    private static final int MINIMUM_PARALLELISM = 1;
+
+    /**
+     * The maximum number of batches fetched in parallel.
+     */
+    private final int parallelism;
+
+    public LayeredWikipediaShortestPathFinder(int parallelism) {
+        this.parallelism = Math.max(parallelism, MINIMUM_PARALLELISM);
+    }
+
+    public LayeredWikipediaShortestPathFinder(int parallelism,
+                                              HttpTransport transport) {
+        super(transport);
+        this.parallelism = Math.max(parallelism, MINIMUM_PARALLELISM);
+    }
+
+    /**
+     * Returns the maximum number of batches fetched in parallel.
+     *
+     * @return the parallelism.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Searches for the shortest path from the Wikipedia article with the title
+     * {@code sourceTitle} to the article with the title {@code targetTitle}.
+     *
+     * @param sourceTitle the title of the source article.
+     * @param targetTitle the title of the target article.
+     * @param apiUrlText  the Wikipedia API access URL text.
+     * @param forwardSearchProgressLogger
+     * @param backwardSearchProgressLogger
+     * @param sharedProgressLogger
+     * @return the shortest path, or an empty list if there is none.
+     */
+    @Override
+    public List<String> search(String sourceTitle,
+                               String targetTitle,
+                               String apiUrlText,
+                               ProgressLogger<String> forwardSearchProgressLogger,
+                               ProgressLogger<String> backwardSearchProgressLogger,
+                               ProgressLogger<String> sharedProgressLogger) {
+        this.numberOfExpandedNodes = 0;
+        this.duration = 0L;
+
+        if (sharedProgressLogger != null) {
+            sharedProgressLogger.onBeginSearch(sourceTitle, targetTitle);
+        }
+
+        if (sourceTitle.equals(targetTitle)) {
+            return new ArrayList<>(Arrays.asList(sourceTitle));
+        }
+
+        beginSearch(sourceTitle, targetTitle);
+        this.duration = System.currentTimeMillis();
+
+        SearchDirection forward =
+                new SearchDirection(sourceTitle,
+                                    true,
+                                    forwardSearchProgressLogger);
+        SearchDirection backward =
+                new SearchDirection(targetTitle,
+                                    false,
+                                    backwardSearchProgressLogger);
+        String touchNode = null;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+        try {
+            while (touchNode == null
+                    && !forward.level.isEmpty()
+                    && !backward.level.isEmpty()) {
+                if (fetchCostModel.preferForward(forward.level.size(),
+                                                 backward.level.size(),
+                                                 expansionBatchSize)) {
+                    touchNode = expandLevel(pool,
+                                            apiUrlText,
+                                            forward,
+                                            backward);
+                } else {
+                    touchNode = expandLevel(pool,
+                                            apiUrlText,
+                                            backward,
+                                            forward);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        List<String> path = touchNode == null ?
+                new ArrayList<>() :
+                redirectResolver.canonicalizePath(
+                        apiUrlText,
+                        tracebackPath(touchNode,
+                                      forward.parents,
+                                      backward.parents));
+
+        this.duration = System.currentTimeMillis() - this.duration;
+        fetchCostModel.learn();
+
+        if (sharedProgressLogger != null) {
+            if (path.isEmpty()) {
+                sharedProgressLogger.onTargetUnreachable(sourceTitle,
+                                                         targetTitle);
+            } else {
+                sharedProgressLogger.onShortestPath(path);
+            }
+        }
+
+        return path;
+    }
+
+    /**
+     * Expands the current level of {@code direction} and replaces it with the
+     * next level.
+     *
+     * @param pool      the pool running the fetches.
+     * @param apiUrl    the URL to the Wikipedia API.
+     * @param direction the search direction to expand.
+     * @param opposite  the other search direction.
+     * @return the node of the new level on a shortest path between the
+     *         frontiers, or {@code null} if the frontiers did not meet.
+     */
+    private String expandLevel(ForkJoinPool pool,
+                               String apiUrl,
+                               SearchDirection direction,
+                               SearchDirection opposite) {
+        List<String> level = direction.level;
+        List<ForkJoinTask<Map<String, List<String>>>> fetches =
+                new ArrayList<>();
+
+        for (int i = 0; i < level.size(); i += expansionBatchSize) {
+            List<String> batch =
+                    level.subList(i, Math.min(level.size(),
+                                              i + expansionBatchSize));
+
+            fetches.add(pool.submit(() -> direction.isForward ?
+                    getChildArticles(apiUrl, batch) :
+                    getParentArticles(apiUrl, batch)));
+        }
+
+        List<String> nextLevel = new ArrayList<>();
+        int nextDistance = direction.depth + 1;
+        String touchNode = null;
+        int bestDistanceSoFar = Integer.MAX_VALUE;
+
+        // The batches are merged in the frontier order whatever order they
+        // arrive in:
+        for (ForkJoinTask<Map<String, List<String>>> fetch : fetches) {
+            for (Map.Entry<String, List<String>> entry
+                    : fetch.join().entrySet()) {
+                String current = entry.getKey();
+
+                if (direction.progressLogger != null) {
+                    direction.progressLogger.onExpansion(current);
+                }
+
+                for (String neighbor : entry.getValue()) {
+                    if (direction.parents.containsKey(neighbor)) {
+                        continue;
+                    }
+
+                    direction.parents.put(neighbor, current);
+                    direction.distance.put(neighbor, nextDistance);
+                    nextLevel.add(neighbor);
+
+                    if (direction.progressLogger != null) {
+                        direction.progressLogger.onNeighborGeneration(neighbor);
+                    }
+
+                    Integer oppositeDistance = opposite.distance.get(neighbor);
+
+                    if (oppositeDistance != null
+                            && bestDistanceSoFar > nextDistance +
+                                                   oppositeDistance) {
+                        bestDistanceSoFar = nextDistance + oppositeDistance;
+                        touchNode = neighbor;
+                    }
+                }
+            }
+        }
+
+        numberOfExpandedNodes += level.size();
+        direction.level = nextLevel;
+        direction.depth = nextDistance;
+        return touchNode;
+    }
+
+    /**
+     * This class holds the state of a single search direction.
+     */
+    private static final class SearchDirection {
+
+        /**
+         * Specifies whether this direction follows the links or the
+         * backlinks.
+         */
+        final boolean isForward;
+
+        final ProgressLogger<String> progressLogger;
+
+        /**
+         * Maps each discovered node to its parent.
+         */
+        final Map<String, String> parents = new HashMap<>();
+
+        /**
+         * Maps each discovered node to its distance from the root.
+         */
+        final Map<String, Integer> distance = new HashMap<>();
+
+        /**
+         * The nodes of the current level of the frontier.
+         */
+        List<String> level = new ArrayList<>();
+
+        /**
+         * The distance of the current level from the root.
+         */
+        int depth;
+
+        SearchDirection(String root,
+                        boolean isForward,
+                        ProgressLogger<String> progressLogger) {
+            this.isForward = isForward;
+            this.progressLogger = progressLogger;
+            parents.put(root, null);
+            distance.put(root, 0);
+            level.add(root);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package net.coderodde.wikipedia.sp.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class keeps track of the best meeting of a forward and a backward
+ * search whose visited tables are filled by many threads at a time.
+ * <p>
+ * A thread reaching a node claims it in its own table first and calls
+ * {@link #update(String)} next, so that of two threads reaching the same node
+ * from the opposite directions, at least one sees both the claims and records
+ * the meeting.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+final class MeetingTracker {
+
+    private final VisitedTable forwardVisited;
+    private final VisitedTable backwardVisited;
+
+    /**
+     * The best meeting of the two search frontiers so far, or {@code null} if
+     * the frontiers did not meet yet.
+     */
+    private final AtomicReference<Meeting> bestMeeting =
+            new AtomicReference<>();
+
+    MeetingTracker(final VisitedTable forwardVisited,
+                   final VisitedTable backwardVisited) {
+        this.forwardVisited  = forwardVisited;
+        this.backwardVisited = backwardVisited;
+    }
+
+    /**
+     * Records {@code node} as the best meeting of the frontiers if both of
+     * them reached it and no shorter meeting is known.
+     *
+     * @param node the node reached.
+     */
+    void update(final String node) {
+        final int distance = getPathLength(node);
+
+        if (distance == Integer.MAX_VALUE) {
+            return;
+        }
+
+        final Meeting meeting = new Meeting(node, distance);
+        Meeting best = bestMeeting.get();
+
+        while (best == null || best.pathLength > distance) {
+            if (bestMeeting.compareAndSet(best, meeting)) {
+                return;
+            }
+
+            best = bestMeeting.get();
+        }
+    }
+
+    /**
+     * Tells whether a path through {@code node} is known to be longer than
+     * the best meeting.
+     *
+     * @param node the node to check.
+     * @return {@code true} if expanding {@code node} cannot lead to a shorter
+     *         path.
+     */
+    boolean isBeaten(final String node) {
+        final Meeting best = bestMeeting.get();
+
+        if (best == null) {
+            // Once here, the two search trees did not meet each other yet.
+            return false;
+        }
+
+        // The path length is infinite if either of the searches did not reach
+        // the node yet:
+        final int distance = getPathLength(node);
+        return distance != Integer.MAX_VALUE && distance > best.pathLength;
+    }
+
+    /**
+     * Returns the length of the shortest path found so far, or
+     * {@link Integer#MAX_VALUE} if the frontiers did not meet yet.
+     *
+     * @return the best path length.
+     */
+    int getBestPathLength() {
+        final Meeting best = bestMeeting.get();
+        return best == null ? Integer.MAX_VALUE : best.pathLength;
+    }
+
+    /**
+     * Returns the path through the best meeting, or an empty list if the
+     * frontiers did not meet.
+     *
+     * @return the path.
+     */
+    List<String> getPath() {
+        final Meeting best = bestMeeting.get();
+        final List<String> path = new ArrayList<>();
+
+        if (best == null) {
+            return path;
+        }
+
+        String current = best.node;
+
+        while (current != null) {
+            path.add(current);
+            current = forwardVisited.getParent(current);
+        }
+
+        Collections.<String>reverse(path);
+        current = backwardVisited.getParent(best.node);
+
+        while (current != null) {
+            path.add(current);
+            current = backwardVisited.getParent(current);
+        }
+
+        return path;
+    }
+
+    /**
+     * Returns the length of the shortest path known through {@code node}, or
+     * {@link Integer#MAX_VALUE} if either of the searches did not reach the
+     * node yet.
+     */
+    private int getPathLength(final String node) {
+        final VisitedTable.Visit forwardVisit = forwardVisited.get(node);
+
+        if (forwardVisit == null) {
+            return Integer.MAX_VALUE;
+        }
+
+        final VisitedTable.Visit backwardVisit = backwardVisited.get(node);
+
+        if (backwardVisit == null) {
+            return Integer.MAX_VALUE;
+        }
+
+        return forwardVisit.distance + backwardVisit.distance;
+    }
+
+    /**
+     * A node at which the two search frontiers met.
+     */
+    private static final class Meeting {
+
+        final String node;
+        final int pathLength;
+
+        Meeting(final String node, final int pathLength) {
+            this.node       = node;
+            this.pathLength = pathLength;
+        }
+    }
+}
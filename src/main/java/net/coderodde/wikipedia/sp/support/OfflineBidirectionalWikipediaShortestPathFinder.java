@@ -0,0 +1,279 @@
+package net.coderodde.wikipedia.sp.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import net.coderodde.wikipedia.sp.AbstractWikipediaShortestPathFinder;
+import net.coderodde.wikipedia.sp.ProgressLogger;
+import net.coderodde.wikipedia.sp.graph.LinkGraph;
+
+/**
+ * This class implements a bidirectional breadth-first search over a local
+ * {@link LinkGraph} instead of the Wikipedia API. The search runs on the
+ * integer article IDs: the distances, the parents and the queues live in
+ * arrays allocated once per finder, and only the entries touched by a search
+ * are reset afterwards, so a search allocates nothing per node. Over a 
+ * {@link net.coderodde.wikipedia.sp.graph.MappedLinkGraph} the neighbors are
+ * read straight from the mapped file. The searches on a finder are 
+ * serialized.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+public final class OfflineBidirectionalWikipediaShortestPathFinder
+extends AbstractWikipediaShortestPathFinder {
+
+    /**
+     * Marks the articles not reached by a search direction.
+     */
+    private static final int UNVISITED = -1;
+
+    /**
+     * The graph to search.
+     */
+    private final LinkGraph graph;
+
+    private final int[] distanceA;
+    private final int[] distanceB;
+    private final int[] parentA;
+    private final int[] parentB;
+    private final int[] queueA;
+    private final int[] queueB;
+
+    private final LinkGraph.NeighborIterator childIterator;
+    private final LinkGraph.NeighborIterator parentIterator;
+
+    private int tailA;
+    private int tailB;
+
+    /**
+     * Constructs a finder searching {@code graph}.
+     *
+     * @param graph the link graph.
+     */
+    public OfflineBidirectionalWikipediaShortestPathFinder(LinkGraph graph) {
+        this.graph = Objects.requireNonNull(graph, "The graph is null.");
+        int numberOfArticles = graph.getNumberOfArticles();
+        this.distanceA = new int[numberOfArticles];
+        this.distanceB = new int[numberOfArticles];
+        this.parentA = new int[numberOfArticles];
+        this.parentB = new int[numberOfArticles];
+        this.queueA = new int[numberOfArticles];
+        this.queueB = new int[numberOfArticles];
+        this.childIterator = graph.newNeighborIterator(true);
+        this.parentIterator = graph.newNeighborIterator(false);
+        Arrays.fill(distanceA, UNVISITED);
+        Arrays.fill(distanceB, UNVISITED);
+    }
+
+    /**
+     * Returns the graph searched by this finder.
+     *
+     * @return the link graph.
+     */
+    public LinkGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Searches for the shortest path from the article titled
+     * {@code sourceTitle} to the article titled {@code targetTitle}. The
+     * search expands a whole level of the smaller frontier at a time and stops
+     * after the first level in which the frontiers meet.
+     *
+     * @param sourceTitle the title of the source article.
+     * @param targetTitle the title of the target article.
+     * @param apiUrlText  ignored; the graph is local.
+     * @param forwardSearchProgressLogger
+     * @param backwardSearchProgressLogger
+     * @param sharedProgressLogger
+     * @return the shortest path, or an empty list if there is none or either
+     *         article is not in the graph.
+     */
+    @Override
+    public synchronized List<String>
+        search(String sourceTitle,
+               String targetTitle,
+               String apiUrlText,
+               ProgressLogger<String> forwardSearchProgressLogger,
+               ProgressLogger<String> backwardSearchProgressLogger,
+               ProgressLogger<String> sharedProgressLogger) {
+        this.numberOfExpandedNodes = 0;
+        this.duration = System.currentTimeMillis();
+
+        int source = graph.getId(sourceTitle);
+        int target = graph.getId(targetTitle);
+        List<String> path;
+
+        if (source < 0 || target < 0) {
+            path = new ArrayList<>();
+        } else if (source == target) {
+            path = new ArrayList<>(Arrays.asList(graph.getTitle(source)));
+        } else {
+            try {
+                int touchNode = search(source,
+                                       target,
+                                       forwardSearchProgressLogger,
+                                       backwardSearchProgressLogger);
+                path = touchNode == UNVISITED ?
+                       new ArrayList<>() :
+                       tracebackPath(touchNode);
+            } finally {
+                reset();
+            }
+        }
+
+        this.duration = System.currentTimeMillis() - this.duration;
+        return path;
+    }
+
+    /**
+     * Runs the search and returns the article where the frontiers meet on a
+     * shortest path, or {@link #UNVISITED} if there is no path.
+     */
+    private int search(int source,
+                       int target,
+                       ProgressLogger<String> forwardSearchProgressLogger,
+                       ProgressLogger<String> backwardSearchProgressLogger) {
+        int headA = 0;
+        int headB = 0;
+        tailA = 0;
+        tailB = 0;
+        queueA[tailA++] = source;
+        queueB[tailB++] = target;
+        distanceA[source] = 0;
+        distanceB[target] = 0;
+        parentA[source] = UNVISITED;
+        parentB[target] = UNVISITED;
+
+        int touchNode = UNVISITED;
+        int bestDistanceSoFar = Integer.MAX_VALUE;
+
+        while (headA < tailA && headB < tailB) {
+            if (tailA - headA <= tailB - headB) {
+                int levelEnd = tailA;
+                numberOfExpandedNodes += levelEnd - headA;
+
+                for (; headA < levelEnd; ++headA) {
+                    int current = queueA[headA];
+
+                    if (forwardSearchProgressLogger != null) {
+                        forwardSearchProgressLogger
+                                .onExpansion(graph.getTitle(current));
+                    }
+
+                    childIterator.reset(current);
+
+                    while (childIterator.hasNext()) {
+                        int child = childIterator.next();
+
+                        if (distanceA[child] != UNVISITED) {
+                            continue;
+                        }
+
+                        distanceA[child] = distanceA[current] + 1;
+                        parentA[child] = current;
+                        queueA[tailA++] = child;
+
+                        if (forwardSearchProgressLogger != null) {
+                            forwardSearchProgressLogger
+                                    .onNeighborGeneration(
+                                            graph.getTitle(child));
+                        }
+
+                        if (distanceB[child] != UNVISITED &&
+                                distanceA[child] + distanceB[child] <
+                                bestDistanceSoFar) {
+                            bestDistanceSoFar = distanceA[child] +
+                                                distanceB[child];
+                            touchNode = child;
+                        }
+                    }
+                }
+            } else {
+                int levelEnd = tailB;
+                numberOfExpandedNodes += levelEnd - headB;
+
+                for (; headB < levelEnd; ++headB) {
+                    int current = queueB[headB];
+
+                    if (backwardSearchProgressLogger != null) {
+                        backwardSearchProgressLogger
+                                .onExpansion(graph.getTitle(current));
+                    }
+
+                    parentIterator.reset(current);
+
+                    while (parentIterator.hasNext()) {
+                        int parent = parentIterator.next();
+
+                        if (distanceB[parent] != UNVISITED) {
+                            continue;
+                        }
+
+                        distanceB[parent] = distanceB[current] + 1;
+                        parentB[parent] = current;
+                        queueB[tailB++] = parent;
+
+                        if (backwardSearchProgressLogger != null) {
+                            backwardSearchProgressLogger
+                                    .onNeighborGeneration(
+                                            graph.getTitle(parent));
+                        }
+
+                        if (distanceA[parent] != UNVISITED &&
+                                distanceA[parent] + distanceB[parent] <
+                                bestDistanceSoFar) {
+                            bestDistanceSoFar = distanceA[parent] +
+                                                distanceB[parent];
+                            touchNode = parent;
+                        }
+                    }
+                }
+            }
+
+            if (touchNode != UNVISITED) {
+                // Every path through a later level is at least as long.
+                return touchNode;
+            }
+        }
+
+        return UNVISITED;
+    }
+
+    private List<String> tracebackPath(int touchNode) {
+        List<String> path = new ArrayList<>();
+
+        for (int node = touchNode; node != UNVISITED; node = parentA[node]) {
+            path.add(graph.getTitle(node));
+        }
+
+        Collections.reverse(path);
+
+        for (int node = parentB[touchNode];
+                node != UNVISITED;
+                node = parentB[node]) {
+            path.add(graph.getTitle(node));
+        }
+
+        return path;
+    }
+
+    /**
+     * Marks the articles reached by the previous search unvisited again.
+     */
+    private void reset() {
+        for (int i = 0; i < tailA; ++i) {
+            distanceA[queueA[i]] = UNVISITED;
+        }
+
+        for (int i = 0; i < tailB; ++i) {
+            distanceB[queueB[i]] = UNVISITED;
+        }
+
+        tailA = 0;
+        tailB = 0;
+    }
+}
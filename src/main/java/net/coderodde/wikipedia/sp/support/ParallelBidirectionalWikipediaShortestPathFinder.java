@@ -11,6 +11,7 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import net.coderodde.wikipedia.sp.AbstractWikipediaShortestPathFinder;
 import net.coderodde.wikipedia.sp.ProgressLogger;
+import net.coderodde.wikipedia.sp.http.HttpTransport;
 
 /**
  * This class implements a parallel bidirectional breadth-first search for 
@@ -28,6 +29,13 @@ extends AbstractWikipediaShortestPathFinder {
      */
     private static final String PARENT_MAP_END_TOKEN = "";
 
+    public ParallelBidirectionalWikipediaShortestPathFinder() {}
+
+    public ParallelBidirectionalWikipediaShortestPathFinder(
+            HttpTransport transport) {
+        super(transport);
+    }
+
     /**
      * Searches for the shortest path from the Wikipedia article with the title
      * {@code sourceTitle} to the article with the title {@code targetTitle}.
@@ -63,18 +71,21 @@ extends AbstractWikipediaShortestPathFinder {
             return ret;
         }
 
+        beginSearch(source, target);
         this.duration = System.currentTimeMillis();
         TouchNodeHolder touchNodeHolder = new TouchNodeHolder(source, target);
 
         ForwardThread forwardThread = new ForwardThread(source,
                                                         apiUrlText,
                                                         touchNodeHolder,
-                                                        forwardSearchProgressLogger);
+                                                        forwardSearchProgressLogger,
+                                                        expansionBatchSize);
 
         BackwardThread backwardThread = new BackwardThread(target,
                                                            apiUrlText,
                                                            touchNodeHolder,
-                                                           backwardSearchProgressLogger);
+                                                           backwardSearchProgressLogger,
+                                                           expansionBatchSize);
        
         forwardThread.setCompanionThread(backwardThread);
         backwardThread.setCompanionThread(forwardThread);
@@ -101,7 +112,10 @@ extends AbstractWikipediaShortestPathFinder {
                     ex.getMessage(), ex);
         }
         
-        List<String> path = touchNodeHolder.constructPath();
+        List<String> path = 
+                redirectResolver.canonicalizePath(
+                        apiUrlText, 
+                        touchNodeHolder.constructPath());
         
         
         this.numberOfExpandedNodes = forwardThread.getNumberOfExpandedNodes() +
@@ -111,13 +125,14 @@ extends AbstractWikipediaShortestPathFinder {
         return path;  
     }
 
-    private static class ForwardThread extends Thread {
+    private class ForwardThread extends Thread {
 
         private final Deque<String> QUEUE = new ArrayDeque<>();
         private final Map<String, String> PARENTS = new ConcurrentHashMap<>();
         private final Map<String, Integer> DISTANCE = new ConcurrentHashMap<>();
         private final TouchNodeHolder touchNodeHolder;
         private final String apiUrlText;
+        private final int expansionBatchSize;
         
         private final ProgressLogger<String> searchProgressLogger;
         
@@ -128,8 +143,10 @@ extends AbstractWikipediaShortestPathFinder {
         ForwardThread(String sourceTitle, 
                       String apiUrlText,
                       TouchNodeHolder touchNodeHolder,
-                      ProgressLogger<String> searchProgressLogger) {
+                      ProgressLogger<String> searchProgressLogger,
+                      int expansionBatchSize) {
             this.apiUrlText = apiUrlText;
+            this.expansionBatchSize = expansionBatchSize;
             this.touchNodeHolder = touchNodeHolder;
             this.searchProgressLogger = searchProgressLogger;
 
@@ -165,40 +182,45 @@ extends AbstractWikipediaShortestPathFinder {
                     return;
                 }
 
-                String current = QUEUE.removeFirst();
+                List<String> batch = removeBatch(QUEUE, 
+                                                 DISTANCE, 
+                                                 expansionBatchSize);
 
-                if (searchProgressLogger != null) {
-                    searchProgressLogger.onExpansion(current);
-                }
+                for (String current : batch) {
+                    if (searchProgressLogger != null) {
+                        searchProgressLogger.onExpansion(current);
+                    }
 
-                touchNodeHolder.updateFromForwardSearch(current);
+                    touchNodeHolder.updateFromForwardSearch(current);
 
-                if (touchNodeHolder.pathIsOptimal(current)) {
-                    return;
+                    if (touchNodeHolder.pathIsOptimal(current)) {
+                        return;
+                    }
                 }
 
-                numberOfExpandedNodes++;
+                numberOfExpandedNodes += batch.size();
 
-                for (String child : getChildArticles(apiUrlText, current)) {
+                forEachChildArticle(apiUrlText, batch, (current, child) -> {
                     if (!PARENTS.containsKey(child)) {
                         PARENTS.put(child, current);
                         DISTANCE.put(child, DISTANCE.get(current) + 1);
                         QUEUE.addLast(child);
                     }
-                }
+                });
             }
             
             companionThread.exitThread();
         }
     }
 
-    private static final class BackwardThread extends Thread {
+    private final class BackwardThread extends Thread {
 
         private final Deque<String> QUEUE = new ArrayDeque<>();
         private final Map<String, String> PARENTS = new ConcurrentHashMap<>();
         private final Map<String, Integer> DISTANCE = new ConcurrentHashMap<>();
         private final TouchNodeHolder touchNodeHolder;
         private final String apiUrlText;
+        private final int expansionBatchSize;
         private final ProgressLogger<String> searchProgressLogger;
         private int numberOfExpandedNodes;
         private volatile boolean exit;
@@ -207,8 +229,10 @@ extends AbstractWikipediaShortestPathFinder {
         BackwardThread(String targetTitle, 
                        String apiUrlText,
                        TouchNodeHolder touchNodeHolder,
-                       ProgressLogger<String> searchProgressLogger) {
+                       ProgressLogger<String> searchProgressLogger,
+                       int expansionBatchSize) {
             this.apiUrlText = apiUrlText;
+            this.expansionBatchSize = expansionBatchSize;
             this.touchNodeHolder = touchNodeHolder;
             this.searchProgressLogger = searchProgressLogger;
 
@@ -244,27 +268,31 @@ extends AbstractWikipediaShortestPathFinder {
                     return;
                 }
 
-                String current = QUEUE.removeFirst();
+                List<String> batch = removeBatch(QUEUE, 
+                                                 DISTANCE, 
+                                                 expansionBatchSize);
 
-                if (searchProgressLogger != null) {
-                    searchProgressLogger.onExpansion(current);
-                }
-                
-                touchNodeHolder.updateFromBackwardThread(current);
+                for (String current : batch) {
+                    if (searchProgressLogger != null) {
+                        searchProgressLogger.onExpansion(current);
+                    }
 
-                if (touchNodeHolder.pathIsOptimal(current)) {
-                    return;
+                    touchNodeHolder.updateFromBackwardThread(current);
+
+                    if (touchNodeHolder.pathIsOptimal(current)) {
+                        return;
+                    }
                 }
 
-                numberOfExpandedNodes++;
+                numberOfExpandedNodes += batch.size();
 
-                for (String parent : getParentArticles(apiUrlText, current)) {
+                forEachParentArticle(apiUrlText, batch, (current, parent) -> {
                     if (!PARENTS.containsKey(parent)) {
                         PARENTS.put(parent, current);
                         DISTANCE.put(parent, DISTANCE.get(current) + 1);
                         QUEUE.addLast(parent);
                     }
-                }
+                });
             }
             
             companionThread.exitThread();
@@ -1,16 +1,17 @@
 package net.coderodde.wikipedia.sp.support;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Deque;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import net.coderodde.wikipedia.sp.AbstractWikipediaShortestPathFinder;
 import net.coderodde.wikipedia.sp.ProgressLogger;
+import net.coderodde.wikipedia.sp.http.HttpTransport;
 
 /**
  * This class implements a parallel multidirectional breadth-first search for 
@@ -21,17 +22,21 @@ import net.coderodde.wikipedia.sp.ProgressLogger;
  * search proceeds along the directed arcs, whereas the backward search moves
  * in an "opposite" direction, i.e., from the head of the arc to its tail. 
  * <p>
- * The user of this class must pass {@code threadsPerSearchDirection} which 
- * specifies how many threads to create for each search direction. For each
- * direction, 1 thread will be a "<b>master thread</b>," and the other
- * {@code threadsPerSearchDirection - 1} "<b>slave threads</b>."
+ * The user of this class must pass {@code threadsPerSearchDirection} which
+ * specifies how many threads to create for each search direction.
  * <p>
- * Whenever a slave thread finds the frontier queue empty, it puts itself to 
- * sleep. Whenever a master thread finds the frontier queue empty, and all the 
- * slave threads working in the same direction are sleeping, the master thread
- * waits for some short period of time, and if even after that wait period the
- * queue does not become non-empty, the master thread requests <b>all</b> the
- * threads of this algorithm to exit, and thus, terminates the search.
+ * Whenever a thread finds the frontier queue empty, it parks until another
+ * thread of the same direction enqueues a node. Since only a thread expanding
+ * nodes may enqueue new ones, the direction is exhausted at the moment its
+ * last thread parks with the queue empty; that thread then requests
+ * <b>all</b> the threads of this algorithm to exit, and thus, terminates the
+ * search.
+ * <p>
+ * The expansion path takes no locks. Each search direction keeps its frontier
+ * in a lock-free queue and its visited nodes in a concurrent table, in which a
+ * node is claimed once and for all by the first thread reaching it, so that no
+ * two threads enqueue, nor expand, the same node. The lock of a direction is
+ * taken only for parking and waking its idle threads.
  * 
  * @author Rodion "rodde" Efremov
  * @version 1.6 (Jun 28, 2016)
@@ -57,6 +62,15 @@ extends AbstractWikipediaShortestPathFinder {
                          MINIMUM_NUMBER_OF_THREADS_PER_SEARCH_DIRECTION);
     }
     
+    public ParallelMultidirectionalWikipediaShortestPathFinder(
+            final int threadsPerSearchDirection,
+            final HttpTransport transport) {
+        super(transport);
+        this.threadsPerSearchDirection = 
+                Math.max(threadsPerSearchDirection,
+                         MINIMUM_NUMBER_OF_THREADS_PER_SEARCH_DIRECTION);
+    }
+    
     @Override
     public List<String> 
         search(final String sourceTitle,
@@ -81,46 +95,38 @@ extends AbstractWikipediaShortestPathFinder {
 //            return ret;
 //        }
         
+        beginSearch(sourceTitle, targetTitle);
         this.duration = System.currentTimeMillis();
         
-        // Create the state object shared by both the search direction:
-        final SharedSearchState sharedSearchState = 
-                new SharedSearchState(sourceTitle, 
-                                      targetTitle, 
-                                      sharedProgressLogger);
-        
         // Create the state object shared by all the threads working on forward
         // direction:
         final SearchState forwardSearchState  = 
-                new SearchState(sourceTitle, threadsPerSearchDirection);
+                new SearchState(sourceTitle, 
+                                threadsPerSearchDirection,
+                                expansionBatchSize);
         
         // Create the state object shared by all the threads working on backward
         // direction:
         final SearchState backwardSearchState = 
-                new SearchState(targetTitle, threadsPerSearchDirection);
+                new SearchState(targetTitle, 
+                                threadsPerSearchDirection,
+                                expansionBatchSize);
         
-        sharedSearchState.setForwardSearchState(forwardSearchState);
-        sharedSearchState.setBackwardSearchState(backwardSearchState);
+        // Create the state object shared by both the search direction:
+        final SharedSearchState sharedSearchState = 
+                new SharedSearchState(sourceTitle, 
+                                      targetTitle, 
+                                      forwardSearchState,
+                                      backwardSearchState,
+                                      sharedProgressLogger);
         
         final ForwardSearchThread[] forwardSearchThreads =
                 new ForwardSearchThread[threadsPerSearchDirection];
         
-        forwardSearchThreads[0] = 
-                new ForwardSearchThread(forwardSearchState,
-                                        sharedSearchState, 
-                                        true,
-                                        forwardSearchProgressLogger,
-                                        0,
-                                        apiUrlText);
-        
-        forwardSearchState.introduceThread(forwardSearchThreads[0]);
-        forwardSearchThreads[0].start();
-        
-        for (int i = 1; i < threadsPerSearchDirection; ++i) {
+        for (int i = 0; i < threadsPerSearchDirection; ++i) {
             forwardSearchThreads[i] = 
                     new ForwardSearchThread(forwardSearchState,
                                             sharedSearchState,
-                                            false,
                                             forwardSearchProgressLogger,
                                             i,
                                             apiUrlText);
@@ -132,22 +138,10 @@ extends AbstractWikipediaShortestPathFinder {
         final BackwardSearchThread[] backwardSearchThreads =
                 new BackwardSearchThread[threadsPerSearchDirection];
         
-        backwardSearchThreads[0] = 
-                new BackwardSearchThread(backwardSearchState, 
-                                         sharedSearchState, 
-                                         true, 
-                                         backwardSearchProgressLogger, 
-                                         forwardSearchThreads.length, 
-                                         apiUrlText);
-        
-        backwardSearchState.introduceThread(backwardSearchThreads[0]);
-        backwardSearchThreads[0].start();
-        
-        for (int i = 1; i < threadsPerSearchDirection; ++i) {
+        for (int i = 0; i < threadsPerSearchDirection; ++i) {
             backwardSearchThreads[i] = 
                     new BackwardSearchThread(backwardSearchState, 
                                              sharedSearchState,
-                                             false,
                                              backwardSearchProgressLogger, 
                                              forwardSearchThreads.length + i,
                                              apiUrlText);
@@ -177,6 +171,7 @@ extends AbstractWikipediaShortestPathFinder {
         }
         
         this.duration = System.currentTimeMillis() - this.duration;
+        sharedSearchState.rethrowFailure();
         this.numberOfExpandedNodes = 0;
         
         for (final ForwardSearchThread thread : forwardSearchThreads) {
@@ -187,7 +182,8 @@ extends AbstractWikipediaShortestPathFinder {
             this.numberOfExpandedNodes += thread.getNumberOfExpandedNodes();
         }
         
-        return sharedSearchState.getPath();
+        return redirectResolver.canonicalizePath(apiUrlText, 
+                                                 sharedSearchState.getPath());
     }
  
     /**
@@ -199,22 +195,14 @@ extends AbstractWikipediaShortestPathFinder {
          * This FIFO queue contains the queue of nodes reached but not yet 
          * expanded. It is called the <b>search frontier</b>.
          */
-        private final ConcurrentQueueWrapper queue = 
-                new ConcurrentQueueWrapper(new ArrayDeque<>());
-        
-        /**
-         * This map maps each discovered node to its predecessor on the shortest 
-         * path so far.
-         */
-        private final ConcurrentMapWrapper<String, String> parents = 
-                new ConcurrentMapWrapper<>();
+        private final ConcurrentLinkedQueue<String> queue = 
+                new ConcurrentLinkedQueue<>();
         
         /**
-         * This map maps each discovered node to its best distance from the 
-         * start node so far.
+         * This table maps each discovered node to its parent and its distance
+         * from the start node.
          */
-        private final ConcurrentMapWrapper<String, Integer> distance =
-                new ConcurrentMapWrapper<>();
+        private final VisitedTable visited = new VisitedTable();
         
         /**
          * Caches the total number of threads working on the search direction 
@@ -222,36 +210,48 @@ extends AbstractWikipediaShortestPathFinder {
          */
         private final int totalNumberOfThreads;
         
+        /**
+         * The maximum number of nodes a thread expands with a single request.
+         */
+        private final int expansionBatchSize;
+        
         /**
          * The set of all the threads working on this particular direction. 
-         * Contains the only master thread and all the slave threads spawned by
-         * the master thread.
          */
         private final Set<StoppableThread> runningThreadSet = 
                 Collections.<StoppableThread>
                         newSetFromMap(new ConcurrentHashMap<>());
         
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition frontierChanged = lock.newCondition();
+        
         /**
-         * The set of all <b>slave</b> threads that are currently sleeping.
+         * The number of threads parked on an empty frontier. Written only 
+         * under the lock, read without it by the enqueuing threads.
          */
-        private final Set<SleepingThread> sleepingThreadSet = 
-                Collections.<SleepingThread>
-                        newSetFromMap(new ConcurrentHashMap<>());
+        private volatile int idleThreadCount;
+        
+        /**
+         * Set once this search direction is over, either exhausted or asked
+         * to exit.
+         */
+        private boolean over;
         
         public SearchState(final String initialNode, 
-                           final int totalNumberOfThreads) {
+                           final int totalNumberOfThreads,
+                           final int expansionBatchSize) {
             this.totalNumberOfThreads = totalNumberOfThreads;
-            queue.enqueue(initialNode);
-            parents.put(initialNode, null);
-            distance.put(initialNode, 0);
+            this.expansionBatchSize   = expansionBatchSize;
+            visited.claim(initialNode, null, 0);
+            queue.add(initialNode);
         }
         
         int getTotalNumberOfThreads() {
             return totalNumberOfThreads;
         }
         
-        int getSleepingThreadCount() {
-            return sleepingThreadSet.size();
+        int getExpansionBatchSize() {
+            return expansionBatchSize;
         }
         
         /**
@@ -259,26 +259,17 @@ extends AbstractWikipediaShortestPathFinder {
          * 
          * @return the queue of the search frontier.
          */
-        ConcurrentQueueWrapper getQueue() {
+        ConcurrentLinkedQueue<String> getQueue() {
             return queue;
         }
         
         /**
-         * Returns the map mapping each node to its parent.
+         * Returns the table of the visited nodes.
          * 
-         * @return the parent map.
+         * @return the visited table.
          */
-        ConcurrentMapWrapper<String, String> getParentMap() {
-            return parents;
-        }
-        
-        /**
-         * Returns the map mapping each node to its best distance.
-         * 
-         * @return the distance map.
-         */
-        ConcurrentMapWrapper<String, Integer> getDistanceMap() {
-            return distance;
+        VisitedTable getVisitedTable() {
+            return visited;
         }
         
         /**
@@ -291,17 +282,65 @@ extends AbstractWikipediaShortestPathFinder {
             runningThreadSet.add(thread);
         }
         
-        void putThreadToSleep(final SleepingThread thread) {
-            sleepingThreadSet.add(thread);
-            thread.putThreadToSleep(true);
+        /**
+         * Adds {@code node} to the frontier and wakes up the parked threads, if
+         * any.
+         * 
+         * @param node the node to enqueue.
+         */
+        void enqueue(final String node) {
+            queue.add(node);
+            
+            // The node is in the queue before the idle count is read, and a 
+            // parking thread counts itself before it checks the queue, so 
+            // that either the parking thread sees the node or this thread 
+            // sees it parking:
+            if (idleThreadCount > 0) {
+                lock.lock();
+                
+                try {
+                    frontierChanged.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
         }
         
-        void wakeupAllThreads() {
-            for (final SleepingThread thread : sleepingThreadSet) {
-                thread.putThreadToSleep(false);
-            }
+        /**
+         * Parks the calling thread, which found the frontier empty, until the
+         * frontier becomes non-empty or this search direction is over. The 
+         * direction is exhausted once the last of its threads parks with the
+         * frontier empty, since only a busy thread may enqueue nodes.
+         * 
+         * @return {@code true} if the frontier may have nodes to expand, or
+         *         {@code false} if the calling thread should exit.
+         */
+        boolean awaitFrontier() {
+            lock.lock();
             
-            sleepingThreadSet.clear();
+            try {
+                ++idleThreadCount;
+                
+                while (!over) {
+                    if (!queue.isEmpty()) {
+                        --idleThreadCount;
+                        return true;
+                    }
+                    
+                    if (idleThreadCount == totalNumberOfThreads) {
+                        over = true;
+                        frontierChanged.signalAll();
+                        break;
+                    }
+                    
+                    frontierChanged.awaitUninterruptibly();
+                }
+                
+                --idleThreadCount;
+                return false;
+            } finally {
+                lock.unlock();
+            }
         }
         
         void removeThread(final StoppableThread thread) {
@@ -316,6 +355,15 @@ extends AbstractWikipediaShortestPathFinder {
             for (final StoppableThread thread : runningThreadSet) {
                 thread.requestThreadToExit();
             }
+            
+            lock.lock();
+            
+            try {
+                over = true;
+                frontierChanged.signalAll();
+            } finally {
+                lock.unlock();
+            }
         }
     }
     
@@ -337,16 +385,7 @@ extends AbstractWikipediaShortestPathFinder {
         }
     }
     
-    private abstract static class SleepingThread extends StoppableThread {
-        
-        protected volatile boolean sleepRequested;
-        
-        void putThreadToSleep(final boolean toSleep) {
-            this.sleepRequested = toSleep;
-        }
-    }
-    
-    private abstract static class SearchThread extends SleepingThread {
+    private abstract static class SearchThread extends StoppableThread {
         
         /**
          * The entire state of this search thread, shared possibly with other
@@ -359,11 +398,6 @@ extends AbstractWikipediaShortestPathFinder {
          */
         protected final SharedSearchState sharedSearchState;
         
-        /**
-         * Indicates whether this thread is a master or a slave thread.
-         */
-        protected final boolean isMasterThread;
-        
         /**
          * The progress logger.
          */
@@ -384,22 +418,24 @@ extends AbstractWikipediaShortestPathFinder {
          */
         protected final String apiUrlText;
         
+        /**
+         * The node this thread dequeued past the last node of the level of its
+         * last batch. It opens the next batch of this thread.
+         */
+        private String carriedNode;
+        
         /**
          * Constructs a new search thread.
          * 
          * @param searchState the state object.
-         * @param master      the boolean flag indicating whether this new 
-         *                    thread is a master or not.
          */
         SearchThread(final SearchState searchState, 
                      final SharedSearchState sharedSearchState,
-                     final boolean isMasterThread,
                      final ProgressLogger<String> searchProgressLogger,
                      final int id,
                      final String apiUrlText) {
             this.searchState          = searchState;
             this.sharedSearchState    = sharedSearchState;
-            this.isMasterThread       = isMasterThread;
             this.searchProgressLogger = searchProgressLogger;
             this.id                   = id;
             this.apiUrlText           = apiUrlText;
@@ -431,116 +467,139 @@ extends AbstractWikipediaShortestPathFinder {
             return searchState;
         }
         
+        @Override
+        public final void run() {
+            try {
+                expand();
+            } catch (final RuntimeException ex) {
+                // Wake up all the parked threads lest they wait for this one:
+                sharedSearchState.fail(ex);
+            }
+        }
+        
+        /**
+         * Expands the nodes of this search direction until the search is 
+         * over.
+         */
+        abstract void expand();
+        
         int getNumberOfExpandedNodes() {
             return numberOfExpandedNodes;
         }
+        
+        /**
+         * Removes at most {@code expansionBatchSize} nodes from the head of the
+         * frontier. All the removed nodes are at the same distance as the 
+         * first one; the first node of another level is carried over to the
+         * next batch of this thread.
+         * 
+         * @return the list of removed nodes, empty if the frontier is empty.
+         */
+        List<String> dequeueBatch() {
+            final ConcurrentLinkedQueue<String> queue = searchState.getQueue();
+            final VisitedTable visited = searchState.getVisitedTable();
+            final int maximumSize = searchState.getExpansionBatchSize();
+            final List<String> batch = new ArrayList<>(maximumSize);
+            
+            String node = carriedNode != null ? carriedNode : queue.poll();
+            carriedNode = null;
+            
+            if (node == null) {
+                return batch;
+            }
+            
+            final int level = visited.getDistance(node);
+            batch.add(node);
+            
+            while (batch.size() < maximumSize 
+                    && (node = queue.poll()) != null) {
+                if (visited.getDistance(node) != level) {
+                    carriedNode = node;
+                    break;
+                }
+                
+                batch.add(node);
+            }
+            
+            return batch;
+        }
     }
     
     /**
      * This class implements a search thread searching in forward direction.
      */
-    private static final class ForwardSearchThread extends SearchThread {
+    private final class ForwardSearchThread extends SearchThread {
 
         /**
          * Constructs a new forward search thread.
          * 
          * @param searchState the state object.
-         * @param master      the boolean flag indicating whether this search
-         *                    thread is a master or a slave thread.
          */
         ForwardSearchThread(
                 final SearchState searchState, 
                 final SharedSearchState sharedSearchState,
-                final boolean isMasterThread,
                 final ProgressLogger<String> searchProgressLogger,
                 final int id,
                 final String apiUrlText) {
             super(searchState, 
                   sharedSearchState,
-                  isMasterThread,
                   searchProgressLogger,
                   id,
                   apiUrlText);
         }
         
         @Override
-        public void run() {
-            final ConcurrentQueueWrapper QUEUE = searchState.getQueue();
-            final ConcurrentMapWrapper<String, String> PARENTS   = 
-                    searchState.getParentMap();
-            
-            final ConcurrentMapWrapper<String, Integer> DISTANCE = 
-                    searchState.getDistanceMap();
+        void expand() {
+            final VisitedTable VISITED = searchState.getVisitedTable();
             
             while (true) {
                 if (exit) {
                     return;
                 }
                 
-                if (sleepRequested) {
-                    // Only a slave thread may get here.
-                    mysleep(30);
-                    continue;
-                }
-                
-                String current = QUEUE.dequeue();
+                final List<String> batch = dequeueBatch();
                 
-                if (current == null) {
-                    if (isMasterThread) {
-                        int trials = 0;
-                        
-                        while (trials < 50) {
-                            mysleep(10);
-                            
-                            if ((current = QUEUE.dequeue()) != null) {
-                                break;
-                            }
-                            
-                            ++trials;
-                        }
-                        
-                        if (searchState.getSleepingThreadCount()
-                                == searchState.getTotalNumberOfThreads() - 1) {
-                            sharedSearchState.requestExit();
-                            return;
-                        } else {
-                            continue;
-                        }
-                    } else {
-                        // This thread is a slave thread, make it sleep:
-                        getSearchState().putThreadToSleep(this);
-                        putThreadToSleep(true);
-                        continue;
+                if (batch.isEmpty()) {
+                    if (!searchState.awaitFrontier()) {
+                        // Either this direction is exhausted, or the search
+                        // is over:
+                        sharedSearchState.requestExit();
+                        return;
                     }
-                } else if (!QUEUE.isEmpty()) {
-                    searchState.wakeupAllThreads();
-                }
-                
-                if (searchProgressLogger != null) {
-                    searchProgressLogger.onExpansion(current);
+                    
+                    continue;
                 }
-             
-                sharedSearchState.updateFromForwardDirection(current);
                 
-                if (sharedSearchState.pathIsOptimal(current)) {
-                    sharedSearchState.requestExit();
-                    return;
+                for (final String current : batch) {
+                    if (searchProgressLogger != null) {
+                        searchProgressLogger.onExpansion(current);
+                    }
+                    
+                    sharedSearchState.updateFromForwardDirection(current);
+                    
+                    if (sharedSearchState.pathIsOptimal(current)) {
+                        sharedSearchState.requestExit();
+                        return;
+                    }
                 }
                 
-                numberOfExpandedNodes++;
+                numberOfExpandedNodes += batch.size();
                 
-                for (final String child : 
-                        getChildArticles(apiUrlText, current)) {
-                    if (!PARENTS.containsKey(child)) {
-                        PARENTS.put(child, current);
-                        DISTANCE.put(child, DISTANCE.get(current) + 1);
-                        QUEUE.enqueue(child);
-                        
+                // Each page of links lands in the frontier as soon as it is 
+                // parsed so that the parked threads may start expanding it
+                // while this thread is still paging through a large hub:
+                forEachChildArticle(apiUrlText, batch, (current, child) -> {
+                    // Only the thread claiming the node enqueues it:
+                    if (VISITED.claim(child, 
+                                      current, 
+                                      VISITED.getDistance(current) + 1)) {
+                        searchState.enqueue(child);
+
                         if (searchProgressLogger != null) {
                             searchProgressLogger.onNeighborGeneration(child);
                         }
                     }
-                }
+                });
             }
         }
     }
@@ -548,107 +607,77 @@ extends AbstractWikipediaShortestPathFinder {
     /**
      * This class implements a search thread searching in backward direction.
      */
-    private static final class BackwardSearchThread extends SearchThread {
+    private final class BackwardSearchThread extends SearchThread {
 
         /**
          * Constructs a new backward search thread.
          * 
          * @param searchState the state object.
-         * @param master      the boolean flag indicating whether this search
-         *                    thread is a master or a slave thread.
          */
         BackwardSearchThread(final SearchState searchState, 
                              final SharedSearchState sharedSearchState,
-                             final boolean isMasterThread,
                              final ProgressLogger progressLogger,
                              final int id,
                              final String apiUrlText) {
             super(searchState, 
                   sharedSearchState,
-                  isMasterThread,
                   progressLogger,
                   id,
                   apiUrlText);
         }
         
         @Override
-        public void run() {
-            final ConcurrentQueueWrapper QUEUE = searchState.getQueue();
-            final ConcurrentMapWrapper<String, String> PARENTS = 
-                    searchState.getParentMap();
-            
-            final ConcurrentMapWrapper<String, Integer> DISTANCE = 
-                    searchState.getDistanceMap();
+        void expand() {
+            final VisitedTable VISITED = searchState.getVisitedTable();
             
             while (true) {
                 if (exit) {
                     return;
                 }
                 
-                if (sleepRequested) {
-                    // Only a slave thread may get here.
-                    mysleep(30);
-                    continue;
-                }
+                final List<String> batch = dequeueBatch();
                 
-                String current = QUEUE.dequeue();
-                
-                if (current == null) {
-                    if (isMasterThread) {
-                        
-                        int trials = 0;
-                        
-                        while (trials < 50) {
-                            mysleep(10);
-                            
-                            if ((current = QUEUE.dequeue()) != null) {
-                                break;
-                            }
-                            
-                            ++trials;
-                        }
-                        
-                        if (searchState.getSleepingThreadCount()
-                                == searchState.getTotalNumberOfThreads() - 1) {
-                            sharedSearchState.requestExit();
-                            return;
-                        } else {
-                            continue;
-                        }
-                    } else {
-                        // This thread is a slave thread, make it sleep:
-                        getSearchState().putThreadToSleep(this);
-                        putThreadToSleep(true);
-                        continue;
+                if (batch.isEmpty()) {
+                    if (!searchState.awaitFrontier()) {
+                        // Either this direction is exhausted, or the search
+                        // is over:
+                        sharedSearchState.requestExit();
+                        return;
                     }
-                } else if (!QUEUE.isEmpty()) {
-                    searchState.wakeupAllThreads();
-                }
-                
-                if (searchProgressLogger != null) {
-                    searchProgressLogger.onExpansion(current);
+                    
+                    continue;
                 }
                 
-                sharedSearchState.updateFromBackwardDirection(current);
-                
-                if (sharedSearchState.pathIsOptimal(current)) {
-                    sharedSearchState.requestExit();
-                    return;
+                for (final String current : batch) {
+                    if (searchProgressLogger != null) {
+                        searchProgressLogger.onExpansion(current);
+                    }
+                    
+                    sharedSearchState.updateFromBackwardDirection(current);
+                    
+                    if (sharedSearchState.pathIsOptimal(current)) {
+                        sharedSearchState.requestExit();
+                        return;
+                    }
                 }
                 
-                numberOfExpandedNodes++;
+                numberOfExpandedNodes += batch.size();
                 
-                for (final String parent : getParentArticles(apiUrlText, current)) {
-                    if (!PARENTS.containsKey(parent)) {
-                        PARENTS.put(parent, current);
-                        DISTANCE.put(parent, DISTANCE.get(current) + 1);
-                        QUEUE.enqueue(parent);
-                        
+                // Each page of links lands in the frontier as soon as it is 
+                // parsed so that the parked threads may start expanding it
+                // while this thread is still paging through a large hub:
+                forEachParentArticle(apiUrlText, batch, (current, parent) -> {
+                    // Only the thread claiming the node enqueues it:
+                    if (VISITED.claim(parent, 
+                                      current, 
+                                      VISITED.getDistance(current) + 1)) {
+                        searchState.enqueue(parent);
+
                         if (searchProgressLogger != null) {
                             searchProgressLogger.onNeighborGeneration(parent);
                         }
                     }
-                }
+                });
             }
         }
     }
@@ -671,210 +700,101 @@ extends AbstractWikipediaShortestPathFinder {
         /**
          * The state of all the forward search threads.
          */
-        private SearchState searchStateForward;
+        private final SearchState searchStateForward;
         
         /**
          * The state of all the backward search threads.
          */
-        private SearchState searchStateBackward;
+        private final SearchState searchStateBackward;
         
         /**
-         * Caches the best known length from the source to the target nodes.
+         * Keeps track of the best meeting of the two search frontiers.
          */
-        private volatile int bestPathLengthSoFar = Integer.MAX_VALUE;
+        private final MeetingTracker meetingTracker;
         
         /**
-         * The best search frontier touch node so far.
-         */
-        private volatile String touchNode;
-        
-        /**
-         * Caches whether the shortest path was found.
+         * The progress logger for reporting the progress.
          */
-        private boolean pathIsFound;
+        private final ProgressLogger<String> sharedProgressLogger;
         
         /**
-         * The progress logger for reporting the progress.
+         * The first failure of a search thread, if any.
          */
-        private final ProgressLogger<String> sharedProgressLogger;
+        private final AtomicReference<RuntimeException> failure = 
+                new AtomicReference<>();
         
         SharedSearchState(final String source,
                           final String target,
+                          final SearchState searchStateForward,
+                          final SearchState searchStateBackward,
                           final ProgressLogger<String> sharedProgressLogger) {
             this.source = source;
             this.target = target;
+            this.searchStateForward  = searchStateForward;
+            this.searchStateBackward = searchStateBackward;
+            this.meetingTracker = 
+                    new MeetingTracker(searchStateForward.getVisitedTable(),
+                                       searchStateBackward.getVisitedTable());
             this.sharedProgressLogger = sharedProgressLogger;
         }
         
-        void setForwardSearchState(final SearchState searchStateForward) {
-            this.searchStateForward = searchStateForward;
-        }
-        
-        void setBackwardSearchState(final SearchState searchStateBackward) {
-            this.searchStateBackward = searchStateBackward;
+        void updateFromForwardDirection(final String current) {
+            meetingTracker.update(current);
         }
         
-        synchronized void updateFromForwardDirection(final String current) {
-            if (searchStateBackward.getDistanceMap().containsKey(current)
-                    && searchStateForward.getDistanceMap()
-                                         .containsKey(current)) {
-                final int currentDistance = 
-                        searchStateForward .getDistanceMap().get(current) +
-                        searchStateBackward.getDistanceMap().get(current);
-                
-                if (bestPathLengthSoFar > currentDistance) {
-                    bestPathLengthSoFar = currentDistance;
-                    touchNode = current;
-                }
-            }
+        void updateFromBackwardDirection(final String current) {
+            meetingTracker.update(current);
         }
         
-        synchronized void updateFromBackwardDirection(final String current) {
-            if (searchStateForward.getDistanceMap().containsKey(current)
-                    && searchStateBackward.getDistanceMap()
-                                          .containsKey(current)) {
-                final int currentDistance = 
-                        searchStateForward .getDistanceMap().get(current) +
-                        searchStateBackward.getDistanceMap().get(current);
-                
-                if (bestPathLengthSoFar > currentDistance) {
-                    bestPathLengthSoFar = currentDistance;
-                    touchNode = current;
-                }
-            }
-        }
-        
-        synchronized boolean pathIsOptimal(final String node) {
-            if (touchNode == null) {
-                // Once here, the two search trees did not meet each other yet.
-                return false;
-            }
-            
-            if (!searchStateForward.getDistanceMap().containsKey(node)) {
-                // The forward search did not reach the node 'node' yet.
-                return false;
-            }
-            
-            if (!searchStateBackward.getDistanceMap().containsKey(node)) {
-                // The backward search did not reach the node 'node' yet.
-                return false;
-            }
-            
-            final int distance = 
-                    searchStateForward .getDistanceMap().get(node) +
-                    searchStateBackward.getDistanceMap().get(node);
-            
-            if (distance > bestPathLengthSoFar) {
-                searchStateForward .requestThreadsToExit();
-                searchStateBackward.requestThreadsToExit();
-                pathIsFound = true;
-                
+        boolean pathIsOptimal(final String node) {
+            if (meetingTracker.isBeaten(node)) {
+                requestExit();
                 return true;
             }
             
             return false;
         }
         
-        synchronized void requestExit() {
+        void requestExit() {
             searchStateForward .requestThreadsToExit();
             searchStateBackward.requestThreadsToExit();
         }
         
-        synchronized List<String> getPath() {
-            if (!pathIsFound) {
-                if (sharedProgressLogger != null) {
-                    sharedProgressLogger.onTargetUnreachable(source, target);
-                }
-                
-                return new ArrayList<>();
-            }
-            
-            final ConcurrentMapWrapper<String, String> parentMapForward = 
-                    searchStateForward.getParentMap();
-            
-            final ConcurrentMapWrapper<String, String> parentMapBackward = 
-                    searchStateBackward.getParentMap();
-            
-            final List<String> path = new ArrayList<>();
-            
-            String current = touchNode;
+        /**
+         * Records the failure of a search thread and terminates the search.
+         * 
+         * @param ex the failure.
+         */
+        void fail(final RuntimeException ex) {
+            failure.compareAndSet(null, ex);
+            requestExit();
+        }
+        
+        /**
+         * Rethrows the first failure of the search threads, if any.
+         */
+        void rethrowFailure() {
+            final RuntimeException ex = failure.get();
             
-            while (current != null) {
-                path.add(current);
-                current = parentMapForward.get(current);
+            if (ex != null) {
+                throw ex;
             }
+        }
+        
+        List<String> getPath() {
+            // A direction running out of nodes after the frontiers met leaves
+            // the best meeting in place:
+            final List<String> path = meetingTracker.getPath();
             
-            Collections.<String>reverse(path);
-            current = parentMapBackward.get(touchNode);
-            
-            while (current != null) {
-                path.add(current);
-                current = parentMapBackward.get(current);
-            }
-
             if (sharedProgressLogger != null) {
-                sharedProgressLogger.onShortestPath(path);
+                if (path.isEmpty()) {
+                    sharedProgressLogger.onTargetUnreachable(source, target);
+                } else {
+                    sharedProgressLogger.onShortestPath(path);
+                }
             }
             
             return path;
         }
     }
-    
-    private static final class ConcurrentMapWrapper<K, V> {
-        
-        private final Map<K, V> map = new HashMap<>();
-        
-        synchronized boolean containsKey(final K key) {
-            return map.containsKey(key);
-        }
-        
-        // Unlike java.util.concurrent.ConcurrentHashMap, this map wrapper 
-        // allows 'null' values:
-        synchronized void put(final K key, final V value) {
-            map.put(key, value);
-        }
-        
-        synchronized V get(final K key) {
-            return map.get(key);
-        }
-    }
-    
-    private static final class ConcurrentQueueWrapper {
-        
-        private final Deque<String> queue;
-        
-        ConcurrentQueueWrapper(final Deque<String> queue) {
-            this.queue = queue;
-        }
-        
-        synchronized String dequeue() {
-            if (queue.isEmpty()) {
-                return null;
-            }
-            
-            return queue.removeFirst();
-        }
-        
-        synchronized void enqueue(final String node) {
-            queue.addLast(node);
-        }
-        
-        synchronized boolean isEmpty() {
-            return queue.isEmpty();
-        }
-    }
-    
-    /**
-     * This method puts the calling thread to sleep for {@code milliseconds}
-     * milliseconds.
-     * 
-     * @param milliseconds the number of milliseconds to sleep for.
-     */
-    private static void mysleep(final int milliseconds) {
-        try {
-            Thread.sleep(milliseconds);
-        } catch (final InterruptedException ex) {
-            
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package net.coderodde.wikipedia.sp.support;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class implements the table of the nodes visited by a search direction
+ * expanded by many threads at a time. A node is claimed once: the first
+ * thread to reach it sets its parent and distance, and the later ones leave
+ * them be.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61
+ */
+final class VisitedTable {
+
+    private final ConcurrentHashMap<String, Visit> map =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Claims {@code node} for the calling thread unless it is visited
+     * already.
+     *
+     * @param node     the node to claim.
+     * @param parent   the parent of the node.
+     * @param distance the distance of the node.
+     * @return {@code true} if the node was claimed by this call.
+     */
+    boolean claim(final String node,
+                  final String parent,
+                  final int distance) {
+        return map.putIfAbsent(node, new Visit(parent, distance)) == null;
+    }
+
+    Visit get(final String node) {
+        return map.get(node);
+    }
+
+    int getDistance(final String node) {
+        return map.get(node).distance;
+    }
+
+    String getParent(final String node) {
+        final Visit visit = map.get(node);
+        return visit == null ? null : visit.parent;
+    }
+
+    /**
+     * The parent and the distance of a visited node. The parent of the start
+     * node is {@code null}.
+     */
+    static final class Visit {
+
+        final String parent;
+        final int distance;
+
+        Visit(final String parent, final int distance) {
+            this.parent   = parent;
+            this.distance = distance;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package net.coderodde.wikipedia.sp;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import net.coderodde.wikipedia.sp.cache.NeighborCache;
+import net.coderodde.wikipedia.sp.cache.NeighborKey;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class AbstractWikipediaShortestPathFinderTest {
+
+    private static final String API_URL = "http://stub/w/api.php";
+
+    @Test(timeout = 5000L)
+    public void testCallerMissingCompletedFlightDoesNotRefetch()
+    throws InterruptedException {
+        StubWikipediaTransport transport = new StubWikipediaTransport(10);
+        transport.addArcs("A", "B", "C");
+        GatedNeighborCache cache = new GatedNeighborCache();
+        NeighborFetcher finder = new NeighborFetcher(transport);
+        finder.setNeighborCache(cache);
+        AtomicReference<List<String>> lateNeighbors = new AtomicReference<>();
+
+        Thread lateThread = new Thread(() ->
+                lateNeighbors.set(finder.getChildArticles(API_URL, "A")));
+        cache.gatedThread = lateThread;
+        lateThread.start();
+
+        // The late thread misses the cache, and the leader fetches the list
+        // and completes its flight before the late thread looks for it:
+        cache.missed.await();
+        assertEquals(Arrays.asList("B", "C"),
+                     finder.getChildArticles(API_URL, "A"));
+        cache.released.countDown();
+        lateThread.join();
+
+        assertEquals(Arrays.asList("B", "C"), lateNeighbors.get());
+        // One request for the links and one resolving "B" and "C":
+        assertEquals(2, transport.getRequestCount());
+    }
+
+    @Test
+    public void testChildRedirectsAreCollapsedOnce() {
+        StubWikipediaTransport transport = new StubWikipediaTransport(10);
+        transport.addRedirect("R", "B")
+                 .addArcs("A", "R", "C")
+                 .addArcs("D", "C", "R")
+                 .addArcs("B", "E");
+        NeighborFetcher finder = new NeighborFetcher(transport);
+        finder.setNeighborCache(null);
+
+        assertEquals(Arrays.asList("B", "C"),
+                     finder.getChildArticles(API_URL, "A"));
+        assertEquals(2, transport.getRequestCount());
+
+        // Both targets are resolved by now:
+        assertEquals(Arrays.asList("C", "B"),
+                     finder.getChildArticles(API_URL, "D"));
+        assertEquals(3, transport.getRequestCount());
+    }
+
+    @Test
+    public void testRootLinksAreNotLearned() {
+        StubWikipediaTransport transport = new StubWikipediaTransport(10);
+        transport.addArcs("Source", "A", "B", "C", "D", "E", "F")
+                 .addArcs("A", "B", "C");
+        NeighborFetcher finder = new NeighborFetcher(transport);
+        finder.setNeighborCache(null);
+        finder.beginSearch("Source", "Target");
+
+        finder.getChildArticles(API_URL, "Source");
+        finder.getChildArticles(API_URL, "A");
+
+        assertEquals(2.0,
+                     finder.getFetchCostModel().getLinksPerNode(true),
+                     0.0);
+    }
+
+    /**
+     * Exposes the neighbor function of the finders.
+     */
+    private static final class NeighborFetcher
+    extends AbstractWikipediaShortestPathFinder {
+
+        NeighborFetcher(StubWikipediaTransport transport) {
+            super(transport);
+        }
+
+        @Override
+        public List<String> search(String sourceTitle,
+                                   String targetTitle,
+                                   String apiUrlText,
+                                   ProgressLogger<String> forwardLogger,
+                                   ProgressLogger<String> backwardLogger,
+                                   ProgressLogger<String> sharedLogger) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Holds the first miss of the gated thread until released.
+     */
+    private static final class GatedNeighborCache implements NeighborCache {
+
+        final Map<NeighborKey, List<String>> map = new ConcurrentHashMap<>();
+        final CountDownLatch missed = new CountDownLatch(1);
+        final CountDownLatch released = new CountDownLatch(1);
+        volatile Thread gatedThread;
+
+        @Override
+        public List<String> get(NeighborKey key) {
+            List<String> neighbors = map.get(key);
+
+            if (neighbors == null
+                    && Thread.currentThread() == gatedThread
+                    && missed.getCount() > 0) {
+                missed.countDown();
+
+                try {
+                    released.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            return neighbors;
+        }
+
+        @Override
+        public void put(NeighborKey key, List<String> neighbors) {
+            map.put(key, neighbors);
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+
+        @Override
+        public long getHitCount() {
+            return 0L;
+        }
+
+        @Override
+        public long getMissCount() {
+            return 0L;
+        }
+    }
+}
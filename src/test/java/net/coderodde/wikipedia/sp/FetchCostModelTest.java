@@ -0,0 +1,122 @@
+package net.coderodde.wikipedia.sp;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class FetchCostModelTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void testLearnsWithinSearch() {
+        FetchCostModel model = new FetchCostModel(0.5);
+        model.record(true, 10, 1);
+        model.learn();
+
+        assertFalse(model.preferForward(2, 1, 10));
+
+        // The hub fetched just now counts at once:
+        model.record(false, 2, 9);
+
+        assertEquals(4.0, model.getExtraRequestsPerNode(false), DELTA);
+        assertTrue(model.preferForward(2, 1, 10));
+
+        model.learn();
+
+        assertEquals(4.0, model.getExtraRequestsPerNode(false), DELTA);
+    }
+
+    @Test
+    public void testLearnsOnlyWhenSearchEndsIfAskedTo() {
+        FetchCostModel model = new FetchCostModel(1.0, false);
+        model.record(false, 2, 9);
+
+        assertEquals(0.0, model.getExtraRequestsPerNode(false), DELTA);
+
+        model.learn();
+
+        assertEquals(4.0, model.getExtraRequestsPerNode(false), DELTA);
+    }
+
+    @Test
+    public void testUnsampledDirectionTakesOtherEstimate() {
+        FetchCostModel model = new FetchCostModel(1.0);
+        model.record(false, 2, 9);
+        model.learn();
+
+        assertEquals(4.0, model.getExtraRequestsPerNode(true), DELTA);
+        assertEquals(4.0, model.getExtraRequestsPerNode(false), DELTA);
+
+        model.record(true, 10, 2);
+        model.learn();
+
+        assertEquals(0.1, model.getExtraRequestsPerNode(true), DELTA);
+        assertEquals(4.0, model.getExtraRequestsPerNode(false), DELTA);
+    }
+
+    @Test
+    public void testPrefersCheaperFrontier() {
+        FetchCostModel model = new FetchCostModel(0.5);
+
+        // No extra requests yet: the smaller frontier wins, a tie goes
+        // forward.
+        assertTrue(model.preferForward(3, 3, 10));
+        assertFalse(model.preferForward(4, 3, 10));
+
+        model.record(true, 10, 1);
+        model.record(false, 10, 10);
+        model.learn();
+
+        // 0.1 requests per node forward, 1.0 backward:
+        assertEquals(1.0, model.estimateCost(true, 10, 10), DELTA);
+        assertEquals(1.0, model.estimateCost(false, 1, 10), DELTA);
+        assertTrue(model.preferForward(10, 1, 10));
+        assertFalse(model.preferForward(11, 1, 10));
+    }
+
+    @Test
+    public void testPrefersFrontierWithFewerLinks() {
+        FetchCostModel model = new FetchCostModel(1.0);
+        model.record(true, 10, 1);
+        model.record(false, 10, 1);
+        model.recordLinks(true, 10, 100);
+        model.recordLinks(false, 10, 1000);
+
+        // One request per 10 nodes either way, but the backward nodes link
+        // to ten times as many:
+        assertEquals(10.0, model.getLinksPerNode(true), DELTA);
+        assertEquals(100.0, model.getLinksPerNode(false), DELTA);
+        assertEquals(1.1, model.estimateCost(true, 1, 10), DELTA);
+        assertEquals(10.1, model.estimateCost(false, 1, 10), DELTA);
+        assertTrue(model.preferForward(9, 1, 10));
+        assertFalse(model.preferForward(10, 1, 10));
+    }
+
+    @Test
+    public void testHubWeighsAsSingleNode() {
+        FetchCostModel model = new FetchCostModel(0.5);
+        model.record(false, 50, 1);
+        model.record(false, 1, 11);
+        model.learn();
+
+        assertEquals(10.0 / 51.0, model.getExtraRequestsPerNode(false), DELTA);
+    }
+
+    @Test
+    public void testZeroSmoothingKeepsFrontierSizes() {
+        FetchCostModel model = new FetchCostModel(0.0);
+        model.record(true, 50, 1);
+        model.record(false, 1, 100);
+        model.learn();
+
+        assertEquals(model.estimateCost(true, 5, 50),
+                     model.estimateCost(false, 5, 50),
+                     DELTA);
+        assertFalse(model.preferForward(2, 1, 50));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsInvalidSmoothing() {
+        new FetchCostModel(1.5);
+    }
+}
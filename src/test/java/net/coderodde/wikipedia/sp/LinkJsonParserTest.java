@@ -0,0 +1,94 @@
+package net.coderodde.wikipedia.sp;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LinkJsonParserTest {
+
+    private final List<String> links = new ArrayList<>();
+
+    private String parse(List<String> titles, String json) throws IOException {
+        LinkJsonParser parser = new LinkJsonParser(titles, "links");
+        return parser.parse(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+                (title, link) -> links.add(title + ">" + link));
+    }
+
+    @Test
+    public void testParsesPagesObjectWithContinuation() throws IOException {
+        String continuation = parse(Arrays.asList("A_b", "C"),
+                "{\"continue\":{\"plcontinue\":\"1|0|X y\",\"continue\":\"||\"}," +
+                "\"query\":{\"normalized\":[{\"from\":\"A_b\",\"to\":\"A b\"}]," +
+                "\"pages\":{\"1\":{\"pageid\":1,\"ns\":0,\"title\":\"A b\"," +
+                "\"links\":[{\"ns\":0,\"title\":\"Caf\\u00e9 x\"}," +
+                "{\"ns\":4,\"title\":\"Wikipedia:About\"}]}," +
+                "\"2\":{\"links\":[{\"ns\":0,\"title\":\"D\"}],\"title\":\"C\"}}}}");
+
+        assertEquals("&plcontinue=1%7C0%7CX+y&continue=%7C%7C", continuation);
+        assertEquals(Arrays.asList("A_b>Café_x", "C>D"), links);
+    }
+
+    @Test
+    public void testParsesPagesArray() throws IOException {
+        assertNull(parse(Arrays.asList("A"),
+                "{\"batchcomplete\":true,\"query\":{\"pages\":[{\"title\":\"A\"," +
+                "\"links\":[{\"ns\":0,\"title\":\"Å ☺\"}]}]}}"));
+        assertEquals(Arrays.asList("A>Å_☺"), links);
+    }
+
+    @Test(expected = IOException.class)
+    public void testThrowsOnApiError() throws IOException {
+        parse(Arrays.asList("A"),
+              "{\"error\":{\"code\":\"maxlag\",\"info\":\"Waiting\"}}");
+    }
+
+    @Test(expected = IOException.class)
+    public void testThrowsOnMalformedResponse() throws IOException {
+        parse(Arrays.asList("A"), "{\"query\":{\"pages\":[{\"title\":\"A\"");
+    }
+
+    @Test
+    public void testArticlesOnlyFastPath() throws IOException {
+        LinkJsonParser parser = new LinkJsonParser(Arrays.asList("A"), 
+                                                   "linkshere", 
+                                                   true);
+        String json = "{\"query\":{\"pages\":[{\"title\":\"A\"," +
+                      "\"linkshere\":[{\"ns\":0,\"title\":\"B c\"}," +
+                      "{\"title\":\"D\",\"ns\":0}]}]}}";
+
+        parser.parse(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+                (title, link) -> links.add(title + ">" + link));
+
+        assertEquals(Arrays.asList("A>B_c", "A>D"), links);
+    }
+
+    @Test
+    public void testReportsRedirectsAndBacklinksFromRedirects() 
+    throws IOException {
+        LinkJsonParser parser = new LinkJsonParser(Arrays.asList("Old", "A"), 
+                                                   "linkshere", 
+                                                   true);
+        List<String> redirectLinks = new ArrayList<>();
+        String json = "{\"query\":{\"redirects\":[{\"from\":\"Old\"," +
+                      "\"to\":\"New x\"}],\"pages\":[{\"title\":\"New x\"," +
+                      "\"linkshere\":[{\"title\":\"R\",\"redirect\":true}," +
+                      "{\"title\":\"B\"}]},{\"title\":\"A\"," +
+                      "\"linkshere\":[{\"title\":\"C\",\"redirect\":false}]}]}}";
+
+        parser.parse(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+                (title, link) -> links.add(title + ">" + link),
+                (title, link) -> redirectLinks.add(title + ">" + link));
+
+        assertEquals(Arrays.asList("Old>B", "A>C"), links);
+        assertEquals(Arrays.asList("Old>R"), redirectLinks);
+        assertEquals("New_x", parser.getRedirects().get("Old"));
+    }
+}
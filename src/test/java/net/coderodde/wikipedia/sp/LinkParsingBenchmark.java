@@ -0,0 +1,158 @@
+package net.coderodde.wikipedia.sp;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the garbage and time per expanded hub page of the former Gson 
+ * document tree extraction against the streaming {@link LinkJsonParser}, 
+ * both on a verbose response and on a lean one filtered by the server. 
+ * Run with
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=net.coderodde.wikipedia.sp.LinkParsingBenchmark
+ * </pre>
+ * and compare the {@code gc.alloc.rate.norm} (bytes per operation) columns.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinkParsingBenchmark {
+
+    private static final String TITLE = "Hub";
+
+    /**
+     * The number of links on the benchmarked response page.
+     */
+    @Param({"500", "5000"})
+    public int links;
+
+    private byte[] response;
+
+    /**
+     * The same page in the shape of {@link ApiRequestProfile#LEAN}: no 
+     * namespace other than 0 and the pages in an array.
+     */
+    private byte[] leanResponse;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"batchcomplete\":\"\",\"query\":{\"pages\":{\"12\":{")
+          .append("\"pageid\":12,\"ns\":0,\"title\":\"" + TITLE + "\",")
+          .append("\"links\":[");
+
+        for (int i = 0; i < links; ++i) {
+            if (i > 0) {
+                sb.append(',');
+            }
+
+            // Every tenth link points outside the article namespace.
+            sb.append("{\"ns\":")
+              .append(i % 10 == 0 ? 14 : 0)
+              .append(",\"title\":\"Linked article number ")
+              .append(i)
+              .append("\"}");
+        }
+
+        sb.append("]}}}}");
+        response = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+        sb.setLength(0);
+        sb.append("{\"batchcomplete\":true,\"query\":{\"pages\":[{")
+          .append("\"pageid\":12,\"ns\":0,\"title\":\"" + TITLE + "\",")
+          .append("\"links\":[");
+
+        for (int i = 0; i < links; ++i) {
+            if (i % 10 == 0) {
+                continue;
+            }
+
+            if (sb.charAt(sb.length() - 1) != '[') {
+                sb.append(',');
+            }
+
+            sb.append("{\"ns\":0,\"title\":\"Linked article number ")
+              .append(i)
+              .append("\"}");
+        }
+
+        sb.append("]}]}}");
+        leanResponse = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void documentTree(Blackhole blackhole) throws IOException {
+        String jsonText = IOUtils.toString(new ByteArrayInputStream(response),
+                                           StandardCharsets.UTF_8);
+        JsonObject root = new JsonParser().parse(jsonText).getAsJsonObject();
+        JsonObject pagesObject = root.get("query")
+                                     .getAsJsonObject()
+                                     .get("pages")
+                                     .getAsJsonObject();
+        JsonArray linkArray = pagesObject.entrySet()
+                                         .iterator()
+                                         .next()
+                                         .getValue()
+                                         .getAsJsonObject()
+                                         .get("links")
+                                         .getAsJsonArray();
+
+        linkArray.forEach((element) -> {
+            if (element.getAsJsonObject().get("ns").getAsInt() == 0) {
+                blackhole.consume(Miscellanea.encodeWikipediaStyle(
+                        element.getAsJsonObject().get("title").getAsString()));
+            }
+        });
+    }
+
+    @Benchmark
+    public void streaming(Blackhole blackhole) throws IOException {
+        List<String> titles = Collections.singletonList(TITLE);
+        new LinkJsonParser(titles, "links")
+                .parse(new ByteArrayInputStream(response), 
+                       (title, link) -> blackhole.consume(link));
+    }
+
+    @Benchmark
+    public void streamingLean(Blackhole blackhole) throws IOException {
+        List<String> titles = Collections.singletonList(TITLE);
+        new LinkJsonParser(titles, "links", true)
+                .parse(new ByteArrayInputStream(leanResponse), 
+                       (title, link) -> blackhole.consume(link));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LinkParsingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,232 @@
+package net.coderodde.wikipedia.sp;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.coderodde.wikipedia.sp.http.HttpResponse;
+import net.coderodde.wikipedia.sp.http.HttpTransport;
+
+/**
+ * This class implements a transport answering the link queries of the 
+ * finders from an in-memory article graph in the same shape as the Wikipedia
+ * API does. The link lists are paged with {@code pageSize} links per 
+ * response.
+ */
+public class StubWikipediaTransport implements HttpTransport {
+
+    private final Map<String, List<String>> childMap = new HashMap<>();
+    private final Map<String, List<String>> parentMap = new HashMap<>();
+    private final Map<String, String> redirectMap = new HashMap<>();
+    private final int pageSize;
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    public StubWikipediaTransport(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Adds the arcs from {@code tail} to each of {@code heads}.
+     * 
+     * @param tail  the linking article.
+     * @param heads the linked articles.
+     * @return this transport.
+     */
+    public StubWikipediaTransport addArcs(String tail, String... heads) {
+        childMap.computeIfAbsent(tail, (t) -> new ArrayList<>())
+                .addAll(Arrays.asList(heads));
+
+        for (String head : heads) {
+            parentMap.computeIfAbsent(head, (h) -> new ArrayList<>())
+                     .add(tail);
+        }
+
+        return this;
+    }
+
+    /**
+     * Adds a redirect page {@code from} leading to {@code to}.
+     * 
+     * @param from the redirect title.
+     * @param to   the target title.
+     * @return this transport.
+     */
+    public StubWikipediaTransport addRedirect(String from, String to) {
+        redirectMap.put(from, to);
+        return addArcs(from, to);
+    }
+
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    @Override
+    public HttpResponse get(String url) throws IOException {
+        requestCount.incrementAndGet();
+        Map<String, String> parameters = parseParameters(url);
+        boolean forward = "links".equals(parameters.get("prop"));
+        boolean resolveOnly = !parameters.containsKey("prop");
+        boolean formatVersion2 = "2".equals(parameters.get("formatversion"));
+        boolean followRedirects = "1".equals(parameters.get("redirects"));
+        boolean skipRedirectLinks = "!redirect".equals(parameters.get("lhshow"));
+        boolean flagRedirectLinks = !forward && 
+                parameters.getOrDefault("lhprop", "").contains("redirect");
+        String continueKey = forward ? "plcontinue" : "lhcontinue";
+        Map<String, List<String>> linkMap = forward ? childMap : parentMap;
+        List<String> titles = 
+                Arrays.asList(parameters.get("titles").split("\\|"));
+
+        int offset = parameters.containsKey(continueKey) ?
+                     Integer.parseInt(parameters.get(continueKey)) :
+                     0;
+
+        JsonObject root = new JsonObject();
+        JsonObject query = new JsonObject();
+        JsonArray normalized = new JsonArray();
+        JsonArray redirects = new JsonArray();
+        Map<String, JsonObject> pages = new LinkedHashMap<>();
+        Map<String, JsonObject> pageByTitle = new HashMap<>();
+        int index = 0;
+        int pageId = 1;
+
+        for (String title : titles) {
+            String displayTitle = title.replace('_', ' ');
+
+            if (!displayTitle.equals(title)) {
+                JsonObject normalization = new JsonObject();
+                normalization.addProperty("from", title);
+                normalization.addProperty("to", displayTitle);
+                normalized.add(normalization);
+            }
+
+            if (followRedirects && redirectMap.containsKey(title)) {
+                String target = redirectMap.get(title);
+                JsonObject redirect = new JsonObject();
+                redirect.addProperty("from", displayTitle);
+                redirect.addProperty("to", target.replace('_', ' '));
+                redirects.add(redirect);
+                title = target;
+                displayTitle = target.replace('_', ' ');
+            }
+
+            if (pageByTitle.containsKey(title)) {
+                continue;
+            }
+
+            JsonObject page = new JsonObject();
+            page.addProperty("ns", 0);
+            page.addProperty("title", displayTitle);
+            pageByTitle.put(title, page);
+
+            if (!childMap.containsKey(title) && 
+                    !parentMap.containsKey(title)) {
+                if (formatVersion2) {
+                    page.addProperty("missing", true);
+                } else {
+                    page.addProperty("missing", "");
+                }
+
+                pages.put("-" + pageId++, page);
+                continue;
+            }
+
+            pages.put(Integer.toString(pageId++), page);
+
+            if (resolveOnly) {
+                continue;
+            }
+
+            JsonArray links = new JsonArray();
+
+            for (String link : linkMap.getOrDefault(title, 
+                                                    Collections.emptyList())) {
+                if (skipRedirectLinks && redirectMap.containsKey(link)) {
+                    continue;
+                }
+
+                if (index >= offset && index < offset + pageSize) {
+                    JsonObject linkObject = new JsonObject();
+                    linkObject.addProperty("ns", 0);
+                    linkObject.addProperty("title", link.replace('_', ' '));
+
+                    if (flagRedirectLinks && redirectMap.containsKey(link)) {
+                        if (formatVersion2) {
+                            linkObject.addProperty("redirect", true);
+                        } else {
+                            linkObject.addProperty("redirect", "");
+                        }
+                    }
+
+                    links.add(linkObject);
+                }
+
+                index++;
+            }
+
+            if (links.size() > 0) {
+                page.add(forward ? "links" : "linkshere", links);
+            }
+        }
+
+        if (offset + pageSize < index) {
+            JsonObject continueObject = new JsonObject();
+            continueObject.addProperty(continueKey, 
+                                       Integer.toString(offset + pageSize));
+            continueObject.addProperty("continue", "||");
+            root.add("continue", continueObject);
+        }
+
+        if (normalized.size() > 0) {
+            query.add("normalized", normalized);
+        }
+
+        if (redirects.size() > 0) {
+            query.add("redirects", redirects);
+        }
+
+        if (formatVersion2) {
+            JsonArray pagesArray = new JsonArray();
+            pages.values().forEach(pagesArray::add);
+            query.add("pages", pagesArray);
+        } else {
+            JsonObject pagesObject = new JsonObject();
+            pages.forEach(pagesObject::add);
+            query.add("pages", pagesObject);
+        }
+
+        root.add("query", query);
+
+        return new HttpResponse(
+                200, 
+                Collections.emptyMap(),
+                new ByteArrayInputStream(
+                        root.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static Map<String, String> parseParameters(String url) 
+    throws UnsupportedEncodingException {
+        Map<String, String> parameters = new HashMap<>();
+        String query = url.substring(url.indexOf('?') + 1);
+
+        for (String parameter : query.split("&")) {
+            int equalsIndex = parameter.indexOf('=');
+            parameters.put(parameter.substring(0, equalsIndex), 
+                           URLDecoder.decode(
+                                   parameter.substring(equalsIndex + 1), 
+                                   "UTF-8"));
+        }
+
+        return parameters;
+    }
+}
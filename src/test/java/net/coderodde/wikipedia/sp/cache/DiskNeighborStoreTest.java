@@ -0,0 +1,160 @@
+package net.coderodde.wikipedia.sp.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class DiskNeighborStoreTest {
+
+    private static final String API_URL = "http://stub/w/api.php";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private long now = TimeUnit.DAYS.toMillis(1);
+
+    private DiskNeighborStore open(File directory, int segmentSize) 
+    throws IOException {
+        return new DiskNeighborStore(directory, 
+                                     1000L, 
+                                     segmentSize, 
+                                     () -> now, 
+                                     false);
+    }
+
+    private static NeighborKey key(String title, boolean forward) {
+        return new NeighborKey(API_URL, title, forward);
+    }
+
+    @Test
+    public void testSurvivesReopening() throws IOException {
+        File directory = folder.newFolder();
+
+        try (DiskNeighborStore store = open(directory, 1 << 20)) {
+            store.put(key("A", true), Arrays.asList("B", "Café"));
+            store.put(key("A", false), Collections.singletonList("C"));
+            store.put(key("A", true), Arrays.asList("B", "D"));
+        }
+
+        try (DiskNeighborStore store = open(directory, 1 << 20)) {
+            assertEquals(Arrays.asList("B", "D"), store.get(key("A", true)));
+            assertEquals(Arrays.asList("C"), store.get(key("A", false)));
+            assertNull(store.get(key("B", true)));
+            assertEquals(2L, store.getHitCount());
+            assertEquals(1L, store.getMissCount());
+        }
+    }
+
+    @Test
+    public void testExpiresEntries() throws IOException {
+        try (DiskNeighborStore store = open(folder.newFolder(), 1 << 20)) {
+            store.put(key("A", true), Collections.singletonList("B"));
+            now += 999L;
+            assertNotNull(store.get(key("A", true)));
+            now += 1L;
+            assertNull(store.get(key("A", true)));
+        }
+    }
+
+    @Test
+    public void testCompactionDropsSupersededEntries() throws IOException {
+        File directory = folder.newFolder();
+
+        try (DiskNeighborStore store = open(directory, 256)) {
+            for (int i = 0; i < 50; ++i) {
+                store.put(key("A", true), 
+                          Collections.singletonList("Link_" + i));
+            }
+
+            store.put(key("B", true), Collections.singletonList("C"));
+            int segmentCount = store.getSegmentCount();
+            long sizeOnDisk = store.getSizeOnDisk();
+            store.compact();
+
+            assertTrue(store.getSegmentCount() < segmentCount);
+            assertTrue(store.getSizeOnDisk() < sizeOnDisk);
+            assertEquals(Arrays.asList("Link_49"), store.get(key("A", true)));
+        }
+
+        try (DiskNeighborStore store = open(directory, 256)) {
+            assertEquals(2, store.size());
+            assertEquals(Arrays.asList("Link_49"), store.get(key("A", true)));
+            assertEquals(Arrays.asList("C"), store.get(key("B", true)));
+        }
+    }
+
+    @Test
+    public void testCompactionLetsPutsThrough() throws Exception {
+        File directory = folder.newFolder();
+
+        try (DiskNeighborStore store = open(directory, 256)) {
+            store.put(key("B", true), Collections.singletonList("C"));
+
+            for (int i = 0; i < 50; ++i) {
+                store.put(key("A", true), 
+                          Collections.singletonList("Link_" + i));
+            }
+
+            // Another thread overwrites the record being copied:
+            Thread writer = new Thread(() -> 
+                    store.put(key("B", true), Collections.singletonList("D")));
+            store.copyListener = () -> {
+                if (writer.getState() == Thread.State.NEW) {
+                    writer.start();
+
+                    try {
+                        writer.join(5000L);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+
+            store.compact();
+
+            assertEquals(Thread.State.TERMINATED, writer.getState());
+            assertEquals(Arrays.asList("D"), store.get(key("B", true)));
+            assertEquals(Arrays.asList("Link_49"), store.get(key("A", true)));
+        }
+
+        try (DiskNeighborStore store = open(directory, 256)) {
+            assertEquals(Arrays.asList("D"), store.get(key("B", true)));
+            assertEquals(Arrays.asList("Link_49"), store.get(key("A", true)));
+        }
+    }
+
+    @Test
+    public void testTruncatesTornRecord() throws IOException {
+        File directory = folder.newFolder();
+
+        try (DiskNeighborStore store = open(directory, 1 << 20)) {
+            store.put(key("A", true), Collections.singletonList("B"));
+            store.put(key("C", true), Collections.singletonList("D"));
+        }
+
+        File segment = directory.listFiles()[0];
+
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        try (DiskNeighborStore store = open(directory, 1 << 20)) {
+            assertEquals(1, store.getTruncatedSegmentCount());
+            assertEquals(Arrays.asList("B"), store.get(key("A", true)));
+            assertNull(store.get(key("C", true)));
+            store.put(key("C", true), Collections.singletonList("E"));
+        }
+
+        try (DiskNeighborStore store = open(directory, 1 << 20)) {
+            assertEquals(0, store.getTruncatedSegmentCount());
+            assertEquals(Arrays.asList("E"), store.get(key("C", true)));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package net.coderodde.wikipedia.sp.cache;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class MemoryNeighborCacheTest {
+
+    private static final String API_URL = "http://stub/w/api.php";
+
+    private long now;
+
+    private NeighborKey key(String title) {
+        return new NeighborKey(API_URL, title, true);
+    }
+
+    @Test
+    public void testCountsHitsAndMisses() {
+        MemoryNeighborCache cache = new MemoryNeighborCache();
+
+        assertNull(cache.get(key("A")));
+        cache.put(key("A"), Arrays.asList("B", "C"));
+        assertEquals(Arrays.asList("B", "C"), cache.get(key("A")));
+        assertNull(cache.get(new NeighborKey(API_URL, "A", false)));
+
+        assertEquals(1L, cache.getHitCount());
+        assertEquals(2L, cache.getMissCount());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedOverBudget() {
+        MemoryNeighborCache probe = new MemoryNeighborCache();
+        probe.put(key("A"), Collections.singletonList("Link"));
+        long entryBytes = probe.getCurrentBytes();
+
+        MemoryNeighborCache cache = 
+                new MemoryNeighborCache(2 * entryBytes, 1000L);
+        cache.put(key("A"), Collections.singletonList("Link"));
+        cache.put(key("B"), Collections.singletonList("Link"));
+        cache.get(key("A"));
+        cache.put(key("C"), Collections.singletonList("Link"));
+
+        assertNotNull(cache.get(key("A")));
+        assertNull(cache.get(key("B")));
+        assertNotNull(cache.get(key("C")));
+        assertEquals(1L, cache.getEvictionCount());
+        assertTrue(cache.getCurrentBytes() <= 2 * entryBytes);
+    }
+
+    @Test
+    public void testExpiresEntries() {
+        MemoryNeighborCache cache = 
+                new MemoryNeighborCache(1024L, 1000L, () -> now);
+        cache.put(key("A"), Collections.singletonList("B"));
+        now += TimeUnit.MILLISECONDS.toNanos(999L);
+        assertNotNull(cache.get(key("A")));
+        now += TimeUnit.MILLISECONDS.toNanos(1L);
+        assertNull(cache.get(key("A")));
+        assertEquals(0, cache.size());
+        assertEquals(0L, cache.getCurrentBytes());
+    }
+}
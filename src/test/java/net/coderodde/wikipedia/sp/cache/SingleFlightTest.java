@@ -0,0 +1,44 @@
+package net.coderodde.wikipedia.sp.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SingleFlightTest {
+
+    @Test
+    public void testConcurrentCallersShareTheLeadersOutcome() {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+
+        assertNull(singleFlight.joinOrLead("A"));
+        CompletableFuture<Integer> first = singleFlight.joinOrLead("A");
+        CompletableFuture<Integer> second = singleFlight.joinOrLead("A");
+        assertSame(first, second);
+        assertFalse(first.isDone());
+
+        singleFlight.complete("A", 42);
+        assertEquals(Integer.valueOf(42), first.join());
+        assertEquals(2L, singleFlight.getCoalescedCount());
+
+        // The flight is over, the next caller leads a new one.
+        assertNull(singleFlight.joinOrLead("A"));
+    }
+
+    @Test
+    public void testFailureReachesAllWaiters() {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        assertNull(singleFlight.joinOrLead("A"));
+        CompletableFuture<Integer> future = singleFlight.joinOrLead("A");
+        IllegalStateException failure = new IllegalStateException("Down.");
+
+        singleFlight.fail("A", failure);
+
+        try {
+            future.join();
+            fail("The failure was not propagated.");
+        } catch (CompletionException ex) {
+            assertSame(failure, ex.getCause());
+        }
+    }
+}
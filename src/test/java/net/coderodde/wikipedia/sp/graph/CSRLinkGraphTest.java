@@ -0,0 +1,57 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CSRLinkGraphTest {
+
+    private static List<Integer> getNeighbors(LinkGraph graph, 
+                                              int id, 
+                                              boolean forward) {
+        LinkGraph.NeighborIterator iterator = 
+                graph.newNeighborIterator(forward);
+        List<Integer> neighbors = new ArrayList<>();
+        iterator.reset(id);
+
+        while (iterator.hasNext()) {
+            neighbors.add(iterator.next());
+        }
+
+        assertEquals(neighbors.size(), graph.getDegree(id, forward));
+        return neighbors;
+    }
+
+    @Test
+    public void testLooksUpTitlesAndNeighbors() throws IOException {
+        LinkGraph graph = new CSRLinkGraph(
+                new DumpIngester(1).ingest(
+                        DumpIngesterTest.getDumpDirectory("classic")));
+
+        assertEquals(5, graph.getNumberOfArticles());
+        assertEquals(4L, graph.getNumberOfLinks());
+        assertEquals(3, graph.getId("Gamma"));
+        assertEquals("Gamma", graph.getTitle(3));
+        assertEquals(-1, graph.getId("Old_beta"));
+        assertEquals(-1, graph.getId("Zeta"));
+        assertEquals(Arrays.asList(4), getNeighbors(graph, 3, true));
+        assertEquals(Arrays.asList(1), getNeighbors(graph, 3, false));
+        assertEquals(Arrays.asList(), getNeighbors(graph, 2, true));
+    }
+
+    @Test
+    public void testIteratorIsReusable() {
+        LinkGraph graph = new CSRLinkGraph(
+                LinkGraphs.build(new String[]{ "A", "B", "C" },
+                                 new int[][]{ { 0, 1 }, { 0, 2 }, 
+                                              { 2, 0 }, { 0, 1 } }));
+
+        assertEquals(Arrays.asList(1, 2), getNeighbors(graph, 0, true));
+        assertEquals(Arrays.asList(0), getNeighbors(graph, 2, true));
+        assertEquals(Arrays.asList(0), getNeighbors(graph, 1, false));
+        assertEquals(Arrays.asList(0), getNeighbors(graph, 2, false));
+    }
+}
@@ -0,0 +1,150 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.wikipedia.sp.support.OfflineBidirectionalWikipediaShortestPathFinder;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the breadth-first search throughput over the plain int array
+ * adjacency of {@link CSRLinkGraph} against the compressed adjacency of
+ * {@link CompressedLinkGraph} on a random graph with local links. The setup
+ * prints the bytes per link of both. Run with
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=net.coderodde.wikipedia.sp.graph.CompressedLinkGraphBenchmark
+ * </pre>
+ * and compare the {@code links} (links scanned per second) columns of the
+ * full searches and the times of the bidirectional ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CompressedLinkGraphBenchmark {
+
+    /**
+     * The adjacency searched.
+     */
+    @Param({"csr", "compressed"})
+    public String adjacency;
+
+    @Param({"200000"})
+    public int articles;
+
+    private LinkGraph graph;
+    private OfflineBidirectionalWikipediaShortestPathFinder finder;
+    private String[] sourceTitles;
+    private String[] targetTitles;
+    private int query;
+
+    /**
+     * Counts the links scanned, reported per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class LinkCounter {
+
+        public long links;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            links = 0L;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        Random random = new Random(31L);
+        LinkGraphFile graphFile = LinkGraphs.buildRandom(random, articles, 20);
+        long links = graphFile.getNumberOfLinks();
+
+        if (adjacency.equals("csr")) {
+            graph = new CSRLinkGraph(graphFile);
+            System.out.printf("%n[CSR] %.3f bytes per link%n",
+                              (8.0 * links + 8.0 * (articles + 1)) / links);
+        } else {
+            CompressedLinkGraph compressedGraph =
+                    new CompressedLinkGraph(graphFile);
+            graph = compressedGraph;
+            System.out.printf(
+                    "%n[COMPRESSED] %.3f bytes per link%n",
+                    (double) compressedGraph.getAdjacencySizeInBytes() /
+                    links);
+        }
+
+        finder = new OfflineBidirectionalWikipediaShortestPathFinder(graph);
+        sourceTitles = new String[64];
+        targetTitles = new String[64];
+
+        for (int i = 0; i < sourceTitles.length; ++i) {
+            sourceTitles[i] = graph.getTitle(random.nextInt(articles));
+            targetTitles[i] = graph.getTitle(random.nextInt(articles));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public int fullSearch(LinkCounter counter) {
+        int[] distances = new int[articles];
+        int[] queue = new int[articles];
+        Arrays.fill(distances, -1);
+        LinkGraph.NeighborIterator iterator = graph.newNeighborIterator(true);
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = 0;
+        distances[0] = 0;
+
+        while (head < tail) {
+            int current = queue[head++];
+            iterator.reset(current);
+
+            while (iterator.hasNext()) {
+                int child = iterator.next();
+                ++counter.links;
+
+                if (distances[child] < 0) {
+                    distances[child] = distances[current] + 1;
+                    queue[tail++] = child;
+                }
+            }
+        }
+
+        return tail;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void bidirectionalSearch(Blackhole blackhole) {
+        int i = query++ & (sourceTitles.length - 1);
+        blackhole.consume(finder.search(sourceTitles[i],
+                                        targetTitles[i],
+                                        null, null, null, null));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CompressedLinkGraphBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
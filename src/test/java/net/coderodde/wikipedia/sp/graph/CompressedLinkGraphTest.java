@@ -0,0 +1,75 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class CompressedLinkGraphTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testMatchesHeapGraph() {
+        Random random = new Random(17L);
+        LinkGraphFile graphFile = LinkGraphs.buildRandom(random, 2000, 12);
+        LinkGraph expected = new CSRLinkGraph(graphFile);
+
+        for (int[] parameters : new int[][]{ { 0, 0 }, { 1, 1 },
+                                             { 7, 3 }, { 16, 100 } }) {
+            LinkGraphs.assertSameGraph(
+                    expected,
+                    new CompressedLinkGraph(graphFile,
+                                            parameters[0],
+                                            parameters[1]));
+        }
+    }
+
+    @Test
+    public void testCompressesLocalLinks() {
+        LinkGraphFile graphFile =
+                LinkGraphs.buildRandom(new Random(19L), 5000, 20);
+        CompressedLinkGraph withReferences =
+                new CompressedLinkGraph(graphFile);
+        CompressedLinkGraph withoutReferences =
+                new CompressedLinkGraph(graphFile, 0, 0);
+        long uncompressedSize = 8L * graphFile.getNumberOfLinks() +
+                                8L * (graphFile.getNumberOfArticles() + 1);
+
+        assertTrue(withoutReferences.getAdjacencySizeInBytes() <
+                   uncompressedSize / 2);
+        assertTrue(withReferences.getAdjacencySizeInBytes() <
+                   withoutReferences.getAdjacencySizeInBytes());
+    }
+
+    @Test
+    public void testFileRoundTrip() throws IOException {
+        LinkGraphFile graphFile =
+                LinkGraphs.buildRandom(new Random(23L), 500, 8);
+        CompressedLinkGraph graph = new CompressedLinkGraph(graphFile);
+        File file = folder.newFile();
+        graph.write(file);
+
+        assertTrue(CompressedLinkGraph.isCompressedGraphFile(file));
+        LinkGraphs.assertSameGraph(new CSRLinkGraph(graphFile),
+                                   CompressedLinkGraph.load(file));
+
+        File plainFile = folder.newFile();
+        graphFile.write(plainFile);
+        assertFalse(CompressedLinkGraph.isCompressedGraphFile(plainFile));
+    }
+
+    @Test
+    public void testHandlesEmptyLists() {
+        LinkGraphFile graphFile = LinkGraphs.build(
+                new String[]{ "A", "B", "C", "D" },
+                new int[][]{ { 0, 3 }, { 2, 3 }, { 2, 0 } });
+
+        LinkGraphs.assertSameGraph(new CSRLinkGraph(graphFile),
+                                   new CompressedLinkGraph(graphFile));
+    }
+}
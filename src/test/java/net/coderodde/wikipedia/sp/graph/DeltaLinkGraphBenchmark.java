@@ -0,0 +1,127 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.wikipedia.sp.support.OfflineBidirectionalWikipediaShortestPathFinder;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the expansions per second of the offline bidirectional search
+ * over a random graph searched directly and through a {@link DeltaLinkGraph}
+ * holding {@code changes} random link additions and removals. Run with
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=net.coderodde.wikipedia.sp.graph.DeltaLinkGraphBenchmark
+ * </pre>
+ * and compare the {@code expansions} columns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DeltaLinkGraphBenchmark {
+
+    /**
+     * The number of changes, or -1 for searching the base graph directly.
+     */
+    @Param({"-1", "0", "100000"})
+    public int changes;
+
+    @Param({"2000000"})
+    public int articles;
+
+    private OfflineBidirectionalWikipediaShortestPathFinder finder;
+    private String[] sourceTitles;
+    private String[] targetTitles;
+    private int query;
+
+    /**
+     * Counts the expanded articles, reported per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class ExpansionCounter {
+
+        public long expansions;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            expansions = 0L;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        Random random = new Random(59L);
+        LinkGraph graph = new CSRLinkGraph(
+                LinkGraphs.buildRandom(random, articles, 10));
+
+        if (changes >= 0) {
+            DeltaLinkGraph deltaGraph = new DeltaLinkGraph(graph);
+
+            for (int i = 0; i < changes; ++i) {
+                String source = graph.getTitle(random.nextInt(articles));
+                String target = graph.getTitle(random.nextInt(articles));
+
+                if (random.nextBoolean()) {
+                    deltaGraph.addLink(source, target);
+                } else {
+                    LinkGraph.NeighborIterator iterator =
+                            graph.newNeighborIterator(true);
+                    iterator.reset(graph.getId(source));
+
+                    if (iterator.hasNext()) {
+                        deltaGraph.removeLink(source,
+                                              graph.getTitle(iterator.next()));
+                    }
+                }
+            }
+
+            graph = deltaGraph;
+        }
+
+        finder = new OfflineBidirectionalWikipediaShortestPathFinder(graph);
+        sourceTitles = new String[256];
+        targetTitles = new String[256];
+
+        for (int i = 0; i < sourceTitles.length; ++i) {
+            sourceTitles[i] = String.format("Article_%09d",
+                                            random.nextInt(articles));
+            targetTitles[i] = String.format("Article_%09d",
+                                            random.nextInt(articles));
+        }
+    }
+
+    @Benchmark
+    public int bidirectionalSearch(ExpansionCounter counter) {
+        int i = query++ & (sourceTitles.length - 1);
+        int length = finder.search(sourceTitles[i],
+                                   targetTitles[i],
+                                   null, null, null, null).size();
+        counter.expansions += finder.getNumberOfExpandedNodes();
+        return length;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DeltaLinkGraphBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
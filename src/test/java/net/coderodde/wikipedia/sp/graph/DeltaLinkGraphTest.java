@@ -0,0 +1,162 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class DeltaLinkGraphTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Builds the graph of the links {@code source -> target} in
+     * {@code linkMap}.
+     */
+    private static LinkGraph build(Map<String, Set<String>> linkMap) {
+        String[] titles = linkMap.keySet().toArray(new String[0]);
+        Arrays.sort(titles, TitleDictionary.TITLE_ORDER);
+        Map<String, Integer> idMap = new HashMap<>();
+
+        for (int id = 0; id < titles.length; ++id) {
+            idMap.put(titles[id], id);
+        }
+
+        List<int[]> links = new ArrayList<>();
+
+        linkMap.forEach((source, targets) -> {
+            for (String target : targets) {
+                links.add(new int[]{ idMap.get(source), idMap.get(target) });
+            }
+        });
+
+        return new CSRLinkGraph(
+                LinkGraphs.build(titles, links.toArray(new int[0][])));
+    }
+
+    private File writeChanges(String... lines) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), Arrays.asList(lines),
+                    StandardCharsets.UTF_8);
+        return file;
+    }
+
+    @Test
+    public void testRandomChangesMatchRebuiltGraph() throws IOException {
+        Random random = new Random(53L);
+        LinkGraph base = new CSRLinkGraph(
+                LinkGraphs.buildRandom(random, 400, 5));
+        DeltaLinkGraph graph = new DeltaLinkGraph(base);
+        Map<String, Set<String>> linkMap = new HashMap<>();
+        List<String> titles = new ArrayList<>();
+        LinkGraph.NeighborIterator iterator = base.newNeighborIterator(true);
+
+        for (int id = 0; id < base.getNumberOfArticles(); ++id) {
+            Set<String> targets = new TreeSet<>();
+            iterator.reset(id);
+
+            while (iterator.hasNext()) {
+                targets.add(base.getTitle(iterator.next()));
+            }
+
+            titles.add(base.getTitle(id));
+            linkMap.put(base.getTitle(id), targets);
+        }
+
+        for (int i = 0; i < 5000; ++i) {
+            if (random.nextInt(50) == 0) {
+                // An article the graph gets once a link to or from it is:
+                titles.add("New_" + i);
+            }
+
+            String source = titles.get(random.nextInt(titles.size()));
+            String target = random.nextBoolean() ?
+                    titles.get(random.nextInt(titles.size())) :
+                    titles.get(Math.floorMod(
+                            titles.indexOf(source) + random.nextInt(9) - 4,
+                            titles.size()));
+            if (random.nextInt(3) == 0) {
+                linkMap.putIfAbsent(target, new TreeSet<>());
+                Set<String> targets =
+                        linkMap.computeIfAbsent(source, (t) -> new TreeSet<>());
+                assertEquals(!source.equals(target) && targets.add(target),
+                             graph.addLink(source, target));
+            } else {
+                Set<String> targets = linkMap.get(source);
+                assertEquals(targets != null && targets.remove(target),
+                             graph.removeLink(source, target));
+            }
+        }
+
+        assertTrue(graph.getNumberOfAddedArticles() > 0);
+        assertTrue(graph.getNumberOfAddedLinks() > 0);
+        assertTrue(graph.getNumberOfRemovedLinks() > 0);
+
+        LinkGraph expected = build(linkMap);
+        LinkGraphs.assertSameLinks(expected, graph);
+
+        File file = folder.newFile();
+        graph.merge(file);
+        LinkGraphs.assertSameGraph(expected, CSRLinkGraph.load(file));
+    }
+
+    @Test
+    public void testLoadsChangeFile() throws IOException {
+        LinkGraph base = new CSRLinkGraph(LinkGraphs.build(
+                new String[]{ "A", "B", "C" },
+                new int[][]{ { 0, 1 }, { 1, 2 }, { 2, 0 } }));
+        File changeFile = writeChanges(
+                "# Yesterday's edits.",
+                "-\tA\tB",
+                "+\tA\tC",
+                "+\tA\tC",
+                "",
+                "+\tD (band)\tA",
+                "-\tC\tA",
+                "+\tC\tA",
+                "-\tB\tMissing");
+        DeltaLinkGraph graph = DeltaLinkGraph.load(base, changeFile);
+
+        assertEquals(4, graph.getNumberOfArticles());
+        assertEquals(4, graph.getNumberOfLinks());
+        assertEquals(3, graph.getId("D_(band)"));
+        assertEquals(3, graph.getId("D (band)"));
+        assertEquals(-1, graph.getId("Missing"));
+        assertEquals(2, graph.getNumberOfAddedLinks());
+        assertEquals(1, graph.getNumberOfRemovedLinks());
+        assertEquals(2, graph.getDegree(0, false));
+        assertEquals(0, graph.getDegree(1, false));
+
+        LinkGraph.NeighborIterator iterator = graph.newNeighborIterator(true);
+        iterator.reset(0);
+        assertTrue(iterator.hasNext());
+        assertEquals(2, iterator.next());
+        assertFalse(iterator.hasNext());
+
+        // Removing the only link of an added article leaves it linkless:
+        graph.removeLink("D (band)", "A");
+        iterator.reset(3);
+        assertFalse(iterator.hasNext());
+        assertEquals(1, graph.getNumberOfAddedArticles());
+    }
+
+    @Test(expected = IOException.class)
+    public void testThrowsOnMalformedChange() throws IOException {
+        LinkGraph base = new CSRLinkGraph(LinkGraphs.build(
+                new String[]{ "A", "B" }, new int[][]{ { 0, 1 } }));
+        DeltaLinkGraph.load(base, writeChanges("+\tA\tB", "*\tB\tA"));
+    }
+}
@@ -0,0 +1,114 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class DumpIngesterTest {
+
+    static final String BRAND = "L'Oréal_(%22brand%22)";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    static File getDumpDirectory(String name) {
+        try {
+            return new File(DumpIngesterTest.class
+                    .getResource("/dumps/" + name).toURI());
+        } catch (URISyntaxException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static List<String> getChildren(LinkGraphFile graph, int id) {
+        List<String> children = new ArrayList<>();
+
+        for (int i = graph.forwardOffsets[id];
+                i < graph.forwardOffsets[id + 1];
+                ++i) {
+            children.add(graph.getTitle(graph.forwardTargets[i]));
+        }
+
+        return children;
+    }
+
+    private static List<String> getParents(LinkGraphFile graph, int id) {
+        List<String> parents = new ArrayList<>();
+
+        for (int i = graph.backwardOffsets[id];
+                i < graph.backwardOffsets[id + 1];
+                ++i) {
+            parents.add(graph.getTitle(graph.backwardTargets[i]));
+        }
+
+        return parents;
+    }
+
+    static void assertFixtureGraph(LinkGraphFile graph) {
+        List<String> titles = new ArrayList<>();
+
+        for (int id = 0; id < graph.getNumberOfArticles(); ++id) {
+            titles.add(graph.getTitle(id));
+        }
+
+        // Redirects, talk pages, missing pages and self-loops are gone:
+        assertEquals(Arrays.asList("Alpha", "Beta", "Delta", "Gamma", BRAND),
+                     titles);
+        assertEquals(4, graph.getTitleDictionary()
+                             .getId("L'Oréal (\"brand\")"));
+        assertEquals(4, graph.getNumberOfLinks());
+        assertEquals(Arrays.asList("Beta"), getChildren(graph, 0));
+        assertEquals(Arrays.asList("Gamma"), getChildren(graph, 1));
+        assertEquals(Arrays.asList(), getChildren(graph, 2));
+        assertEquals(Arrays.asList(BRAND), getChildren(graph, 3));
+        assertEquals(Arrays.asList("Alpha"), getChildren(graph, 4));
+        assertEquals(Arrays.asList(BRAND), getParents(graph, 0));
+        assertEquals(Arrays.asList("Alpha"), getParents(graph, 1));
+        assertEquals(Arrays.asList(), getParents(graph, 2));
+    }
+
+    @Test
+    public void testIngestsDumps() throws IOException {
+        assertFixtureGraph(
+                new DumpIngester(2).ingest(getDumpDirectory("classic")));
+    }
+
+    @Test
+    public void testIngestsLinkTargetSchema() throws IOException {
+        assertFixtureGraph(
+                new DumpIngester(3).ingest(getDumpDirectory("linktarget")));
+    }
+
+    @Test
+    public void testGraphFileRoundTrip() throws IOException {
+        File file = folder.newFile();
+        new DumpIngester(1).ingest(getDumpDirectory("classic")).write(file);
+
+        assertFixtureGraph(LinkGraphFile.read(file));
+    }
+
+    @Test
+    public void testIngestsWithSpilledRuns() throws IOException {
+        for (String name : new String[]{ "classic", "linktarget" }) {
+            File file = folder.newFile();
+            new DumpIngester(2, 1).ingest(getDumpDirectory(name), file);
+
+            assertFixtureGraph(LinkGraphFile.read(file));
+        }
+
+        // Only the graph files are left:
+        assertEquals(2, folder.getRoot().list().length);
+    }
+
+    @Test(expected = IOException.class)
+    public void testThrowsOnMissingDump() throws IOException {
+        new DumpIngester(1).ingest(folder.newFolder());
+    }
+}
@@ -0,0 +1,90 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class ExternalLinkGraphBuilderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Adds the links of {@code graphFile} to {@code collectors} in a random
+     * order, with duplicates and self-loops mixed in.
+     */
+    private static void addLinks(LinkGraphFile graphFile,
+                                 LinkCollector[] collectors,
+                                 Random random) {
+        for (int id = 0; id < graphFile.getNumberOfArticles(); ++id) {
+            for (int i = graphFile.forwardOffsets[id];
+                    i < graphFile.forwardOffsets[id + 1];
+                    ++i) {
+                int target = graphFile.forwardTargets[i];
+                collectors[random.nextInt(collectors.length)]
+                        .addLink(id, target);
+
+                if (random.nextInt(4) == 0) {
+                    collectors[random.nextInt(collectors.length)]
+                            .addLink(id, target);
+                }
+
+                if (random.nextInt(8) == 0) {
+                    collectors[random.nextInt(collectors.length)]
+                            .addLink(id, id);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBuildsSameGraphAsInMemory() throws IOException {
+        Random random = new Random(47L);
+        LinkGraphFile expected = LinkGraphs.buildRandom(random, 3000, 7);
+        File directory = folder.newFolder();
+        File file = folder.newFile();
+
+        for (int runSize : new int[]{ 64, 1000, 1 << 20 }) {
+            try (ExternalLinkGraphBuilder builder =
+                    new ExternalLinkGraphBuilder(directory, runSize)) {
+                LinkCollector[] collectors = {
+                    builder.newCollector(),
+                    builder.newCollector(),
+                    builder.newCollector(),
+                };
+
+                addLinks(expected, collectors, random);
+                builder.build(expected.getTitleDictionary(), file);
+            }
+
+            LinkGraphs.assertSameGraph(new CSRLinkGraph(expected),
+                                       CSRLinkGraph.load(file));
+            assertEquals(0, directory.list().length);
+        }
+    }
+
+    @Test
+    public void testBuildsEmptyGraph() throws IOException {
+        File file = folder.newFile();
+
+        try (ExternalLinkGraphBuilder builder =
+                new ExternalLinkGraphBuilder(folder.getRoot(), 16)) {
+            builder.newCollector();
+            builder.build(TitleDictionary.build(new String[]{ "A", "B" }),
+                          file);
+        }
+
+        LinkGraphFile graphFile = LinkGraphFile.read(file);
+        assertEquals(2, graphFile.getNumberOfArticles());
+        assertEquals(0, graphFile.getNumberOfLinks());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNonPositiveRunSize() {
+        new ExternalLinkGraphBuilder(null, 0);
+    }
+}
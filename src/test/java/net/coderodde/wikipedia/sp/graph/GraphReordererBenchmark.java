@@ -0,0 +1,124 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.wikipedia.sp.support.OfflineBidirectionalWikipediaShortestPathFinder;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the expansions per second of the offline bidirectional search
+ * over a random graph with local links whose IDs are first scattered by a
+ * random permutation, as the title order scatters the neighbors of the
+ * ingested graphs, and then relabeled by each {@link GraphReorderer}
+ * strategy. Run with
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=net.coderodde.wikipedia.sp.graph.GraphReordererBenchmark
+ * </pre>
+ * and compare the {@code expansions} columns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class GraphReordererBenchmark {
+
+    /**
+     * The strategy, or {@code SCATTERED} for none.
+     */
+    @Param({"SCATTERED", "BFS", "RCM", "DEGREE", "GORDER"})
+    public String order;
+
+    @Param({"2000000"})
+    public int articles;
+
+    private OfflineBidirectionalWikipediaShortestPathFinder finder;
+    private String[] sourceTitles;
+    private String[] targetTitles;
+    private int query;
+
+    /**
+     * Counts the expanded articles, reported per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class ExpansionCounter {
+
+        public long expansions;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            expansions = 0L;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        Random random = new Random(43L);
+        LinkGraphFile graphFile = LinkGraphs.buildRandom(random, articles, 10);
+        int[] permutation = new int[articles];
+
+        for (int i = 0; i < articles; ++i) {
+            int j = random.nextInt(i + 1);
+            permutation[i] = permutation[j];
+            permutation[j] = i;
+        }
+
+        graphFile = GraphReorderer.relabel(graphFile, permutation);
+
+        if (!order.equals("SCATTERED")) {
+            long startTime = System.currentTimeMillis();
+            graphFile = GraphReorderer.reorder(
+                    graphFile,
+                    GraphReorderer.Strategy.valueOf(order));
+            System.out.printf("%n[%s] Relabeled in %d ms.%n",
+                              order,
+                              System.currentTimeMillis() - startTime);
+        }
+
+        LinkGraph graph = new CSRLinkGraph(graphFile);
+        finder = new OfflineBidirectionalWikipediaShortestPathFinder(graph);
+        sourceTitles = new String[256];
+        targetTitles = new String[256];
+
+        for (int i = 0; i < sourceTitles.length; ++i) {
+            sourceTitles[i] = String.format("Article_%09d",
+                                            random.nextInt(articles));
+            targetTitles[i] = String.format("Article_%09d",
+                                            random.nextInt(articles));
+        }
+    }
+
+    @Benchmark
+    public int bidirectionalSearch(ExpansionCounter counter) {
+        int i = query++ & (sourceTitles.length - 1);
+        int length = finder.search(sourceTitles[i],
+                                   targetTitles[i],
+                                   null, null, null, null).size();
+        counter.expansions += finder.getNumberOfExpandedNodes();
+        return length;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GraphReordererBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,93 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class GraphReordererTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testStrategiesKeepLinks() {
+        LinkGraphFile graphFile =
+                LinkGraphs.buildRandom(new Random(37L), 1500, 6);
+        LinkGraph expected = new CSRLinkGraph(graphFile);
+
+        for (GraphReorderer.Strategy strategy :
+                GraphReorderer.Strategy.values()) {
+            LinkGraphFile relabeledGraph =
+                    GraphReorderer.reorder(graphFile, strategy);
+
+            assertTrue(relabeledGraph.isRelabeled());
+            LinkGraphs.assertSameLinks(expected, new CSRLinkGraph(relabeledGraph));
+
+            // Relabeling again composes the permutations:
+            LinkGraphs.assertSameLinks(
+                    expected,
+                    new CSRLinkGraph(
+                            GraphReorderer.reorder(
+                                    relabeledGraph,
+                                    GraphReorderer.Strategy.DEGREE)));
+        }
+    }
+
+    @Test
+    public void testRelabeledGraphFileRoundTrip() throws IOException {
+        LinkGraphFile graphFile = GraphReorderer.reorder(
+                LinkGraphs.buildRandom(new Random(41L), 800, 5),
+                GraphReorderer.Strategy.GORDER);
+        LinkGraph expected = new CSRLinkGraph(graphFile);
+        File file = folder.newFile();
+        graphFile.write(file);
+
+        LinkGraphs.assertSameGraph(expected, CSRLinkGraph.load(file));
+
+        try (MappedLinkGraph graph = new MappedLinkGraph(file)) {
+            LinkGraphs.assertSameGraph(expected, graph);
+        }
+
+        File compressedFile = folder.newFile();
+        new CompressedLinkGraph(graphFile).write(compressedFile);
+        LinkGraphs.assertSameGraph(expected,
+                                   CompressedLinkGraph.load(compressedFile));
+    }
+
+    @Test
+    public void testReverseCuthillMcKeeOrdersPathByPosition() {
+        // The path 0 - 5 - 2 - 7 - 1 - 4 - 6 - 3 in both directions.
+        String[] titles = { "A", "B", "C", "D", "E", "F", "G", "H" };
+        int[] path = { 0, 5, 2, 7, 1, 4, 6, 3 };
+        int[][] links = new int[2 * (path.length - 1)][];
+
+        for (int i = 1; i < path.length; ++i) {
+            links[2 * i - 2] = new int[]{ path[i - 1], path[i] };
+            links[2 * i - 1] = new int[]{ path[i], path[i - 1] };
+        }
+
+        LinkGraphFile graphFile = GraphReorderer.reorder(
+                LinkGraphs.build(titles, links),
+                GraphReorderer.Strategy.RCM);
+
+        for (int id = 0; id < titles.length; ++id) {
+            for (int i = graphFile.forwardOffsets[id];
+                    i < graphFile.forwardOffsets[id + 1];
+                    ++i) {
+                assertEquals(1, Math.abs(graphFile.forwardTargets[i] - id));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNonPermutation() {
+        GraphReorderer.relabel(
+                LinkGraphs.build(new String[]{ "A", "B", "C" },
+                                 new int[][]{ { 0, 1 } }),
+                new int[]{ 0, 1, 1 });
+    }
+}
@@ -0,0 +1,158 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import static org.junit.Assert.*;
+
+/**
+ * This class builds and compares link graphs for the tests.
+ */
+public final class LinkGraphs {
+
+    private LinkGraphs() {}
+
+    /**
+     * Builds the graph file of the articles titled {@code titles}, which must
+     * be in ascending order, with the links {@code links[i][0] -> 
+     * links[i][1]}.
+     * 
+     * @param titles the titles of the articles in ascending order.
+     * @param links  the links as pairs of article IDs.
+     * @return the graph file.
+     */
+    public static LinkGraphFile build(String[] titles, int[][] links) {
+        LinkGraphBuilder builder = new LinkGraphBuilder();
+
+        for (int[] link : links) {
+            builder.addLink(link[0], link[1]);
+        }
+
+        return builder.build(titles);
+    }
+
+    /**
+     * Builds a random graph of {@code n} articles in which an article links
+     * mostly to the articles near it and copies a part of the links of a
+     * preceding article, as the articles with similar titles do.
+     *
+     * @param random the random number generator.
+     * @param n      the number of articles.
+     * @param degree the average number of links per article.
+     * @return the graph file.
+     */
+    public static LinkGraphFile buildRandom(Random random, int n, int degree) {
+        String[] titles = new String[n];
+        int[][] lists = new int[n][];
+        LinkGraphBuilder builder = new LinkGraphBuilder();
+
+        for (int id = 0; id < n; ++id) {
+            titles[id] = String.format("Article_%09d", id);
+            int linkCount = random.nextInt(2 * degree + 1);
+            int[] list = new int[linkCount];
+            int size = 0;
+
+            if (id > 0 && random.nextBoolean()) {
+                for (int link : lists[id - 1 - random.nextInt(
+                        Math.min(id, 4))]) {
+                    if (size < linkCount && random.nextInt(4) != 0) {
+                        list[size++] = link;
+                    }
+                }
+            }
+
+            while (size < linkCount) {
+                int link = random.nextInt(4) == 0 ?
+                           random.nextInt(n) :
+                           id + (int) (random.nextGaussian() * 50);
+                list[size++] = Math.floorMod(link, n);
+            }
+
+            lists[id] = list;
+
+            for (int link : list) {
+                builder.addLink(id, link);
+            }
+        }
+
+        return builder.build(titles);
+    }
+
+    /**
+     * Asserts that {@code actual} has the same articles and links as
+     * {@code expected}.
+     *
+     * @param expected the expected graph.
+     * @param actual   the graph to check.
+     */
+    public static void assertSameGraph(LinkGraph expected, LinkGraph actual) {
+        assertEquals(expected.getNumberOfArticles(), 
+                     actual.getNumberOfArticles());
+        assertEquals(expected.getNumberOfLinks(), actual.getNumberOfLinks());
+
+        for (boolean forward : new boolean[]{ true, false }) {
+            LinkGraph.NeighborIterator expectedIterator = 
+                    expected.newNeighborIterator(forward);
+            LinkGraph.NeighborIterator actualIterator = 
+                    actual.newNeighborIterator(forward);
+
+            for (int id = 0; id < expected.getNumberOfArticles(); ++id) {
+                assertEquals(expected.getTitle(id), actual.getTitle(id));
+                assertEquals(id, actual.getId(expected.getTitle(id)));
+                assertEquals(expected.getDegree(id, forward), 
+                             actual.getDegree(id, forward));
+                expectedIterator.reset(id);
+                actualIterator.reset(id);
+
+                while (expectedIterator.hasNext()) {
+                    assertTrue(actualIterator.hasNext());
+                    assertEquals(expectedIterator.next(), 
+                                 actualIterator.next());
+                }
+
+                assertFalse(actualIterator.hasNext());
+            }
+        }
+    }
+
+    /**
+     * Asserts that the graphs have the same links between the same titles,
+     * however the articles are numbered.
+     *
+     * @param expected the expected graph.
+     * @param actual   the graph to check.
+     */
+    public static void assertSameLinks(LinkGraph expected, LinkGraph actual) {
+        assertEquals(expected.getNumberOfArticles(),
+                     actual.getNumberOfArticles());
+        assertEquals(expected.getNumberOfLinks(), actual.getNumberOfLinks());
+
+        for (int id = 0; id < expected.getNumberOfArticles(); ++id) {
+            String title = expected.getTitle(id);
+            int actualId = actual.getId(title);
+            assertEquals(title, actual.getTitle(actualId));
+
+            for (boolean forward : new boolean[]{ true, false }) {
+                assertEquals(expected.getDegree(id, forward),
+                             actual.getDegree(actualId, forward));
+                assertEquals(getNeighborTitles(expected, id, forward),
+                             getNeighborTitles(actual, actualId, forward));
+            }
+        }
+    }
+
+    private static Set<String> getNeighborTitles(LinkGraph graph,
+                                                 int id,
+                                                 boolean forward) {
+        LinkGraph.NeighborIterator iterator =
+                graph.newNeighborIterator(forward);
+        Set<String> titles = new HashSet<>();
+        iterator.reset(id);
+
+        while (iterator.hasNext()) {
+            titles.add(graph.getTitle(iterator.next()));
+        }
+
+        return titles;
+    }
+}
@@ -0,0 +1,66 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class MappedLinkGraphTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testMatchesHeapGraph() throws IOException {
+        File file = folder.newFile();
+        LinkGraphFile graphFile = new DumpIngester(1).ingest(
+                DumpIngesterTest.getDumpDirectory("classic"));
+        graphFile.write(file);
+
+        try (MappedLinkGraph graph = new MappedLinkGraph(file)) {
+            LinkGraphs.assertSameGraph(new CSRLinkGraph(graphFile), graph);
+            assertEquals(-1, graph.getId("Old_beta"));
+            assertEquals(-1, graph.getId("Zzz"));
+        }
+    }
+
+    @Test
+    public void testReadsAcrossSegments() throws IOException {
+        String[] titles = new String[50];
+        int[][] links = new int[200][];
+
+        for (int i = 0; i < titles.length; ++i) {
+            titles[i] = String.format("Överskrift_%02d", i);
+        }
+
+        for (int i = 0; i < links.length; ++i) {
+            links[i] = new int[]{ (7 * i) % titles.length, 
+                                  (11 * i + 3) % titles.length };
+        }
+
+        File file = folder.newFile();
+        LinkGraphFile graphFile = LinkGraphs.build(titles, links);
+        graphFile.write(file);
+
+        // 64-byte segments split the titles and the adjacency often.
+        try (MappedLinkGraph graph = new MappedLinkGraph(file, 6)) {
+            LinkGraphs.assertSameGraph(new CSRLinkGraph(graphFile), graph);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsTruncatedFile() throws IOException {
+        File file = folder.newFile();
+        LinkGraphs.build(new String[]{ "A", "B" }, new int[][]{ { 0, 1 } })
+                  .write(file);
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+
+        new MappedLinkGraph(file).close();
+    }
+}
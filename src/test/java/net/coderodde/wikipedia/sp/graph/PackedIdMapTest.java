@@ -0,0 +1,53 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class PackedIdMapTest {
+
+    @Test
+    public void testGetsWhatWasPut() {
+        Random random = new Random(13L);
+        Map<Long, Integer> expected = new HashMap<>();
+        PackedIdMap first = new PackedIdMap(1000);
+        PackedIdMap second = new PackedIdMap(1000);
+
+        for (int i = 0; i < 5000; ++i) {
+            long key = random.nextInt(Integer.MAX_VALUE) * 3L;
+
+            if (expected.containsKey(key)) {
+                continue;
+            }
+
+            int value = random.nextInt(1000);
+            expected.put(key, value);
+            (i % 2 == 0 ? first : second).put(key, value);
+        }
+
+        first.putAll(second);
+        first.sort();
+
+        assertEquals(expected.size(), first.size());
+
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertEquals((int) entry.getValue(), first.get(entry.getKey()));
+            assertEquals(-1, first.get(entry.getKey() + 1));
+        }
+    }
+
+    @Test
+    public void testEmptyMapHasNothing() {
+        PackedIdMap map = new PackedIdMap(0);
+        map.sort();
+
+        assertEquals(-1, map.get(0L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsKeyNotFittingBesideValue() {
+        new PackedIdMap(1 << 20).put(1L << 43, 0);
+    }
+}
@@ -0,0 +1,119 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.Test;
+import static net.coderodde.wikipedia.sp.Miscellanea.encodeWikipediaStyle;
+import static org.junit.Assert.*;
+
+public class TitleDictionaryTest {
+
+    private static final String ALPHABET = "ab_%()éö中😀";
+
+    private static String[] getRandomTitles(Random random, int size) {
+        Set<String> titles = new TreeSet<>(TitleDictionary.TITLE_ORDER);
+
+        while (titles.size() < size) {
+            StringBuilder sb = new StringBuilder();
+            int length = 1 + random.nextInt(12);
+
+            for (int i = 0; i < length; ++i) {
+                int index = random.nextInt(ALPHABET.length() - 1);
+
+                if (Character.isHighSurrogate(ALPHABET.charAt(index))) {
+                    sb.append(ALPHABET, index, index + 2);
+                } else if (!Character.isLowSurrogate(
+                        ALPHABET.charAt(index))) {
+                    sb.append(ALPHABET.charAt(index));
+                }
+            }
+
+            titles.add(sb.toString());
+        }
+
+        return titles.toArray(new String[size]);
+    }
+
+    @Test
+    public void testLooksUpEveryTitle() {
+        Random random = new Random(13L);
+        String[] titles = getRandomTitles(random, 500);
+
+        for (int blockSize : new int[]{ 1, 3, 16, 1000 }) {
+            TitleDictionary dictionary =
+                    TitleDictionary.build(titles, blockSize);
+            assertEquals(titles.length, dictionary.size());
+
+            for (int id = 0; id < titles.length; ++id) {
+                assertEquals(titles[id], dictionary.getTitle(id));
+                assertEquals(id, dictionary.getId(titles[id]));
+            }
+
+            for (String title : getRandomTitles(random, 200)) {
+                int index = Arrays.binarySearch(titles,
+                                                title,
+                                                TitleDictionary.TITLE_ORDER);
+                assertEquals(index < 0 ? -1 : index, dictionary.getId(title));
+            }
+        }
+    }
+
+    @Test
+    public void testNormalizesTitles() {
+        String[] titles = { "A_B", "L'Oréal_(%22brand%22)", "X%3F" };
+        Arrays.sort(titles, TitleDictionary.TITLE_ORDER);
+        TitleDictionary dictionary = TitleDictionary.build(titles);
+
+        for (String title : titles) {
+            assertEquals(title, encodeWikipediaStyle(title));
+        }
+
+        assertEquals(Arrays.asList(titles).indexOf("A_B"),
+                     dictionary.getId("A B"));
+        assertEquals(Arrays.asList(titles).indexOf("L'Oréal_(%22brand%22)"),
+                     dictionary.getId("L'Oréal (\"brand\")"));
+        assertEquals(Arrays.asList(titles).indexOf("X%3F"),
+                     dictionary.getId("X?"));
+        assertEquals(-1, dictionary.getId("A"));
+        assertEquals(-1, dictionary.getId(""));
+    }
+
+    @Test
+    public void testOrdersTitlesAsUtf8() {
+        // A supplementary character follows U+FFFD in UTF-8, not in UTF-16:
+        String[] titles = { "😀", "�" };
+        assertTrue(TitleDictionary.TITLE_ORDER.compare(titles[0],
+                                                       titles[1]) > 0);
+        assertTrue(titles[0].compareTo(titles[1]) < 0);
+
+        Arrays.sort(titles, TitleDictionary.TITLE_ORDER);
+        TitleDictionary dictionary = TitleDictionary.build(titles, 1);
+        assertEquals(0, dictionary.getId("�"));
+        assertEquals(1, dictionary.getId("😀"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsUnsortedTitles() {
+        TitleDictionary.build(new String[]{ "b", "a" });
+    }
+
+    @Test
+    public void testWritesLayout() throws IOException {
+        String[] titles = getRandomTitles(new Random(7L), 100);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TitleDictionary.build(titles).write(out);
+        TitleDictionary dictionary =
+                new TitleDictionary(ByteBuffer.wrap(out.toByteArray()));
+
+        assertEquals(out.size(), dictionary.getSizeInBytes());
+
+        for (int id = 0; id < titles.length; ++id) {
+            assertEquals(titles[id], dictionary.getTitle(id));
+        }
+    }
+}
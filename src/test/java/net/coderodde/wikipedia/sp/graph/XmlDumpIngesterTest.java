@@ -0,0 +1,83 @@
+package net.coderodde.wikipedia.sp.graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class XmlDumpIngesterTest {
+
+    private static final String DUMP = "testwiki-20240601-pages-articles.xml";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static File getDump() {
+        return new File(DumpIngesterTest.getDumpDirectory("xml"), DUMP);
+    }
+
+    private static String toLinkTitle(String link) {
+        Set<String> namespaceNames =
+                new HashSet<>(Arrays.asList("talk", "category"));
+        return XmlDumpIngester.toLinkTitle(link,
+                                           0,
+                                           link.length(),
+                                           namespaceNames,
+                                           true);
+    }
+
+    @Test
+    public void testIngestsDump() throws IOException {
+        File file = folder.newFile();
+        XmlDumpIngester ingester = new XmlDumpIngester(2, 1);
+        ingester.ingest(getDump(), file);
+
+        assertEquals(7, ingester.getNumberOfPages());
+        DumpIngesterTest.assertFixtureGraph(LinkGraphFile.read(file));
+    }
+
+    @Test
+    public void testIngestsBzip2Dump() throws IOException {
+        File dump = new File(folder.getRoot(), DUMP + ".bz2");
+
+        try (OutputStream out =
+                new BZip2CompressorOutputStream(
+                        Files.newOutputStream(dump.toPath()))) {
+            Files.copy(getDump().toPath(), out);
+        }
+
+        File file = folder.newFile();
+        new XmlDumpIngester(3).ingest(dump, file);
+
+        DumpIngesterTest.assertFixtureGraph(LinkGraphFile.read(file));
+    }
+
+    @Test
+    public void testNormalizesLinkTitles() {
+        assertEquals("Gamma_ray", toLinkTitle("gamma__ray"));
+        assertEquals("Gamma_ray", toLinkTitle(" Gamma \t ray #History"));
+        assertEquals("Élan", toLinkTitle(":élan"));
+        assertEquals("Foo:Bar", toLinkTitle("foo:Bar"));
+        assertEquals(DumpIngesterTest.BRAND,
+                     toLinkTitle("L'Oréal (\"brand\")"));
+        assertNull(toLinkTitle("Category:Letters"));
+        assertNull(toLinkTitle(":category : Letters"));
+        assertNull(toLinkTitle("#Top"));
+        assertNull(toLinkTitle(" _ "));
+    }
+
+    @Test(expected = IOException.class)
+    public void testThrowsOnMalformedDump() throws IOException {
+        File dump = folder.newFile("broken.xml");
+        Files.write(dump.toPath(), "<mediawiki><page><title>A</".getBytes());
+        new XmlDumpIngester(1).ingest(dump, folder.newFile());
+    }
+}
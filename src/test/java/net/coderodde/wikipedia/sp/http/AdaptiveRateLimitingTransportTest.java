@@ -0,0 +1,117 @@
+package net.coderodde.wikipedia.sp.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class AdaptiveRateLimitingTransportTest {
+
+    private final List<String> requestedUrls = new ArrayList<>();
+
+    private static HttpResponse response(int statusCode, 
+                                         String body, 
+                                         String... headers) {
+        Map<String, String> headerMap = new HashMap<>();
+
+        for (int i = 0; i < headers.length; i += 2) {
+            headerMap.put(headers[i], headers[i + 1]);
+        }
+
+        return new HttpResponse(
+                statusCode, 
+                headerMap, 
+                new ByteArrayInputStream(
+                        body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testRetriesMaxlagErrorAndSendsMaxlag() throws IOException {
+        HttpTransport transport = (url) -> {
+            requestedUrls.add(url);
+
+            return requestedUrls.size() == 1 ?
+                   response(200, 
+                            "{\"error\":{\"code\":\"maxlag\"}}",
+                            "MediaWiki-API-Error", "maxlag",
+                            "Retry-After", "0") :
+                   response(200, "{}");
+        };
+
+        AdaptiveRateLimitingTransport limiter = 
+                new AdaptiveRateLimitingTransport(transport, 8);
+
+        try (HttpResponse response = limiter.get("http://stub/api?a=1")) {
+            assertEquals("{}", IOUtils.toString(response.getBody(), 
+                                                 StandardCharsets.UTF_8));
+        }
+
+        assertEquals(Collections.nCopies(2, "http://stub/api?a=1&maxlag=5"), 
+                     requestedUrls);
+        assertEquals(1L, limiter.getThrottleCount());
+    }
+
+    @Test
+    public void testReturnsThrottledResponseAfterRetries() throws IOException {
+        HttpTransport transport = (url) -> {
+            requestedUrls.add(url);
+            return response(429, "", "Retry-After", "0");
+        };
+
+        AdaptiveRateLimitingTransport limiter = 
+                new AdaptiveRateLimitingTransport(transport, 8, 0, 2);
+
+        try (HttpResponse response = limiter.get("http://stub/api")) {
+            assertEquals(429, response.getStatusCode());
+        }
+
+        assertEquals(3, requestedUrls.size());
+        assertEquals(1.0, limiter.getConcurrencyLimit(), 0.0);
+        assertEquals("http://stub/api", requestedUrls.get(0));
+    }
+
+    @Test
+    public void testIncreasesLimitAdditively() throws IOException {
+        AdaptiveRateLimitingTransport limiter = 
+                new AdaptiveRateLimitingTransport((url) -> response(200, ""), 
+                                                  4);
+
+        for (int i = 0; i < 100; ++i) {
+            limiter.get("http://stub/api").close();
+        }
+
+        assertEquals(4.0, limiter.getConcurrencyLimit(), 0.0);
+    }
+
+    @Test
+    public void testForgetsFastOutlier() throws IOException {
+        AdaptiveRateLimitingTransport limiter = 
+                new AdaptiveRateLimitingTransport((url) -> {
+                    if (!requestedUrls.isEmpty()) {
+                        try {
+                            Thread.sleep(2L);
+                        } catch (InterruptedException ex) {
+                            throw new IOException(ex);
+                        }
+                    }
+
+                    requestedUrls.add(url);
+                    return response(200, "");
+                }, 8);
+
+        // Only the first response is fast:
+        for (int i = 0; i < 3 * AdaptiveRateLimitingTransport
+                                       .LATENCY_WINDOW_SIZE; ++i) {
+            limiter.get("http://stub/api").close();
+        }
+
+        assertTrue(limiter.getConcurrencyLimit() >= 4.0);
+    }
+}
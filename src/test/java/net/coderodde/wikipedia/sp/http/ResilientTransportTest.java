@@ -0,0 +1,184 @@
+package net.coderodde.wikipedia.sp.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ResilientTransportTest {
+
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    private static HttpResponse response(int statusCode) {
+        return new HttpResponse(statusCode, 
+                                Collections.emptyMap(), 
+                                new ByteArrayInputStream(new byte[0]));
+    }
+
+    private static HttpResponse throttledResponse() {
+        return new HttpResponse(429, 
+                                Collections.singletonMap("Retry-After", "1"), 
+                                new ByteArrayInputStream(new byte[0]));
+    }
+
+    @Test
+    public void testRetriesTransientFailures() throws IOException {
+        HttpTransport transport = (url) -> {
+            switch (requestCount.incrementAndGet()) {
+                case 1:
+                    throw new IOException("Connection reset.");
+
+                case 2:
+                    return response(502);
+
+                default:
+                    return response(200);
+            }
+        };
+
+        ResilientTransport resilientTransport = 
+                new ResilientTransport(transport, 3, 0, 1L, 2L);
+
+        assertEquals(200, resilientTransport.get("http://stub/api")
+                                            .getStatusCode());
+        assertEquals(3, requestCount.get());
+        assertEquals(2L, resilientTransport.getRetryCount());
+    }
+
+    @Test(expected = IOException.class)
+    public void testGivesUpAfterMaximumRetries() throws IOException {
+        HttpTransport transport = (url) -> {
+            requestCount.incrementAndGet();
+            throw new IOException("Connection refused.");
+        };
+
+        try {
+            new ResilientTransport(transport, 2, 0, 1L, 2L)
+                    .get("http://stub/api");
+        } finally {
+            assertEquals(3, requestCount.get());
+        }
+    }
+
+    @Test
+    public void testHedgesStraggler() throws Exception {
+        CountDownLatch stragglerLatch = new CountDownLatch(1);
+        CountDownLatch stragglerClosed = new CountDownLatch(1);
+        int stragglerIndex = 33;
+
+        HttpTransport transport = (url) -> {
+            if (requestCount.incrementAndGet() != stragglerIndex) {
+                return response(200);
+            }
+
+            try {
+                stragglerLatch.await();
+            } catch (InterruptedException ex) {
+                // Cancelled, but answer anyway like a blocking connection.
+            }
+
+            return new HttpResponse(
+                    200, 
+                    Collections.emptyMap(), 
+                    new ByteArrayInputStream(new byte[0]) {
+                        @Override
+                        public void close() {
+                            stragglerClosed.countDown();
+                        }
+                    });
+        };
+
+        ResilientTransport resilientTransport = 
+                new ResilientTransport(transport, 0, 95, 1L, 2L);
+
+        for (int i = 1; i < stragglerIndex; ++i) {
+            resilientTransport.get("http://stub/api").close();
+        }
+
+        assertTrue(resilientTransport.getHedgeThreshold() >= 0L);
+        
+        try (HttpResponse response = resilientTransport.get("http://stub/api")) {
+            assertEquals(200, response.getStatusCode());
+        }
+
+        assertEquals(1L, resilientTransport.getHedgeCount());
+        stragglerLatch.countDown();
+        assertTrue(stragglerClosed.await(10L, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testLatencyExcludesRateLimiterWait() throws IOException {
+        HttpTransport transport = (url) -> 
+                requestCount.incrementAndGet() == 1 ? 
+                throttledResponse() : 
+                response(200);
+
+        ResilientTransport resilientTransport = 
+                new ResilientTransport(
+                        new AdaptiveRateLimitingTransport(transport, 4), 
+                        0, 99, 1L, 2L);
+
+        for (int i = 0; i < 32; ++i) {
+            resilientTransport.get("http://stub/api").close();
+        }
+
+        // The first request waited a second for the Retry-After to pass:
+        assertTrue(resilientTransport.getHedgeThreshold() >= 0L);
+        assertTrue(resilientTransport.getHedgeThreshold() < 
+                   TimeUnit.MILLISECONDS.toNanos(500L));
+    }
+
+    @Test
+    public void testDoesNotHedgeWhileRateLimiterSaturated() throws Exception {
+        CountDownLatch stragglerLatch = new CountDownLatch(1);
+        int stragglerIndex = 33;
+
+        HttpTransport transport = (url) -> {
+            try {
+                if (requestCount.incrementAndGet() == stragglerIndex) {
+                    stragglerLatch.await();
+                } else {
+                    Thread.sleep(5L);
+                }
+            } catch (InterruptedException ex) {
+                // Cancelled, but answer anyway like a blocking connection.
+            }
+
+            return response(200);
+        };
+
+        ResilientTransport resilientTransport = 
+                new ResilientTransport(
+                        new AdaptiveRateLimitingTransport(transport, 1), 
+                        0, 95, 1L, 2L);
+
+        for (int i = 1; i < stragglerIndex; ++i) {
+            resilientTransport.get("http://stub/api").close();
+        }
+
+        assertTrue(resilientTransport.getHedgeThreshold() >= 0L);
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(200L);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+
+            stragglerLatch.countDown();
+        });
+        releaser.start();
+
+        // The straggler holds the only permit, so a hedge would just queue:
+        try (HttpResponse response = resilientTransport.get("http://stub/api")) {
+            assertEquals(200, response.getStatusCode());
+        }
+
+        releaser.join();
+        assertEquals(0L, resilientTransport.getHedgeCount());
+        assertEquals(stragglerIndex, requestCount.get());
+    }
+}
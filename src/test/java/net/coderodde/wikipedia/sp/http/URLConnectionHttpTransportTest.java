@@ -0,0 +1,88 @@
+package net.coderodde.wikipedia.sp.http;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class URLConnectionHttpTransportTest {
+
+    private HttpServer server;
+    private String baseUrl;
+
+    @Before
+    public void before() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+
+        server.createContext("/gzip", (exchange) -> {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+            try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+                gzip.write("{\"ok\":true}".getBytes(StandardCharsets.UTF_8));
+            }
+
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, bytes.size());
+
+            try (OutputStream out = exchange.getResponseBody()) {
+                bytes.writeTo(out);
+            }
+        });
+
+        server.createContext("/throttled", (exchange) -> {
+            byte[] body = "slow down".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Retry-After", "3");
+            exchange.sendResponseHeaders(429, body.length);
+
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void after() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testDecodesGzip() throws IOException {
+        HttpTransport transport = new URLConnectionHttpTransport();
+
+        try (HttpResponse response = transport.get(baseUrl + "/gzip")) {
+            assertEquals(200, response.getStatusCode());
+            assertEquals("{\"ok\":true}", 
+                         IOUtils.toString(response.getBody(), 
+                                          StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testExposesErrorResponses() throws IOException {
+        HttpTransport transport = new URLConnectionHttpTransport(1000, 1000, 1);
+
+        // With a single permit per host the second request succeeds only if
+        // closing the first one released its permit.
+        for (int i = 0; i < 2; ++i) {
+            try (HttpResponse response = 
+                    transport.get(baseUrl + "/throttled")) {
+                assertEquals(429, response.getStatusCode());
+                assertEquals("3", response.getHeader("retry-after"));
+                assertEquals("slow down", 
+                             IOUtils.toString(response.getBody(),
+                                              StandardCharsets.UTF_8));
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package net.coderodde.wikipedia.sp.support;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.coderodde.wikipedia.sp.AbstractWikipediaShortestPathFinder;
+import net.coderodde.wikipedia.sp.StubWikipediaTransport;
+import net.coderodde.wikipedia.sp.http.HttpResponse;
+import net.coderodde.wikipedia.sp.http.HttpTransport;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class AsynchronousWikipediaShortestPathFinderTest {
+
+    private static final String API_URL = "http://stub/w/api.php";
+    private static final int NUMBER_OF_NODES = 2000;
+    private static final int QUERIES = 30;
+
+    private StubWikipediaTransport transport;
+    private Map<String, Set<String>> childMap;
+
+    @Before
+    public void before() {
+        transport = new StubWikipediaTransport(10);
+        childMap = new HashMap<>();
+        AbstractWikipediaShortestPathFinder.getSharedNeighborCache().clear();
+        Random random = new Random(23L);
+
+        for (int i = 0; i < 3 * NUMBER_OF_NODES; ++i) {
+            addArc("N" + random.nextInt(NUMBER_OF_NODES),
+                   "N" + random.nextInt(NUMBER_OF_NODES));
+        }
+    }
+
+    @Test
+    public void testFindsShortestPaths() {
+        Random random = new Random(41L);
+
+        for (int query = 0; query < QUERIES; ++query) {
+            String source = "N" + random.nextInt(NUMBER_OF_NODES);
+            String target = "N" + random.nextInt(NUMBER_OF_NODES);
+            AbstractWikipediaShortestPathFinder finder =
+                    new AsynchronousWikipediaShortestPathFinder(1 + query % 7,
+                                                                transport);
+            finder.setExpansionBatchSize(1 + query % 20);
+            finder.setNeighborCache(null);
+
+            List<String> path = finder.search(source,
+                                              target,
+                                              API_URL,
+                                              null,
+                                              null,
+                                              null);
+
+            assertEquals(getDistance(source, target), path.size() - 1);
+
+            if (!path.isEmpty()) {
+                assertEquals(source, path.get(0));
+                assertEquals(target, path.get(path.size() - 1));
+
+                for (int i = 1; i < path.size(); ++i) {
+                    assertTrue(childMap.get(path.get(i - 1))
+                                       .contains(path.get(i)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReturnsEmptyPathIfTargetUnreachable() {
+        transport.addArcs("Source", "A", "B")
+                 .addArcs("A", "B")
+                 .addArcs("Target", "Source");
+        AbstractWikipediaShortestPathFinder finder =
+                new AsynchronousWikipediaShortestPathFinder(4, transport);
+
+        assertTrue(finder.search("Source",
+                                 "Target",
+                                 API_URL,
+                                 null,
+                                 null,
+                                 null).isEmpty());
+    }
+
+    @Test
+    public void testBoundsFetchesInFlight() {
+        for (int i = 0; i < 40; ++i) {
+            transport.addArcs("Source", "A" + i)
+                     .addArcs("A" + i, "B" + i)
+                     .addArcs("C" + i, "Target");
+        }
+
+        transport.addArcs("B39", "C39");
+        LatencyTransport latencyTransport = new LatencyTransport(transport);
+        AbstractWikipediaShortestPathFinder finder =
+                new AsynchronousWikipediaShortestPathFinder(6,
+                                                            latencyTransport);
+        finder.setExpansionBatchSize(1);
+        finder.setNeighborCache(null);
+
+        assertEquals(Arrays.asList("Source", "A39", "B39", "C39", "Target"),
+                     finder.search("Source",
+                                   "Target",
+                                   API_URL,
+                                   null,
+                                   null,
+                                   null));
+
+        assertTrue(latencyTransport.maximumRequestsInFlight.get() > 1);
+        assertTrue(latencyTransport.maximumRequestsInFlight.get() <= 6);
+    }
+
+    private void addArc(String tail, String head) {
+        if (childMap.computeIfAbsent(tail, (t) -> new HashSet<>()).add(head)) {
+            transport.addArcs(tail, head);
+            childMap.computeIfAbsent(head, (h) -> new HashSet<>());
+        }
+    }
+
+    /**
+     * Returns the length of a shortest path from {@code source} to
+     * {@code target}, or -1 if there is none.
+     */
+    private int getDistance(String source, String target) {
+        Map<String, Integer> distance = new HashMap<>();
+        Deque<String> queue = new ArrayDeque<>();
+        distance.put(source, 0);
+        queue.add(source);
+
+        while (!queue.isEmpty()) {
+            String current = queue.removeFirst();
+
+            if (current.equals(target)) {
+                return distance.get(current);
+            }
+
+            for (String child : childMap.getOrDefault(current,
+                                                       new HashSet<>())) {
+                if (!distance.containsKey(child)) {
+                    distance.put(child, distance.get(current) + 1);
+                    queue.addLast(child);
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Delays each request and records the most requests in flight at a time.
+     */
+    private static final class LatencyTransport implements HttpTransport {
+
+        private final HttpTransport transport;
+        private final AtomicInteger requestsInFlight = new AtomicInteger();
+        private final AtomicInteger maximumRequestsInFlight =
+                new AtomicInteger();
+
+        LatencyTransport(HttpTransport transport) {
+            this.transport = transport;
+        }
+
+        @Override
+        public HttpResponse get(String url) throws IOException {
+            maximumRequestsInFlight.accumulateAndGet(
+                    requestsInFlight.incrementAndGet(),
+                    Math::max);
+
+            try {
+                Thread.sleep(5L);
+                return transport.get(url);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException(ex);
+            } finally {
+                requestsInFlight.decrementAndGet();
+            }
+        }
+    }
+}
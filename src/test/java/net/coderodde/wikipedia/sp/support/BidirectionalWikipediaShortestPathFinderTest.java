@@ -0,0 +1,152 @@
+package net.coderodde.wikipedia.sp.support;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import net.coderodde.wikipedia.sp.AbstractWikipediaShortestPathFinder;
+import net.coderodde.wikipedia.sp.FetchCostModel;
+import net.coderodde.wikipedia.sp.StubWikipediaTransport;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class BidirectionalWikipediaShortestPathFinderTest {
+
+    private static final String API_URL = "http://stub/w/api.php";
+
+    private StubWikipediaTransport transport;
+
+    @Before
+    public void before() {
+        // The arc from "Big_hub" to "Target" is on the last page of the link
+        // list of "Big_hub" and on the second page of the backlinks of
+        // "Target".
+        transport = new StubWikipediaTransport(2);
+        transport.addArcs("X1", "Target")
+                 .addArcs("X2", "Target")
+                 .addArcs("X3", "Target")
+                 .addArcs("Source", "Big_hub", "Dead_end")
+                 .addArcs("Big_hub", "A", "B", "C", "D", "E", "Target")
+                 .addArcs("A", "B")
+                 .addArcs("Dead_end", "A")
+                 .addArcs("E", "Target");
+        AbstractWikipediaShortestPathFinder.getSharedNeighborCache().clear();
+    }
+
+    @Test
+    public void testRepeatedSearchIsServedFromCache() {
+        // The cache hits teach a model nothing, so the repeated search takes
+        // the same turns only if neither search learns before it ends:
+        AbstractWikipediaShortestPathFinder finder = 
+                new BidirectionalWikipediaShortestPathFinder(transport);
+        finder.setFetchCostModel(
+                new FetchCostModel(FetchCostModel.DEFAULT_SMOOTHING, false));
+        finder.search("Source", "Target", API_URL, null, null, null);
+        int requestCount = transport.getRequestCount();
+
+        AbstractWikipediaShortestPathFinder repeatingFinder = 
+                new BidirectionalWikipediaShortestPathFinder(transport);
+        repeatingFinder.setFetchCostModel(
+                new FetchCostModel(FetchCostModel.DEFAULT_SMOOTHING, false));
+        List<String> path = repeatingFinder.search("Source", 
+                                                   "Target", 
+                                                   API_URL, 
+                                                   null, 
+                                                   null, 
+                                                   null);
+
+        assertEquals(Arrays.asList("Source", "Big_hub", "Target"), path);
+        assertEquals(requestCount, transport.getRequestCount());
+        assertTrue(finder.getNeighborCache().getHitCount() > 0);
+    }
+
+    @Test
+    public void testFollowsContinuation() {
+        AbstractWikipediaShortestPathFinder finder = 
+                new BidirectionalWikipediaShortestPathFinder(transport);
+
+        List<String> path = finder.search("Source", 
+                                          "Target", 
+                                          API_URL, 
+                                          null, 
+                                          null, 
+                                          null);
+
+        assertEquals(Arrays.asList("Source", "Big_hub", "Target"), path);
+    }
+
+    @Test
+    public void testBatchedExpansionFindsSamePath() {
+        AbstractWikipediaShortestPathFinder finder = 
+                new BidirectionalWikipediaShortestPathFinder(transport);
+        finder.setExpansionBatchSize(50);
+
+        List<String> path = finder.search("Source", 
+                                          "Target", 
+                                          API_URL, 
+                                          null, 
+                                          null, 
+                                          null);
+
+        assertEquals(Arrays.asList("Source", "Big_hub", "Target"), path);
+    }
+
+    @Test
+    public void testParallelFinderFindsShortestPath() {
+        AbstractWikipediaShortestPathFinder finder = 
+                new ParallelMultidirectionalWikipediaShortestPathFinder(
+                        2, 
+                        transport);
+        finder.setExpansionBatchSize(50);
+
+        List<String> path = finder.search("Source", 
+                                          "Target", 
+                                          API_URL, 
+                                          null, 
+                                          null, 
+                                          null);
+
+        assertEquals(Arrays.asList("Source", "Big_hub", "Target"), path);
+    }
+
+    @Test
+    public void testCollapsesRedirects() {
+        transport.addArcs("Start", "Old_name", "Dead_end")
+                 .addRedirect("Old_name", "New_name")
+                 .addArcs("New_name", "Goal")
+                 .addArcs("Other", "Goal");
+        AbstractWikipediaShortestPathFinder finder = 
+                new BidirectionalWikipediaShortestPathFinder(transport);
+
+        assertEquals(Arrays.asList("Start", "New_name", "Goal"),
+                     finder.search("Start", "Goal", API_URL, null, null, null));
+    }
+
+    @Test
+    public void testResolvesTitlesUpFront() {
+        transport.addRedirect("Old_name", "New_name")
+                 .addArcs("New_name", "Goal");
+        AbstractWikipediaShortestPathFinder finder = 
+                new BidirectionalWikipediaShortestPathFinder(transport);
+
+        Map<String, String> canonicalTitleMap = 
+                finder.getRedirectResolver()
+                      .resolve(API_URL, 
+                               Arrays.asList("Old_name", "Goal", "No_such"));
+
+        assertEquals("New_name", canonicalTitleMap.get("Old_name"));
+        assertEquals("Goal", canonicalTitleMap.get("Goal"));
+        assertFalse(canonicalTitleMap.containsKey("No_such"));
+        assertEquals(1, transport.getRequestCount());
+    }
+
+    @Test
+    public void testUnreachableTarget() {
+        transport.addArcs("Island", "Isle");
+        AbstractWikipediaShortestPathFinder finder = 
+                new BidirectionalWikipediaShortestPathFinder(transport);
+
+        assertTrue(finder.search("Source", "Isle", API_URL, null, null, null)
+                         .isEmpty());
+    }
+}
@@ -0,0 +1,190 @@
+package net.coderodde.wikipedia.sp.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.wikipedia.sp.AbstractWikipediaShortestPathFinder;
+import net.coderodde.wikipedia.sp.FetchCostModel;
+import net.coderodde.wikipedia.sp.StubWikipediaTransport;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the HTTP requests per query of picking the search direction by the
+ * frontier sizes alone against picking it by the learned fetch cost. The
+ * stub graph pages the link lists as the Wikipedia API does, with up to 500
+ * links per response. Many articles have a redirect, and some of the links
+ * go through one, so that the backlinks of an article take another request
+ * to follow the backlinks of its redirects. A few hubs are linked from a
+ * large share of the articles, and half of the queries lead to a hub. The
+ * neighbor cache is off so that every expansion is fetched. Run with
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=net.coderodde.wikipedia.sp.support.DirectionSelectionBenchmark
+ * </pre>
+ * and compare the {@code requests} columns divided by the {@code queries}
+ * columns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class DirectionSelectionBenchmark {
+
+    private static final String API_URL = "http://stub/w/api.php";
+    private static final int ARTICLES = 20_000;
+    private static final int LINKS_PER_ARTICLE = 16;
+    private static final double REDIRECT_PROBABILITY = 0.6;
+    private static final double REDIRECT_LINK_PROBABILITY = 0.3;
+    private static final int HUBS = 20;
+    private static final double HUB_LINK_PROBABILITY = 0.3;
+    private static final int PAGE_SIZE = 500;
+    private static final int QUERIES = 256;
+
+    /**
+     * {@code "size"} picks the direction by the sizes alone, {@code "cost"}
+     * by the estimated requests.
+     */
+    @Param({"size", "cost"})
+    public String policy;
+
+    @Param({"sequential", "layered"})
+    public String engine;
+
+    private StubWikipediaTransport transport;
+    private AbstractWikipediaShortestPathFinder finder;
+    private String[] sourceTitles;
+    private String[] targetTitles;
+
+    /**
+     * Counts the requests sent and the queries run.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RequestCounter {
+
+        public long requests;
+        public long queries;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            requests = 0L;
+            queries = 0L;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        Random random = new Random(61L);
+        transport = new StubWikipediaTransport(PAGE_SIZE);
+        boolean[] hasRedirect = new boolean[ARTICLES];
+
+        for (int i = 0; i < ARTICLES; ++i) {
+            if (random.nextDouble() < REDIRECT_PROBABILITY) {
+                hasRedirect[i] = true;
+                transport.addRedirect(redirect(i), article(i));
+            }
+        }
+
+        for (int i = 0; i < ARTICLES; ++i) {
+            List<String> heads = new ArrayList<>();
+
+            for (int j = 0; j < LINKS_PER_ARTICLE; ++j) {
+                int head = random.nextInt(ARTICLES);
+
+                heads.add(hasRedirect[head] &&
+                          random.nextDouble() < REDIRECT_LINK_PROBABILITY ?
+                          redirect(head) :
+                          article(head));
+            }
+
+            for (int j = 0; j < HUBS; ++j) {
+                if (random.nextDouble() < HUB_LINK_PROBABILITY / HUBS) {
+                    heads.add(hub(j));
+                }
+            }
+
+            transport.addArcs(article(i), heads.toArray(new String[0]));
+        }
+
+        for (int j = 0; j < HUBS; ++j) {
+            transport.addArcs(hub(j), article(random.nextInt(ARTICLES)));
+        }
+
+        sourceTitles = new String[QUERIES];
+        targetTitles = new String[QUERIES];
+
+        for (int i = 0; i < QUERIES; ++i) {
+            sourceTitles[i] = article(random.nextInt(ARTICLES));
+            targetTitles[i] = i % 2 == 0 ?
+                              hub(random.nextInt(HUBS)) :
+                              article(random.nextInt(ARTICLES));
+        }
+
+        finder = "layered".equals(engine) ?
+                 new LayeredWikipediaShortestPathFinder(4, transport) :
+                 new BidirectionalWikipediaShortestPathFinder(transport);
+        finder.setExpansionBatchSize(
+                AbstractWikipediaShortestPathFinder.MAXIMUM_BATCH_SIZE);
+        finder.setNeighborCache(null);
+        finder.setFetchCostModel("cost".equals(policy) ?
+                                 new FetchCostModel() :
+                                 new FetchCostModel(0.0));
+    }
+
+    /**
+     * Runs all the queries once, so that every iteration counts the requests
+     * of the same queries.
+     */
+    @Benchmark
+    public int search(RequestCounter counter) {
+        int requestCount = transport.getRequestCount();
+        int length = 0;
+
+        for (int i = 0; i < QUERIES; ++i) {
+            length += finder.search(sourceTitles[i],
+                                    targetTitles[i],
+                                    API_URL,
+                                    null, null, null).size();
+        }
+
+        counter.requests += transport.getRequestCount() - requestCount;
+        counter.queries += QUERIES;
+        return length;
+    }
+
+    private static String article(int index) {
+        return "Article_" + index;
+    }
+
+    private static String redirect(int index) {
+        return "Redirect_" + index;
+    }
+
+    private static String hub(int index) {
+        return "Hub_" + index;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DirectionSelectionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,190 @@
+package net.coderodde.wikipedia.sp.support;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.wikipedia.sp.AbstractWikipediaShortestPathFinder;
+import net.coderodde.wikipedia.sp.StubWikipediaTransport;
+import net.coderodde.wikipedia.sp.http.HttpResponse;
+import net.coderodde.wikipedia.sp.http.URLConnectionHttpTransport;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the search engines when the fetches are dominated by the network
+ * latency. A local HTTP server answers the link queries from a stub graph
+ * after a fixed delay, and the finders reach it through the real URL
+ * connection transport, with as many connections as the finders may use.
+ * The {@code concurrency} is the thread count of the multidirectional and the
+ * layered finders, and the number of fetches in flight of the asynchronous
+ * finder. The neighbor cache is off so that every expansion is fetched. Run
+ * with
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=net.coderodde.wikipedia.sp.support.FetchConcurrencyBenchmark
+ * </pre>
+ * and divide the scores by {@value #QUERIES} for the milliseconds per query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class FetchConcurrencyBenchmark {
+
+    private static final String API_PATH = "/w/api.php";
+    private static final int ARTICLES = 50_000;
+    private static final int LINKS_PER_ARTICLE = 20;
+    private static final int PAGE_SIZE = 500;
+    private static final int BATCH_SIZE = 10;
+    private static final long LATENCY_MILLIS = 100L;
+    private static final int QUERIES = 8;
+
+    @Param({"multidirectional", "layered", "asynchronous"})
+    public String engine;
+
+    @Param({"8", "64"})
+    public int concurrency;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private AbstractWikipediaShortestPathFinder finder;
+    private String apiUrl;
+    private String[] sourceTitles;
+    private String[] targetTitles;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(71L);
+        StubWikipediaTransport stub = new StubWikipediaTransport(PAGE_SIZE);
+
+        for (int i = 0; i < ARTICLES; ++i) {
+            List<String> heads = new ArrayList<>();
+
+            for (int j = 0; j < LINKS_PER_ARTICLE; ++j) {
+                heads.add(article(random.nextInt(ARTICLES)));
+            }
+
+            stub.addArcs(article(i), heads.toArray(new String[0]));
+        }
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0),
+                                   1024);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext(API_PATH, (exchange) -> {
+            try {
+                Thread.sleep(LATENCY_MILLIS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+
+            byte[] body;
+
+            try (HttpResponse response =
+                    stub.get("http://stub" + exchange.getRequestURI())) {
+                body = IOUtils.toByteArray(response.getBody());
+            }
+
+            exchange.sendResponseHeaders(200, body.length);
+
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+
+        server.start();
+        apiUrl = "http://127.0.0.1:" + server.getAddress().getPort() +
+                 API_PATH;
+
+        URLConnectionHttpTransport transport =
+                new URLConnectionHttpTransport(
+                        URLConnectionHttpTransport.DEFAULT_CONNECT_TIMEOUT,
+                        URLConnectionHttpTransport.DEFAULT_READ_TIMEOUT,
+                        concurrency);
+
+        switch (engine) {
+            case "layered":
+                finder = new LayeredWikipediaShortestPathFinder(concurrency,
+                                                                transport);
+                break;
+
+            case "asynchronous":
+                finder = new AsynchronousWikipediaShortestPathFinder(
+                        concurrency,
+                        transport);
+                break;
+
+            default:
+                finder =
+                    new ParallelMultidirectionalWikipediaShortestPathFinder(
+                        concurrency / 2,
+                        transport);
+        }
+
+        finder.setExpansionBatchSize(BATCH_SIZE);
+        finder.setNeighborCache(null);
+        sourceTitles = new String[QUERIES];
+        targetTitles = new String[QUERIES];
+
+        for (int i = 0; i < QUERIES; ++i) {
+            sourceTitles[i] = article(random.nextInt(ARTICLES));
+            targetTitles[i] = article(random.nextInt(ARTICLES));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    /**
+     * Runs all the queries once.
+     */
+    @Benchmark
+    public int search() {
+        int length = 0;
+
+        for (int i = 0; i < QUERIES; ++i) {
+            length += finder.search(sourceTitles[i],
+                                    targetTitles[i],
+                                    apiUrl,
+                                    null, null, null).size();
+        }
+
+        return length;
+    }
+
+    private static String article(int index) {
+        return "Article_" + index;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FetchConcurrencyBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
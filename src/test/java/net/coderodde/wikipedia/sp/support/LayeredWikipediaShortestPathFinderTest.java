@@ -0,0 +1,171 @@
+package net.coderodde.wikipedia.sp.support;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import net.coderodde.wikipedia.sp.AbstractWikipediaShortestPathFinder;
+import net.coderodde.wikipedia.sp.StubWikipediaTransport;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LayeredWikipediaShortestPathFinderTest {
+
+    private static final String API_URL = "http://stub/w/api.php";
+    private static final int NUMBER_OF_NODES = 2000;
+    private static final int QUERIES = 30;
+
+    private StubWikipediaTransport transport;
+    private Map<String, Set<String>> childMap;
+
+    @Before
+    public void before() {
+        transport = new StubWikipediaTransport(10);
+        childMap = new HashMap<>();
+        AbstractWikipediaShortestPathFinder.getSharedNeighborCache().clear();
+        Random random = new Random(17L);
+
+        for (int i = 0; i < 3 * NUMBER_OF_NODES; ++i) {
+            addArc("N" + random.nextInt(NUMBER_OF_NODES),
+                   "N" + random.nextInt(NUMBER_OF_NODES));
+        }
+    }
+
+    @Test
+    public void testFollowsContinuation() {
+        transport.addArcs("Source", "Big_hub", "Dead_end")
+                 .addArcs("Big_hub", "A", "B", "C", "D", "E", "Target")
+                 .addArcs("X1", "Target")
+                 .addArcs("E", "Target");
+        AbstractWikipediaShortestPathFinder finder =
+                new LayeredWikipediaShortestPathFinder(4, transport);
+
+        assertEquals(Arrays.asList("Source", "Big_hub", "Target"),
+                     finder.search("Source",
+                                   "Target",
+                                   API_URL,
+                                   null,
+                                   null,
+                                   null));
+    }
+
+    @Test
+    public void testFindsShortestPaths() {
+        Random random = new Random(31L);
+
+        for (int query = 0; query < QUERIES; ++query) {
+            String source = "N" + random.nextInt(NUMBER_OF_NODES);
+            String target = "N" + random.nextInt(NUMBER_OF_NODES);
+            AbstractWikipediaShortestPathFinder finder =
+                    new LayeredWikipediaShortestPathFinder(8, transport);
+            finder.setExpansionBatchSize(1 + query % 20);
+
+            List<String> path = finder.search(source,
+                                              target,
+                                              API_URL,
+                                              null,
+                                              null,
+                                              null);
+
+            assertEquals(getDistance(source, target), path.size() - 1);
+
+            if (!path.isEmpty()) {
+                assertEquals(source, path.get(0));
+                assertEquals(target, path.get(path.size() - 1));
+
+                for (int i = 1; i < path.size(); ++i) {
+                    assertTrue(childMap.get(path.get(i - 1))
+                                       .contains(path.get(i)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testExpansionsAreDeterministicAndMinimal() {
+        Random random = new Random(37L);
+
+        for (int query = 0; query < QUERIES; ++query) {
+            String source = "N" + random.nextInt(NUMBER_OF_NODES);
+            String target = "N" + random.nextInt(NUMBER_OF_NODES);
+            AbstractWikipediaShortestPathFinder sequentialFinder =
+                    new BidirectionalWikipediaShortestPathFinder(transport);
+            sequentialFinder.setExpansionBatchSize(10);
+            sequentialFinder.search(source, target, API_URL, null, null, null);
+            List<String> expectedPath = null;
+            int expectedExpansions = -1;
+
+            for (int parallelism : new int[]{ 1, 3, 16 }) {
+                AbstractWikipediaShortestPathFinder finder =
+                        new LayeredWikipediaShortestPathFinder(parallelism,
+                                                               transport);
+                finder.setExpansionBatchSize(10);
+
+                List<String> path = finder.search(source,
+                                                  target,
+                                                  API_URL,
+                                                  null,
+                                                  null,
+                                                  null);
+
+                if (expectedPath == null) {
+                    expectedPath = path;
+                    expectedExpansions = finder.getNumberOfExpandedNodes();
+                }
+
+                assertEquals(expectedPath, path);
+                assertEquals(expectedExpansions,
+                             finder.getNumberOfExpandedNodes());
+
+                // Without a path, the expansions depend on which direction 
+                // runs out first:
+                if (!path.isEmpty()) {
+                    assertTrue(finder.getNumberOfExpandedNodes() <=
+                               sequentialFinder.getNumberOfExpandedNodes());
+                }
+            }
+        }
+    }
+
+    private void addArc(String tail, String head) {
+        if (childMap.computeIfAbsent(tail, (t) -> new HashSet<>()).add(head)) {
+            transport.addArcs(tail, head);
+            childMap.computeIfAbsent(head, (h) -> new HashSet<>());
+        }
+    }
+
+    /**
+     * Returns the length of a shortest path from {@code source} to
+     * {@code target}, or -1 if there is none.
+     */
+    private int getDistance(String source, String target) {
+        Map<String, Integer> distance = new HashMap<>();
+        Deque<String> queue = new ArrayDeque<>();
+        distance.put(source, 0);
+        queue.add(source);
+
+        while (!queue.isEmpty()) {
+            String current = queue.removeFirst();
+
+            if (current.equals(target)) {
+                return distance.get(current);
+            }
+
+            for (String child : childMap.getOrDefault(current,
+                                                       new HashSet<>())) {
+                if (!distance.containsKey(child)) {
+                    distance.put(child, distance.get(current) + 1);
+                    queue.addLast(child);
+                }
+            }
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,173 @@
+package net.coderodde.wikipedia.sp.support;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import net.coderodde.wikipedia.sp.AbstractWikipediaShortestPathFinder;
+import net.coderodde.wikipedia.sp.StubWikipediaTransport;
+import net.coderodde.wikipedia.sp.graph.CSRLinkGraph;
+import net.coderodde.wikipedia.sp.graph.CompressedLinkGraph;
+import net.coderodde.wikipedia.sp.graph.LinkGraph;
+import net.coderodde.wikipedia.sp.graph.LinkGraphFile;
+import net.coderodde.wikipedia.sp.graph.LinkGraphs;
+import net.coderodde.wikipedia.sp.graph.MappedLinkGraph;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class OfflineBidirectionalWikipediaShortestPathFinderTest {
+
+    private static final String API_URL = "http://stub/w/api.php";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static String title(int id) {
+        return String.format("T%03d", id);
+    }
+
+    @Test
+    public void testFindsSamePathAsOnlineFinder() {
+        // A -> B -> C -> D and a detour A -> E -> F -> G -> D.
+        String[] titles = { "A", "B", "C", "D", "E", "F", "G" };
+        int[][] links = { { 0, 1 }, { 1, 2 }, { 2, 3 }, { 0, 4 }, 
+                          { 4, 5 }, { 5, 6 }, { 6, 3 }, { 3, 0 } };
+        StubWikipediaTransport transport = new StubWikipediaTransport(100);
+
+        for (int[] link : links) {
+            transport.addArcs(titles[link[0]], titles[link[1]]);
+        }
+
+        AbstractWikipediaShortestPathFinder.getSharedNeighborCache().clear();
+        List<String> expectedPath = 
+                new BidirectionalWikipediaShortestPathFinder(transport)
+                        .search("A", "D", API_URL, null, null, null);
+        LinkGraph graph = new CSRLinkGraph(LinkGraphs.build(titles, links));
+
+        assertEquals(Arrays.asList("A", "B", "C", "D"), expectedPath);
+        assertEquals(expectedPath, 
+                     new OfflineBidirectionalWikipediaShortestPathFinder(graph)
+                             .search("A", "D", API_URL, null, null, null));
+    }
+
+    @Test
+    public void testMatchesOnlineFinderOnRandomGraphs() {
+        Random random = new Random(13L);
+
+        for (int trial = 0; trial < 5; ++trial) {
+            int numberOfArticles = 40;
+            String[] titles = new String[numberOfArticles];
+            List<int[]> linkList = new ArrayList<>();
+            Set<String> arcs = new HashSet<>();
+            StubWikipediaTransport transport = 
+                    new StubWikipediaTransport(1000);
+
+            for (int id = 0; id < numberOfArticles; ++id) {
+                titles[id] = title(id);
+            }
+
+            for (int i = 0; i < 70; ++i) {
+                int tail = random.nextInt(numberOfArticles);
+                int head = random.nextInt(numberOfArticles);
+
+                if (tail != head && arcs.add(tail + ">" + head)) {
+                    linkList.add(new int[]{ tail, head });
+                    transport.addArcs(title(tail), title(head));
+                }
+            }
+
+            LinkGraph graph = new CSRLinkGraph(
+                    LinkGraphs.build(titles, 
+                                     linkList.toArray(new int[0][])));
+            OfflineBidirectionalWikipediaShortestPathFinder finder = 
+                    new OfflineBidirectionalWikipediaShortestPathFinder(graph);
+            AbstractWikipediaShortestPathFinder.getSharedNeighborCache()
+                                               .clear();
+
+            for (int query = 0; query < 10; ++query) {
+                String source = title(random.nextInt(numberOfArticles));
+                String target = title(random.nextInt(numberOfArticles));
+                List<String> expectedPath = 
+                        new BidirectionalWikipediaShortestPathFinder(transport)
+                                .search(source, target, API_URL, 
+                                        null, null, null);
+                List<String> path = finder.search(source, target, API_URL, 
+                                                  null, null, null);
+
+                assertEquals(expectedPath.size(), path.size());
+
+                if (!path.isEmpty()) {
+                    assertEquals(source, path.get(0));
+                    assertEquals(target, path.get(path.size() - 1));
+                }
+
+                for (int i = 1; i < path.size(); ++i) {
+                    assertTrue(arcs.contains(
+                            graph.getId(path.get(i - 1)) + ">" + 
+                            graph.getId(path.get(i))));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMissingArticleYieldsNoPath() {
+        LinkGraph graph = new CSRLinkGraph(
+                LinkGraphs.build(new String[]{ "A", "B" }, 
+                                 new int[][]{ { 0, 1 } }));
+        OfflineBidirectionalWikipediaShortestPathFinder finder = 
+                new OfflineBidirectionalWikipediaShortestPathFinder(graph);
+
+        assertTrue(finder.search("A", "C", API_URL, null, null, null)
+                         .isEmpty());
+        assertTrue(finder.search("B", "A", API_URL, null, null, null)
+                         .isEmpty());
+        assertEquals(Arrays.asList("A", "B"),
+                     finder.search("A", "B", API_URL, null, null, null));
+    }
+
+    @Test
+    public void testSearchesMappedGraph() throws IOException {
+        String[] titles = { "A", "B", "C", "D" };
+        LinkGraphFile graphFile = LinkGraphs.build(
+                titles, 
+                new int[][]{ { 0, 1 }, { 1, 2 }, { 2, 3 }, { 0, 2 } });
+        File file = folder.newFile();
+        graphFile.write(file);
+
+        try (MappedLinkGraph graph = new MappedLinkGraph(file)) {
+            assertEquals(
+                    Arrays.asList("A", "C", "D"),
+                    new OfflineBidirectionalWikipediaShortestPathFinder(graph)
+                            .search("A", "D", API_URL, null, null, null));
+        }
+    }
+
+    @Test
+    public void testCompressedGraphYieldsSamePaths() {
+        Random random = new Random(29L);
+        LinkGraphFile graphFile = LinkGraphs.buildRandom(random, 3000, 4);
+        OfflineBidirectionalWikipediaShortestPathFinder expectedFinder = 
+                new OfflineBidirectionalWikipediaShortestPathFinder(
+                        new CSRLinkGraph(graphFile));
+        OfflineBidirectionalWikipediaShortestPathFinder finder = 
+                new OfflineBidirectionalWikipediaShortestPathFinder(
+                        new CompressedLinkGraph(graphFile));
+
+        for (int query = 0; query < 50; ++query) {
+            String source = graphFile.getTitle(random.nextInt(3000));
+            String target = graphFile.getTitle(random.nextInt(3000));
+
+            assertEquals(expectedFinder.search(source, target, API_URL, 
+                                               null, null, null),
+                         finder.search(source, target, API_URL, 
+                                       null, null, null));
+        }
+    }
+}
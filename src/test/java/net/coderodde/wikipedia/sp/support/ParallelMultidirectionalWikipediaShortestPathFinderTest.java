@@ -0,0 +1,269 @@
+package net.coderodde.wikipedia.sp.support;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import net.coderodde.wikipedia.sp.AbstractWikipediaShortestPathFinder;
+import net.coderodde.wikipedia.sp.ProgressLogger;
+import net.coderodde.wikipedia.sp.StubWikipediaTransport;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ParallelMultidirectionalWikipediaShortestPathFinderTest {
+
+    private static final String API_URL = "http://stub/w/api.php";
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 5;
+
+    private StubWikipediaTransport transport;
+    private Map<String, Set<String>> childMap;
+
+    @Before
+    public void before() {
+        transport = new StubWikipediaTransport(10);
+        childMap = new HashMap<>();
+        AbstractWikipediaShortestPathFinder.getSharedNeighborCache().clear();
+    }
+
+    @Test
+    public void testNoLostOrDuplicatedExpansions() {
+        // The target is unreachable, so a search expands the whole component
+        // of the source or the whole component of the target, whichever runs
+        // out first:
+        Random random = new Random(13L);
+        Set<String> forwardComponent = addComponent("F", 2000, false, random);
+        Set<String> backwardComponent = addComponent("B", 2000, true, random);
+
+        for (int batchSize : new int[]{ 1, 50 }) {
+            for (int round = 0; round < ROUNDS; ++round) {
+                AbstractWikipediaShortestPathFinder.getSharedNeighborCache()
+                                                   .clear();
+                CountingLogger forwardLogger = new CountingLogger();
+                CountingLogger backwardLogger = new CountingLogger();
+                AbstractWikipediaShortestPathFinder finder =
+                        new ParallelMultidirectionalWikipediaShortestPathFinder(
+                                THREADS,
+                                transport);
+                finder.setExpansionBatchSize(batchSize);
+
+                assertTrue(finder.search("F0",
+                                         "B0",
+                                         API_URL,
+                                         forwardLogger,
+                                         backwardLogger,
+                                         null).isEmpty());
+
+                forwardLogger.assertClaimedOnce(forwardComponent);
+                backwardLogger.assertClaimedOnce(backwardComponent);
+                assertTrue(
+                        forwardLogger.expansionMap.keySet()
+                                     .equals(forwardComponent) ||
+                        backwardLogger.expansionMap.keySet()
+                                      .equals(backwardComponent));
+                assertEquals(forwardLogger.expansionMap.size() +
+                             backwardLogger.expansionMap.size(),
+                             finder.getNumberOfExpandedNodes());
+            }
+        }
+    }
+
+    @Test
+    public void testFindsPathsInRandomGraph() {
+        Random random = new Random(29L);
+        int numberOfNodes = 500;
+
+        for (int i = 0; i < 3 * numberOfNodes; ++i) {
+            addArc("N" + random.nextInt(numberOfNodes),
+                   "N" + random.nextInt(numberOfNodes));
+        }
+
+        for (int round = 0; round < ROUNDS; ++round) {
+            AbstractWikipediaShortestPathFinder.getSharedNeighborCache()
+                                               .clear();
+            String source = "N" + random.nextInt(numberOfNodes);
+            String target = "N" + random.nextInt(numberOfNodes);
+            CountingLogger forwardLogger = new CountingLogger();
+            CountingLogger backwardLogger = new CountingLogger();
+            AbstractWikipediaShortestPathFinder finder =
+                    new ParallelMultidirectionalWikipediaShortestPathFinder(
+                            THREADS,
+                            transport);
+            finder.setExpansionBatchSize(1 + round);
+
+            List<String> path = finder.search(source,
+                                              target,
+                                              API_URL,
+                                              forwardLogger,
+                                              backwardLogger,
+                                              null);
+
+            forwardLogger.assertClaimedOnce(childMap.keySet());
+            backwardLogger.assertClaimedOnce(childMap.keySet());
+            assertEquals(isReachable(source, target), !path.isEmpty());
+
+            if (!path.isEmpty()) {
+                assertEquals(source, path.get(0));
+                assertEquals(target, path.get(path.size() - 1));
+
+                for (int i = 1; i < path.size(); ++i) {
+                    assertTrue(childMap.get(path.get(i - 1))
+                                       .contains(path.get(i)));
+                }
+            }
+        }
+    }
+
+    @Test(timeout = 2500L)
+    public void testExhaustedDirectionEndsSearchWithoutDelay() {
+        // The backward search runs out of nodes at once; the search used to 
+        // poll the empty queue for half a second before giving up, so that 
+        // the ten searches took at least five seconds:
+        addArc("A", "B");
+        addArc("B", "A");
+        addArc("C", "A");
+
+        for (int round = 0; round < 10; ++round) {
+            AbstractWikipediaShortestPathFinder.getSharedNeighborCache()
+                                               .clear();
+            AbstractWikipediaShortestPathFinder finder =
+                    new ParallelMultidirectionalWikipediaShortestPathFinder(
+                            THREADS,
+                            transport);
+
+            assertTrue(finder.search("A", 
+                                     "C", 
+                                     API_URL, 
+                                     null, 
+                                     null, 
+                                     null).isEmpty());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class, timeout = 5000L)
+    public void testFailedFetchEndsSearch() {
+        // The threads parked on an empty frontier used to wait forever for
+        // the threads killed by the failure:
+        AbstractWikipediaShortestPathFinder finder =
+                new ParallelMultidirectionalWikipediaShortestPathFinder(
+                        2,
+                        (url) -> {
+                            throw new IOException("The API is down.");
+                        });
+
+        finder.search("A", "B", API_URL, null, null, null);
+    }
+
+    /**
+     * Adds a component of {@code size} nodes named {@code prefix + i}, in
+     * which node 0 reaches every node or, if {@code reversed} is set, every
+     * node reaches node 0.
+     */
+    private Set<String> addComponent(String prefix,
+                                     int size,
+                                     boolean reversed,
+                                     Random random) {
+        Set<String> component = new HashSet<>();
+        component.add(prefix + 0);
+
+        for (int i = 1; i < size; ++i) {
+            String node = prefix + i;
+            String other = prefix + random.nextInt(i);
+            String extra = prefix + random.nextInt(size);
+
+            if (reversed) {
+                addArc(node, other);
+                addArc(extra, node);
+            } else {
+                addArc(other, node);
+                addArc(node, extra);
+            }
+
+            component.add(node);
+        }
+
+        return component;
+    }
+
+    private void addArc(String tail, String head) {
+        if (childMap.computeIfAbsent(tail, (t) -> new HashSet<>()).add(head)) {
+            transport.addArcs(tail, head);
+            childMap.computeIfAbsent(head, (h) -> new HashSet<>());
+        }
+    }
+
+    private boolean isReachable(String source, String target) {
+        Set<String> visited = new HashSet<>();
+        List<String> stack = new ArrayList<>();
+        visited.add(source);
+        stack.add(source);
+
+        while (!stack.isEmpty()) {
+            String current = stack.remove(stack.size() - 1);
+
+            if (current.equals(target)) {
+                return true;
+            }
+
+            for (String child : childMap.get(current)) {
+                if (visited.add(child)) {
+                    stack.add(child);
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Counts the expansions and the generations of each node.
+     */
+    private static final class CountingLogger extends ProgressLogger<String> {
+
+        final Map<String, Integer> expansionMap = new ConcurrentHashMap<>();
+        final Map<String, Integer> generationMap = new ConcurrentHashMap<>();
+
+        @Override
+        public void onExpansion(String node) {
+            expansionMap.merge(node, 1, Integer::sum);
+        }
+
+        @Override
+        public void onNeighborGeneration(String node) {
+            generationMap.merge(node, 1, Integer::sum);
+        }
+
+        /**
+         * Asserts that each node was generated and expanded at most once, that
+         * only the nodes of {@code nodes} were, and that each node expanded
+         * was generated or is the start node.
+         */
+        void assertClaimedOnce(Set<String> nodes) {
+            expansionMap.forEach((node, count) -> {
+                assertEquals(node, 1, (int) count);
+                assertTrue(node, nodes.contains(node));
+            });
+
+            generationMap.forEach((node, count) -> {
+                assertEquals(node, 1, (int) count);
+                assertTrue(node, nodes.contains(node));
+            });
+
+            int startNodes = 0;
+
+            for (String node : expansionMap.keySet()) {
+                if (!generationMap.containsKey(node)) {
+                    ++startNodes;
+                }
+            }
+
+            assertTrue(startNodes <= 1);
+        }
+    }
+}